@@ -0,0 +1,155 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.entity.Announcement;
+import com.university.takharrujy.domain.repository.AnnouncementRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Announcement Materialization Service
+ * Copies announcements that asked for it into per-user notification rows in the
+ * background, one keyset chunk of users per short transaction using a set-based
+ * INSERT ... SELECT. Progress is stored on the announcement, so a restart resumes
+ * from the last committed chunk, and only one pooled connection is held at a time.
+ *
+ * Each chunk locks the announcement row and reads the cursor from it, so nodes running
+ * the job at the same time never insert the same chunk twice; a node that finds the row
+ * locked moves on. Rows are inserted read when the user's announcement watermark already
+ * covers the announcement.
+ */
+@Service
+public class AnnouncementMaterializationService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnnouncementMaterializationService.class);
+
+    private static final String INSERT_CHUNK_SQL = """
+        WITH batch AS (
+            SELECT u.id, u.university_id FROM users u
+            WHERE u.university_id = ? AND u.is_active = true AND u.id > ?%s
+            ORDER BY u.id
+            LIMIT ?
+        ), inserted AS (
+            INSERT INTO notifications (university_id, user_id, title, message, read, type,
+                                       resource_type, resource_id, occurrence_count, last_occurred_at,
+                                       created_by, created_at, updated_at, version)
+            SELECT b.university_id, b.id, ?, ?, COALESCE(w.last_read_id >= ?, false), 'ANNOUNCEMENT',
+                   'ANNOUNCEMENT', ?, 1, ?,
+                   'system', ?, ?, 0
+            FROM batch b
+            LEFT JOIN announcement_read_watermarks w ON w.user_id = b.id
+        )
+        SELECT MAX(id) FROM batch
+        """;
+
+    /**
+     * Lock an unfinished announcement for one chunk and read its current cursor; no row
+     * when another node holds it or it has finished
+     */
+    private static final String CLAIM_SQL = """
+        SELECT COALESCE(materialized_through_user_id, 0) FROM announcements
+        WHERE id = ? AND materialized_at IS NULL
+        FOR UPDATE SKIP LOCKED
+        """;
+
+    @Value("${takharrujy.announcements.materialize.chunk-size:2000}")
+    private int chunkSize;
+
+    @Value("${takharrujy.announcements.materialize.chunks-per-run:50}")
+    private int chunksPerRun;
+
+    private final AnnouncementRepository announcementRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public AnnouncementMaterializationService(AnnouncementRepository announcementRepository,
+                                              JdbcTemplate jdbcTemplate,
+                                              PlatformTransactionManager transactionManager) {
+        this.announcementRepository = announcementRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Advance pending materializations. A bounded number of chunks per run keeps
+     * the job from monopolizing the scheduler or the connection pool.
+     */
+    @Scheduled(fixedDelayString = "${takharrujy.announcements.materialize.interval:PT15S}")
+    public void materializePending() {
+        List<Announcement> pending = announcementRepository.findPendingMaterialization(PageRequest.of(0, 10));
+        int budget = chunksPerRun;
+        for (Announcement announcement : pending) {
+            if (budget <= 0) {
+                return;
+            }
+            budget -= materialize(announcement, budget);
+        }
+    }
+
+    /**
+     * Materialize up to {@code maxChunks} chunks of one announcement.
+     * Returns the number of chunks processed.
+     */
+    int materialize(Announcement announcement, int maxChunks) {
+        int chunks = 0;
+
+        while (chunks < maxChunks) {
+            Chunk chunk = transactionTemplate.execute(status -> {
+                List<Long> cursor = jdbcTemplate.queryForList(CLAIM_SQL, Long.class, announcement.getId());
+                if (cursor.isEmpty()) {
+                    return null;
+                }
+                Long through = insertChunk(announcement, cursor.get(0));
+                if (through != null) {
+                    announcementRepository.advanceMaterialization(announcement.getId(), through);
+                } else {
+                    announcementRepository.completeMaterialization(announcement.getId(), Instant.now());
+                }
+                return new Chunk(cursor.get(0), through);
+            });
+            if (chunk == null) {
+                // Being materialized by another node, or already finished
+                break;
+            }
+            chunks++;
+
+            if (chunk.through() == null) {
+                log.info("Announcement [{}] materialized through user [{}]", announcement.getId(), chunk.from());
+                break;
+            }
+        }
+        return chunks;
+    }
+
+    private Long insertChunk(Announcement announcement, long afterUserId) {
+        Timestamp now = Timestamp.from(Instant.now());
+        Timestamp occurredAt = announcement.getCreatedAt() != null ? Timestamp.from(announcement.getCreatedAt()) : now;
+
+        if (announcement.getDepartmentId() == null) {
+            return jdbcTemplate.queryForObject(INSERT_CHUNK_SQL.formatted(""), Long.class,
+                    announcement.getUniversityId(), afterUserId, chunkSize,
+                    announcement.getTitle(), announcement.getMessage(), announcement.getId(), announcement.getId(),
+                    occurredAt, now, now);
+        }
+        return jdbcTemplate.queryForObject(INSERT_CHUNK_SQL.formatted(" AND u.department_id = ?"), Long.class,
+                announcement.getUniversityId(), afterUserId, announcement.getDepartmentId(), chunkSize,
+                announcement.getTitle(), announcement.getMessage(), announcement.getId(), announcement.getId(),
+                occurredAt, now, now);
+    }
+
+    /**
+     * One committed chunk: the cursor it started from and the last user it covered, null once done
+     */
+    private record Chunk(long from, Long through) {
+    }
+}
@@ -0,0 +1,197 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.entity.Announcement;
+import com.university.takharrujy.domain.entity.Department;
+import com.university.takharrujy.domain.entity.User;
+import com.university.takharrujy.domain.enums.NotificationType;
+import com.university.takharrujy.domain.repository.AnnouncementRepository;
+import com.university.takharrujy.domain.repository.DepartmentRepository;
+import com.university.takharrujy.domain.repository.UserRepository;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.exception.ResourceNotFoundException;
+import com.university.takharrujy.presentation.dto.announcement.AnnouncementRequest;
+import com.university.takharrujy.presentation.dto.announcement.AnnouncementResponse;
+import com.university.takharrujy.presentation.dto.notification.NotificationResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Announcement Service
+ * Publishes announcements as a single row (fan-out on read) and exposes them to
+ * recipients through the notification inbox, with read state kept as a per-user
+ * watermark. Per-user materialization, when requested, is done in the background
+ * by {@link AnnouncementMaterializationService}.
+ *
+ * Inbox entries of announcements carry the negated announcement id, so they never
+ * collide with notification ids in the same list (see {@link #isInboxEntryId}).
+ */
+@Service
+public class AnnouncementService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnnouncementService.class);
+
+    static final int INBOX_LIMIT = 50;
+
+    private final AnnouncementRepository announcementRepository;
+    private final DepartmentRepository departmentRepository;
+    private final UserRepository userRepository;
+
+    public AnnouncementService(AnnouncementRepository announcementRepository,
+                               DepartmentRepository departmentRepository,
+                               UserRepository userRepository) {
+        this.announcementRepository = announcementRepository;
+        this.departmentRepository = departmentRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Publish an announcement. Costs one insert regardless of audience size.
+     */
+    @Transactional
+    public AnnouncementResponse publish(AnnouncementRequest request, Long adminUserId) {
+        User admin = userRepository.findById(adminUserId)
+                .orElseThrow(() -> ResourceNotFoundException.user(adminUserId));
+
+        if (request.departmentId() != null) {
+            Department department = departmentRepository.findById(request.departmentId())
+                    .orElseThrow(() -> ResourceNotFoundException.department(request.departmentId()));
+            if (!department.getUniversityId().equals(admin.getUniversityId())) {
+                throw BusinessException.operationNotAllowed("Department does not belong to your university");
+            }
+        }
+
+        Announcement announcement = new Announcement(admin.getUniversityId());
+        announcement.setTitle(request.title());
+        announcement.setMessage(request.message());
+        announcement.setDepartmentId(request.departmentId());
+        announcement.setAuthorId(admin.getId());
+        announcement.setMaterialize(Boolean.TRUE.equals(request.materialize()));
+
+        Announcement saved = announcementRepository.save(announcement);
+        log.info("Announcement [{}] published by admin [{}] to university [{}] department [{}]",
+                saved.getId(), adminUserId, saved.getUniversityId(), saved.getDepartmentId());
+        return toResponse(saved);
+    }
+
+    /**
+     * Announcements of the admin's university, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<AnnouncementResponse> listForAdmin(Long adminUserId, int limit) {
+        User admin = userRepository.findById(adminUserId)
+                .orElseThrow(() -> ResourceNotFoundException.user(adminUserId));
+        return announcementRepository.findByUniversityIdOrderByIdDesc(admin.getUniversityId(), PageRequest.of(0, limit))
+                .stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    /**
+     * Announcements addressed to the user, as inbox entries
+     */
+    @Transactional(readOnly = true)
+    public List<NotificationResponse> getInboxEntries(User user, boolean unreadOnly) {
+        long watermark = announcementRepository.findReadWatermark(user.getId());
+        return announcementRepository.findInboxAnnouncements(
+                        user.getUniversityId(), departmentIdOf(user), user.getId(), PageRequest.of(0, INBOX_LIMIT))
+                .stream()
+                .filter(a -> !unreadOnly || a.getId() > watermark)
+                .map(a -> toInboxEntry(a, a.getId() <= watermark))
+                .toList();
+    }
+
+    /**
+     * Number of announcements the user has not read yet
+     */
+    @Transactional(readOnly = true)
+    public long countUnread(User user) {
+        long watermark = announcementRepository.findReadWatermark(user.getId());
+        return announcementRepository.countUnread(user.getUniversityId(), departmentIdOf(user), user.getId(), watermark);
+    }
+
+    /**
+     * Number of announcements in the user's inbox
+     */
+    @Transactional(readOnly = true)
+    public long countInbox(User user) {
+        return announcementRepository.countUnread(user.getUniversityId(), departmentIdOf(user), user.getId(), 0L);
+    }
+
+    /**
+     * Mark every announcement addressed to the user as read with a single upsert
+     */
+    @Transactional
+    public void markAllAsRead(User user) {
+        long maxId = announcementRepository.findMaxAudienceId(user.getUniversityId(), departmentIdOf(user));
+        if (maxId > 0) {
+            announcementRepository.raiseReadWatermark(user.getId(), user.getUniversityId(), maxId, Instant.now());
+        }
+    }
+
+    /**
+     * Whether an inbox id is that of an announcement entry rather than a notification
+     */
+    public static boolean isInboxEntryId(Long inboxId) {
+        return inboxId != null && inboxId < 0;
+    }
+
+    /**
+     * Mark the announcement behind an inbox entry, and those before it, as read
+     */
+    @Transactional
+    public NotificationResponse markInboxEntryRead(Long currentUserId, Long inboxId) {
+        Announcement announcement = markReadThrough(currentUserId, -inboxId);
+        return toInboxEntry(announcement, true);
+    }
+
+    /**
+     * Mark announcements up to and including the given id as read
+     */
+    @Transactional
+    public Announcement markReadThrough(Long currentUserId, Long announcementId) {
+        User user = userRepository.findById(currentUserId)
+                .orElseThrow(() -> ResourceNotFoundException.user(currentUserId));
+        Announcement announcement = announcementRepository.findById(announcementId)
+                .orElseThrow(() -> new ResourceNotFoundException("Announcement", announcementId));
+        if (!announcement.getUniversityId().equals(user.getUniversityId())) {
+            throw BusinessException.operationNotAllowed("You are not allowed to access this announcement");
+        }
+        announcementRepository.raiseReadWatermark(user.getId(), user.getUniversityId(), announcementId, Instant.now());
+        return announcement;
+    }
+
+    private Long departmentIdOf(User user) {
+        return user.getDepartment() != null ? user.getDepartment().getId() : null;
+    }
+
+    private NotificationResponse toInboxEntry(Announcement announcement, boolean read) {
+        return new NotificationResponse(
+                -announcement.getId(),
+                announcement.getTitle(),
+                announcement.getMessage(),
+                NotificationType.ANNOUNCEMENT.name(),
+                read,
+                1,
+                announcement.getCreatedAt()
+        );
+    }
+
+    private AnnouncementResponse toResponse(Announcement announcement) {
+        return new AnnouncementResponse(
+                announcement.getId(),
+                announcement.getUniversityId(),
+                announcement.getDepartmentId(),
+                announcement.getTitle(),
+                announcement.getMessage(),
+                Boolean.TRUE.equals(announcement.getMaterialize()),
+                announcement.getMaterializedAt(),
+                announcement.getCreatedAt()
+        );
+    }
+}
@@ -0,0 +1,114 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.repository.ChatMessageRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chat Read Watermark Service
+ * Read state of project chat is one high-water mark per (user, project). Clients
+ * report "read through message X" as often as they like; reports are coalesced in
+ * memory to the highest id per key and written in one batched upsert per flush,
+ * so read tracking costs O(1) writes per reader regardless of message volume.
+ */
+@Service
+public class ChatReadWatermarkService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatReadWatermarkService.class);
+
+    /**
+     * Never moves a mark backwards, and never beyond the newest message of the project
+     */
+    private static final String UPSERT_SQL = """
+        INSERT INTO chat_read_watermarks (user_id, project_id, university_id, last_read_id, updated_at)
+        SELECT ?, p.id, p.university_id,
+               LEAST(?, (SELECT COALESCE(MAX(m.id), 0) FROM chat_messages m WHERE m.project_id = p.id)), ?
+        FROM projects p
+        WHERE p.id = ?
+        ON CONFLICT (user_id, project_id) DO UPDATE
+        SET last_read_id = EXCLUDED.last_read_id,
+            updated_at = EXCLUDED.updated_at
+        WHERE chat_read_watermarks.last_read_id < EXCLUDED.last_read_id
+        """;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<Key, Long> pending = new ConcurrentHashMap<>();
+
+    public ChatReadWatermarkService(ChatMessageRepository chatMessageRepository, JdbcTemplate jdbcTemplate) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Record that a user has read a project conversation through the given message.
+     * Written on the next flush.
+     */
+    public void markReadThrough(Long userId, Long projectId, long messageId) {
+        if (messageId <= 0) {
+            return;
+        }
+        pending.merge(new Key(userId, projectId), messageId, Math::max);
+    }
+
+    /**
+     * Current watermark, including reports not flushed yet
+     */
+    public long getWatermark(Long userId, Long projectId) {
+        long stored = chatMessageRepository.findReadWatermark(userId, projectId);
+        Long buffered = pending.get(new Key(userId, projectId));
+        return buffered != null ? Math.max(stored, buffered) : stored;
+    }
+
+    public long countUnread(Long userId, Long projectId) {
+        return chatMessageRepository.countByProjectIdAndIdGreaterThan(projectId, getWatermark(userId, projectId));
+    }
+
+    /**
+     * Write all coalesced marks in one batch
+     */
+    @Scheduled(fixedDelayString = "${takharrujy.chat.read-watermark.flush-interval:PT2S}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>();
+        Timestamp now = Timestamp.from(Instant.now());
+        for (Map.Entry<Key, Long> entry : pending.entrySet()) {
+            // Only drop the entry if no higher mark arrived meanwhile
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                Key key = entry.getKey();
+                batch.add(new Object[]{key.userId(), entry.getValue(), now, key.projectId()});
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+        } catch (Exception e) {
+            log.error("Failed to flush {} chat read watermarks, will retry", batch.size(), e);
+            for (Object[] row : batch) {
+                pending.merge(new Key((Long) row[0], (Long) row[3]), (Long) row[1], Math::max);
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private record Key(Long userId, Long projectId) { }
+}
@@ -0,0 +1,189 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.entity.ChatMessage;
+import com.university.takharrujy.domain.entity.User;
+import com.university.takharrujy.domain.repository.ChatMessageRepository;
+import com.university.takharrujy.domain.repository.ProjectRepository;
+import com.university.takharrujy.domain.repository.UserRepository;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.exception.ResourceNotFoundException;
+import com.university.takharrujy.infrastructure.service.ChatStreamBroker;
+import com.university.takharrujy.presentation.dto.chat.ChatMessageResponse;
+import com.university.takharrujy.presentation.dto.chat.MessageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Chat Service
+ * Project conversations: storing messages, keyset-paginated history and live streams.
+ * Access is checked with a single membership query instead of loading the project members.
+ * Read state comes from the reader's watermark: a message is read when its id is at or below it.
+ */
+@Service
+public class ChatService {
+
+    private static final int MAX_CONTENT_LENGTH = 4000;
+
+    @Value("${takharrujy.chat.history.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${takharrujy.chat.stream.max-catch-up:200}")
+    private int maxCatchUp;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ProjectRepository projectRepository;
+    private final UserRepository userRepository;
+    private final ChatStreamBroker chatStreamBroker;
+    private final ChatReadWatermarkService chatReadWatermarkService;
+
+    public ChatService(ChatMessageRepository chatMessageRepository,
+                       ProjectRepository projectRepository,
+                       UserRepository userRepository,
+                       ChatStreamBroker chatStreamBroker,
+                       ChatReadWatermarkService chatReadWatermarkService) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.projectRepository = projectRepository;
+        this.userRepository = userRepository;
+        this.chatStreamBroker = chatStreamBroker;
+        this.chatReadWatermarkService = chatReadWatermarkService;
+    }
+
+    /**
+     * Store a message and fan it out to every open stream of the project once committed
+     */
+    @Transactional
+    public ChatMessageResponse sendMessage(Long projectId, MessageRequest request, Long currentUserId) {
+        if (request.projectId() != null && !request.projectId().equals(projectId)) {
+            throw BusinessException.invalidInput("Message project does not match the conversation");
+        }
+        validateContent(request.content());
+        ensureParticipant(projectId, currentUserId);
+
+        User sender = userRepository.findById(currentUserId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + currentUserId));
+
+        ChatMessage message = chatMessageRepository.save(
+                new ChatMessage(sender.getUniversityId(), projectId, currentUserId, request.content().trim()));
+
+        ChatMessageResponse published = toResponse(message, 0L);
+        afterCommit(() -> {
+            // Writing a message implies having read the conversation up to it
+            chatReadWatermarkService.markReadThrough(currentUserId, projectId, message.getId());
+            chatStreamBroker.publish(published);
+        });
+        return toResponse(message, message.getId());
+    }
+
+    /**
+     * Messages of a project, newest first. Pass the id of the oldest message
+     * already shown as {@code beforeId} to load the previous page.
+     */
+    @Transactional(readOnly = true)
+    public List<ChatMessageResponse> getHistory(Long projectId, Long beforeId, int limit, Long currentUserId) {
+        ensureParticipant(projectId, currentUserId);
+
+        PageRequest page = PageRequest.of(0, Math.min(Math.max(limit, 1), maxPageSize));
+        List<ChatMessage> messages = beforeId == null
+                ? chatMessageRepository.findByProjectIdOrderByIdDesc(projectId, page)
+                : chatMessageRepository.findByProjectIdAndIdLessThanOrderByIdDesc(projectId, beforeId, page);
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+
+        long watermark = chatReadWatermarkService.getWatermark(currentUserId, projectId);
+        return messages.stream()
+                .map(message -> toResponse(message, watermark))
+                .toList();
+    }
+
+    /**
+     * Mark the conversation as read up to and including the given message
+     */
+    public void markAsRead(Long projectId, Long messageId, Long currentUserId) {
+        if (messageId == null || messageId <= 0) {
+            throw BusinessException.invalidInput("Message id is required");
+        }
+        ensureParticipant(projectId, currentUserId);
+        chatReadWatermarkService.markReadThrough(currentUserId, projectId, messageId);
+    }
+
+    @Transactional(readOnly = true)
+    public long getUnreadCount(Long projectId, Long currentUserId) {
+        ensureParticipant(projectId, currentUserId);
+        return chatReadWatermarkService.countUnread(currentUserId, projectId);
+    }
+
+    /**
+     * Open a live stream of a project conversation. When the client reconnects
+     * with the id of the last message it received, missed messages are replayed first.
+     */
+    public SseEmitter openStream(Long projectId, Long lastEventId, Long currentUserId) {
+        ensureParticipant(projectId, currentUserId);
+
+        ChatStreamBroker.Connection connection = chatStreamBroker.open(projectId, currentUserId);
+
+        List<ChatMessageResponse> backlog = List.of();
+        if (lastEventId != null) {
+            long watermark = chatReadWatermarkService.getWatermark(currentUserId, projectId);
+            backlog = chatMessageRepository.findByProjectIdAndIdGreaterThanOrderByIdAsc(
+                            projectId, lastEventId, PageRequest.of(0, maxCatchUp))
+                    .stream()
+                    .map(message -> toResponse(message, watermark))
+                    .toList();
+        }
+
+        connection.start(backlog);
+        return connection.getEmitter();
+    }
+
+    // ------------------ Helpers ------------------
+
+    private void ensureParticipant(Long projectId, Long userId) {
+        if (!projectRepository.existsById(projectId)) {
+            throw new ResourceNotFoundException("Project not found with id: " + projectId);
+        }
+        if (!projectRepository.isParticipant(projectId, userId)) {
+            throw BusinessException.operationNotAllowed("Access denied: not a participant of this project");
+        }
+    }
+
+    private void validateContent(String content) {
+        if (content == null || content.trim().isEmpty()) {
+            throw BusinessException.invalidInput("Message content cannot be empty");
+        }
+        if (content.length() > MAX_CONTENT_LENGTH) {
+            throw BusinessException.invalidInput("Message content too long (max " + MAX_CONTENT_LENGTH + " chars)");
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private ChatMessageResponse toResponse(ChatMessage message, long readWatermark) {
+        return ChatMessageResponse.builder()
+                .id(message.getId())
+                .projectId(message.getProjectId())
+                .senderId(message.getSenderId())
+                .content(message.getContent())
+                .timestamp(message.getCreatedAt())
+                .read(message.getId() != null && message.getId() <= readWatermark)
+                .build();
+    }
+}
@@ -160,7 +160,9 @@ public class DeliverableService {
                     pm.getUser(),
                     "Deliverable Updated",
                     "Deliverable '" + deliverable.getTitle() + "' has been updated.",
-                    NotificationType.TASK
+                    NotificationType.TASK,
+                    "DELIVERABLE",
+                    deliverable.getId()
             );
         });
 
@@ -233,7 +235,9 @@ public class DeliverableService {
                     pm.getUser(),
                     "Deliverable Feedback",
                     "Deliverable '" + deliverable.getTitle() + "' has received feedback from the supervisor.",
-                    NotificationType.TASK
+                    NotificationType.TASK,
+                    "DELIVERABLE",
+                    deliverable.getId()
             );
         });
 
@@ -0,0 +1,136 @@
+package com.university.takharrujy.application.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Download Counter Service
+ * Counts project file downloads in memory and adds them to {@code project_files.download_count}
+ * in batches, so a download is never a row update and a popular file during submission
+ * week never turns its downloads into lock contention.
+ *
+ * Each file has a {@link LongAdder}, which spreads concurrent increments over cells
+ * instead of contending on one value. A flush takes each counter's sum and resets it, then
+ * applies the deltas as relative updates, one transaction per batch; a failed batch is rolled
+ * back whole and its deltas put back, so none is applied twice. Counts are
+ * also flushed on shutdown, so only a crash loses the downloads of the last interval.
+ */
+@Service
+public class DownloadCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(DownloadCounterService.class);
+
+    private static final String INCREMENT_SQL =
+        "UPDATE project_files SET download_count = download_count + ? WHERE id = ?";
+
+    @Value("${takharrujy.files.downloads.flush-batch-size:500}")
+    private int batchSize;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter flushedCounter;
+
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Counters that were empty at the last flush; evicted if still empty at the next one
+     */
+    private final Map<Long, LongAdder> idle = new ConcurrentHashMap<>();
+
+    public DownloadCounterService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                  PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushedCounter = Counter.builder("takharrujy.files.downloads.flushed")
+            .description("Downloads written to the database")
+            .register(meterRegistry);
+        Gauge.builder("takharrujy.files.downloads.tracked", pending, Map::size)
+            .description("Files with a download counter on this node")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Count one download
+     */
+    public void record(Long fileId) {
+        counter(fileId).increment();
+    }
+
+    /**
+     * Downloads of a file: the persisted count plus those not flushed yet from this node
+     */
+    public long count(Long fileId, long persisted) {
+        LongAdder counter = pending.get(fileId);
+        return counter != null ? persisted + counter.sum() : persisted;
+    }
+
+    /**
+     * Write buffered counts to the database
+     */
+    @Scheduled(fixedDelayString = "${takharrujy.files.downloads.flush-interval:PT30S}")
+    public synchronized void flush() {
+        List<Object[]> increments = new ArrayList<>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta > 0) {
+                idle.remove(entry.getKey());
+                increments.add(new Object[] {delta, entry.getKey()});
+            } else if (idle.remove(entry.getKey(), entry.getValue())) {
+                // Idle for two flushes. A download racing with the removal may land on the
+                // detached counter; collect what did.
+                pending.remove(entry.getKey(), entry.getValue());
+                long late = entry.getValue().sumThenReset();
+                if (late > 0) {
+                    increments.add(new Object[] {late, entry.getKey()});
+                }
+            } else {
+                idle.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        // Same row order on every node, so concurrent flushes cannot deadlock
+        increments.sort((a, b) -> Long.compare((Long) a[1], (Long) b[1]));
+        for (int from = 0; from < increments.size(); from += batchSize) {
+            List<Object[]> batch = increments.subList(from, Math.min(from + batchSize, increments.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INCREMENT_SQL, batch));
+                flushedCounter.increment(batch.stream().mapToLong(increment -> (Long) increment[0]).sum());
+            } catch (Exception e) {
+                log.warn("Could not flush {} download counts, keeping them for the next flush: {}",
+                    batch.size(), e.getMessage());
+                for (Object[] increment : batch) {
+                    counter((Long) increment[1]).add((Long) increment[0]);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private LongAdder counter(Long fileId) {
+        LongAdder counter = pending.get(fileId);
+        return counter != null ? counter : pending.computeIfAbsent(fileId, id -> new LongAdder());
+    }
+}
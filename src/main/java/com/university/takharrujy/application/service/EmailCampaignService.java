@@ -0,0 +1,251 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.entity.EmailCampaign;
+import com.university.takharrujy.domain.entity.User;
+import com.university.takharrujy.domain.enums.EmailCampaignStatus;
+import com.university.takharrujy.domain.enums.EmailCampaignType;
+import com.university.takharrujy.domain.repository.EmailCampaignRepository;
+import com.university.takharrujy.domain.repository.UserRepository;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.exception.ResourceNotFoundException;
+import com.university.takharrujy.infrastructure.service.EmailOutbox;
+import com.university.takharrujy.infrastructure.service.EmailService;
+import com.university.takharrujy.infrastructure.service.EmailTemplate;
+import com.university.takharrujy.infrastructure.service.EmailTemplateRegistry;
+import com.university.takharrujy.infrastructure.service.TokenService;
+import com.university.takharrujy.presentation.dto.campaign.EmailCampaignRequest;
+import com.university.takharrujy.presentation.dto.campaign.EmailCampaignResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Email Campaign Service
+ * Bulk verification reminders. Target users are walked in keyset chunks; each chunk
+ * generates its tokens in one Redis pipeline, fills the precompiled reminder template
+ * for each recipient, and queues the emails in the outbox in one JDBC batch, committed together
+ * with the campaign cursor. A token bucket keeps the campaign at the configured send rate.
+ */
+@Service
+public class EmailCampaignService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailCampaignService.class);
+
+    @Value("${takharrujy.email.outbox.enabled:true}")
+    private boolean outboxEnabled;
+
+    @Value("${takharrujy.email.campaigns.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${takharrujy.email.campaigns.send-rate:50}")
+    private int sendRate;
+
+    private final EmailCampaignRepository emailCampaignRepository;
+    private final UserRepository userRepository;
+    private final TokenService tokenService;
+    private final EmailService emailService;
+    private final EmailTemplateRegistry emailTemplates;
+    private final EmailOutbox emailOutbox;
+    private final TransactionTemplate transactionTemplate;
+
+    private double allowance;
+    private long lastRefillNanos = System.nanoTime();
+
+    public EmailCampaignService(EmailCampaignRepository emailCampaignRepository,
+                                UserRepository userRepository,
+                                TokenService tokenService,
+                                EmailService emailService,
+                                EmailTemplateRegistry emailTemplates,
+                                EmailOutbox emailOutbox,
+                                PlatformTransactionManager transactionManager) {
+        this.emailCampaignRepository = emailCampaignRepository;
+        this.userRepository = userRepository;
+        this.tokenService = tokenService;
+        this.emailService = emailService;
+        this.emailTemplates = emailTemplates;
+        this.emailOutbox = emailOutbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Start reminding every unverified user of the admin's university
+     */
+    @Transactional
+    public EmailCampaignResponse startVerificationReminder(EmailCampaignRequest request, Long adminUserId) {
+        if (!outboxEnabled) {
+            throw BusinessException.operationNotAllowed("Bulk email requires the email outbox to be enabled");
+        }
+        User admin = userRepository.findById(adminUserId)
+                .orElseThrow(() -> ResourceNotFoundException.user(adminUserId));
+
+        int days = request.unverifiedForDays() != null ? request.unverifiedForDays() : 0;
+        Instant cutoff = Instant.now().minus(Duration.ofDays(days));
+
+        EmailCampaign campaign = new EmailCampaign(admin.getUniversityId(), EmailCampaignType.VERIFICATION_REMINDER);
+        campaign.setTargetCreatedBefore(cutoff);
+        campaign.setTotalTargets(userRepository.countUnverifiedUsers(admin.getUniversityId(), cutoff));
+        campaign.setStartedByUserId(adminUserId);
+        if (campaign.getTotalTargets() == 0) {
+            campaign.complete();
+        }
+
+        EmailCampaign saved = emailCampaignRepository.save(campaign);
+        log.info("Verification reminder campaign [{}] started by [{}] for {} users",
+                saved.getId(), adminUserId, saved.getTotalTargets());
+        return toResponse(saved);
+    }
+
+    @Transactional(readOnly = true)
+    public EmailCampaignResponse getCampaign(Long campaignId, Long adminUserId) {
+        return toResponse(getOwnedCampaign(campaignId, adminUserId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<EmailCampaignResponse> listCampaigns(Long adminUserId, int limit) {
+        User admin = userRepository.findById(adminUserId)
+                .orElseThrow(() -> ResourceNotFoundException.user(adminUserId));
+        return emailCampaignRepository.findByUniversityIdOrderByIdDesc(admin.getUniversityId(), PageRequest.of(0, limit))
+                .stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    @Transactional
+    public EmailCampaignResponse changeStatus(Long campaignId, EmailCampaignStatus target, Long adminUserId) {
+        EmailCampaign campaign = getOwnedCampaign(campaignId, adminUserId);
+        EmailCampaignStatus current = campaign.getStatus();
+
+        boolean allowed = switch (target) {
+            case PAUSED -> current == EmailCampaignStatus.RUNNING;
+            case RUNNING -> current == EmailCampaignStatus.PAUSED;
+            case CANCELLED -> !current.isFinished();
+            case COMPLETED -> false;
+        };
+        if (!allowed) {
+            throw BusinessException.operationNotAllowed("Cannot change campaign from " + current + " to " + target);
+        }
+
+        campaign.setStatus(target);
+        return toResponse(emailCampaignRepository.save(campaign));
+    }
+
+    /**
+     * Advance running campaigns within the send-rate budget accumulated since the last run
+     */
+    @Scheduled(fixedDelayString = "${takharrujy.email.campaigns.interval:PT1S}")
+    public void runCampaigns() {
+        List<Long> running = emailCampaignRepository.findIdsByStatus(EmailCampaignStatus.RUNNING);
+
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+        lastRefillNanos = now;
+        if (running.isEmpty()) {
+            allowance = 0;
+            return;
+        }
+        allowance = Math.min(allowance + sendRate * elapsedSeconds, Math.max(sendRate, chunkSize));
+
+        for (Long campaignId : running) {
+            try {
+                while (allowance >= 1) {
+                    int limit = (int) Math.min(chunkSize, allowance);
+                    Integer processed = transactionTemplate.execute(status -> processChunk(campaignId, limit));
+                    if (processed == null || processed <= 0) {
+                        break;
+                    }
+                    allowance -= processed;
+                    if (processed < limit) {
+                        break;
+                    }
+                }
+            } catch (Exception e) {
+                // The chunk rolled back with its cursor; it is retried on the next run
+                log.error("Email campaign [{}] chunk failed", campaignId, e);
+            }
+        }
+    }
+
+    /**
+     * Queue one chunk. Returns the number of users processed, 0 when the campaign
+     * is finished and -1 when it is locked by another node or no longer running.
+     */
+    private int processChunk(Long campaignId, int limit) {
+        EmailCampaign campaign = emailCampaignRepository.lockRunning(campaignId).orElse(null);
+        if (campaign == null) {
+            return -1;
+        }
+
+        List<User> users = userRepository.findUnverifiedUsersAfter(campaign.getUniversityId(),
+                campaign.getTargetCreatedBefore(), campaign.getCursorUserId(), PageRequest.of(0, limit));
+        if (users.isEmpty()) {
+            campaign.complete();
+            log.info("Email campaign [{}] completed, {} emails queued", campaignId, campaign.getProcessedCount());
+            return 0;
+        }
+
+        Map<Long, String> emailsByUserId = new LinkedHashMap<>();
+        users.forEach(user -> emailsByUserId.put(user.getId(), user.getEmail()));
+        Map<Long, String> tokens = tokenService.generateEmailVerificationTokens(emailsByUserId);
+
+        List<EmailOutbox.NewEmail> emails = new ArrayList<>(users.size());
+        EmailTemplate template = EmailTemplate.VERIFICATION_REMINDER;
+        for (User user : users) {
+            String language = "ar".equals(user.getPreferredLanguage()) ? "ar" : "en";
+            String body = emailTemplates.render(template, language, Map.of(
+                    "userName", user.getFullName(),
+                    "userNameAr", user.getFullNameAr(),
+                    "verificationUrl", emailService.verificationUrl(tokens.get(user.getId()))));
+            emails.add(new EmailOutbox.NewEmail(user.getEmail(), template.getSubject(language), body, true,
+                    template.getId(), language));
+        }
+        emailOutbox.enqueueAll(emails);
+
+        campaign.advance(users.get(users.size() - 1).getId(), users.size());
+        if (users.size() < limit) {
+            campaign.complete();
+        }
+        return users.size();
+    }
+
+    private EmailCampaign getOwnedCampaign(Long campaignId, Long adminUserId) {
+        User admin = userRepository.findById(adminUserId)
+                .orElseThrow(() -> ResourceNotFoundException.user(adminUserId));
+        EmailCampaign campaign = emailCampaignRepository.findById(campaignId)
+                .orElseThrow(() -> new ResourceNotFoundException("Email campaign not found with id: " + campaignId));
+        if (!campaign.getUniversityId().equals(admin.getUniversityId())) {
+            throw new ResourceNotFoundException("Email campaign not found with id: " + campaignId);
+        }
+        return campaign;
+    }
+
+    private EmailCampaignResponse toResponse(EmailCampaign campaign) {
+        long total = campaign.getTotalTargets();
+        long processed = campaign.getProcessedCount();
+        int percent = campaign.getStatus() == EmailCampaignStatus.COMPLETED || total == 0
+                ? 100
+                : (int) Math.min(100, processed * 100 / total);
+        return new EmailCampaignResponse(
+                campaign.getId(),
+                campaign.getType(),
+                campaign.getStatus(),
+                total,
+                processed,
+                percent,
+                campaign.getTargetCreatedBefore(),
+                campaign.getCreatedAt(),
+                campaign.getCompletedAt());
+    }
+}
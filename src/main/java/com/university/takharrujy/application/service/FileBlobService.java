@@ -0,0 +1,206 @@
+package com.university.takharrujy.application.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * File Blob Service
+ * Reference counting for content-addressed file blobs. Identical content uploaded to
+ * any project of the same university is stored once, under a path derived from its
+ * SHA-256, and each project file pointing at it holds one reference.
+ *
+ * Content is uploaded by {@link #stage} before the caller's transaction starts, so no row
+ * lock or connection is held while a large file goes to the storage backend; acquire then
+ * only takes the reference.
+ *
+ * Acquire and release both run inside the caller's transaction. A release that drops
+ * the last reference deletes the blob's files only after that transaction commits, so a
+ * rollback never leaves a row without its content. The deletion takes the blob's advisory
+ * lock, which acquire also holds until its transaction ends, and re-checks that no new
+ * reference appeared in the meantime.
+ *
+ * A blob moved to the cold tier by {@link StorageTieringService} comes back to the hot tier
+ * when new content matches it, since the uploading project is active by definition.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class FileBlobService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileBlobService.class);
+
+    /**
+     * Inserts the blob with one reference or adds one to an existing blob; (xmax = 0)
+     * is true only for a freshly inserted row
+     */
+    private static final String ACQUIRE_SQL = """
+        INSERT INTO file_blobs (university_id, content_hash, storage_path, size_bytes, ref_count)
+        VALUES (?, ?, ?, ?, 1)
+        ON CONFLICT (university_id, content_hash) DO UPDATE
+        SET ref_count = file_blobs.ref_count + 1
+        RETURNING (xmax = 0), tier, storage_path
+        """;
+
+    private static final String RETURN_TO_HOT_SQL = """
+        UPDATE file_blobs
+        SET tier = 'HOT', storage_path = ?, hot_copy_expires_at = NULL
+        WHERE university_id = ? AND content_hash = ?
+        """;
+
+    /**
+     * Serializes acquiring a blob with deleting its files; released at the end of the transaction
+     */
+    private static final String LOCK_SQL =
+        "SELECT pg_advisory_xact_lock(hashtextextended('file_blob:' || ? || ':' || ?, 0))";
+
+    private static final String RELEASE_SQL = """
+        UPDATE file_blobs
+        SET ref_count = ref_count - 1
+        WHERE university_id = ? AND content_hash = ? AND ref_count > 0
+        RETURNING ref_count, storage_path, cold_path
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FileStorageService storage;
+    private final TransactionTemplate deletionTransaction;
+
+    public FileBlobService(JdbcTemplate jdbcTemplate, FileStorageService storage,
+                           PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storage = storage;
+        this.deletionTransaction = new TransactionTemplate(transactionManager);
+        this.deletionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * University a project belongs to, which scopes deduplication
+     */
+    @Transactional(readOnly = true)
+    public Long getUniversityId(Long projectId) {
+        try {
+            return jdbcTemplate.queryForObject("SELECT university_id FROM projects WHERE id = ?", Long.class, projectId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new IllegalStateException("Project " + projectId + " not found");
+        }
+    }
+
+    /**
+     * Whether this content is already stored for the university. Blobs are only created
+     * from files that passed the virus scan, so a hit means the content is known clean.
+     */
+    @Transactional(readOnly = true)
+    public boolean exists(Long universityId, String contentHash) {
+        Integer found = jdbcTemplate.query(
+            "SELECT 1 FROM file_blobs WHERE university_id = ? AND content_hash = ? AND ref_count > 0",
+            rs -> rs.next() ? 1 : null, universityId, contentHash);
+        return found != null;
+    }
+
+    /**
+     * Store the quarantined content as the blob, if it is not stored yet. Runs outside any
+     * transaction; the blob path is derived from the content, so staging is idempotent.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void stage(Long universityId, String contentHash, String quarantinePath) {
+        storage.stageBlob(quarantinePath, storage.blobStoragePath(universityId, contentHash));
+    }
+
+    /**
+     * Take a reference to the blob for this content, staged beforehand with {@link #stage}.
+     * The quarantined file is left to the caller to delete after commit. Returns the blob's
+     * storage path.
+     */
+    public String acquire(Long universityId, String contentHash, String quarantinePath, long size) {
+        String blobPath = storage.blobStoragePath(universityId, contentHash);
+        lock(universityId, contentHash);
+        Acquired acquired = jdbcTemplate.queryForObject(ACQUIRE_SQL,
+            (rs, i) -> new Acquired(rs.getBoolean(1), rs.getString(2), rs.getString(3)),
+            universityId, contentHash, blobPath, size);
+
+        // Normally only an existence check: the content is stored again from quarantine if a
+        // release deleted the staged blob before we took the lock
+        storage.stageBlob(quarantinePath, blobPath);
+        if ("COLD".equals(acquired.tier())) {
+            // The upload is the hot copy; files of inactive projects follow the blob back
+            jdbcTemplate.update(RETURN_TO_HOT_SQL, blobPath, universityId, contentHash);
+            jdbcTemplate.update("UPDATE project_files SET storage_path = ? WHERE storage_path = ?",
+                blobPath, acquired.storagePath());
+            log.debug("Returned cold blob {} to the hot tier on upload", contentHash);
+        } else if (!acquired.inserted()) {
+            log.debug("Deduplicated upload against existing blob {}", contentHash);
+        }
+        return blobPath;
+    }
+
+    /**
+     * Drop one reference; the blob is deleted with the last one, and its files once the
+     * transaction commits
+     */
+    public void release(Long universityId, String contentHash) {
+        List<Object[]> rows = jdbcTemplate.query(RELEASE_SQL,
+            (rs, i) -> new Object[]{rs.getInt(1), rs.getString(2), rs.getString(3)}, universityId, contentHash);
+        if (rows.isEmpty()) {
+            log.warn("Released unknown blob {} of university {}", contentHash, universityId);
+            return;
+        }
+        if ((Integer) rows.get(0)[0] == 0) {
+            jdbcTemplate.update("DELETE FROM file_blobs WHERE university_id = ? AND content_hash = ? AND ref_count = 0",
+                universityId, contentHash);
+            // Either tier may hold a copy, whichever one the blob is read from
+            Set<String> paths = new LinkedHashSet<>();
+            paths.add((String) rows.get(0)[1]);
+            paths.add(storage.blobStoragePath(universityId, contentHash));
+            if (rows.get(0)[2] != null) {
+                paths.add((String) rows.get(0)[2]);
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteFiles(universityId, contentHash, paths);
+                }
+            });
+        }
+    }
+
+    /**
+     * Delete the files of a released blob, unless the content was uploaded again since
+     */
+    void deleteFiles(Long universityId, String contentHash, Set<String> paths) {
+        try {
+            deletionTransaction.executeWithoutResult(status -> {
+                lock(universityId, contentHash);
+                Integer reacquired = jdbcTemplate.query(
+                    "SELECT 1 FROM file_blobs WHERE university_id = ? AND content_hash = ?",
+                    rs -> rs.next() ? 1 : null, universityId, contentHash);
+                if (reacquired != null) {
+                    log.debug("Blob {} was uploaded again before its files were deleted", contentHash);
+                    return;
+                }
+                paths.forEach(storage::deleteFile);
+            });
+        } catch (RuntimeException e) {
+            // Left for the storage reconciliation to find as orphans
+            log.warn("Could not delete the files of released blob {}: {}", contentHash, e.getMessage());
+        }
+    }
+
+    private void lock(Long universityId, String contentHash) {
+        jdbcTemplate.query(LOCK_SQL, rs -> null, universityId, contentHash);
+    }
+
+    private record Acquired(boolean inserted, String tier, String storagePath) {
+    }
+}
@@ -0,0 +1,330 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.entity.ProjectFile;
+import com.university.takharrujy.domain.enums.NotificationType;
+import com.university.takharrujy.domain.enums.VirusScanStatus;
+import com.university.takharrujy.domain.repository.ProjectFileRepository;
+import com.university.takharrujy.domain.repository.UserRepository;
+import com.university.takharrujy.infrastructure.service.DocumentTextExtractor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FileScanService
+ * Scans uploaded project files off the request thread. Uploads are written to the
+ * quarantine area and saved as {@link VirusScanStatus#PENDING}; a bounded pool of scan
+ * workers then streams each one through the scanner and either promotes it into
+ * content-addressed storage (CLEAN) or deletes it (INFECTED), and tells the uploader.
+ * Content already stored for the university is known clean and is not scanned again,
+ * and resumable uploads, scanned chunk by chunk as they arrived, only hand over a verdict.
+ *
+ * When the queue is full the submission is dropped rather than blocking the caller;
+ * the sweeper picks up any file left PENDING for too long, which also covers uploads
+ * whose node restarted before the scan ran.
+ */
+@Service
+public class FileScanService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileScanService.class);
+
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    @Value("${takharrujy.files.scan.workers:2}")
+    private int workers;
+
+    @Value("${takharrujy.files.scan.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${takharrujy.files.scan.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${takharrujy.files.scan.stale-after:PT2M}")
+    private Duration staleAfter;
+
+    private final ProjectFileRepository repository;
+    private final FileStorageService storage;
+    private final VirusScanService virusScanService;
+    private final FileBlobService fileBlobService;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final ImagePipelineService imagePipelineService;
+    private final TextExtractionService textExtractionService;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor scanExecutor;
+
+    public FileScanService(ProjectFileRepository repository,
+                           FileStorageService storage,
+                           VirusScanService virusScanService,
+                           FileBlobService fileBlobService,
+                           UserRepository userRepository,
+                           NotificationService notificationService,
+                           ImagePipelineService imagePipelineService,
+                           TextExtractionService textExtractionService,
+                           MeterRegistry meterRegistry,
+                           PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.storage = storage;
+        this.virusScanService = virusScanService;
+        this.fileBlobService = fileBlobService;
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.imagePipelineService = imagePipelineService;
+        this.textExtractionService = textExtractionService;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        int threads = Math.max(1, workers);
+        scanExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "file-scan");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Gauge.builder("takharrujy.files.scan.queued", scanExecutor, executor -> executor.getQueue().size())
+                .description("Uploads waiting for a virus scan on this node")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        scanExecutor.shutdown();
+    }
+
+    /**
+     * Queue a file for scanning; a file already queued or being scanned is ignored
+     */
+    public void submit(Long fileId) {
+        enqueue(fileId, null);
+    }
+
+    /**
+     * Queue a file whose content was already scanned as it was uploaded, so only the
+     * verdict is applied. If the submission is dropped, the sweeper scans it in full.
+     */
+    public void submitScanned(Long fileId, boolean clean) {
+        enqueue(fileId, clean);
+    }
+
+    private void enqueue(Long fileId, Boolean verdict) {
+        if (!inFlight.add(fileId)) {
+            return;
+        }
+        try {
+            scanExecutor.execute(() -> {
+                try {
+                    scan(fileId, verdict);
+                } finally {
+                    inFlight.remove(fileId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(fileId);
+            log.warn("Scan queue full, file {} left for the sweeper", fileId);
+        }
+    }
+
+    /**
+     * Resubmit files that have been waiting longer than expected
+     */
+    @Scheduled(fixedDelayString = "${takharrujy.files.scan.sweep-interval:PT1M}")
+    public void sweep() {
+        try {
+            List<Long> stale = repository.findIdsByScanStatusUploadedBefore(VirusScanStatus.PENDING,
+                    Instant.now().minus(staleAfter), PageRequest.of(0, SWEEP_BATCH_SIZE));
+            if (!stale.isEmpty()) {
+                log.info("Resubmitting {} files waiting for a virus scan", stale.size());
+                stale.forEach(this::submit);
+            }
+        } catch (Exception e) {
+            log.error("File scan sweep failed", e);
+        }
+    }
+
+    /**
+     * Scan one quarantined file and record the verdict
+     */
+    void scan(Long fileId) {
+        scan(fileId, null);
+    }
+
+    /**
+     * Record the verdict for one quarantined file, scanning it unless the verdict is given
+     */
+    void scan(Long fileId, Boolean verdict) {
+        ProjectFile file = repository.findById(fileId).orElse(null);
+        if (file == null || file.getVirusScanStatus() != VirusScanStatus.PENDING) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        VirusScanStatus outcome;
+        try {
+            Long universityId = fileBlobService.getUniversityId(file.getProjectId());
+            boolean clean = verdict != null ? verdict
+                    : file.getContentHash() != null && fileBlobService.exists(universityId, file.getContentHash());
+            if (!clean && verdict == null) {
+                clean = scanContent(file);
+            }
+            outcome = clean ? promote(file, universityId) : reject(file);
+        } catch (Exception e) {
+            log.warn("Virus scan of file {} failed: {}", fileId, e.getMessage());
+            outcome = recordFailure(file);
+        }
+        sample.stop(Timer.builder("takharrujy.files.scan")
+                .description("Time to scan and settle a quarantined upload")
+                .tag("outcome", outcome == null ? "retry" : outcome.name().toLowerCase())
+                .register(meterRegistry));
+
+        if (outcome != null) {
+            notifyUploader(file, outcome);
+        }
+    }
+
+    /**
+     * Stream the quarantined file through the scanner, computing its digest on the
+     * way if the upload predates content hashing
+     */
+    private boolean scanContent(ProjectFile file) throws IOException {
+        MessageDigest digest = file.getContentHash() == null ? sha256() : null;
+        boolean clean;
+        try (InputStream stored = storage.openStream(file.getStoragePath());
+             InputStream content = digest != null ? new DigestInputStream(stored, digest) : stored) {
+            clean = virusScanService.scanStoredFile(content, file.getOriginalFilename(),
+                    file.getContentType(), file.getFileSize());
+        }
+        if (clean && digest != null) {
+            file.setContentHash(HexFormat.of().formatHex(digest.digest()));
+        }
+        return clean;
+    }
+
+    /**
+     * Mark a clean file downloadable and move it into its content blob; images also get
+     * a preview rendered, documents their text indexed. The content is uploaded before the
+     * transaction, which then only takes the blob reference.
+     */
+    private VirusScanStatus promote(ProjectFile file, Long universityId) {
+        String hash = file.getContentHash();
+        String path = storage.blobStoragePath(universityId, hash);
+        fileBlobService.stage(universityId, hash, file.getStoragePath());
+        boolean settled = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (repository.completeScan(file.getId(), VirusScanStatus.CLEAN, path, hash, hash, Instant.now()) == 0) {
+                // Deleted or settled elsewhere while we were scanning
+                return false;
+            }
+            fileBlobService.acquire(universityId, hash, file.getStoragePath(), file.getFileSize());
+            return true;
+        }));
+        storage.deleteFile(file.getStoragePath());
+        if (!settled) {
+            return null;
+        }
+        log.info("File {} passed the virus scan", file.getId());
+        if (file.getContentType() != null && file.getContentType().startsWith("image/")) {
+            imagePipelineService.submitPreview(universityId, hash);
+        } else if (DocumentTextExtractor.supports(file.getContentType())) {
+            textExtractionService.submit(universityId, hash);
+        }
+        return VirusScanStatus.CLEAN;
+    }
+
+    /**
+     * Mark an infected file and remove it from quarantine
+     */
+    private VirusScanStatus reject(ProjectFile file) {
+        Integer updated = transactionTemplate.execute(status ->
+                repository.completeScan(file.getId(), VirusScanStatus.INFECTED, file.getStoragePath(),
+                        file.getFilename(), file.getContentHash(), Instant.now()));
+        storage.deleteFile(file.getStoragePath());
+        if (updated == null || updated == 0) {
+            return null;
+        }
+        log.warn("File {} failed the virus scan and was removed", file.getId());
+        return VirusScanStatus.INFECTED;
+    }
+
+    /**
+     * Count the failed attempt; give up once the file has used all of them
+     */
+    private VirusScanStatus recordFailure(ProjectFile file) {
+        try {
+            boolean exhausted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                repository.incrementScanAttempts(file.getId());
+                if (file.getScanAttempts() + 1 < maxAttempts) {
+                    return false;
+                }
+                return repository.completeScan(file.getId(), VirusScanStatus.FAILED, file.getStoragePath(),
+                        file.getFilename(), file.getContentHash(), Instant.now()) > 0;
+            }));
+            if (exhausted) {
+                log.error("Giving up on virus scan of file {} after {} attempts", file.getId(), maxAttempts);
+                return VirusScanStatus.FAILED;
+            }
+        } catch (Exception e) {
+            log.error("Could not record failed virus scan of file {}", file.getId(), e);
+        }
+        return null;
+    }
+
+    private void notifyUploader(ProjectFile file, VirusScanStatus outcome) {
+        try {
+            userRepository.findById(file.getUploadedByUserId()).ifPresent(user -> {
+                String name = file.getOriginalFilename();
+                switch (outcome) {
+                    case CLEAN -> notificationService.createNotification(user, "File Ready",
+                            "Your file '" + name + "' passed the security scan and is available for download",
+                            NotificationType.FILE, "PROJECT_FILE", file.getId());
+                    case INFECTED -> notificationService.createNotification(user, "File Rejected",
+                            "Your file '" + name + "' failed the security scan and was removed",
+                            NotificationType.FILE, "PROJECT_FILE", file.getId());
+                    default -> notificationService.createNotification(user, "File Scan Failed",
+                            "Your file '" + name + "' could not be scanned, please upload it again",
+                            NotificationType.FILE, "PROJECT_FILE", file.getId());
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Could not notify uploader of file {}: {}", file.getId(), e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -2,90 +2,147 @@ package com.university.takharrujy.application.service;
 
 import com.university.takharrujy.infrastructure.exception.FileStorageException;
 import com.university.takharrujy.infrastructure.exception.ValidationException;
+import com.university.takharrujy.infrastructure.storage.CompressingStorageBackend;
+import com.university.takharrujy.infrastructure.storage.LocalStorageBackend;
+import com.university.takharrujy.infrastructure.storage.StorageBackend;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.nio.channels.FileChannel;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 /**
  * File Storage Service
- * Handles file storage operations including avatar uploads with virus scanning
+ * Handles file storage operations including avatar uploads with virus scanning.
+ * Content-addressed blobs are kept in the configured {@link StorageBackend}; blobs moved to
+ * the cold tier in the cold backend, compressed when their key ends in {@code .gz}.
  */
 @Service
 public class FileStorageService {
     
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+    
     @Value("${app.file.upload-dir:uploads}")
     private String uploadDir;
     
     @Value("${app.file.avatar-dir:avatars}")
     private String avatarDir;
     
+    @Value("${app.file.quarantine-dir:quarantine}")
+    private String quarantineDir;
+    
+    @Value("${app.file.blob-dir:blobs}")
+    private String blobDir;
+    
+    @Value("${app.file.cold-dir:cold}")
+    private String coldDir;
+    
+    @Value("${app.file.thumbnail-dir:thumbnails}")
+    private String thumbnailDir;
+    
+    @Value("${app.file.image-queue-dir:image-queue}")
+    private String imageQueueDir;
+    
     @Value("${app.file.max-avatar-size:5242880}") // 5MB
     private long maxAvatarSize;
     
-    @Value("${app.file.avatar-dimensions:300}")
-    private int avatarDimensions;
-    
     private final VirusScanService virusScanService;
+    private final StorageBackend blobStorage;
+    private final StorageBackend coldStorage;
     
-    public FileStorageService(VirusScanService virusScanService) {
+    /**
+     * Quarantine, avatars and files stored before content addressing; always local
+     */
+    private StorageBackend workingStorage;
+    
+    public FileStorageService(VirusScanService virusScanService, StorageBackend fileStorageBackend,
+                              @Qualifier("coldStorageBackend") StorageBackend coldStorageBackend) {
         this.virusScanService = virusScanService;
+        this.blobStorage = fileStorageBackend;
+        this.coldStorage = coldStorageBackend;
+    }
+    
+    @PostConstruct
+    void init() {
+        workingStorage = new LocalStorageBackend(Paths.get(uploadDir));
     }
     
     /**
-     * Upload and process user avatar
+     * Validate an avatar upload and put it in the image queue as avatar_{userId}_{sequence}_{hash}.
+     * The content scan is skipped because only thumbnails re-encoded from the decoded
+     * pixels are ever served, never the uploaded bytes.
      */
-    public String uploadAvatar(MultipartFile file, Long userId) {
+    public StoredFile queueAvatarSource(MultipartFile file, Long userId, long sequence) {
+        validateAvatarFile(file);
+        
+        // Extension and size checks
+        if (!virusScanService.passesPrecheck(file)) {
+            throw new ValidationException("File failed security scan");
+        }
+        
         try {
-            // Validate file
-            validateAvatarFile(file);
-            
-            // Perform virus scan
-            if (!virusScanService.scanFile(file)) {
-                throw new ValidationException("File failed security scan");
+            Path queue = imageQueueDirectory();
+            Path temp = Files.createTempFile(queue, "incoming", null);
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                long size;
+                try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                    size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                String hash = HexFormat.of().formatHex(digest.digest());
+                Path target = queue.resolve("avatar_" + userId + "_" + sequence + "_" + hash);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return new StoredFile(toStoragePath(target), hash, size);
+            } finally {
+                Files.deleteIfExists(temp);
             }
-            
-            // Create directory if not exists
-            Path avatarDirPath = Paths.get(uploadDir, avatarDir);
-            Files.createDirectories(avatarDirPath);
-            
-            // Generate unique filename
-            String fileExtension = getFileExtension(file.getOriginalFilename());
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String filename = String.format("avatar_%d_%s_%s%s", 
-                userId, timestamp, UUID.randomUUID().toString().substring(0, 8), fileExtension);
-            
-            // Process and resize image
-            byte[] processedImageData = processAvatarImage(file, avatarDimensions);
-            
-            // Save processed file
-            Path filePath = avatarDirPath.resolve(filename);
-            Files.write(filePath, processedImageData);
-            
-            // Return relative URL path
-            return String.format("/%s/%s/%s", uploadDir, avatarDir, filename);
-            
         } catch (IOException e) {
             throw new FileStorageException("Failed to store avatar file: " + e.getMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
     
+    /**
+     * Directory of images waiting for the image pipeline, created if missing
+     */
+    public Path imageQueueDirectory() throws IOException {
+        return Files.createDirectories(Paths.get(uploadDir, imageQueueDir));
+    }
+    
+    /**
+     * Rendered thumbnail of some content: uploads/thumbnails/{hash[0..2]}/{hash}/{size}.jpg
+     */
+    public Path thumbnailFile(String contentHash, int size) {
+        return Paths.get(uploadDir, thumbnailDir, contentHash.substring(0, 2), contentHash, size + ".jpg");
+    }
+    
     /**
      * Delete avatar file
      */
@@ -103,8 +160,8 @@ public class FileStorageService {
                 Files.delete(filePath);
             }
         } catch (IOException e) {
-            // Log error but don't throw exception
-            System.err.println("Failed to delete avatar file: " + e.getMessage());
+            // Left for the storage reconciliation to collect
+            log.warn("Failed to delete avatar file {}: {}", avatarUrl, e.getMessage());
         }
     }
     
@@ -132,49 +189,6 @@ public class FileStorageService {
         }
     }
     
-    /**
-     * Process avatar image - resize and optimize
-     */
-    private byte[] processAvatarImage(MultipartFile file, int targetSize) throws IOException {
-        BufferedImage originalImage = ImageIO.read(file.getInputStream());
-        
-        if (originalImage == null) {
-            throw new ValidationException("Invalid image file");
-        }
-        
-        // Calculate dimensions maintaining aspect ratio
-        int originalWidth = originalImage.getWidth();
-        int originalHeight = originalImage.getHeight();
-        int newWidth, newHeight;
-        
-        if (originalWidth > originalHeight) {
-            newWidth = targetSize;
-            newHeight = (targetSize * originalHeight) / originalWidth;
-        } else {
-            newHeight = targetSize;
-            newWidth = (targetSize * originalWidth) / originalHeight;
-        }
-        
-        // Create resized image
-        BufferedImage resizedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = resizedImage.createGraphics();
-        
-        // Enable high-quality rendering
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        
-        // Draw resized image
-        g2d.drawImage(originalImage, 0, 0, newWidth, newHeight, null);
-        g2d.dispose();
-        
-        // Convert to byte array
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(resizedImage, "jpg", baos);
-        
-        return baos.toByteArray();
-    }
-    
     /**
      * Get file extension from filename
      */
@@ -191,55 +205,277 @@ public class FileStorageService {
      */
     public String storeProjectFile(MultipartFile file, Long projectId) {
         try {
-            String original = file.getOriginalFilename();
-            String ext = getFileExtension(original);
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String name = String.format("p_%d_%s_%s%s",
-                projectId, timestamp, UUID.randomUUID().toString().substring(0, 8), ext);
-
-            // Create organized directory structure: uploads/projects/{projectId}/{year}/{month}/{day}
-            Path base = Paths.get(uploadDir, "projects", String.valueOf(projectId),
-                String.valueOf(LocalDateTime.now().getYear()),
-                String.format("%02d", LocalDateTime.now().getMonthValue()),
-                String.format("%02d", LocalDateTime.now().getDayOfMonth()));
-            Files.createDirectories(base);
-
-            Path target = base.resolve(name);
+            Path target = projectFileTarget(projectId, file.getOriginalFilename());
             Files.copy(file.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
-
-            // Return normalized relative path
-            Path rel = Paths.get(uploadDir).relativize(target).normalize();
-            return "/" + uploadDir + "/" + rel.toString().replace("\\", "/");
+            return toStoragePath(target);
         } catch (IOException e) {
             throw new FileStorageException("Failed to store project file: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Store an upload in the quarantine area until its security scan completes.
+     * The SHA-256 digest is computed while the upload is copied, in the same pass.
+     */
+    public StoredFile storeQuarantined(MultipartFile file) {
+        return storeQuarantined(file, UnaryOperator.identity());
+    }
+    
+    /**
+     * Store an upload in quarantine, reading its body through {@code wrap}, e.g. to pace it
+     */
+    public StoredFile storeQuarantined(MultipartFile file, UnaryOperator<InputStream> wrap) {
+        try {
+            Path base = Paths.get(uploadDir, quarantineDir);
+            Files.createDirectories(base);
+            
+            Path target = base.resolve("q_" + UUID.randomUUID() + getFileExtension(file.getOriginalFilename()));
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size;
+            try (InputStream in = new DigestInputStream(wrap.apply(file.getInputStream()), digest)) {
+                size = Files.copy(in, target);
+            }
+            return new StoredFile(toStoragePath(target), HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to store quarantined file: " + e.getMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Create an empty quarantined file for an upload whose content arrives in chunks
+     */
+    public String createQuarantineFile(String originalFilename) {
+        try {
+            Path base = Paths.get(uploadDir, quarantineDir);
+            Files.createDirectories(base);
+            Path target = Files.createFile(
+                base.resolve("q_" + UUID.randomUUID() + getFileExtension(originalFilename)));
+            return toStoragePath(target);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to create quarantined file: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Open a quarantined file for positional writes
+     */
+    public FileChannel openForWrite(String storagePath) throws IOException {
+        return FileChannel.open(resolve(storagePath), StandardOpenOption.WRITE);
+    }
+    
+    /**
+     * Storage path of a content blob: uploads/blobs/{universityId}/{hash[0..2]}/{hash[2..4]}/{hash}
+     */
+    public String blobStoragePath(Long universityId, String contentHash) {
+        return "/" + uploadDir + "/" + blobDir + "/" + universityId + "/"
+            + contentHash.substring(0, 2) + "/" + contentHash.substring(2, 4) + "/" + contentHash;
+    }
+    
+    /**
+     * Storage path of a blob in the cold tier: uploads/cold/{universityId}/{hash[0..2]}/{hash[2..4]}/{hash},
+     * with a {@code .gz} suffix when the content is stored compressed
+     */
+    public String coldStoragePath(Long universityId, String contentHash, boolean compressed) {
+        return "/" + uploadDir + "/" + coldDir + "/" + universityId + "/"
+            + contentHash.substring(0, 2) + "/" + contentHash.substring(2, 4) + "/" + contentHash
+            + (compressed ? CompressingStorageBackend.SUFFIX : "");
+    }
+    
+    /**
+     * Copy a stored file to another storage path, possibly in another backend. The content
+     * is staged in a local temporary file; an existing target is replaced.
+     */
+    public void copy(String sourcePath, String targetPath) throws IOException {
+        StorageLocation source = locate(sourcePath);
+        StorageLocation target = locate(targetPath);
+        Path base = Files.createDirectories(Paths.get(uploadDir, quarantineDir));
+        Path temp = Files.createTempFile(base, "copy", null);
+        try {
+            try (InputStream in = source.backend().open(source.key())) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            target.backend().store(target.key(), temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    /**
+     * Store a scanned, clean file in the blob storage backend, unless the blob is already
+     * there (identical content). The quarantined file is kept, so the content can be stored
+     * again if the blob is deleted before its new reference commits; the caller removes it.
+     */
+    public void stageBlob(String quarantinePath, String blobPath) {
+        StorageLocation target = locate(blobPath);
+        try {
+            if (target.backend().exists(target.key())) {
+                return;
+            }
+            Path source = resolve(quarantinePath);
+            // The backend consumes what it stores; a hard link costs nothing on the same file system
+            Path staged = source.resolveSibling(source.getFileName() + ".blob");
+            Files.deleteIfExists(staged);
+            try {
+                Files.createLink(staged, source);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(source, staged);
+            }
+            try {
+                target.backend().store(target.key(), staged);
+            } finally {
+                Files.deleteIfExists(staged);
+            }
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to store quarantined file as blob: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Open a stored file for reading, from whichever backend holds it
+     */
+    public InputStream openStream(String storagePath) throws IOException {
+        StorageLocation location = locate(storagePath);
+        return location.backend().open(location.key());
+    }
+    
+    /**
+     * Target path under uploads/projects/{projectId}/{year}/{month}/{day}, directories created
+     */
+    private Path projectFileTarget(Long projectId, String originalFilename) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        String timestamp = now.format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String name = String.format("p_%d_%s_%s%s",
+            projectId, timestamp, UUID.randomUUID().toString().substring(0, 8), getFileExtension(originalFilename));
+
+        Path base = Paths.get(uploadDir, "projects", String.valueOf(projectId),
+            String.valueOf(now.getYear()),
+            String.format("%02d", now.getMonthValue()),
+            String.format("%02d", now.getDayOfMonth()));
+        Files.createDirectories(base);
+        return base.resolve(name);
+    }
+    
+    /**
+     * Normalized storage path relative to the upload root, e.g. /uploads/projects/...
+     */
+    private String toStoragePath(Path target) {
+        Path rel = Paths.get(uploadDir).relativize(target).normalize();
+        return "/" + uploadDir + "/" + rel.toString().replace("\\", "/");
+    }
+    
     /**
      * Load file as resource for download
      */
     public Resource loadAsResource(String storagePath) {
         try {
-            String clean = storagePath.startsWith("/") ? storagePath.substring(1) : storagePath;
-            Path path = Paths.get(clean).normalize();
-            
-            if (!Files.exists(path)) {
-                // Try resolve relative to uploadDir root
-                Path root = Paths.get(uploadDir).toAbsolutePath().normalize();
-                Path candidate = storagePath.startsWith("/" + uploadDir + "/")
-                    ? Paths.get(storagePath.substring(1))
-                    : root.resolve(clean);
-                path = candidate.normalize();
+            StorageLocation location = locate(storagePath);
+            if (location.backend() != workingStorage) {
+                Path local = location.backend().localPath(location.key()).orElse(null);
+                if (local == null) {
+                    return new InputStreamResource(location.backend().open(location.key()));
+                }
+                return new UrlResource(local.toUri());
             }
-            
-            Resource resource = new UrlResource(path.toUri());
+            Resource resource = new UrlResource(resolve(storagePath).toUri());
             if (resource.exists() && resource.isReadable()) {
                 return resource;
             }
             throw new FileStorageException("File not found or unreadable: " + storagePath);
         } catch (MalformedURLException ex) {
             throw new FileStorageException("Invalid file URL: " + storagePath, ex);
+        } catch (IOException ex) {
+            throw new FileStorageException("File not found or unreadable: " + storagePath, ex);
+        }
+    }
+    
+    /**
+     * Backend and key of a stored file. Blobs live in the configured storage backend, cold
+     * blobs in the cold backend; everything else under the upload root on the local file system.
+     */
+    public StorageLocation locate(String storagePath) {
+        String prefix = "/" + uploadDir + "/";
+        if (storagePath == null || !storagePath.startsWith(prefix)) {
+            throw new FileStorageException("Unrecognised storage path: " + storagePath);
         }
+        String key = storagePath.substring(prefix.length());
+        StorageBackend backend = key.startsWith(blobDir + "/") ? blobStorage
+            : key.startsWith(coldDir + "/") ? coldStorage
+            : workingStorage;
+        return new StorageLocation(backend, key);
+    }
+    
+    /**
+     * Whether a stored file exists in the backend that should hold it
+     */
+    public boolean exists(String storagePath) throws IOException {
+        StorageLocation location = locate(storagePath);
+        return location.backend().exists(location.key());
+    }
+    
+    /**
+     * Whether a stored file is a blob in the cold tier
+     */
+    public boolean isCold(String storagePath) {
+        return locate(storagePath).backend() == coldStorage;
+    }
+
+    /**
+     * Storage path of a top-level directory, ending in a slash
+     */
+    public String directoryPath(Directory directory) {
+        String name = switch (directory) {
+            case BLOBS -> blobDir;
+            case PROJECTS -> "projects";
+            case QUARANTINE -> quarantineDir;
+            case AVATARS -> avatarDir;
+            case THUMBNAILS -> thumbnailDir;
+            case IMAGE_QUEUE -> imageQueueDir;
+        };
+        return "/" + uploadDir + "/" + name + "/";
+    }
+    
+    /**
+     * Names of the entries directly under the local upload root
+     */
+    public List<String> topLevelEntries() throws IOException {
+        Path root = Paths.get(uploadDir);
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (Stream<Path> entries = Files.list(root)) {
+            return entries.map(entry -> entry.getFileName().toString()).sorted().toList();
+        }
+    }
+    
+    /**
+     * Visit every stored file under a directory path, with keys given as storage paths
+     * ({@code /uploads/...}) rather than backend keys
+     */
+    public void list(String directoryPath, Consumer<StorageBackend.StoredObject> visitor) throws IOException {
+        StorageLocation location = locate(directoryPath);
+        String prefix = "/" + uploadDir + "/";
+        location.backend().list(location.key(), object -> visitor.accept(
+            new StorageBackend.StoredObject(prefix + object.key(), object.size(), object.lastModified())));
+    }
+    
+    /**
+     * Resolve a storage path to the file system, relative to the working directory or the upload root
+     */
+    private Path resolve(String storagePath) {
+        String clean = storagePath.startsWith("/") ? storagePath.substring(1) : storagePath;
+        Path path = Paths.get(clean).normalize();
+        
+        if (!Files.exists(path)) {
+            // Try resolve relative to uploadDir root
+            Path root = Paths.get(uploadDir).toAbsolutePath().normalize();
+            Path candidate = storagePath.startsWith("/" + uploadDir + "/")
+                ? Paths.get(storagePath.substring(1))
+                : root.resolve(clean);
+            path = candidate.normalize();
+        }
+        return path;
     }
     
     /**
@@ -247,14 +483,38 @@ public class FileStorageService {
      */
     public void deleteFile(String storagePath) {
         try {
+            StorageLocation location = locate(storagePath);
+            if (location.backend() != workingStorage) {
+                location.backend().delete(location.key());
+                return;
+            }
             String clean = storagePath.startsWith("/") ? storagePath.substring(1) : storagePath;
             Path path = Paths.get(clean).normalize();
             if (Files.exists(path)) {
                 Files.delete(path);
             }
         } catch (IOException e) {
-            // Swallow delete failures to avoid cascading errors
-            System.err.println("Failed to delete file: " + e.getMessage());
+            // Not rethrown, to avoid cascading errors; the storage reconciliation collects it later
+            log.warn("Failed to delete file {}: {}", storagePath, e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Top-level directories of the upload tree
+     */
+    public enum Directory {
+        BLOBS, PROJECTS, QUARANTINE, AVATARS, THUMBNAILS, IMAGE_QUEUE
+    }
+    
+    /**
+     * Where a stored file lives
+     */
+    public record StorageLocation(StorageBackend backend, String key) {
+    }
+    
+    /**
+     * A file written to storage, with the SHA-256 of its content
+     */
+    public record StoredFile(String storagePath, String contentHash, long size) {
+    }
+}
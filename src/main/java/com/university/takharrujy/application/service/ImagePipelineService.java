@@ -0,0 +1,323 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.repository.UserRepository;
+import com.university.takharrujy.infrastructure.exception.FileStorageException;
+import com.university.takharrujy.infrastructure.exception.ValidationException;
+import com.university.takharrujy.infrastructure.service.ImageThumbnailer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Image Pipeline Service
+ * Renders avatars and previews of project images into thumbnails off the request
+ * thread, on a bounded pool. Every configured size comes out of one subsampled decode
+ * (see {@link ImageThumbnailer}).
+ *
+ * Thumbnails are addressed by the SHA-256 of the source image, so identical images are
+ * rendered once and their URLs never change meaning; they are served as immutable.
+ *
+ * Pending work is kept as files in the image queue directory: an avatar job holds the
+ * uploaded image ({@code avatar_{userId}_{sequence}_{hash}}), a preview job is an empty
+ * marker for a clean blob ({@code preview_{universityId}_{hash}}). A job is deleted once
+ * rendered, so the sweeper can resubmit anything a full queue dropped or a restart
+ * interrupted.
+ *
+ * Avatar jobs finish in any order; each carries a number drawn at upload, and the profile
+ * picture only moves to a higher number than the one it shows (see V25).
+ */
+@Service
+public class ImagePipelineService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImagePipelineService.class);
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern JOB_NAME = Pattern.compile("(avatar|preview)_(\\d+)_(?:(\\d+)_)?([0-9a-f]{64})");
+
+    @Value("${takharrujy.images.sizes:64,160,320,640}")
+    private int[] sizes;
+
+    @Value("${takharrujy.images.avatar-size:320}")
+    private int avatarSize;
+
+    @Value("${takharrujy.images.workers:2}")
+    private int workers;
+
+    @Value("${takharrujy.images.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${takharrujy.images.stale-after:PT2M}")
+    private Duration staleAfter;
+
+    private final FileStorageService storage;
+    private final ImageThumbnailer thumbnailer;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor renderExecutor;
+
+    public ImagePipelineService(FileStorageService storage,
+                                ImageThumbnailer thumbnailer,
+                                UserRepository userRepository,
+                                MeterRegistry meterRegistry,
+                                PlatformTransactionManager transactionManager) {
+        this.storage = storage;
+        this.thumbnailer = thumbnailer;
+        this.userRepository = userRepository;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        int threads = Math.max(1, workers);
+        renderExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "image-render");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Gauge.builder("takharrujy.images.queued", renderExecutor, executor -> executor.getQueue().size())
+                .description("Images waiting to be rendered on this node")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        renderExecutor.shutdown();
+    }
+
+    /**
+     * Queue a new avatar. Returns its URL straight away if this image was rendered before;
+     * otherwise the user's avatar is switched once the thumbnails are ready. An image that
+     * does not decode is refused here rather than failing in the background.
+     */
+    public Optional<String> submitAvatar(Long userId, MultipartFile file) {
+        long sequence = userRepository.nextAvatarSequence();
+        String hash = storage.queueAvatarSource(file, userId, sequence).contentHash();
+        Path job;
+        try {
+            job = storage.imageQueueDirectory().resolve("avatar_" + userId + "_" + sequence + "_" + hash);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to queue avatar: " + e.getMessage(), e);
+        }
+        try (InputStream source = Files.newInputStream(job)) {
+            thumbnailer.verify(source);
+        } catch (IOException e) {
+            deleteJob(job);
+            throw new ValidationException("Invalid image file: " + e.getMessage());
+        }
+        if (isRendered(hash)) {
+            deleteJob(job);
+            return applyAvatar(userId, hash, sequence)
+                ? Optional.of(imageUrl(hash, avatarSize))
+                : Optional.empty();
+        }
+        submit(job);
+        return Optional.empty();
+    }
+
+    /**
+     * Queue a preview of a clean project image stored as a blob
+     */
+    public void submitPreview(Long universityId, String contentHash) {
+        if (isRendered(contentHash)) {
+            return;
+        }
+        try {
+            Path job = storage.imageQueueDirectory().resolve("preview_" + universityId + "_" + contentHash);
+            try {
+                Files.createFile(job);
+            } catch (FileAlreadyExistsException e) {
+                // Already queued
+            }
+            submit(job);
+        } catch (IOException e) {
+            log.warn("Could not queue preview of {}: {}", contentHash, e.getMessage());
+        }
+    }
+
+    /**
+     * URL of a rendered thumbnail
+     */
+    public String imageUrl(String contentHash, int size) {
+        return "/api/v1/images/" + contentHash + "/" + size;
+    }
+
+    /**
+     * URL of the preview a clean image will have, to hand out before it is rendered
+     */
+    public String previewUrl(String contentHash) {
+        return imageUrl(contentHash, avatarSize);
+    }
+
+    /**
+     * A rendered thumbnail, if the hash is well-formed, the size is configured and it exists
+     */
+    public Optional<Path> findThumbnail(String contentHash, int size) {
+        if (!CONTENT_HASH.matcher(contentHash).matches() || Arrays.stream(sizes).noneMatch(s -> s == size)) {
+            return Optional.empty();
+        }
+        Path file = storage.thumbnailFile(contentHash, size);
+        return Files.isReadable(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    /**
+     * Resubmit jobs that have been waiting longer than expected
+     */
+    @Scheduled(fixedDelayString = "${takharrujy.images.sweep-interval:PT1M}")
+    public void sweep() {
+        FileTime cutoff = FileTime.from(Instant.now().minus(staleAfter));
+        try (DirectoryStream<Path> jobs = Files.newDirectoryStream(storage.imageQueueDirectory(),
+                path -> JOB_NAME.matcher(path.getFileName().toString()).matches())) {
+            int resubmitted = 0;
+            for (Path job : jobs) {
+                if (Files.getLastModifiedTime(job).compareTo(cutoff) < 0 && !inFlight.contains(job)) {
+                    submit(job);
+                    resubmitted++;
+                }
+            }
+            if (resubmitted > 0) {
+                log.info("Resubmitted {} images waiting to be rendered", resubmitted);
+            }
+        } catch (Exception e) {
+            log.error("Image queue sweep failed", e);
+        }
+    }
+
+    private void submit(Path job) {
+        if (!inFlight.add(job)) {
+            return;
+        }
+        try {
+            renderExecutor.execute(() -> {
+                try {
+                    render(job);
+                } finally {
+                    inFlight.remove(job);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(job);
+            log.warn("Image queue full, {} left for the sweeper", job.getFileName());
+        }
+    }
+
+    /**
+     * Render one job's thumbnails and apply it
+     */
+    void render(Path job) {
+        var name = JOB_NAME.matcher(job.getFileName().toString());
+        if (!name.matches() || !Files.exists(job)) {
+            return;
+        }
+        boolean avatar = "avatar".equals(name.group(1));
+        long ownerId = Long.parseLong(name.group(2));
+        // Avatar jobs queued before they were numbered only replace an avatar never numbered
+        long sequence = name.group(3) != null ? Long.parseLong(name.group(3)) : 1L;
+        String hash = name.group(4);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "rendered";
+        try {
+            if (isRendered(hash)) {
+                outcome = "cached";
+            } else {
+                try (InputStream source = avatar
+                        ? Files.newInputStream(job)
+                        : storage.openStream(storage.blobStoragePath(ownerId, hash))) {
+                    writeThumbnails(hash, thumbnailer.render(source, sizes));
+                }
+            }
+            if (avatar) {
+                applyAvatar(ownerId, hash, sequence);
+            }
+        } catch (Exception e) {
+            // Unreadable or unsupported images will not render on a retry either
+            log.warn("Could not render {}: {}", job.getFileName(), e.getMessage());
+            outcome = "failed";
+        }
+        deleteJob(job);
+        sample.stop(Timer.builder("takharrujy.images.render")
+                .description("Time to render all thumbnail sizes of one image")
+                .tag("kind", name.group(1))
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Switch the user's avatar, unless an avatar uploaded after this one is already shown.
+     * Returns whether it was switched.
+     */
+    private boolean applyAvatar(Long userId, String hash, long sequence) {
+        String url = imageUrl(hash, avatarSize);
+        Integer updated = transactionTemplate.execute(status -> userRepository.applyAvatar(userId, url, sequence));
+        return updated != null && updated > 0;
+    }
+
+    /**
+     * Each size is moved into place atomically; the largest goes last, so its presence
+     * means every size is there
+     */
+    private void writeThumbnails(String hash, Map<Integer, byte[]> rendered) throws IOException {
+        int largest = Arrays.stream(sizes).max().orElseThrow();
+        for (int size : rendered.keySet().stream().sorted().toList()) {
+            Path target = storage.thumbnailFile(hash, size);
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), size + "_", ".tmp");
+            try {
+                Files.write(temp, rendered.get(size));
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        log.debug("Rendered thumbnails of {} up to {}px", hash, largest);
+    }
+
+    private boolean isRendered(String hash) {
+        int largest = Arrays.stream(sizes).max().orElseThrow();
+        return Files.exists(storage.thumbnailFile(hash, largest));
+    }
+
+    private void deleteJob(Path job) {
+        try {
+            Files.deleteIfExists(job);
+        } catch (IOException e) {
+            log.warn("Could not remove image job {}: {}", job.getFileName(), e.getMessage());
+        }
+    }
+}
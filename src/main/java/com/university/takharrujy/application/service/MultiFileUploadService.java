@@ -0,0 +1,290 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.entity.ProjectFile;
+import com.university.takharrujy.domain.repository.ProjectFileRepository;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.exception.ResourceNotFoundException;
+import com.university.takharrujy.infrastructure.exception.ValidationException;
+import com.university.takharrujy.presentation.dto.file.MultiFileUploadResponse;
+import com.university.takharrujy.presentation.dto.file.MultiFileUploadResponse.Item;
+import com.university.takharrujy.presentation.dto.file.MultiFileUploadResponse.Status;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Multi-File Upload Service
+ * Uploads several files to a project in one request. Every part is validated before any is
+ * stored; the valid ones are then copied into quarantine and hashed in parallel, at most a
+ * few at a time per request, and their rows written with a single insert. Each part gets
+ * its own result, so one bad file does not fail the rest. Content scans run in the
+ * background as for single uploads.
+ */
+@Service
+public class MultiFileUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(MultiFileUploadService.class);
+
+    private static final String INSERT_COLUMNS = """
+        INSERT INTO project_files (university_id, project_id, filename, original_filename, content_type, file_size,
+                                   storage_path, content_hash, uploaded_by_user_id, uploaded_at, virus_scan_status,
+                                   created_by)
+        VALUES %s
+        RETURNING id, storage_path
+        """;
+
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'PENDING', ?)";
+
+    @Value("${takharrujy.files.multi-upload.max-files:25}")
+    private int maxFiles;
+
+    @Value("${takharrujy.files.multi-upload.workers:8}")
+    private int workers;
+
+    @Value("${takharrujy.files.multi-upload.max-parallel-per-request:4}")
+    private int maxParallelPerRequest;
+
+    private final ProjectFileService projectFileService;
+    private final ProjectFileRepository repository;
+    private final FileStorageService storage;
+    private final VirusScanService virusScanService;
+    private final FileScanService fileScanService;
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorAware;
+    private final TransactionTemplate transactionTemplate;
+    private final UploadIoScheduler uploadIoScheduler;
+    private final StorageUsageService storageUsageService;
+
+    private ThreadPoolExecutor storeExecutor;
+
+    public MultiFileUploadService(ProjectFileService projectFileService,
+                                  ProjectFileRepository repository,
+                                  FileStorageService storage,
+                                  VirusScanService virusScanService,
+                                  FileScanService fileScanService,
+                                  JdbcTemplate jdbcTemplate,
+                                  AuditorAware<String> auditorAware,
+                                  PlatformTransactionManager transactionManager,
+                                  UploadIoScheduler uploadIoScheduler,
+                                  StorageUsageService storageUsageService) {
+        this.projectFileService = projectFileService;
+        this.repository = repository;
+        this.storage = storage;
+        this.virusScanService = virusScanService;
+        this.fileScanService = fileScanService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditorAware = auditorAware;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.uploadIoScheduler = uploadIoScheduler;
+        this.storageUsageService = storageUsageService;
+    }
+
+    @PostConstruct
+    void start() {
+        int threads = Math.max(1, workers);
+        storeExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "upload-store");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // A full queue stores on the request thread instead
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        storeExecutor.shutdown();
+    }
+
+    /**
+     * Upload the parts of one request. Fails as a whole only if the project does not exist
+     * or there are no parts or too many; otherwise each part is accepted or not on its own.
+     */
+    public MultiFileUploadResponse upload(Long projectId, Long userId, List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            throw new ValidationException("At least one file is required");
+        }
+        if (files.size() > maxFiles) {
+            throw new ValidationException("Cannot upload more than " + maxFiles + " files at once");
+        }
+        List<Long> university = jdbcTemplate.queryForList("SELECT university_id FROM projects WHERE id = ?",
+            Long.class, projectId);
+        if (university.isEmpty()) {
+            throw new ResourceNotFoundException("Project not found with ID: " + projectId);
+        }
+
+        Item[] results = new Item[files.size()];
+        List<Integer> valid = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            String rejection = validate(files.get(i));
+            if (rejection != null) {
+                results[i] = new Item(i, files.get(i).getOriginalFilename(), Status.REJECTED, null, rejection);
+            } else {
+                valid.add(i);
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            // Quotas take the valid parts together; none is stored if they do not all fit
+            storageUsageService.checkQuota(projectId, userId,
+                valid.stream().mapToLong(index -> files.get(index).getSize()).sum());
+        }
+
+        Map<Integer, FileStorageService.StoredFile> stored = store(university.get(0), userId, files, valid, results);
+        if (!stored.isEmpty()) {
+            persist(university.get(0), projectId, userId, files, stored, results);
+        }
+        return MultiFileUploadResponse.of(List.of(results));
+    }
+
+    /**
+     * Reason a part cannot be accepted, or null
+     */
+    private String validate(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            return "File is required";
+        }
+        try {
+            projectFileService.validateUpload(file.getContentType(), file.getSize());
+        } catch (ValidationException e) {
+            return e.getMessage();
+        }
+        if (!virusScanService.passesPrecheck(file)) {
+            return "File failed security scan - potential malware detected";
+        }
+        return null;
+    }
+
+    /**
+     * Copy the valid parts into quarantine, hashing them on the way, no more than
+     * max-parallel-per-request at once. Each part waits for an upload slot on the request
+     * thread, so the shared store threads never block on another university's share.
+     * Parts that could not be stored, or got no slot, are marked FAILED.
+     */
+    private Map<Integer, FileStorageService.StoredFile> store(Long universityId, Long userId, List<MultipartFile> files,
+                                                              List<Integer> valid, Item[] results) {
+        Map<Integer, FileStorageService.StoredFile> stored = Collections.synchronizedMap(new HashMap<>());
+        Semaphore permits = new Semaphore(Math.max(1, maxParallelPerRequest));
+        List<CompletableFuture<Void>> copies = new ArrayList<>(valid.size());
+        try {
+            for (int index : valid) {
+                permits.acquire();
+                MultipartFile file = files.get(index);
+                UploadIoScheduler.Permit slot;
+                try {
+                    slot = uploadIoScheduler.admit(universityId, userId, file.getSize());
+                } catch (BusinessException e) {
+                    permits.release();
+                    results[index] = new Item(index, file.getOriginalFilename(), Status.FAILED, null, e.getMessage());
+                    continue;
+                }
+                copies.add(CompletableFuture.runAsync(() -> {
+                    try (slot) {
+                        stored.put(index, storage.storeQuarantined(file, slot::throttle));
+                    } catch (RuntimeException e) {
+                        log.warn("Could not store upload {}: {}", file.getOriginalFilename(), e.getMessage());
+                        results[index] = new Item(index, file.getOriginalFilename(), Status.FAILED, null,
+                            "File could not be stored");
+                    } finally {
+                        permits.release();
+                    }
+                }, storeExecutor));
+            }
+            CompletableFuture.allOf(copies.toArray(CompletableFuture[]::new)).join();
+        } catch (InterruptedException | CancellationException e) {
+            Thread.currentThread().interrupt();
+            // Copies already handed out hold upload slots, so let them finish and then remove them
+            CompletableFuture.allOf(copies.toArray(CompletableFuture[]::new)).exceptionally(ignored -> null).join();
+            stored.values().forEach(file -> storage.deleteFile(file.storagePath()));
+            throw new CancellationException("Upload interrupted");
+        }
+        return stored;
+    }
+
+    /**
+     * Insert the rows of all stored parts in one statement, then queue their scans. If the
+     * insert fails, the quarantined copies are removed and every stored part is FAILED.
+     */
+    private void persist(Long universityId, Long projectId, Long userId, List<MultipartFile> files,
+                         Map<Integer, FileStorageService.StoredFile> stored, Item[] results) {
+        List<Integer> indexes = stored.keySet().stream().sorted().toList();
+        String createdBy = auditorAware.getCurrentAuditor().orElse("system");
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object> args = new ArrayList<>(indexes.size() * 11);
+        for (int index : indexes) {
+            MultipartFile file = files.get(index);
+            FileStorageService.StoredFile copy = stored.get(index);
+            args.add(universityId);
+            args.add(projectId);
+            args.add(filename(copy.storagePath()));
+            args.add(file.getOriginalFilename());
+            args.add(contentType(file.getContentType()));
+            args.add(copy.size());
+            args.add(copy.storagePath());
+            args.add(copy.contentHash());
+            args.add(userId);
+            args.add(now);
+            args.add(createdBy);
+        }
+        String sql = INSERT_COLUMNS.formatted(String.join(", ", Collections.nCopies(indexes.size(), INSERT_ROW)));
+
+        Map<String, Long> ids = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(sql,
+                (RowCallbackHandler) rs -> ids.put(rs.getString(2), rs.getLong(1)), args.toArray()));
+        } catch (DataAccessException e) {
+            log.error("Could not save {} uploaded files of project {}", indexes.size(), projectId, e);
+            for (int index : indexes) {
+                storage.deleteFile(stored.get(index).storagePath());
+                results[index] = new Item(index, files.get(index).getOriginalFilename(), Status.FAILED, null,
+                    "File could not be saved");
+            }
+            return;
+        }
+
+        Map<Long, ProjectFile> saved = repository.findAllById(ids.values()).stream()
+            .collect(Collectors.toMap(ProjectFile::getId, file -> file));
+        for (int index : indexes) {
+            Long id = ids.get(stored.get(index).storagePath());
+            fileScanService.submit(id);
+            ProjectFile file = saved.get(id);
+            results[index] = new Item(index, files.get(index).getOriginalFilename(), Status.ACCEPTED,
+                file != null ? projectFileService.toResponse(file) : null, null);
+        }
+    }
+
+    private static String contentType(String contentType) {
+        return (contentType == null || contentType.isBlank()) ? MediaType.APPLICATION_OCTET_STREAM_VALUE : contentType;
+    }
+
+    private static String filename(String storagePath) {
+        return storagePath.substring(storagePath.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.entity.Notification;
+import com.university.takharrujy.domain.entity.User;
+import com.university.takharrujy.domain.entity.UserPreferences;
+import com.university.takharrujy.domain.enums.DigestFrequency;
+import com.university.takharrujy.domain.repository.NotificationRepository;
+import com.university.takharrujy.domain.repository.UserPreferencesRepository;
+import com.university.takharrujy.infrastructure.service.EmailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Notification Digest Service
+ * Periodically sends one summary email per user on a digest frequency,
+ * covering every notification that occurred since their previous digest.
+ */
+@Service
+public class NotificationDigestService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDigestService.class);
+
+    private static final int MAX_DIGEST_LINES = 50;
+
+    private final UserPreferencesRepository userPreferencesRepository;
+    private final NotificationRepository notificationRepository;
+    private final EmailService emailService;
+    private final NotificationRetentionPolicy retentionPolicy;
+
+    public NotificationDigestService(UserPreferencesRepository userPreferencesRepository,
+                                     NotificationRepository notificationRepository,
+                                     EmailService emailService,
+                                     NotificationRetentionPolicy retentionPolicy) {
+        this.userPreferencesRepository = userPreferencesRepository;
+        this.notificationRepository = notificationRepository;
+        this.emailService = emailService;
+        this.retentionPolicy = retentionPolicy;
+    }
+
+    /**
+     * Send all digests that are due. Runs at the top of every hour by default.
+     */
+    @Scheduled(cron = "${takharrujy.notifications.digest.cron:0 0 * * * *}")
+    @Transactional
+    public void sendDueDigests() {
+        Instant now = Instant.now();
+        int sent = 0;
+        for (DigestFrequency frequency : DigestFrequency.values()) {
+            if (frequency == DigestFrequency.NONE) {
+                continue;
+            }
+            List<UserPreferences> due = userPreferencesRepository.findDueForDigest(frequency, now.minus(frequency.getPeriod()));
+            for (UserPreferences prefs : due) {
+                if (sendDigest(prefs, now)) {
+                    sent++;
+                }
+            }
+        }
+        if (sent > 0) {
+            log.info("Sent {} notification digests", sent);
+        }
+    }
+
+    private boolean sendDigest(UserPreferences prefs, Instant now) {
+        User user = prefs.getUser();
+        Instant since = prefs.getLastDigestSentAt() != null
+                ? prefs.getLastDigestSentAt()
+                : now.minus(prefs.getDigestFrequency().getPeriod());
+
+        // A row that occurred since the last digest was created at most one coalescing span earlier
+        List<Notification> notifications = notificationRepository.findOccurredSince(
+                user.getId(), since, retentionPolicy.coalesceHorizon(since));
+        prefs.setLastDigestSentAt(now);
+
+        if (notifications.isEmpty()) {
+            return false;
+        }
+
+        List<String> lines = notifications.stream()
+                .limit(MAX_DIGEST_LINES)
+                .map(this::toDigestLine)
+                .toList();
+
+        try {
+            emailService.sendNotificationDigestEmail(
+                    user.getEmail(),
+                    user.getFullName(),
+                    lines,
+                    notifications.size(),
+                    prefs.getLanguage());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to send notification digest to user [{}]", user.getId(), e);
+            return false;
+        }
+    }
+
+    private String toDigestLine(Notification notification) {
+        String line = notification.getTitle() + ": " + notification.getMessage();
+        Integer count = notification.getOccurrenceCount();
+        return count != null && count > 1 ? line + " (x" + count + ")" : line;
+    }
+}
@@ -0,0 +1,111 @@
+package com.university.takharrujy.application.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Notification Partition Maintenance Service
+ * Keeps monthly partitions of the notifications table created ahead of time and
+ * enforces retention by dropping whole expired partitions, which is a metadata
+ * operation instead of a large DELETE followed by vacuum.
+ *
+ * An expired partition is first detached concurrently, which only briefly blocks
+ * writers of the partition itself, and dropped once it is no longer attached;
+ * dropping an attached partition would lock the whole notifications table. A detach
+ * interrupted half way is finalized on the next run.
+ */
+@Service
+public class NotificationPartitionMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationPartitionMaintenanceService.class);
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("^notifications_p(\\d{4})_(\\d{2})$");
+
+    private static final String LIST_PARTITIONS_SQL = """
+        SELECT c.relname, i.inhdetachpending FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        JOIN pg_class p ON p.oid = i.inhparent
+        WHERE p.relname = 'notifications'
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationRetentionPolicy retentionPolicy;
+
+    public NotificationPartitionMaintenanceService(JdbcTemplate jdbcTemplate,
+                                                   NotificationRetentionPolicy retentionPolicy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionPolicy = retentionPolicy;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    /**
+     * Create upcoming partitions and drop expired ones. Runs daily by default.
+     */
+    @Scheduled(cron = "${takharrujy.notifications.partition-maintenance.cron:0 30 2 * * *}")
+    public void maintainPartitions() {
+        try {
+            createUpcomingPartitions();
+            dropExpiredPartitions();
+        } catch (Exception e) {
+            log.error("Notification partition maintenance failed", e);
+        }
+    }
+
+    private void createUpcomingPartitions() {
+        LocalDate currentMonth = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        for (int i = 0; i <= retentionPolicy.getPartitionsAhead(); i++) {
+            Timestamp monthStart = Timestamp.valueOf(currentMonth.plusMonths(i).atStartOfDay());
+            jdbcTemplate.queryForObject("SELECT create_notification_partition(?)", String.class, monthStart);
+        }
+    }
+
+    private void dropExpiredPartitions() {
+        LocalDate oldestRetained = retentionPolicy.oldestRetainedMonth(Instant.now());
+        List<Map<String, Object>> partitions = jdbcTemplate.queryForList(LIST_PARTITIONS_SQL);
+
+        for (Map<String, Object> row : partitions) {
+            String partition = (String) row.get("relname");
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            LocalDate month = LocalDate.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), 1);
+            if (month.isBefore(oldestRetained)) {
+                dropPartition(partition, Boolean.TRUE.equals(row.get("inhdetachpending")));
+            }
+        }
+    }
+
+    /**
+     * Detach a partition without locking the parent, then drop it. Each statement runs on
+     * its own: a concurrent detach cannot be part of a transaction block.
+     */
+    private void dropPartition(String partition, boolean detachPending) {
+        // Name comes from the catalog and matched the strict pattern above
+        if (detachPending) {
+            jdbcTemplate.execute("ALTER TABLE notifications DETACH PARTITION " + partition + " FINALIZE");
+        } else {
+            jdbcTemplate.execute("ALTER TABLE notifications DETACH PARTITION " + partition + " CONCURRENTLY");
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+        log.info("Dropped expired notification partition {}", partition);
+    }
+}
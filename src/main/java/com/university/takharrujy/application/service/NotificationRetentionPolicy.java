@@ -0,0 +1,65 @@
+package com.university.takharrujy.application.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Notification Retention Policy
+ * Notifications are stored in monthly partitions and kept for a fixed number of
+ * whole months. Every inbox query is bounded by {@link #inboxHorizon()} so the
+ * planner only visits partitions that are still retained.
+ */
+@Component
+public class NotificationRetentionPolicy {
+
+    private final int retentionMonths;
+    private final int partitionsAhead;
+    private final Duration maxCoalesceSpan;
+
+    public NotificationRetentionPolicy(
+            @Value("${takharrujy.notifications.retention-months:6}") int retentionMonths,
+            @Value("${takharrujy.notifications.partitions-ahead:3}") int partitionsAhead,
+            @Value("${takharrujy.notifications.max-coalesce-span:P1D}") Duration maxCoalesceSpan) {
+        this.retentionMonths = Math.max(1, retentionMonths);
+        this.partitionsAhead = Math.max(1, partitionsAhead);
+        this.maxCoalesceSpan = maxCoalesceSpan;
+    }
+
+    /**
+     * First month (UTC) that is still retained. Partitions before it are dropped.
+     */
+    public LocalDate oldestRetainedMonth(Instant now) {
+        return LocalDate.ofInstant(now, ZoneOffset.UTC)
+                .withDayOfMonth(1)
+                .minusMonths(retentionMonths - 1L);
+    }
+
+    /**
+     * Lower bound on created_at for inbox reads
+     */
+    public Instant inboxHorizon() {
+        return oldestRetainedMonth(Instant.now()).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    /**
+     * Lower bound on created_at for rows a new event may be merged into.
+     * Keeps the coalescing lookup on the newest partitions and stops a busy
+     * notification from being extended forever.
+     */
+    public Instant coalesceHorizon(Instant now) {
+        return now.minus(maxCoalesceSpan);
+    }
+
+    public int getRetentionMonths() {
+        return retentionMonths;
+    }
+
+    public int getPartitionsAhead() {
+        return partitionsAhead;
+    }
+}
@@ -3,6 +3,7 @@ package com.university.takharrujy.application.service;
 import com.university.takharrujy.domain.entity.Notification;
 import com.university.takharrujy.domain.entity.User;
 import com.university.takharrujy.domain.entity.UserPreferences;
+import com.university.takharrujy.domain.enums.DigestFrequency;
 import com.university.takharrujy.domain.enums.NotificationType;
 import com.university.takharrujy.domain.repository.NotificationRepository;
 import com.university.takharrujy.domain.repository.UserPreferencesRepository;
@@ -14,33 +15,69 @@ import com.university.takharrujy.presentation.dto.notification.NotificationPrefe
 import com.university.takharrujy.presentation.dto.notification.NotificationResponse;
 import com.university.takharrujy.presentation.dto.notification.NotificationStatsResponse;
 import com.university.takharrujy.presentation.mapper.NotificationMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 @Service
 public class NotificationService {
 
+    @Value("${takharrujy.notifications.coalesce-window:PT10M}")
+    private Duration coalesceWindow;
+
     private final NotificationRepository notificationRepository;
     private final NotificationMapper notificationMapper;
     private final UserPreferencesRepository userPreferencesRepository;
     private final UserRepository userRepository;
+    private final AnnouncementService announcementService;
+    private final NotificationRetentionPolicy retentionPolicy;
 
     public NotificationService(NotificationRepository notificationRepository,
-                               NotificationMapper notificationMapper, UserPreferencesRepository userPreferencesRepository, UserRepository userRepository) {
+                               NotificationMapper notificationMapper, UserPreferencesRepository userPreferencesRepository, UserRepository userRepository,
+                               AnnouncementService announcementService, NotificationRetentionPolicy retentionPolicy) {
         this.notificationRepository = notificationRepository;
         this.notificationMapper = notificationMapper;
         this.userPreferencesRepository = userPreferencesRepository;
         this.userRepository = userRepository;
+        this.announcementService = announcementService;
+        this.retentionPolicy = retentionPolicy;
     }
 
     /**
      * Create notifications for a specific user.
      */
     public void createNotification(User targetUser, String title, String message, NotificationType type) {
+        createNotification(targetUser, title, message, type, null, null);
+    }
+
+    /**
+     * Create a notification about a specific resource for a user.
+     * Repeated events with the same (recipient, type, resource) inside the coalescing
+     * window are merged into the open unread notification and counted instead of
+     * producing a new row each time.
+     */
+    @Transactional
+    public void createNotification(User targetUser, String title, String message, NotificationType type,
+                                   String resourceType, Long resourceId) {
+        Instant now = Instant.now();
+
+        if (resourceType != null && resourceId != null && coalesceWindow != null && !coalesceWindow.isZero()) {
+            int merged = notificationRepository.coalesce(
+                    targetUser.getId(), type.name(), resourceType, resourceId,
+                    title, message, now, now.minus(coalesceWindow), retentionPolicy.coalesceHorizon(now));
+            if (merged > 0) {
+                return;
+            }
+        }
+
         Notification notification = new Notification();
         notification.setUser(targetUser);
         notification.setUniversityId(targetUser.getUniversityId());
@@ -48,6 +85,10 @@ public class NotificationService {
         notification.setMessage(message);
         notification.setType(type);
         notification.setRead(false);
+        notification.setResourceType(resourceType);
+        notification.setResourceId(resourceId);
+        notification.setOccurrenceCount(1);
+        notification.setLastOccurredAt(now);
         notificationRepository.save(notification);
     }
 
@@ -62,13 +103,10 @@ public class NotificationService {
         validateUser(user);
 
         List<Notification> notifications =
-                notificationRepository.findByUserOrderByCreatedAtDesc(user);
-
-        if (notifications == null || notifications.isEmpty()) {
-            return Collections.emptyList();
-        }
+                notificationRepository.findByUserAndCreatedAtGreaterThanEqualOrderByLastOccurredAtDesc(
+                        user, retentionPolicy.inboxHorizon());
 
-        return notificationMapper.toResponseList(notifications);
+        return mergeWithAnnouncements(notifications, announcementService.getInboxEntries(user, false));
     }
 
     /**
@@ -82,13 +120,10 @@ public class NotificationService {
         validateUser(user);
 
         List<Notification> notifications =
-                notificationRepository.findByUserAndReadFalseOrderByCreatedAtDesc(user);
+                notificationRepository.findByUserAndReadFalseAndCreatedAtGreaterThanEqualOrderByLastOccurredAtDesc(
+                        user, retentionPolicy.inboxHorizon());
 
-        if (notifications == null || notifications.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        return notificationMapper.toResponseList(notifications);
+        return mergeWithAnnouncements(notifications, announcementService.getInboxEntries(user, true));
     }
 
     /**
@@ -100,7 +135,8 @@ public class NotificationService {
 
         validateUser(user);
 
-        return notificationRepository.markAllAsRead(user);
+        announcementService.markAllAsRead(user);
+        return notificationRepository.markAllAsRead(user, retentionPolicy.inboxHorizon());
     }
 
     /**
@@ -112,7 +148,7 @@ public class NotificationService {
 
         validateUser(user);
 
-        return notificationRepository.deleteAllByUser(user);
+        return notificationRepository.deleteAllByUser(user, retentionPolicy.inboxHorizon());
     }
 
     /**
@@ -124,6 +160,10 @@ public class NotificationService {
 
         validateUser(user);
 
+        if (AnnouncementService.isInboxEntryId(notificationId)) {
+            return announcementService.markInboxEntryRead(user.getId(), notificationId);
+        }
+
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Notification not found"));
 
@@ -147,6 +187,10 @@ public class NotificationService {
 
         validateUser(user);
 
+        if (AnnouncementService.isInboxEntryId(notificationId)) {
+            throw BusinessException.operationNotAllowed("Announcements cannot be deleted, only marked as read");
+        }
+
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Notification not found"));
 
@@ -197,8 +241,11 @@ public class NotificationService {
 
         validateUser(user);
 
-        long total = notificationRepository.countByUser(user);
-        long unread = notificationRepository.countByUserAndReadFalse(user);
+        Instant horizon = retentionPolicy.inboxHorizon();
+        long total = notificationRepository.countByUserAndCreatedAtGreaterThanEqual(user, horizon)
+                + announcementService.countInbox(user);
+        long unread = notificationRepository.countByUserAndReadFalseAndCreatedAtGreaterThanEqual(user, horizon)
+                + announcementService.countUnread(user);
         long read = total - unread;
 
         return new NotificationStatsResponse(total, read, unread);
@@ -207,6 +254,25 @@ public class NotificationService {
     /**
      * Helper methods
      */
+    private List<NotificationResponse> mergeWithAnnouncements(List<Notification> notifications,
+                                                              List<NotificationResponse> announcements) {
+        boolean noNotifications = notifications == null || notifications.isEmpty();
+        if (noNotifications && announcements.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (announcements.isEmpty()) {
+            return notificationMapper.toResponseList(notifications);
+        }
+
+        List<NotificationResponse> merged = new ArrayList<>(announcements);
+        if (!noNotifications) {
+            merged.addAll(notificationMapper.toResponseList(notifications));
+        }
+        merged.sort(Comparator.comparing(NotificationResponse::lastOccurredAt,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return merged;
+    }
+
     private User getUserOrThrow(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + userId));
@@ -233,6 +299,7 @@ public class NotificationService {
         prefs.setMessageMentions(true);
         prefs.setSubmissionNotifications(true);
         prefs.setProgressReports(true);
+        prefs.setDigestFrequency(DigestFrequency.NONE);
 
         return prefs;
     }
@@ -249,5 +316,6 @@ public class NotificationService {
         if (request.messageMentions() != null) prefs.setMessageMentions(request.messageMentions());
         if (request.submissionNotifications() != null) prefs.setSubmissionNotifications(request.submissionNotifications());
         if (request.progressReports() != null) prefs.setProgressReports(request.progressReports());
+        if (request.digestFrequency() != null) prefs.setDigestFrequency(request.digestFrequency());
     }
 }
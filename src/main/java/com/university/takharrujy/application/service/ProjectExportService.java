@@ -0,0 +1,286 @@
+package com.university.takharrujy.application.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.university.takharrujy.domain.entity.Department;
+import com.university.takharrujy.domain.entity.Project;
+import com.university.takharrujy.domain.entity.ProjectFile;
+import com.university.takharrujy.domain.enums.VirusScanStatus;
+import com.university.takharrujy.domain.repository.DepartmentRepository;
+import com.university.takharrujy.domain.repository.ProjectFileRepository;
+import com.university.takharrujy.domain.repository.ProjectRepository;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.exception.ResourceNotFoundException;
+import com.university.takharrujy.infrastructure.security.JwtAuthenticationFilter;
+import com.university.takharrujy.infrastructure.service.ZipExportWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Project Export Service
+ * Exports the files of a project, or of every project in a department, as one ZIP
+ * streamed to the client with a {@code manifest.json} describing each file. Only files
+ * that passed the virus scan are included; the others are listed in the manifest.
+ *
+ * Department exports can run for minutes and keep a storage stream open throughout, so
+ * only a few run at once on each node; further requests are turned away rather than queued.
+ */
+@Service
+public class ProjectExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectExportService.class);
+
+    @Value("${takharrujy.files.export.max-concurrent-bulk:2}")
+    private int maxConcurrentBulk;
+
+    private final ProjectRepository projectRepository;
+    private final ProjectFileRepository projectFileRepository;
+    private final DepartmentRepository departmentRepository;
+    private final FileStorageService storage;
+    private final ZipExportWriter zipExportWriter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private Semaphore bulkExports;
+
+    public ProjectExportService(ProjectRepository projectRepository,
+                                ProjectFileRepository projectFileRepository,
+                                DepartmentRepository departmentRepository,
+                                FileStorageService storage,
+                                ZipExportWriter zipExportWriter,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this.projectRepository = projectRepository;
+        this.projectFileRepository = projectFileRepository;
+        this.departmentRepository = departmentRepository;
+        this.storage = storage;
+        this.zipExportWriter = zipExportWriter;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        bulkExports = new Semaphore(Math.max(1, maxConcurrentBulk));
+    }
+
+    /**
+     * An export ready to be written. Close it once written, or if it never is.
+     */
+    public static final class Export implements AutoCloseable {
+
+        private final String scope;
+        private final String filename;
+        private final List<ProjectManifest> projects;
+        private final Map<ZipExportWriter.Entry, FileManifest> entries;
+        private final Runnable release;
+
+        private Export(String scope, String filename, List<ProjectManifest> projects,
+                       Map<ZipExportWriter.Entry, FileManifest> entries, Runnable release) {
+            this.scope = scope;
+            this.filename = filename;
+            this.projects = projects;
+            this.entries = entries;
+            this.release = release;
+        }
+
+        public String filename() {
+            return filename;
+        }
+
+        @Override
+        public void close() {
+            release.run();
+        }
+    }
+
+    public record ExportManifest(Instant exportedAt, List<ProjectManifest> projects) {
+    }
+
+    public record ProjectManifest(Long id, String title, String titleAr, String status, List<FileManifest> files) {
+    }
+
+    /**
+     * Metadata of one file; {@code path} is where it is in the archive, null when left out
+     */
+    public record FileManifest(Long id, String path, String originalFilename, String contentType, Long size,
+                               String sha256, Long uploadedByUserId, Instant uploadedAt,
+                               VirusScanStatus virusScanStatus) {
+
+        FileManifest withoutPath() {
+            return new FileManifest(id, null, originalFilename, contentType, size, sha256, uploadedByUserId,
+                uploadedAt, virusScanStatus);
+        }
+    }
+
+    /**
+     * Prepare the export of one project; files sit in the root of the archive
+     */
+    @Transactional(readOnly = true)
+    public Export prepareProjectExport(Long projectId) {
+        Long universityId = JwtAuthenticationFilter.TenantContext.getCurrentUniversityId();
+        Project project = projectRepository.findByIdAndUniversityId(projectId, universityId)
+            .orElseThrow(() -> new ResourceNotFoundException("Project not found with ID: " + projectId));
+        List<ProjectFile> files = projectFileRepository.findByProjectIdOrderByUploadedAtDesc(projectId);
+
+        Map<ZipExportWriter.Entry, FileManifest> entries = new LinkedHashMap<>();
+        List<ProjectManifest> projects = List.of(describe(project, "files/", files, entries));
+        return new Export("project", "project-" + projectId + "-files.zip", projects, entries, () -> { });
+    }
+
+    /**
+     * Prepare the export of every project led by a student of the department, one folder
+     * per project. Refused while too many department exports are running.
+     */
+    @Transactional(readOnly = true)
+    public Export prepareDepartmentExport(Long departmentId) {
+        Long universityId = JwtAuthenticationFilter.TenantContext.getCurrentUniversityId();
+        Department department = departmentRepository.findByIdAndUniversityId(departmentId, universityId)
+            .orElseThrow(() -> new ResourceNotFoundException("Department not found with ID: " + departmentId));
+
+        if (!bulkExports.tryAcquire()) {
+            throw BusinessException.exportBusy("Too many department exports are running, try again later");
+        }
+        try {
+            List<Project> departmentProjects = projectRepository.findByTeamLeaderDepartmentId(departmentId);
+            Map<Long, List<ProjectFile>> filesByProject = departmentProjects.isEmpty()
+                ? Map.of()
+                : projectFileRepository.findByProjectIdInOrderByProjectIdAscUploadedAtAsc(
+                        departmentProjects.stream().map(Project::getId).toList())
+                    .stream()
+                    .collect(Collectors.groupingBy(ProjectFile::getProjectId));
+
+            Map<ZipExportWriter.Entry, FileManifest> entries = new LinkedHashMap<>();
+            List<ProjectManifest> projects = new ArrayList<>();
+            for (Project project : departmentProjects) {
+                String folder = project.getId() + "-" + sanitize(project.getTitle(), "project") + "/";
+                projects.add(describe(project, folder, filesByProject.getOrDefault(project.getId(), List.of()), entries));
+            }
+            String code = department.getCode() != null ? department.getCode() : String.valueOf(departmentId);
+            return new Export("department", "department-" + sanitize(code, "export") + "-submissions.zip",
+                projects, entries, bulkExports::release);
+        } catch (RuntimeException e) {
+            bulkExports.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Stream the archive. Files missing from storage are left out and reported in the manifest.
+     */
+    public void write(Export export, OutputStream out) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "complete";
+        try {
+            List<ZipExportWriter.Entry> skipped = zipExportWriter.write(out, List.copyOf(export.entries.keySet()),
+                missing -> manifest(export, missing));
+            if (!skipped.isEmpty()) {
+                outcome = "partial";
+                log.warn("Export {} left out {} files missing from storage", export.filename, skipped.size());
+            }
+        } catch (IOException | RuntimeException e) {
+            outcome = "failed";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("takharrujy.files.export")
+                .description("Time to stream a project or department export")
+                .tag("scope", export.scope)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Describe a project's files and queue the clean ones as archive entries
+     */
+    private ProjectManifest describe(Project project, String folder, List<ProjectFile> files,
+                                     Map<ZipExportWriter.Entry, FileManifest> entries) {
+        Set<String> usedNames = new HashSet<>();
+        List<FileManifest> described = new ArrayList<>();
+        for (ProjectFile file : files) {
+            if (!file.isDownloadable()) {
+                described.add(new FileManifest(file.getId(), null, file.getOriginalFilename(), file.getContentType(),
+                    file.getFileSize(), file.getContentHash(), file.getUploadedByUserId(), file.getUploadedAt(),
+                    file.getVirusScanStatus()));
+                continue;
+            }
+            String path = folder + uniqueName(sanitize(file.getOriginalFilename(), "file-" + file.getId()), usedNames);
+            String storagePath = file.getStoragePath();
+            FileManifest manifest = new FileManifest(file.getId(), path, file.getOriginalFilename(),
+                file.getContentType(), file.getFileSize(), file.getContentHash(), file.getUploadedByUserId(),
+                file.getUploadedAt(), file.getVirusScanStatus());
+            entries.put(new ZipExportWriter.Entry(path, file.getContentType(), file.getUploadedAt(),
+                () -> storage.openStream(storagePath)), manifest);
+            described.add(manifest);
+        }
+        return new ProjectManifest(project.getId(), project.getTitle(), project.getTitleAr(),
+            project.getStatus() != null ? project.getStatus().name() : null, described);
+    }
+
+    private byte[] manifest(Export export, List<ZipExportWriter.Entry> missing) {
+        Set<FileManifest> left = missing.stream().map(export.entries::get).collect(Collectors.toSet());
+        List<ProjectManifest> projects = export.projects.stream()
+            .map(project -> new ProjectManifest(project.id(), project.title(), project.titleAr(), project.status(),
+                project.files().stream().map(file -> left.contains(file) ? file.withoutPath() : file).toList()))
+            .toList();
+        try {
+            return objectMapper.writerWithDefaultPrettyPrinter()
+                .writeValueAsBytes(new ExportManifest(Instant.now(), projects));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A name that is safe as one path segment in any unzip tool
+     */
+    static String sanitize(String name, String fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        String cleaned = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").strip();
+        cleaned = cleaned.replaceAll("^\\.+", "");
+        if (cleaned.length() > 150) {
+            cleaned = cleaned.substring(0, 150);
+        }
+        return cleaned.isBlank() ? fallback : cleaned;
+    }
+
+    /**
+     * Number repeated names within a folder: report.pdf, report (2).pdf, ...
+     */
+    static String uniqueName(String name, Set<String> used) {
+        if (used.add(name.toLowerCase(Locale.ROOT))) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int n = 2; ; n++) {
+            String candidate = base + " (" + n + ")" + extension;
+            if (used.add(candidate.toLowerCase(Locale.ROOT))) {
+                return candidate;
+            }
+        }
+    }
+}
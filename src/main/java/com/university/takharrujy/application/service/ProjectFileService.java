@@ -1,22 +1,37 @@
 package com.university.takharrujy.application.service;
 
 import com.university.takharrujy.domain.entity.ProjectFile;
+import com.university.takharrujy.domain.enums.VirusScanStatus;
 import com.university.takharrujy.domain.repository.ProjectFileRepository;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
 import com.university.takharrujy.infrastructure.exception.ResourceNotFoundException;
 import com.university.takharrujy.infrastructure.exception.ValidationException;
+import com.university.takharrujy.infrastructure.security.JwtAuthenticationFilter;
+import com.university.takharrujy.infrastructure.service.DocumentTextExtractor;
+import com.university.takharrujy.infrastructure.service.FileDownloadWriter;
 import com.university.takharrujy.presentation.dto.file.FileResponse;
 import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * ProjectFileService
- * Business logic for project file management including upload, download, listing, and deletion
+ * Business logic for project file management including upload, download, listing, and deletion.
+ * Uploads are quarantined and scanned in the background by {@link FileScanService};
+ * a file can only be downloaded once its scan has come back clean.
  */
 @Service
 @Transactional
@@ -24,6 +39,10 @@ public class ProjectFileService {
 
     private static final long MAX_FILE_SIZE = 100L * 1024 * 1024; // 100MB
     
+    private static final int MAX_SEARCH_QUERY_LENGTH = 200;
+    
+    private static final int MAX_SEARCH_RESULTS = 100;
+    
     private static final String[] ALLOWED_CONTENT_TYPES = new String[] {
         "application/pdf",
         "application/msword",
@@ -44,46 +63,96 @@ public class ProjectFileService {
     private final ProjectFileRepository repository;
     private final FileStorageService storage;
     private final VirusScanService virusScanService;
+    private final FileScanService fileScanService;
+    private final FileBlobService fileBlobService;
+    private final ImagePipelineService imagePipelineService;
+    private final DownloadCounterService downloadCounterService;
+    private final SignedDownloadService signedDownloadService;
+    private final StorageTieringService storageTieringService;
+    private final UploadIoScheduler uploadIoScheduler;
+    private final StorageUsageService storageUsageService;
+    private final TransactionTemplate transactionTemplate;
 
     public ProjectFileService(ProjectFileRepository repository,
                               FileStorageService storage,
-                              VirusScanService virusScanService) {
+                              VirusScanService virusScanService,
+                              FileScanService fileScanService,
+                              FileBlobService fileBlobService,
+                              ImagePipelineService imagePipelineService,
+                              DownloadCounterService downloadCounterService,
+                              SignedDownloadService signedDownloadService,
+                              StorageTieringService storageTieringService,
+                              UploadIoScheduler uploadIoScheduler,
+                              StorageUsageService storageUsageService,
+                              PlatformTransactionManager transactionManager) {
         this.repository = repository;
         this.storage = storage;
         this.virusScanService = virusScanService;
+        this.fileScanService = fileScanService;
+        this.fileBlobService = fileBlobService;
+        this.imagePipelineService = imagePipelineService;
+        this.downloadCounterService = downloadCounterService;
+        this.signedDownloadService = signedDownloadService;
+        this.storageTieringService = storageTieringService;
+        this.uploadIoScheduler = uploadIoScheduler;
+        this.storageUsageService = storageUsageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
-     * Upload a file to a project
+     * Upload a file to a project. The file is quarantined and returned as PENDING;
+     * the content scan runs in the background once its row is committed.
+     *
+     * Waiting for an upload slot and storing the file happen outside any transaction, so a
+     * queued or throttled upload holds no database connection; only the insert runs in one.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public FileResponse upload(Long projectId, Long userId, MultipartFile file) {
         // Validate file
         validateFile(file);
 
-        // Perform virus scan
-        if (!virusScanService.scanFile(file)) {
+        // Extension and size checks; the content scan happens off the request thread
+        if (!virusScanService.passesPrecheck(file)) {
             throw new ValidationException("File failed security scan - potential malware detected");
         }
 
-        // Store file
-        String storagePath = storage.storeProjectFile(file, projectId);
+        Long universityId = storageUsageService.checkQuota(projectId, userId, file.getSize());
 
-        // Create entity
-        ProjectFile entity = new ProjectFile();
-        entity.setProjectId(projectId);
-        entity.setUploadedByUserId(userId);
-        entity.setOriginalFilename(file.getOriginalFilename());
-        entity.setContentType(safeContentType(file.getContentType()));
-        entity.setFileSize(file.getSize());
-        entity.setStoragePath(storagePath);
-        entity.setFilename(extractFilename(storagePath));
-
-        // Save to database
-        ProjectFile saved = repository.save(entity);
+        // Store file in quarantine until scanned, hashing it on the way, once the university has a slot
+        FileStorageService.StoredFile stored;
+        try (UploadIoScheduler.Permit permit = uploadIoScheduler.admit(universityId, userId, file.getSize())) {
+            stored = storage.storeQuarantined(file, permit::throttle);
+        }
+
+        ProjectFile saved;
+        try {
+            saved = transactionTemplate.execute(status ->
+                savePending(projectId, userId, file.getOriginalFilename(), file.getContentType(), stored));
+        } catch (RuntimeException e) {
+            storage.deleteFile(stored.storagePath());
+            throw e;
+        }
+        fileScanService.submit(saved.getId());
         
         return toResponse(saved);
     }
 
+    /**
+     * Register a file assembled by a resumable upload. When its chunks were hashed and
+     * scanned as they arrived the verdict is applied directly; otherwise (no hash) the
+     * file is scanned like any other upload.
+     */
+    public FileResponse registerUpload(Long projectId, Long userId, String originalFilename, String contentType,
+                                       FileStorageService.StoredFile stored, boolean clean) {
+        ProjectFile saved = savePending(projectId, userId, originalFilename, contentType, stored);
+        if (stored.contentHash() != null) {
+            afterCommit(() -> fileScanService.submitScanned(saved.getId(), clean));
+        } else {
+            afterCommit(() -> fileScanService.submit(saved.getId()));
+        }
+        return toResponse(saved);
+    }
+
     /**
      * List all files for a project
      */
@@ -96,12 +165,33 @@ public class ProjectFileService {
     }
 
     /**
-     * Get file metadata by ID
+     * Search the text of a project's documents, best match first
+     */
+    @Transactional(readOnly = true)
+    public List<FileResponse> searchProject(Long projectId, String query, int limit) {
+        String normalized = normalizeQuery(query);
+        return findInOrder(repository.searchProjectFileIds(projectId, normalized, searchLimit(limit)));
+    }
+
+    /**
+     * Search the text of the documents of a department's projects, best match first;
+     * only files of the caller's university are searched
+     */
+    @Transactional(readOnly = true)
+    public List<FileResponse> searchDepartment(Long departmentId, String query, int limit) {
+        String normalized = normalizeQuery(query);
+        Long universityId = JwtAuthenticationFilter.TenantContext.getCurrentUniversityId();
+        return findInOrder(repository.searchDepartmentFileIds(departmentId, universityId, normalized,
+            searchLimit(limit)));
+    }
+
+    /**
+     * Get file metadata by ID, with a signed download link once the file is clean
      */
     @Transactional(readOnly = true)
     public FileResponse getFileMetadata(Long fileId) {
         ProjectFile file = getFileById(fileId);
-        return toResponse(file);
+        return toResponse(file, file.isDownloadable() ? signedDownloadService.issue(file, etag(file)) : null);
     }
 
     /**
@@ -109,29 +199,61 @@ public class ProjectFileService {
      */
     @Transactional(readOnly = true)
     public Resource download(Long fileId) {
-        ProjectFile file = getFileById(fileId);
+        ProjectFile file = getDownloadableFile(fileId);
+        storageTieringService.onRead(file.getProjectId(), file.getContentHash(), file.getStoragePath());
         return storage.loadAsResource(file.getStoragePath());
     }
 
+    /**
+     * Resolve a file for a ranged, conditional download. The ETag is the content hash;
+     * files stored before content hashing fall back to size and upload time. A file read
+     * from the cold tier is served from there while its blob is brought back, if in use again.
+     */
+    @Transactional(readOnly = true)
+    public FileDownloadWriter.Download prepareDownload(Long fileId) {
+        ProjectFile file = getDownloadableFile(fileId);
+        storageTieringService.onRead(file.getProjectId(), file.getContentHash(), file.getStoragePath());
+        FileStorageService.StorageLocation location = storage.locate(file.getStoragePath());
+        return new FileDownloadWriter.Download(location.backend(), location.key(), file.getFileSize(),
+            file.getContentType(), file.getOriginalFilename(), etag(file), file.getUploadedAt());
+    }
+
+    private static String etag(ProjectFile file) {
+        return file.getContentHash() != null
+            ? "\"" + file.getContentHash() + "\""
+            : "\"" + Long.toHexString(file.getFileSize()) + "-" + Long.toHexString(file.getUploadedAt().toEpochMilli()) + "\"";
+    }
+
+    /**
+     * Count a download; buffered in memory and flushed in batches
+     */
+    public void recordDownload(Long fileId) {
+        downloadCounterService.record(fileId);
+    }
+
     /**
      * Get file entity for download metadata
      */
     @Transactional(readOnly = true)
     public ProjectFile getFileForDownload(Long fileId) {
-        return getFileById(fileId);
+        return getDownloadableFile(fileId);
     }
 
     /**
-     * Delete a file
+     * Delete a file. Content shared with other files is only removed with its last reference.
      */
     public void delete(Long fileId) {
         ProjectFile file = getFileById(fileId);
         
-        // Delete from storage
-        storage.deleteFile(file.getStoragePath());
-        
         // Delete from database
         repository.deleteById(fileId);
+        
+        // Delete from storage once the row is gone for good
+        if (file.isDownloadable() && file.getContentHash() != null) {
+            fileBlobService.release(fileBlobService.getUniversityId(file.getProjectId()), file.getContentHash());
+        } else {
+            afterCommit(() -> storage.deleteFile(file.getStoragePath()));
+        }
     }
 
     /**
@@ -150,6 +272,86 @@ public class ProjectFileService {
             .orElseThrow(() -> new ResourceNotFoundException("File not found with ID: " + id));
     }
 
+    /**
+     * Helper: Get file by ID, refusing files that have not passed the virus scan
+     */
+    private ProjectFile getDownloadableFile(Long id) {
+        ProjectFile file = getFileById(id);
+        if (!file.isDownloadable()) {
+            throw BusinessException.fileNotAvailable(
+                "File " + id + " is not available for download (scan status: " + file.getVirusScanStatus() + ")");
+        }
+        return file;
+    }
+
+    /**
+     * Helper: Save a quarantined upload as PENDING
+     */
+    private ProjectFile savePending(Long projectId, Long userId, String originalFilename, String contentType,
+                                    FileStorageService.StoredFile stored) {
+        ProjectFile entity = new ProjectFile();
+        entity.setProjectId(projectId);
+        entity.setUploadedByUserId(userId);
+        entity.setOriginalFilename(originalFilename);
+        entity.setContentType(safeContentType(contentType));
+        entity.setFileSize(stored.size());
+        entity.setStoragePath(stored.storagePath());
+        entity.setFilename(extractFilename(stored.storagePath()));
+        entity.setContentHash(stored.contentHash());
+        entity.setVirusScanStatus(VirusScanStatus.PENDING);
+        return repository.save(entity);
+    }
+
+    /**
+     * Helper: Run an action once the current transaction has committed
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Helper: Search queries go through the same normalization as the indexed text
+     */
+    private String normalizeQuery(String query) {
+        String normalized = query == null ? "" : DocumentTextExtractor.normalize(query);
+        if (normalized.isEmpty()) {
+            throw new ValidationException("Search query is required");
+        }
+        if (normalized.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new ValidationException("Search query cannot exceed " + MAX_SEARCH_QUERY_LENGTH + " characters");
+        }
+        return normalized;
+    }
+
+    /**
+     * Helper: Clamp a requested number of search results
+     */
+    private static int searchLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+    }
+
+    /**
+     * Helper: Load files by id, keeping the order of the ids
+     */
+    private List<FileResponse> findInOrder(List<Long> ids) {
+        Map<Long, ProjectFile> files = repository.findAllById(ids).stream()
+            .collect(Collectors.toMap(ProjectFile::getId, Function.identity()));
+        return ids.stream()
+            .map(files::get)
+            .filter(Objects::nonNull)
+            .map(this::toResponse)
+            .collect(Collectors.toList());
+    }
+
     /**
      * Helper: Validate file upload
      */
@@ -157,12 +359,22 @@ public class ProjectFileService {
         if (file == null || file.isEmpty()) {
             throw new ValidationException("File is required");
         }
+        validateUpload(file.getContentType(), file.getSize());
+    }
+
+    /**
+     * Validate the declared type and size of an upload
+     */
+    void validateUpload(String declaredContentType, long size) {
+        if (size <= 0) {
+            throw new ValidationException("File is required");
+        }
         
-        if (file.getSize() > MAX_FILE_SIZE) {
+        if (size > MAX_FILE_SIZE) {
             throw new ValidationException("File size cannot exceed 100MB");
         }
         
-        String contentType = safeContentType(file.getContentType());
+        String contentType = safeContentType(declaredContentType);
         boolean isAllowed = false;
         for (String allowedType : ALLOWED_CONTENT_TYPES) {
             if (allowedType.equalsIgnoreCase(contentType)) {
@@ -200,7 +412,11 @@ public class ProjectFileService {
     /**
      * Helper: Convert entity to response DTO
      */
-    private FileResponse toResponse(ProjectFile file) {
+    FileResponse toResponse(ProjectFile file) {
+        return toResponse(file, null);
+    }
+
+    private FileResponse toResponse(ProjectFile file, String downloadUrl) {
         return new FileResponse(
             file.getId(),
             file.getProjectId(),
@@ -210,8 +426,22 @@ public class ProjectFileService {
             file.getFileSize(),
             file.getStoragePath(),
             file.getUploadedByUserId(),
-            file.getUploadedAt()
+            file.getUploadedAt(),
+            file.getVirusScanStatus(),
+            previewUrl(file),
+            downloadCounterService.count(file.getId(), file.getDownloadCount()),
+            downloadUrl
         );
     }
-}
 
+    /**
+     * Clean images get a preview; it may still be rendering when this is returned
+     */
+    private String previewUrl(ProjectFile file) {
+        boolean image = file.getContentType() != null && file.getContentType().startsWith("image/");
+        if (!image || file.getVirusScanStatus() != VirusScanStatus.CLEAN || file.getContentHash() == null) {
+            return null;
+        }
+        return imagePipelineService.previewUrl(file.getContentHash());
+    }
+}
@@ -0,0 +1,98 @@
+package com.university.takharrujy.application.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.university.takharrujy.domain.entity.ProjectFile;
+import com.university.takharrujy.infrastructure.security.UrlSigner;
+import com.university.takharrujy.infrastructure.service.FileDownloadWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Signed Download Service
+ * Issues short-lived download links for clean project files and redeems them without the
+ * database: everything needed to serve the file (where it is stored, its size, type, name
+ * and ETag) travels in the signed token, so a redeemed link goes straight to storage.
+ *
+ * Expiry is rounded up to the minute, so repeated requests for the same file's info hand out
+ * the same link for a while and an embedding page or PDF viewer can reuse its cached copy.
+ * A link stays valid until it expires even if the file is deleted meanwhile; the content is
+ * then gone from storage unless another file shares it.
+ */
+@Service
+public class SignedDownloadService {
+
+    private static final String DOWNLOAD_PATH = "/api/v1/downloads/";
+
+    @Value("${takharrujy.files.signed-urls.ttl:PT5M}")
+    private Duration ttl;
+
+    private final UrlSigner urlSigner;
+    private final FileStorageService storage;
+    private final ObjectMapper objectMapper;
+
+    public SignedDownloadService(UrlSigner urlSigner, FileStorageService storage, ObjectMapper objectMapper) {
+        this.urlSigner = urlSigner;
+        this.storage = storage;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * What a link grants: one file's content, as it was when the link was issued
+     */
+    public record Grant(Long fileId, String storagePath, long size, String contentType, String filename,
+                        String etag, long lastModified, long expires) {
+
+        boolean expired(Instant now) {
+            return now.getEpochSecond() >= expires;
+        }
+    }
+
+    /**
+     * Relative URL of a new download link for a file that passed its scan
+     */
+    public String issue(ProjectFile file, String etag) {
+        long expires = Instant.now().plus(ttl).getEpochSecond();
+        expires = (expires + 59) / 60 * 60;
+        Grant grant = new Grant(file.getId(), file.getStoragePath(), file.getFileSize(), file.getContentType(),
+            file.getOriginalFilename(), etag, file.getUploadedAt().toEpochMilli(), expires);
+        try {
+            return DOWNLOAD_PATH + urlSigner.sign(objectMapper.writeValueAsBytes(grant));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The grant of a link, if its signature is valid and it has not expired
+     */
+    public Optional<Grant> redeem(String token) {
+        return urlSigner.verify(token)
+            .map(payload -> {
+                try {
+                    return objectMapper.readValue(payload, Grant.class);
+                } catch (IOException e) {
+                    // Signed by us, so only a payload from an incompatible version
+                    return null;
+                }
+            })
+            .filter(grant -> !grant.expired(Instant.now()));
+    }
+
+    /**
+     * Serve a grant; PDFs and images are shown inline so they can be embedded
+     */
+    public FileDownloadWriter.Download toDownload(Grant grant) {
+        FileStorageService.StorageLocation location = storage.locate(grant.storagePath());
+        String contentType = grant.contentType();
+        boolean inline = contentType != null
+            && (contentType.equals("application/pdf") || contentType.startsWith("image/"));
+        return new FileDownloadWriter.Download(location.backend(), location.key(), grant.size(), contentType,
+            grant.filename(), grant.etag(), Instant.ofEpochMilli(grant.lastModified()), inline);
+    }
+}
@@ -0,0 +1,747 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.application.service.FileStorageService.Directory;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.storage.StorageBackend.StoredObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Storage Reconciliation Service
+ * Walks the upload tree and checks it against the database in both directions: stored
+ * objects nothing refers to (orphans, left by a failed delete or an interrupted upload) are
+ * deleted, and rows whose content is missing are reported.
+ *
+ * Directories are split into partitions (one per university and hash prefix for blobs) that
+ * a few workers list in parallel; references are looked up a batch of objects at a time.
+ * Every listed object, existence check and delete takes a slot from one shared pacer, so a
+ * run proceeds at a fixed rate and can be left running during the day.
+ *
+ * An object is only deleted once it is older than the grace period, which must exceed the
+ * time an upload can legitimately sit in storage before its row is written, and only after
+ * its references are checked again. A blob is deleted under a claimed {@code file_blobs}
+ * row, so an upload of the same content waits for the delete and then stores it afresh.
+ */
+@Service
+public class StorageReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageReconciliationService.class);
+
+    private static final int SAMPLE_LIMIT = 100;
+
+    /**
+     * Relative to the blob directory: {universityId}/{aa}/{bb}/{hash}
+     */
+    private static final Pattern BLOB_PATH = Pattern.compile("(\\d+)/[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})");
+
+    /**
+     * Relative to the thumbnail directory: {aa}/{hash}/{size}.jpg
+     */
+    private static final Pattern THUMBNAIL_PATH = Pattern.compile("[0-9a-f]{2}/([0-9a-f]{64})/\\d+\\.jpg");
+
+    private static final Pattern IMAGE_URL = Pattern.compile("/api/v1/images/([0-9a-f]{64})/(\\d+)");
+
+    /**
+     * Inserts an unreferenced row for the blob, only if there is none. While the inserting
+     * transaction is open, an acquire of the same content blocks on the row.
+     */
+    private static final String CLAIM_BLOB_SQL = """
+        INSERT INTO file_blobs (university_id, content_hash, storage_path, size_bytes, ref_count)
+        VALUES (?, ?, ?, ?, 0)
+        ON CONFLICT (university_id, content_hash) DO NOTHING
+        RETURNING 1
+        """;
+
+    @Value("${takharrujy.file-storage.reconcile.enabled:false}")
+    private boolean enabled;
+
+    @Value("${takharrujy.file-storage.reconcile.workers:2}")
+    private int workers;
+
+    @Value("${takharrujy.file-storage.reconcile.max-operations-per-second:200}")
+    private int maxOperationsPerSecond;
+
+    @Value("${takharrujy.file-storage.reconcile.batch-size:500}")
+    private int batchSize;
+
+    @Value("${takharrujy.file-storage.reconcile.grace-period:P2D}")
+    private Duration gracePeriod;
+
+    @Value("${takharrujy.file-storage.reconcile.dry-run:false}")
+    private boolean dryRunByDefault;
+
+    private final FileStorageService storage;
+    private final ImagePipelineService imagePipelineService;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReconciliationReport lastReport;
+    private ExecutorService coordinator;
+
+    public StorageReconciliationService(FileStorageService storage,
+                                        ImagePipelineService imagePipelineService,
+                                        JdbcTemplate jdbcTemplate,
+                                        MeterRegistry meterRegistry,
+                                        PlatformTransactionManager transactionManager) {
+        this.storage = storage;
+        this.imagePipelineService = imagePipelineService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        coordinator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        coordinator.shutdownNow();
+    }
+
+    /**
+     * Objects in one directory of the upload tree
+     */
+    public record AreaSummary(long objects, long bytes, long withinGracePeriod, long referenced, long orphaned,
+                              long deleted, long bytesDeleted, long deleteFailures) {
+    }
+
+    /**
+     * How many of something were found, with the first few of them
+     */
+    public record Findings(long count, List<String> samples) {
+    }
+
+    /**
+     * Outcome of one run. In a dry run orphans are counted but nothing is deleted.
+     */
+    public record ReconciliationReport(Instant startedAt, Instant finishedAt, boolean dryRun,
+                                       Instant orphanedBefore, Map<String, AreaSummary> areas,
+                                       Findings unrecognised, Findings missingProjectFiles, Findings missingBlobs,
+                                       Findings missingProfilePictures, Findings errors) {
+    }
+
+    /**
+     * Nightly run, handed to the reconciliation thread so the scheduler is not held for hours
+     */
+    @Scheduled(cron = "${takharrujy.file-storage.reconcile.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (enabled && !tryStart(dryRunByDefault)) {
+            log.info("Skipping scheduled storage reconciliation, one is already running");
+        }
+    }
+
+    /**
+     * Start a run in the background
+     */
+    public void startRun(boolean dryRun) {
+        if (!tryStart(dryRun)) {
+            throw BusinessException.reconciliationRunning("A storage reconciliation is already running");
+        }
+    }
+
+    private boolean tryStart(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            coordinator.execute(() -> {
+                try {
+                    reconcile(dryRun);
+                } finally {
+                    running.set(false);
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Report of the last run on this node since it started
+     */
+    public Optional<ReconciliationReport> getLastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    /**
+     * Run once on the calling thread
+     */
+    ReconciliationReport reconcile(boolean dryRun) {
+        Instant startedAt = Instant.now();
+        Run run = new Run(dryRun, startedAt.minus(gracePeriod), new Pacer(maxOperationsPerSecond));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        log.info("Storage reconciliation started{}, collecting orphans older than {}",
+            dryRun ? " (dry run)" : "", run.orphanedBefore);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "storage-reconcile-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        String outcome = "complete";
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (Long universityId : jdbcTemplate.queryForList("SELECT id FROM universities ORDER BY id", Long.class)) {
+                for (String shard : hexShards()) {
+                    String prefix = storage.directoryPath(Directory.BLOBS) + universityId + "/" + shard + "/";
+                    tasks.add(pool.submit(() -> scan(run, Directory.BLOBS, prefix)));
+                }
+            }
+            for (Directory directory : List.of(Directory.PROJECTS, Directory.QUARANTINE, Directory.AVATARS,
+                    Directory.IMAGE_QUEUE)) {
+                tasks.add(pool.submit(() -> scan(run, directory, storage.directoryPath(directory))));
+            }
+            for (String shard : hexShards()) {
+                String prefix = storage.directoryPath(Directory.THUMBNAILS) + shard + "/";
+                tasks.add(pool.submit(() -> scan(run, Directory.THUMBNAILS, prefix)));
+            }
+            tasks.add(pool.submit(() -> checkProjectFiles(run)));
+            tasks.add(pool.submit(() -> checkBlobs(run)));
+            tasks.add(pool.submit(() -> checkProfilePictures(run)));
+            checkTopLevel(run);
+
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    outcome = "partial";
+                    run.errors.add(String.valueOf(e.getCause()));
+                    log.warn("Storage reconciliation task failed", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "interrupted";
+        } catch (RuntimeException e) {
+            outcome = "failed";
+            run.errors.add(String.valueOf(e));
+            log.error("Storage reconciliation failed", e);
+        } finally {
+            pool.shutdownNow();
+            sample.stop(Timer.builder("takharrujy.storage.reconcile")
+                .description("Duration of a storage reconciliation run")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        }
+
+        ReconciliationReport report = run.report(startedAt, Instant.now());
+        lastReport = report;
+        long deleted = report.areas().values().stream().mapToLong(AreaSummary::deleted).sum();
+        long orphaned = report.areas().values().stream().mapToLong(AreaSummary::orphaned).sum();
+        log.info("Storage reconciliation {}: {} orphans found, {} deleted, {} project files and {} blobs missing",
+            outcome, orphaned, deleted, report.missingProjectFiles().count(), report.missingBlobs().count());
+        return report;
+    }
+
+    /**
+     * List one partition, checking references a batch at a time
+     */
+    private void scan(Run run, Directory directory, String prefix) {
+        Tally tally = run.tally(directory);
+        List<StoredObject> batch = new ArrayList<>(batchSize);
+        try {
+            storage.list(prefix, object -> {
+                run.pacer.acquire();
+                tally.objects.increment();
+                tally.bytes.add(object.size());
+                if (!object.lastModified().isBefore(run.orphanedBefore)) {
+                    tally.withinGracePeriod.increment();
+                    return;
+                }
+                batch.add(object);
+                if (batch.size() >= batchSize) {
+                    reconcileBatch(run, directory, batch);
+                    batch.clear();
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list " + prefix, e);
+        }
+        if (!batch.isEmpty()) {
+            reconcileBatch(run, directory, batch);
+        }
+    }
+
+    private void reconcileBatch(Run run, Directory directory, List<StoredObject> batch) {
+        Tally tally = run.tally(directory);
+        Map<String, StoredObject> candidates = new LinkedHashMap<>();
+        for (StoredObject object : batch) {
+            if (recognised(directory, object.key())) {
+                candidates.put(object.key(), object);
+            } else {
+                run.unrecognised.add(object.key());
+            }
+        }
+        Set<String> referenced = referenced(directory, candidates.keySet());
+        for (StoredObject object : candidates.values()) {
+            if (referenced.contains(object.key())) {
+                tally.referenced.increment();
+            } else {
+                collect(run, directory, object);
+            }
+        }
+    }
+
+    /**
+     * Delete an orphan, unless something refers to it by now
+     */
+    private void collect(Run run, Directory directory, StoredObject object) {
+        Tally tally = run.tally(directory);
+        tally.orphaned.increment();
+        if (run.dryRun) {
+            return;
+        }
+        run.pacer.acquire();
+        try {
+            boolean deleted;
+            if (!referenced(directory, List.of(object.key())).isEmpty()) {
+                deleted = false;
+            } else if (directory == Directory.BLOBS) {
+                deleted = deleteBlob(object);
+            } else {
+                FileStorageService.StorageLocation location = storage.locate(object.key());
+                location.backend().delete(location.key());
+                deleted = true;
+            }
+            if (deleted) {
+                tally.deleted.increment();
+                tally.bytesDeleted.add(object.size());
+                Counter.builder("takharrujy.storage.reconcile.deleted")
+                    .description("Orphaned objects deleted from storage")
+                    .tag("area", areaName(directory))
+                    .register(meterRegistry)
+                    .increment();
+            } else {
+                tally.referenced.increment();
+            }
+        } catch (Exception e) {
+            tally.deleteFailures.increment();
+            run.errors.add("Could not delete " + object.key() + ": " + e.getMessage());
+            log.warn("Could not delete orphaned object {}: {}", object.key(), e.getMessage());
+        }
+    }
+
+    /**
+     * Delete a blob while holding a claim row for its content, then drop the claim
+     */
+    private boolean deleteBlob(StoredObject object) {
+        Matcher blob = BLOB_PATH.matcher(relative(Directory.BLOBS, object.key()));
+        if (!blob.matches()) {
+            return false;
+        }
+        Long universityId = Long.valueOf(blob.group(1));
+        String contentHash = blob.group(2);
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            List<Integer> claimed = jdbcTemplate.query(CLAIM_BLOB_SQL, (rs, i) -> rs.getInt(1),
+                universityId, contentHash, object.key(), object.size());
+            if (claimed.isEmpty()) {
+                return false;
+            }
+            try {
+                FileStorageService.StorageLocation location = storage.locate(object.key());
+                location.backend().delete(location.key());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            jdbcTemplate.update("DELETE FROM file_blobs WHERE university_id = ? AND content_hash = ? AND ref_count = 0",
+                universityId, contentHash);
+            return true;
+        }));
+    }
+
+    /**
+     * The storage paths among {@code paths} that something in the database refers to
+     */
+    private Set<String> referenced(Directory directory, Collection<String> paths) {
+        if (paths.isEmpty()) {
+            return Set.of();
+        }
+        return switch (directory) {
+            case BLOBS -> referencedBlobs(paths);
+            case THUMBNAILS -> referencedThumbnails(paths);
+            // Jobs belong to the image pipeline's sweeper; only abandoned temporary files are orphans
+            case IMAGE_QUEUE -> paths.stream()
+                .filter(path -> !path.substring(path.lastIndexOf('/') + 1).startsWith("incoming"))
+                .collect(Collectors.toSet());
+            default -> referencedFiles(paths);
+        };
+    }
+
+    /**
+     * Files are referenced by path; an INFECTED file's content should already be gone
+     */
+    private Set<String> referencedFiles(Collection<String> paths) {
+        String in = placeholders(paths.size());
+        List<Object> args = new ArrayList<>(paths.size() * 3);
+        args.addAll(paths);
+        args.addAll(paths);
+        args.addAll(paths);
+        return new HashSet<>(jdbcTemplate.queryForList("""
+            SELECT storage_path FROM project_files WHERE storage_path IN (%1$s) AND virus_scan_status <> 'INFECTED'
+            UNION SELECT storage_path FROM upload_sessions WHERE storage_path IN (%1$s)
+            UNION SELECT profile_picture_url FROM users WHERE profile_picture_url IN (%1$s)
+            """.formatted(in), String.class, args.toArray()));
+    }
+
+    /**
+     * Blobs are referenced by their row, and by any project file pointing at the path
+     */
+    private Set<String> referencedBlobs(Collection<String> paths) {
+        Map<Long, List<String>> hashesByUniversity = new HashMap<>();
+        for (String path : paths) {
+            Matcher blob = BLOB_PATH.matcher(relative(Directory.BLOBS, path));
+            if (blob.matches()) {
+                hashesByUniversity.computeIfAbsent(Long.valueOf(blob.group(1)), id -> new ArrayList<>())
+                    .add(blob.group(2));
+            }
+        }
+        Set<String> referenced = new HashSet<>(referencedFiles(paths));
+        hashesByUniversity.forEach((universityId, hashes) -> {
+            List<Object> args = new ArrayList<>(hashes.size() + 1);
+            args.add(universityId);
+            args.addAll(hashes);
+            referenced.addAll(jdbcTemplate.queryForList(
+                "SELECT storage_path FROM file_blobs WHERE university_id = ? AND content_hash IN ("
+                    + placeholders(hashes.size()) + ")", String.class, args.toArray()));
+        });
+        return referenced;
+    }
+
+    /**
+     * Thumbnails are referenced, at every size, by a clean project file with the same content
+     * or a profile picture rendered from it
+     */
+    private Set<String> referencedThumbnails(Collection<String> paths) {
+        Map<String, List<String>> pathsByHash = new HashMap<>();
+        for (String path : paths) {
+            Matcher thumbnail = THUMBNAIL_PATH.matcher(relative(Directory.THUMBNAILS, path));
+            if (thumbnail.matches()) {
+                pathsByHash.computeIfAbsent(thumbnail.group(1), hash -> new ArrayList<>()).add(path);
+            }
+        }
+        if (pathsByHash.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> hashes = new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT DISTINCT content_hash FROM project_files WHERE content_hash IN ("
+                + placeholders(pathsByHash.size()) + ") AND virus_scan_status = 'CLEAN'",
+            String.class, pathsByHash.keySet().toArray()));
+
+        Map<String, String> hashByUrl = new HashMap<>();
+        pathsByHash.keySet().forEach(hash -> hashByUrl.put(imagePipelineService.previewUrl(hash), hash));
+        jdbcTemplate.queryForList("SELECT profile_picture_url FROM users WHERE profile_picture_url IN ("
+                + placeholders(hashByUrl.size()) + ")", String.class, hashByUrl.keySet().toArray())
+            .forEach(url -> hashes.add(hashByUrl.get(url)));
+
+        Set<String> referenced = new HashSet<>();
+        hashes.forEach(hash -> referenced.addAll(pathsByHash.getOrDefault(hash, List.of())));
+        return referenced;
+    }
+
+    /**
+     * Report project files whose content should be in storage and is not
+     */
+    private void checkProjectFiles(Run run) {
+        long afterId = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+                SELECT id, storage_path FROM project_files
+                WHERE id > ? AND virus_scan_status IN ('PENDING', 'CLEAN')
+                ORDER BY id LIMIT ?
+                """, afterId, batchSize);
+            for (Map<String, Object> row : rows) {
+                Long id = ((Number) row.get("id")).longValue();
+                if (!storedObjectExists(run, (String) row.get("storage_path"))) {
+                    run.missingProjectFiles.add(String.valueOf(id));
+                }
+                afterId = id;
+            }
+            if (rows.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Report referenced blobs whose content is missing
+     */
+    private void checkBlobs(Run run) {
+        long afterUniversity = 0;
+        String afterHash = "";
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+                SELECT university_id, content_hash, storage_path FROM file_blobs
+                WHERE (university_id, content_hash) > (?, ?) AND ref_count > 0
+                ORDER BY university_id, content_hash LIMIT ?
+                """, afterUniversity, afterHash, batchSize);
+            for (Map<String, Object> row : rows) {
+                afterUniversity = ((Number) row.get("university_id")).longValue();
+                afterHash = (String) row.get("content_hash");
+                if (!storedObjectExists(run, (String) row.get("storage_path"))) {
+                    run.missingBlobs.add(afterUniversity + "/" + afterHash);
+                }
+            }
+            if (rows.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Report profile pictures pointing at a thumbnail or file that does not exist
+     */
+    private void checkProfilePictures(Run run) {
+        long afterId = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+                SELECT id, profile_picture_url FROM users
+                WHERE id > ? AND profile_picture_url IS NOT NULL
+                ORDER BY id LIMIT ?
+                """, afterId, batchSize);
+            for (Map<String, Object> row : rows) {
+                afterId = ((Number) row.get("id")).longValue();
+                String url = (String) row.get("profile_picture_url");
+                Matcher image = IMAGE_URL.matcher(url);
+                boolean present;
+                if (image.matches()) {
+                    run.pacer.acquire();
+                    present = imagePipelineService.findThumbnail(image.group(1), Integer.parseInt(image.group(2)))
+                        .isPresent();
+                } else if (url.startsWith(storage.directoryPath(Directory.AVATARS))) {
+                    present = storedObjectExists(run, url);
+                } else {
+                    // Hosted elsewhere
+                    present = true;
+                }
+                if (!present) {
+                    run.missingProfilePictures.add(String.valueOf(afterId));
+                }
+            }
+            if (rows.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private boolean storedObjectExists(Run run, String storagePath) {
+        run.pacer.acquire();
+        try {
+            return storage.exists(storagePath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not check " + storagePath, e);
+        } catch (RuntimeException e) {
+            // Not a path this version stores under
+            return false;
+        }
+    }
+
+    /**
+     * Report entries of the upload root that no directory accounts for
+     */
+    private void checkTopLevel(Run run) {
+        Set<String> known = new HashSet<>();
+        for (Directory directory : Directory.values()) {
+            String path = storage.directoryPath(directory);
+            String name = path.substring(0, path.length() - 1);
+            known.add(name.substring(name.lastIndexOf('/') + 1));
+        }
+        try {
+            storage.topLevelEntries().stream()
+                .filter(name -> !known.contains(name))
+                .forEach(name -> run.unrecognised.add(name));
+        } catch (IOException e) {
+            run.errors.add("Could not list the upload root: " + e.getMessage());
+        }
+    }
+
+    private boolean recognised(Directory directory, String path) {
+        return switch (directory) {
+            case BLOBS -> BLOB_PATH.matcher(relative(directory, path)).matches();
+            case THUMBNAILS -> THUMBNAIL_PATH.matcher(relative(directory, path)).matches();
+            default -> true;
+        };
+    }
+
+    private String relative(Directory directory, String path) {
+        String base = storage.directoryPath(directory);
+        return path.startsWith(base) ? path.substring(base.length()) : path;
+    }
+
+    private static String areaName(Directory directory) {
+        return directory.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static List<String> hexShards() {
+        List<String> shards = new ArrayList<>(256);
+        for (int i = 0; i < 256; i++) {
+            shards.add(String.format("%02x", i));
+        }
+        return shards;
+    }
+
+    /**
+     * Spaces operations evenly at a maximum rate across all workers; zero means unlimited
+     */
+    static final class Pacer {
+
+        private final long intervalNanos;
+        private long nextSlot;
+
+        Pacer(int operationsPerSecond) {
+            this.intervalNanos = operationsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / operationsPerSecond : 0;
+            this.nextSlot = System.nanoTime();
+        }
+
+        void acquire() {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(nextSlot, now);
+                nextSlot = slot + intervalNanos;
+                wait = slot - now;
+            }
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Storage reconciliation interrupted");
+                }
+            }
+        }
+    }
+
+    private static final class Tally {
+        final LongAdder objects = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder withinGracePeriod = new LongAdder();
+        final LongAdder referenced = new LongAdder();
+        final LongAdder orphaned = new LongAdder();
+        final LongAdder deleted = new LongAdder();
+        final LongAdder bytesDeleted = new LongAdder();
+        final LongAdder deleteFailures = new LongAdder();
+
+        AreaSummary summary() {
+            return new AreaSummary(objects.sum(), bytes.sum(), withinGracePeriod.sum(), referenced.sum(),
+                orphaned.sum(), deleted.sum(), bytesDeleted.sum(), deleteFailures.sum());
+        }
+    }
+
+    private static final class Sampled {
+        private final LongAdder count = new LongAdder();
+        private final List<String> samples = new ArrayList<>();
+
+        void add(String finding) {
+            count.increment();
+            synchronized (samples) {
+                if (samples.size() < SAMPLE_LIMIT) {
+                    samples.add(finding);
+                }
+            }
+        }
+
+        Findings findings() {
+            synchronized (samples) {
+                return new Findings(count.sum(), List.copyOf(samples));
+            }
+        }
+    }
+
+    /**
+     * State shared by the workers of one run
+     */
+    private static final class Run {
+        final boolean dryRun;
+        final Instant orphanedBefore;
+        final Pacer pacer;
+        final Map<Directory, Tally> tallies = new EnumMap<>(Directory.class);
+        final Sampled unrecognised = new Sampled();
+        final Sampled missingProjectFiles = new Sampled();
+        final Sampled missingBlobs = new Sampled();
+        final Sampled missingProfilePictures = new Sampled();
+        final Sampled errors = new Sampled();
+
+        Run(boolean dryRun, Instant orphanedBefore, Pacer pacer) {
+            this.dryRun = dryRun;
+            this.orphanedBefore = orphanedBefore;
+            this.pacer = pacer;
+            for (Directory directory : Directory.values()) {
+                tallies.put(directory, new Tally());
+            }
+        }
+
+        Tally tally(Directory directory) {
+            return tallies.get(directory);
+        }
+
+        ReconciliationReport report(Instant startedAt, Instant finishedAt) {
+            Map<String, AreaSummary> areas = new LinkedHashMap<>();
+            tallies.forEach((directory, tally) -> areas.put(areaName(directory), tally.summary()));
+            return new ReconciliationReport(startedAt, finishedAt, dryRun, orphanedBefore, areas,
+                unrecognised.findings(), missingProjectFiles.findings(), missingBlobs.findings(),
+                missingProfilePictures.findings(), errors.findings());
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.university.takharrujy.application.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Storage Scrub Service
+ * Re-reads every stored blob once per pass and checks its SHA-256 and size against the
+ * {@code file_blobs} row, flagging content that has gone missing or no longer matches.
+ * Graduation records are kept for years; without this, damage would only surface when
+ * someone downloads the file.
+ *
+ * Blobs are taken oldest verification first and each one's {@code verified_at} is written
+ * as soon as it is checked, so a pass can span days and carries on where it stopped after a
+ * restart. Reads are paced to a byte budget; files on a local disk are digested through
+ * memory-mapped windows, others streamed in large sequential reads.
+ *
+ * A result is only recorded if the blob still has the storage path it was read from, so a
+ * blob deleted or moved between tiers while it was being read is not flagged.
+ */
+@Service
+public class StorageScrubService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageScrubService.class);
+
+    private static final int SAMPLE_LIMIT = 100;
+
+    private static final String DUE_BLOBS_SQL = """
+        SELECT university_id, content_hash, storage_path, size_bytes FROM file_blobs
+        WHERE ref_count > 0 AND (verified_at IS NULL OR verified_at < now() - make_interval(secs => ?))
+        ORDER BY verified_at NULLS FIRST, university_id, content_hash
+        LIMIT ?
+        """;
+
+    private static final String RECORD_SQL = """
+        UPDATE file_blobs SET verified_at = now(), integrity_status = ?
+        WHERE university_id = ? AND content_hash = ? AND storage_path = ?
+        """;
+
+    @Value("${takharrujy.file-storage.scrub.enabled:false}")
+    private boolean enabled;
+
+    @Value("${takharrujy.file-storage.scrub.pass-interval:P30D}")
+    private Duration passInterval;
+
+    @Value("${takharrujy.file-storage.scrub.max-bytes-per-second:16MB}")
+    private DataSize maxBytesPerSecond;
+
+    @Value("${takharrujy.file-storage.scrub.read-size:8MB}")
+    private DataSize readSize;
+
+    @Value("${takharrujy.file-storage.scrub.batch-size:100}")
+    private int batchSize;
+
+    private final FileStorageService storage;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService runner;
+    private Counter bytesRead;
+    private BytePacer pacer;
+
+    public StorageScrubService(FileStorageService storage, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.storage = storage;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-scrub");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        bytesRead = Counter.builder("takharrujy.storage.scrub.bytes")
+                .description("Stored content re-read by the integrity scrubber")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        pacer = new BytePacer(maxBytesPerSecond.toBytes());
+    }
+
+    @PreDestroy
+    void stop() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Look for blobs due for verification; a run continues until none are left, on the scrub
+     * thread so the scheduler is not held
+     */
+    @Scheduled(fixedDelayString = "${takharrujy.file-storage.scrub.poll-interval:PT15M}")
+    public void scheduledRun() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            runner.execute(() -> {
+                try {
+                    run();
+                } catch (CancellationException e) {
+                    log.info("Storage scrub stopped");
+                } catch (RuntimeException e) {
+                    log.error("Storage scrub failed", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Verify due blobs a batch at a time. Blobs that could not be read are left due and
+     * skipped for the rest of the run.
+     */
+    void run() {
+        Set<String> skipped = new HashSet<>();
+        int checked = 0;
+        int failed = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(DUE_BLOBS_SQL,
+                passInterval.toSeconds(), batchSize + skipped.size());
+            int progressed = 0;
+            int unreadable = 0;
+            for (Map<String, Object> row : rows) {
+                Long universityId = ((Number) row.get("university_id")).longValue();
+                String contentHash = (String) row.get("content_hash");
+                if (skipped.contains(universityId + "/" + contentHash)) {
+                    continue;
+                }
+                String storagePath = (String) row.get("storage_path");
+                Optional<IntegrityStatus> status = verify(contentHash, storagePath,
+                    ((Number) row.get("size_bytes")).longValue());
+                if (status.isEmpty()) {
+                    skipped.add(universityId + "/" + contentHash);
+                    unreadable++;
+                    continue;
+                }
+                progressed++;
+                if (record(universityId, contentHash, storagePath, status.get()) && status.get() != IntegrityStatus.OK) {
+                    failed++;
+                }
+            }
+            checked += progressed;
+            if (progressed == 0 && unreadable == 0) {
+                break;
+            }
+        }
+        if (checked > 0 || !skipped.isEmpty()) {
+            log.info("Storage scrub verified {} blobs: {} failed the check, {} could not be read",
+                checked, failed, skipped.size());
+        }
+    }
+
+    /**
+     * Check one blob; empty if it could not be read for a reason other than being missing
+     */
+    private Optional<IntegrityStatus> verify(String contentHash, String storagePath, long expectedSize) {
+        FileStorageService.StorageLocation location = storage.locate(storagePath);
+        try {
+            if (!location.backend().exists(location.key())) {
+                return Optional.of(IntegrityStatus.MISSING);
+            }
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size = digest(location, digest);
+            boolean intact = size == expectedSize && HexFormat.of().formatHex(digest.digest()).equals(contentHash);
+            return Optional.of(intact ? IntegrityStatus.OK : IntegrityStatus.CORRUPT);
+        } catch (NoSuchFileException e) {
+            return Optional.of(IntegrityStatus.MISSING);
+        } catch (IOException e) {
+            log.warn("Could not read blob {} for verification: {}", contentHash, e.getMessage());
+            return Optional.empty();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Feed the stored content to the digest, returning its length
+     */
+    private long digest(FileStorageService.StorageLocation location, MessageDigest digest) throws IOException {
+        int window = (int) Math.max(64 * 1024, Math.min(readSize.toBytes(), Integer.MAX_VALUE));
+        Optional<Path> local = location.backend().localPath(location.key());
+        if (local.isPresent()) {
+            try (FileChannel channel = FileChannel.open(local.get(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                for (long position = 0; position < size; position += window) {
+                    long length = Math.min(window, size - position);
+                    digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+                    consumed(length);
+                }
+                return size;
+            }
+        }
+        long size = 0;
+        byte[] buffer = new byte[window];
+        try (InputStream in = location.backend().open(location.key())) {
+            int read;
+            while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                digest.update(buffer, 0, read);
+                size += read;
+                consumed(read);
+            }
+        }
+        return size;
+    }
+
+    private void consumed(long bytes) {
+        bytesRead.increment(bytes);
+        pacer.acquire(bytes);
+    }
+
+    private boolean record(Long universityId, String contentHash, String storagePath, IntegrityStatus status) {
+        boolean recorded = jdbcTemplate.update(RECORD_SQL, status.name(), universityId, contentHash, storagePath) > 0;
+        if (recorded) {
+            Counter.builder("takharrujy.storage.scrub.blobs")
+                .description("Blobs verified by the integrity scrubber")
+                .tag("result", status.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+            if (status != IntegrityStatus.OK) {
+                log.error("Blob {} of university {} at {} failed its integrity check: {}",
+                    contentHash, universityId, storagePath, status);
+            }
+        }
+        return recorded;
+    }
+
+    /**
+     * Progress of the current pass and the blobs that failed their last check
+     */
+    public IntegrityReport getReport() {
+        Map<String, Object> counts = jdbcTemplate.queryForMap("""
+            SELECT COUNT(*) AS total,
+                   COUNT(*) FILTER (WHERE verified_at >= now() - make_interval(secs => ?)) AS verified,
+                   COUNT(*) FILTER (WHERE integrity_status = 'CORRUPT') AS corrupt,
+                   COUNT(*) FILTER (WHERE integrity_status = 'MISSING') AS missing,
+                   MIN(verified_at) AS oldest_verification
+            FROM file_blobs WHERE ref_count > 0
+            """, passInterval.toSeconds());
+        List<FailedBlob> failures = jdbcTemplate.query("""
+            SELECT university_id, content_hash, storage_path, integrity_status, verified_at FROM file_blobs
+            WHERE integrity_status IN ('CORRUPT', 'MISSING') AND ref_count > 0
+            ORDER BY verified_at DESC LIMIT ?
+            """, (rs, i) -> new FailedBlob(rs.getLong(1), rs.getString(2), rs.getString(3),
+                IntegrityStatus.valueOf(rs.getString(4)), rs.getTimestamp(5).toInstant()), SAMPLE_LIMIT);
+        Timestamp oldest = (Timestamp) counts.get("oldest_verification");
+        return new IntegrityReport(
+            ((Number) counts.get("total")).longValue(),
+            ((Number) counts.get("verified")).longValue(),
+            ((Number) counts.get("corrupt")).longValue(),
+            ((Number) counts.get("missing")).longValue(),
+            oldest != null ? oldest.toInstant() : null,
+            running.get(),
+            failures);
+    }
+
+    public enum IntegrityStatus {
+        OK, CORRUPT, MISSING
+    }
+
+    /**
+     * A blob whose last check found it damaged or gone
+     */
+    public record FailedBlob(Long universityId, String contentHash, String storagePath, IntegrityStatus status,
+                             Instant checkedAt) {
+    }
+
+    /**
+     * Integrity of stored blobs: how many were verified within the pass interval, how many
+     * failed, and up to {@value #SAMPLE_LIMIT} of the failures
+     */
+    public record IntegrityReport(long blobs, long verifiedThisPass, long corrupt, long missing,
+                                  Instant oldestVerification, boolean running, List<FailedBlob> failures) {
+    }
+
+    /**
+     * Spaces reads so they average a fixed number of bytes per second
+     */
+    static final class BytePacer {
+
+        private final long bytesPerSecond;
+        private long nextSlot;
+
+        BytePacer(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.nextSlot = System.nanoTime();
+        }
+
+        void acquire(long bytes) {
+            if (bytesPerSecond <= 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            long slot = Math.max(nextSlot, now);
+            nextSlot = slot + bytes * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+            long wait = slot - now;
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Storage scrub interrupted");
+                }
+            }
+        }
+    }
+}
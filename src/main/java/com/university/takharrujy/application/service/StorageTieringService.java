@@ -0,0 +1,459 @@
+package com.university.takharrujy.application.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Storage Tiering Service
+ * Keeps the hot storage backend down to the content of active projects. A blob whose every
+ * referencing file belongs to an ARCHIVED or COMPLETED project, untouched for the idle
+ * period, is copied to the cold backend (gzip-compressed when its type is text-like, since
+ * archives, images and PDFs gain little) and its rows switched to the cold path. When such a
+ * project becomes active again, or identical content is uploaded, the blob comes back.
+ *
+ * The hot copy of a demoted blob is kept for a retention period, longer than a signed
+ * download link lives, so links handed out and downloads started before the move still find
+ * it. Rows are switched under the blob's row lock, as in {@link FileBlobService}; the copies
+ * themselves are made before the lock is taken.
+ */
+@Service
+public class StorageTieringService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageTieringService.class);
+
+    /**
+     * A clean or pending file of a project that is not archived or completed, or was
+     * changed within the idle period; blob columns are those of the outer query
+     */
+    private static final String ACTIVE_REFERENCE = """
+        SELECT 1 FROM project_files f JOIN projects p ON p.id = f.project_id
+        WHERE f.content_hash = b.content_hash AND p.university_id = b.university_id
+          AND f.virus_scan_status <> 'INFECTED'
+          AND (p.status NOT IN ('ARCHIVED', 'COMPLETED') OR p.updated_at > now() - make_interval(secs => ?))
+        """;
+
+    private static final String DEMOTION_CANDIDATES_SQL = """
+        SELECT b.university_id, b.content_hash, b.storage_path, b.cold_path,
+               (SELECT f.content_type FROM project_files f
+                WHERE f.storage_path = b.storage_path LIMIT 1) AS content_type
+        FROM file_blobs b
+        WHERE b.tier = 'HOT' AND b.ref_count > 0 AND (b.university_id, b.content_hash) > (?, ?)
+          AND NOT EXISTS (%s)
+        ORDER BY b.university_id, b.content_hash
+        LIMIT ?
+        """.formatted(ACTIVE_REFERENCE);
+
+    private static final String PROMOTION_CANDIDATES_SQL = """
+        SELECT b.university_id, b.content_hash, b.storage_path
+        FROM file_blobs b
+        WHERE b.tier = 'COLD' AND b.ref_count > 0 AND (b.university_id, b.content_hash) > (?, ?)
+          AND EXISTS (%s)
+        ORDER BY b.university_id, b.content_hash
+        LIMIT ?
+        """.formatted(ACTIVE_REFERENCE);
+
+    private static final String LOCK_BLOB_SQL = """
+        SELECT b.storage_path, EXISTS (%s) AS active FROM file_blobs b
+        WHERE b.university_id = ? AND b.content_hash = ? AND b.tier = ? AND b.ref_count > 0
+        FOR UPDATE
+        """.formatted(ACTIVE_REFERENCE);
+
+    private static final String DEMOTE_SQL = """
+        UPDATE file_blobs
+        SET tier = 'COLD', storage_path = ?, cold_path = ?, hot_copy_expires_at = now() + make_interval(secs => ?)
+        WHERE university_id = ? AND content_hash = ?
+        """;
+
+    private static final String PROMOTE_SQL = """
+        UPDATE file_blobs
+        SET tier = 'HOT', storage_path = ?, hot_copy_expires_at = NULL
+        WHERE university_id = ? AND content_hash = ?
+        """;
+
+    private static final String MOVE_FILES_SQL = "UPDATE project_files SET storage_path = ? WHERE storage_path = ?";
+
+    private static final String COPY_REFERENCED_SQL = """
+        SELECT EXISTS (SELECT 1 FROM file_blobs
+                       WHERE university_id = ? AND content_hash = ? AND (storage_path = ? OR cold_path = ?))
+        """;
+
+    private static final Set<String> COMPRESSIBLE_TYPES = Set.of(
+        "application/msword",
+        "application/vnd.ms-excel",
+        "application/vnd.ms-powerpoint",
+        "application/json",
+        "application/xml",
+        "application/rtf",
+        "application/sql",
+        "application/x-tex"
+    );
+
+    @Value("${takharrujy.files.tiering.enabled:false}")
+    private boolean enabled;
+
+    @Value("${takharrujy.files.tiering.min-idle:P30D}")
+    private Duration minIdle;
+
+    @Value("${takharrujy.files.tiering.batch-size:200}")
+    private int batchSize;
+
+    @Value("${takharrujy.files.tiering.hot-copy-retention:PT1H}")
+    private Duration hotCopyRetention;
+
+    @Value("${takharrujy.files.tiering.promote-on-read:true}")
+    private boolean promoteOnRead;
+
+    @Value("${takharrujy.files.tiering.promotion-queue-capacity:100}")
+    private int promotionQueueCapacity;
+
+    private final FileStorageService storage;
+    private final FileBlobService fileBlobService;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Set<String> promotionsQueued = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicLong> tierBytes = Map.of("HOT", new AtomicLong(), "COLD", new AtomicLong());
+    private ExecutorService runner;
+    private ThreadPoolExecutor promotionExecutor;
+    private Counter demoted;
+    private Counter promoted;
+
+    public StorageTieringService(FileStorageService storage,
+                                 FileBlobService fileBlobService,
+                                 JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 PlatformTransactionManager transactionManager) {
+        this.storage = storage;
+        this.fileBlobService = fileBlobService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-tiering");
+            thread.setDaemon(true);
+            return thread;
+        });
+        promotionExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, promotionQueueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "storage-promote");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        tierBytes.forEach((tier, bytes) -> Gauge.builder("takharrujy.storage.tier.bytes", bytes, AtomicLong::get)
+                .description("Size of referenced blob content in each storage tier, as of the last tiering run")
+                .tag("tier", tier.toLowerCase())
+                .baseUnit("bytes")
+                .register(meterRegistry));
+        demoted = Counter.builder("takharrujy.storage.tier.moves").tag("direction", "demote")
+                .description("Blobs moved between storage tiers").register(meterRegistry);
+        promoted = Counter.builder("takharrujy.storage.tier.moves").tag("direction", "promote")
+                .description("Blobs moved between storage tiers").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        runner.shutdownNow();
+        promotionExecutor.shutdownNow();
+    }
+
+    /**
+     * Nightly run, handed to the tiering thread so the scheduler is not held while blobs are copied
+     */
+    @Scheduled(cron = "${takharrujy.files.tiering.cron:0 0 4 * * *}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.info("Skipping scheduled storage tiering, one is already running");
+            return;
+        }
+        try {
+            runner.execute(() -> {
+                try {
+                    run();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    /**
+     * A file in the cold tier was read; if its project is active again, bring the blob back
+     * without waiting for the nightly run. Requests beyond the queue are left to that run.
+     */
+    public void onRead(Long projectId, String contentHash, String storagePath) {
+        if (!enabled || !promoteOnRead || contentHash == null || !storage.isCold(storagePath)
+                || !promotionsQueued.add(storagePath)) {
+            return;
+        }
+        try {
+            promotionExecutor.execute(() -> {
+                try {
+                    promote(fileBlobService.getUniversityId(projectId), contentHash, storagePath);
+                } catch (RuntimeException e) {
+                    log.warn("Could not promote blob {} on read: {}", contentHash, e.getMessage());
+                } finally {
+                    promotionsQueued.remove(storagePath);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            promotionsQueued.remove(storagePath);
+        }
+    }
+
+    /**
+     * Demote idle blobs, drop expired hot copies and promote blobs in use again
+     */
+    void run() {
+        long start = System.nanoTime();
+        int down = demoteIdle();
+        int expired = expireHotCopies();
+        int up = promoteActive();
+        refreshTierSizes();
+        log.info("Storage tiering moved {} blobs to cold and {} back to hot, dropped {} hot copies in {} ms",
+            down, up, expired, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private int demoteIdle() {
+        int moved = 0;
+        long afterUniversity = 0;
+        String afterHash = "";
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(DEMOTION_CANDIDATES_SQL,
+                afterUniversity, afterHash, minIdle.toSeconds(), batchSize);
+            for (Map<String, Object> row : rows) {
+                afterUniversity = ((Number) row.get("university_id")).longValue();
+                afterHash = (String) row.get("content_hash");
+                try {
+                    if (demote(afterUniversity, afterHash, (String) row.get("storage_path"),
+                            (String) row.get("cold_path"), (String) row.get("content_type"))) {
+                        moved++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not move blob {} to cold storage: {}", afterHash, e.getMessage());
+                }
+            }
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Copy a blob to the cold tier and switch its rows, unless it was released or used
+     * again meanwhile. A cold copy left by an earlier move is reused. The copy made here is
+     * dropped when the blob is not moved, unless the row points at it by then: another node
+     * demoting the same blob writes the same path, and its switch may have committed first.
+     */
+    private boolean demote(Long universityId, String contentHash, String hotPath, String coldPath,
+                           String contentType) throws IOException {
+        boolean copied = false;
+        if (coldPath == null || !storage.exists(coldPath)) {
+            coldPath = storage.coldStoragePath(universityId, contentHash, compressible(contentType));
+            storage.copy(hotPath, coldPath);
+            copied = true;
+        }
+        String target = coldPath;
+        AtomicBoolean targetReferenced = new AtomicBoolean();
+        Boolean moved = transactionTemplate.execute(status -> {
+            List<Map<String, Object>> locked = jdbcTemplate.queryForList(LOCK_BLOB_SQL,
+                minIdle.toSeconds(), universityId, contentHash, "HOT");
+            if (locked.isEmpty() || Boolean.TRUE.equals(locked.get(0).get("active"))) {
+                targetReferenced.set(Boolean.TRUE.equals(jdbcTemplate.queryForObject(COPY_REFERENCED_SQL,
+                    Boolean.class, universityId, contentHash, target, target)));
+                return false;
+            }
+            jdbcTemplate.update(DEMOTE_SQL, target, target, hotCopyRetention.toSeconds(), universityId, contentHash);
+            jdbcTemplate.update(MOVE_FILES_SQL, target, hotPath);
+            return true;
+        });
+        if (Boolean.TRUE.equals(moved)) {
+            demoted.increment();
+            return true;
+        }
+        if (copied && !targetReferenced.get()) {
+            storage.deleteFile(target);
+        }
+        return false;
+    }
+
+    /**
+     * Delete hot copies of cold blobs past their retention, each under its row lock so an
+     * upload of the same content either sees the copy gone or waits for the delete
+     */
+    private int expireHotCopies() {
+        int dropped = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+                SELECT university_id, content_hash FROM file_blobs
+                WHERE hot_copy_expires_at <= now()
+                ORDER BY hot_copy_expires_at LIMIT ?
+                """, batchSize);
+            int failed = 0;
+            for (Map<String, Object> row : rows) {
+                Long universityId = ((Number) row.get("university_id")).longValue();
+                String contentHash = (String) row.get("content_hash");
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        List<String> tier = jdbcTemplate.queryForList("""
+                            SELECT tier FROM file_blobs
+                            WHERE university_id = ? AND content_hash = ? AND hot_copy_expires_at <= now()
+                            FOR UPDATE
+                            """, String.class, universityId, contentHash);
+                        if (tier.isEmpty()) {
+                            return;
+                        }
+                        if ("COLD".equals(tier.get(0))) {
+                            FileStorageService.StorageLocation hot =
+                                storage.locate(storage.blobStoragePath(universityId, contentHash));
+                            try {
+                                hot.backend().delete(hot.key());
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                        jdbcTemplate.update("""
+                            UPDATE file_blobs SET hot_copy_expires_at = NULL
+                            WHERE university_id = ? AND content_hash = ?
+                            """, universityId, contentHash);
+                    });
+                    dropped++;
+                } catch (UncheckedIOException e) {
+                    // Kept with its expiry, and retried on the next run
+                    failed++;
+                    log.warn("Could not delete hot copy of blob {}: {}", contentHash, e.getMessage());
+                }
+            }
+            if (rows.size() < batchSize || failed == rows.size()) {
+                break;
+            }
+        }
+        return dropped;
+    }
+
+    private int promoteActive() {
+        int moved = 0;
+        long afterUniversity = 0;
+        String afterHash = "";
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(PROMOTION_CANDIDATES_SQL,
+                afterUniversity, afterHash, minIdle.toSeconds(), batchSize);
+            for (Map<String, Object> row : rows) {
+                afterUniversity = ((Number) row.get("university_id")).longValue();
+                afterHash = (String) row.get("content_hash");
+                try {
+                    if (promote(afterUniversity, afterHash, (String) row.get("storage_path"))) {
+                        moved++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Could not move blob {} back to hot storage: {}", afterHash, e.getMessage());
+                }
+            }
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Bring a cold blob referenced by an active project back to the hot tier. The cold copy
+     * is kept, so moving the blob out again needs no copy.
+     */
+    private boolean promote(Long universityId, String contentHash, String coldPath) {
+        String hotPath = storage.blobStoragePath(universityId, contentHash);
+        try {
+            if (!storage.exists(hotPath)) {
+                storage.copy(coldPath, hotPath);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Boolean moved = transactionTemplate.execute(status -> {
+            List<Map<String, Object>> locked = jdbcTemplate.queryForList(LOCK_BLOB_SQL,
+                minIdle.toSeconds(), universityId, contentHash, "COLD");
+            if (locked.isEmpty() || !Boolean.TRUE.equals(locked.get(0).get("active"))) {
+                return false;
+            }
+            try {
+                // An expired hot copy may have been deleted since the check above
+                if (!storage.exists(hotPath)) {
+                    return false;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            jdbcTemplate.update(PROMOTE_SQL, hotPath, universityId, contentHash);
+            jdbcTemplate.update(MOVE_FILES_SQL, hotPath, locked.get(0).get("storage_path"));
+            return true;
+        });
+        if (Boolean.TRUE.equals(moved)) {
+            promoted.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private void refreshTierSizes() {
+        Map<String, Long> sizes = new HashMap<>();
+        jdbcTemplate.query("SELECT tier, SUM(size_bytes) FROM file_blobs WHERE ref_count > 0 GROUP BY tier",
+            (RowCallbackHandler) rs -> sizes.put(rs.getString(1), rs.getLong(2)));
+        tierBytes.forEach((tier, bytes) -> bytes.set(sizes.getOrDefault(tier, 0L)));
+    }
+
+    /**
+     * Text-like content, which compresses well; everything else is stored as is
+     */
+    static boolean compressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        int parameters = type.indexOf(';');
+        if (parameters >= 0) {
+            type = type.substring(0, parameters).trim();
+        }
+        return type.startsWith("text/") || COMPRESSIBLE_TYPES.contains(type)
+            || type.endsWith("+json") || type.endsWith("+xml");
+    }
+}
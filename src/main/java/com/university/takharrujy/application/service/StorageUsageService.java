@@ -0,0 +1,299 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Storage Usage Service
+ * Storage quotas of universities, projects and users, checked against the counters in
+ * {@code storage_usage}. A trigger on {@code project_files} keeps the counters in step with
+ * every file added or removed, in the same transaction, so a check reads one row per scope
+ * however many files there are. Uploads are checked against the size they declare before
+ * their body is read.
+ *
+ * The check and the insert are not one transaction, so uploads racing each other can go
+ * slightly over a quota; the next upload is then refused.
+ *
+ * A nightly run recounts each university from {@code project_files} and corrects any
+ * counter that drifted, e.g. through a manual fix in the database.
+ */
+@Service
+public class StorageUsageService {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageUsageService.class);
+
+    /**
+     * Usage of the three scopes an upload to a project counts against, by primary key
+     */
+    private static final String UPLOAD_USAGE_SQL = """
+        SELECT p.university_id, u.scope, u.bytes
+        FROM projects p
+        LEFT JOIN storage_usage u ON u.university_id = p.university_id
+         AND ((u.scope = 'UNIVERSITY' AND u.scope_id = p.university_id)
+           OR (u.scope = 'PROJECT' AND u.scope_id = p.id)
+           OR (u.scope = 'USER' AND u.scope_id = ?))
+        WHERE p.id = ?
+        """;
+
+    /**
+     * Take the university row, which every writer of the university updates first, so no
+     * counter of the university changes until the recount commits
+     */
+    private static final String LOCK_UNIVERSITY_SQL = """
+        INSERT INTO storage_usage (university_id, scope, scope_id) VALUES (?, 'UNIVERSITY', ?)
+        ON CONFLICT (university_id, scope, scope_id) DO UPDATE SET bytes = storage_usage.bytes
+        """;
+
+    private static final String RECOUNT_SQL = """
+        INSERT INTO storage_usage (university_id, scope, scope_id, bytes, files)
+        SELECT ?, 'UNIVERSITY', ?, COALESCE(SUM(file_size), 0), COUNT(*)
+        FROM project_files WHERE university_id = ? AND virus_scan_status <> 'INFECTED'
+        UNION ALL
+        SELECT ?, 'PROJECT', project_id, SUM(file_size), COUNT(*)
+        FROM project_files WHERE university_id = ? AND virus_scan_status <> 'INFECTED'
+        GROUP BY project_id
+        UNION ALL
+        SELECT ?, 'USER', uploaded_by_user_id, SUM(file_size), COUNT(*)
+        FROM project_files WHERE university_id = ? AND virus_scan_status <> 'INFECTED'
+        GROUP BY uploaded_by_user_id
+        ON CONFLICT (university_id, scope, scope_id) DO UPDATE
+        SET bytes = EXCLUDED.bytes, files = EXCLUDED.files, updated_at = CURRENT_TIMESTAMP
+        WHERE (storage_usage.bytes, storage_usage.files) IS DISTINCT FROM (EXCLUDED.bytes, EXCLUDED.files)
+        RETURNING scope
+        """;
+
+    /**
+     * Counters of projects and users left with no files, e.g. deleted projects
+     */
+    private static final String DELETE_EMPTY_SQL = """
+        DELETE FROM storage_usage s
+        WHERE s.university_id = ? AND s.scope <> 'UNIVERSITY'
+          AND NOT EXISTS (
+              SELECT 1 FROM project_files f
+              WHERE f.university_id = s.university_id AND f.virus_scan_status <> 'INFECTED'
+                AND ((s.scope = 'PROJECT' AND f.project_id = s.scope_id)
+                  OR (s.scope = 'USER' AND f.uploaded_by_user_id = s.scope_id)))
+        RETURNING scope
+        """;
+
+    private static final String TOP_USAGE_SQL = """
+        SELECT university_id, scope_id, bytes, files, updated_at FROM storage_usage
+        WHERE scope = ? AND (?::bigint IS NULL OR university_id = ?)
+        ORDER BY bytes DESC
+        LIMIT ?
+        """;
+
+    @Value("${takharrujy.files.quota.enabled:true}")
+    private boolean enabled;
+
+    @Value("${takharrujy.files.quota.university:0}")
+    private DataSize universityQuota;
+
+    @Value("${takharrujy.files.quota.project:2GB}")
+    private DataSize projectQuota;
+
+    @Value("${takharrujy.files.quota.user:5GB}")
+    private DataSize userQuota;
+
+    @Value("${takharrujy.files.quota.reconcile-enabled:false}")
+    private boolean reconcileEnabled;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService runner;
+    private volatile Instant lastReconciledAt;
+    private volatile long lastCorrections;
+
+    public StorageUsageService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-usage");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Check that {@code bytes} more fit in the quotas of the project, its university and the
+     * user, from the counters alone.
+     *
+     * @return the university of the project
+     * @throws BusinessException when a quota would be exceeded
+     */
+    public Long checkQuota(Long projectId, Long userId, long bytes) {
+        Long[] universityId = new Long[1];
+        Map<Scope, Long> used = new EnumMap<>(Scope.class);
+        jdbcTemplate.query(UPLOAD_USAGE_SQL, (RowCallbackHandler) rs -> {
+            universityId[0] = rs.getLong(1);
+            String scope = rs.getString(2);
+            if (scope != null) {
+                used.put(Scope.valueOf(scope), rs.getLong(3));
+            }
+        }, userId, projectId);
+        if (universityId[0] == null) {
+            throw new ResourceNotFoundException("Project not found with ID: " + projectId);
+        }
+        if (enabled) {
+            for (Scope scope : Scope.values()) {
+                long quota = quota(scope);
+                long current = used.getOrDefault(scope, 0L);
+                if (quota > 0 && current + bytes > quota) {
+                    Counter.builder("takharrujy.storage.quota.rejections")
+                        .description("Uploads refused because a storage quota would be exceeded")
+                        .tag("scope", scope.name())
+                        .register(meterRegistry)
+                        .increment();
+                    // Usage stays out of the response: the caller may not be allowed to see the project yet
+                    log.info("Refused upload of {} bytes to project {} by user {}: {} storage quota, {} of {} bytes used",
+                        bytes, projectId, userId, scope.name().toLowerCase(), current, quota);
+                    throw BusinessException.storageQuotaExceeded("Upload exceeds the "
+                        + scope.name().toLowerCase() + " storage quota");
+                }
+            }
+        }
+        return universityId[0];
+    }
+
+    /**
+     * Largest consumers from the counters, optionally of one university
+     */
+    public UsageReport getReport(Long universityId, int top) {
+        int limit = Math.max(1, Math.min(top, 500));
+        return new UsageReport(
+            topUsage(Scope.UNIVERSITY, universityId, limit),
+            topUsage(Scope.PROJECT, universityId, limit),
+            topUsage(Scope.USER, universityId, limit),
+            lastReconciledAt, lastCorrections, running.get());
+    }
+
+    @Scheduled(cron = "${takharrujy.files.quota.reconcile-cron:0 15 3 * * *}")
+    public void scheduledReconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.info("Skipping scheduled storage usage reconciliation, one is already running");
+            return;
+        }
+        try {
+            runner.execute(() -> {
+                try {
+                    reconcile();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Recount every university, one transaction each
+     */
+    void reconcile() {
+        long corrections = 0;
+        for (Long universityId : jdbcTemplate.queryForList("SELECT id FROM universities ORDER BY id", Long.class)) {
+            try {
+                corrections += reconcile(universityId);
+            } catch (RuntimeException e) {
+                log.error("Could not reconcile storage usage of university {}", universityId, e);
+            }
+        }
+        lastReconciledAt = Instant.now();
+        lastCorrections = corrections;
+        if (corrections > 0) {
+            log.warn("Storage usage reconciliation corrected {} counters", corrections);
+        } else {
+            log.info("Storage usage reconciliation found all counters correct");
+        }
+    }
+
+    private long reconcile(Long universityId) {
+        Long corrected = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(LOCK_UNIVERSITY_SQL, universityId, universityId);
+            List<String> changed = new ArrayList<>(jdbcTemplate.queryForList(RECOUNT_SQL, String.class,
+                universityId, universityId, universityId, universityId, universityId, universityId, universityId));
+            changed.addAll(jdbcTemplate.queryForList(DELETE_EMPTY_SQL, String.class, universityId));
+            return (long) changed.size();
+        });
+        if (corrected != null && corrected > 0) {
+            meterRegistry.counter("takharrujy.storage.usage.corrections").increment(corrected);
+            log.warn("Corrected {} storage usage counters of university {}", corrected, universityId);
+        }
+        return corrected == null ? 0 : corrected;
+    }
+
+    private List<Usage> topUsage(Scope scope, Long universityId, int limit) {
+        long quota = enabled ? quota(scope) : 0;
+        RowMapper<Usage> mapper = (rs, rowNum) -> new Usage(rs.getLong("university_id"), rs.getLong("scope_id"),
+            rs.getLong("bytes"), rs.getLong("files"), quota, rs.getTimestamp("updated_at").toInstant());
+        return jdbcTemplate.query(TOP_USAGE_SQL, mapper, scope.name(), universityId, universityId, limit);
+    }
+
+    private long quota(Scope scope) {
+        return switch (scope) {
+            case UNIVERSITY -> universityQuota.toBytes();
+            case PROJECT -> projectQuota.toBytes();
+            case USER -> userQuota.toBytes();
+        };
+    }
+
+    public enum Scope {
+        UNIVERSITY, PROJECT, USER
+    }
+
+    /**
+     * Usage of one university, project or user; a quota of 0 is unlimited
+     */
+    public record Usage(Long universityId, Long id, long bytes, long files, long quotaBytes, Instant updatedAt) {
+    }
+
+    /**
+     * Largest consumers per scope, and what the last reconciliation on this node found
+     */
+    public record UsageReport(List<Usage> universities, List<Usage> projects, List<Usage> users,
+                              Instant lastReconciledAt, long lastCorrections, boolean reconciling) {
+    }
+}
@@ -163,7 +163,9 @@ public class TaskService {
                     updated.getAssignedTo(),
                     "Task Updated",
                     "Task '" + updated.getTitle() + "' has been updated.",
-                    NotificationType.TASK
+                    NotificationType.TASK,
+                    "TASK",
+                    updated.getId()
             );
         }
 
@@ -230,7 +232,9 @@ public class TaskService {
                         leader,
                         "Task Status Updated",
                         "Task '" + updated.getTitle() + "' status changed to " + newStatus,
-                        NotificationType.TASK
+                        NotificationType.TASK,
+                        "TASK",
+                        updated.getId()
                 ));
 
         log.info("Task [{}] status changed to [{}] by user [{}]", taskId, newStatus, currentUserId);
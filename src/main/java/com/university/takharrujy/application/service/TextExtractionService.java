@@ -0,0 +1,258 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.infrastructure.service.DocumentTextExtractor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Text Extraction Service
+ * Extracts the text of clean documents off the request thread, on a bounded pool, and
+ * stores it in the {@code search_vector} of their blob for full-text search. Text lives on
+ * the blob, so content uploaded to several projects is extracted once.
+ *
+ * Pending work is the blob's {@code text_status}: a blob is marked PENDING when a document
+ * with its content passes the virus scan, and leaves that state once extracted. The sweeper
+ * resubmits anything a full queue dropped or a restart interrupted. Memory per document is
+ * bounded by the characters kept (see {@link DocumentTextExtractor}).
+ */
+@Service
+public class TextExtractionService {
+
+    private static final Logger log = LoggerFactory.getLogger(TextExtractionService.class);
+
+    private static final String MARK_PENDING_SQL = """
+        UPDATE file_blobs SET text_status = 'PENDING', text_updated_at = now()
+        WHERE university_id = ? AND content_hash = ? AND text_status IS NULL
+        """;
+
+    /**
+     * Storage path of a pending blob and the content type of a clean document stored in it
+     */
+    private static final String PENDING_BLOB_SQL = """
+        SELECT b.storage_path,
+               (SELECT f.content_type FROM project_files f
+                WHERE f.university_id = b.university_id AND f.content_hash = b.content_hash
+                  AND f.virus_scan_status = 'CLEAN' AND f.content_type IN (%s)
+                LIMIT 1) AS content_type
+        FROM file_blobs b
+        WHERE b.university_id = ? AND b.content_hash = ? AND b.text_status = 'PENDING'
+        """.formatted(DocumentTextExtractor.CONTENT_TYPES.stream()
+            .map(type -> "'" + type + "'").collect(Collectors.joining(", ")));
+
+    private static final String STALE_BLOBS_SQL = """
+        SELECT university_id, content_hash FROM file_blobs
+        WHERE text_status = 'PENDING' AND text_updated_at < now() - make_interval(secs => ?)
+        ORDER BY text_updated_at
+        LIMIT ?
+        """;
+
+    private static final String INDEX_SQL = """
+        UPDATE file_blobs
+        SET search_vector = to_tsvector('english', ?), text_status = 'INDEXED', text_updated_at = now()
+        WHERE university_id = ? AND content_hash = ? AND text_status = 'PENDING'
+        """;
+
+    private static final String SETTLE_SQL = """
+        UPDATE file_blobs SET text_status = ?, text_updated_at = now()
+        WHERE university_id = ? AND content_hash = ? AND text_status = 'PENDING'
+        """;
+
+    /**
+     * Leave a blob that could not be opened for the sweeper, after stale-after
+     */
+    private static final String POSTPONE_SQL = """
+        UPDATE file_blobs SET text_updated_at = now()
+        WHERE university_id = ? AND content_hash = ? AND text_status = 'PENDING'
+        """;
+
+    @Value("${takharrujy.files.text.workers:1}")
+    private int workers;
+
+    @Value("${takharrujy.files.text.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${takharrujy.files.text.max-chars:200000}")
+    private int maxChars;
+
+    @Value("${takharrujy.files.text.max-uncompressed-size:256MB}")
+    private DataSize maxUncompressedSize;
+
+    @Value("${takharrujy.files.text.stale-after:PT5M}")
+    private Duration staleAfter;
+
+    @Value("${takharrujy.files.text.sweep-batch-size:100}")
+    private int sweepBatchSize;
+
+    private final FileStorageService storage;
+    private final DocumentTextExtractor extractor;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor extractExecutor;
+
+    public TextExtractionService(FileStorageService storage,
+                                 DocumentTextExtractor extractor,
+                                 JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry) {
+        this.storage = storage;
+        this.extractor = extractor;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        int threads = Math.max(1, workers);
+        extractExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "text-extract");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        Gauge.builder("takharrujy.files.text.queued", extractExecutor, executor -> executor.getQueue().size())
+                .description("Documents waiting for text extraction on this node")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        extractExecutor.shutdown();
+    }
+
+    /**
+     * Queue the text of a clean document stored as a blob, unless that content was handled before
+     */
+    public void submit(Long universityId, String contentHash) {
+        try {
+            if (jdbcTemplate.update(MARK_PENDING_SQL, universityId, contentHash) > 0) {
+                submit(universityId + "/" + contentHash, universityId, contentHash);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not queue text extraction of {}: {}", contentHash, e.getMessage());
+        }
+    }
+
+    /**
+     * Resubmit blobs that have been pending longer than expected
+     */
+    @Scheduled(fixedDelayString = "${takharrujy.files.text.sweep-interval:PT1M}")
+    public void sweep() {
+        try {
+            List<Map<String, Object>> stale = jdbcTemplate.queryForList(STALE_BLOBS_SQL,
+                staleAfter.toSeconds(), sweepBatchSize);
+            int resubmitted = 0;
+            for (Map<String, Object> row : stale) {
+                Long universityId = ((Number) row.get("university_id")).longValue();
+                String contentHash = (String) row.get("content_hash");
+                if (submit(universityId + "/" + contentHash, universityId, contentHash)) {
+                    resubmitted++;
+                }
+            }
+            if (resubmitted > 0) {
+                log.info("Resubmitted {} documents waiting for text extraction", resubmitted);
+            }
+        } catch (Exception e) {
+            log.error("Text extraction sweep failed", e);
+        }
+    }
+
+    private boolean submit(String key, Long universityId, String contentHash) {
+        if (!inFlight.add(key)) {
+            return false;
+        }
+        try {
+            extractExecutor.execute(() -> {
+                try {
+                    extract(universityId, contentHash);
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            log.warn("Text extraction queue full, {} left for the sweeper", contentHash);
+            return false;
+        }
+    }
+
+    /**
+     * Extract and index the text of one pending blob
+     */
+    void extract(Long universityId, String contentHash) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(PENDING_BLOB_SQL, universityId, contentHash);
+        if (rows.isEmpty()) {
+            // Indexed elsewhere, or the blob is gone
+            return;
+        }
+        String storagePath = (String) rows.get(0).get("storage_path");
+        String contentType = (String) rows.get(0).get("content_type");
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome;
+        if (contentType == null) {
+            // Every document stored in it was deleted, or none is of a type we read
+            jdbcTemplate.update(SETTLE_SQL, TextStatus.UNSUPPORTED.name(), universityId, contentHash);
+            outcome = "unsupported";
+        } else {
+            outcome = extract(universityId, contentHash, storagePath, contentType);
+        }
+        sample.stop(Timer.builder("takharrujy.files.text.extract")
+                .description("Time to extract and index the text of one document")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private String extract(Long universityId, String contentHash, String storagePath, String contentType) {
+        InputStream source;
+        try {
+            source = storage.openStream(storagePath);
+        } catch (IOException | RuntimeException e) {
+            // Storage may be back by the next sweep
+            log.warn("Could not open {} for text extraction: {}", contentHash, e.getMessage());
+            jdbcTemplate.update(POSTPONE_SQL, universityId, contentHash);
+            return "postponed";
+        }
+        String text;
+        try (source) {
+            text = extractor.extract(source, contentType, maxChars, maxUncompressedSize.toBytes());
+        } catch (Exception e) {
+            // Malformed or oversized documents will not extract on a retry either
+            log.warn("Could not extract the text of {} ({}): {}", contentHash, contentType, e.getMessage());
+            jdbcTemplate.update(SETTLE_SQL, TextStatus.FAILED.name(), universityId, contentHash);
+            return "failed";
+        }
+        jdbcTemplate.update(INDEX_SQL, text, universityId, contentHash);
+        log.debug("Indexed {} characters of {}", text.length(), contentHash);
+        return "indexed";
+    }
+
+    public enum TextStatus {
+        PENDING, INDEXED, UNSUPPORTED, FAILED
+    }
+}
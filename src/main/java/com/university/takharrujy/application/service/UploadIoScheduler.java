@@ -0,0 +1,399 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Upload IO Scheduler
+ * Decides when an upload may write to storage. A node runs a limited number of uploads at
+ * once, and no university or user may hold more than their own share of those slots. When
+ * slots are short, waiting uploads are let in by weighted fair queuing: each one is tagged
+ * with a virtual finish time of its university's previous tag plus its size divided by the
+ * university's weight, and the smallest tag goes next. A university uploading a lot before
+ * a deadline therefore queues behind its own backlog rather than everyone else's.
+ *
+ * The node's upload bandwidth, when limited, is split the same way: each university with
+ * uploads in progress may read its bodies at its weighted share of the budget, and the
+ * shares grow as other universities go idle.
+ *
+ * Waiting is bounded. An upload is turned away at once when its university already has a
+ * full queue, and after max-queue-time otherwise, so a spike is answered with a retryable
+ * 503 for the university causing it instead of timeouts for all.
+ */
+@Service
+public class UploadIoScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadIoScheduler.class);
+
+    private static final long NO_UNIVERSITY = 0L;
+
+    @Value("${takharrujy.files.io-scheduler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${takharrujy.files.io-scheduler.max-concurrent:32}")
+    private int maxConcurrent;
+
+    @Value("${takharrujy.files.io-scheduler.max-concurrent-per-university:12}")
+    private int maxConcurrentPerUniversity;
+
+    @Value("${takharrujy.files.io-scheduler.max-concurrent-per-user:4}")
+    private int maxConcurrentPerUser;
+
+    @Value("${takharrujy.files.io-scheduler.max-bytes-per-second:0}")
+    private DataSize maxBytesPerSecond;
+
+    @Value("${takharrujy.files.io-scheduler.weights:}")
+    private String weights;
+
+    @Value("${takharrujy.files.io-scheduler.max-queue-time:PT20S}")
+    private Duration maxQueueTime;
+
+    @Value("${takharrujy.files.io-scheduler.max-queued-per-university:50}")
+    private int maxQueuedPerUniversity;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dispatched = lock.newCondition();
+    private final Map<Long, Tenant> tenants = new HashMap<>();
+    private final Map<Long, Integer> activeByUser = new HashMap<>();
+    private final Map<Long, Integer> weightByUniversity = new HashMap<>();
+
+    private double virtualTime;
+    private int active;
+    private int queued;
+    private int activeWeight;
+
+    public UploadIoScheduler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        if (weights != null && !weights.isBlank()) {
+            for (String entry : weights.split(",")) {
+                String[] parts = entry.trim().split(":");
+                if (parts.length != 2) {
+                    throw new IllegalStateException("Invalid upload weight '" + entry.trim()
+                        + "', expected universityId:weight");
+                }
+                int weight = Integer.parseInt(parts[1].trim());
+                if (weight < 1) {
+                    throw new IllegalStateException("Upload weight of university " + parts[0].trim() + " must be positive");
+                }
+                weightByUniversity.put(Long.parseLong(parts[0].trim()), weight);
+            }
+        }
+        Gauge.builder("takharrujy.uploads.active", this, scheduler -> scheduler.active)
+            .description("Uploads writing to storage on this node")
+            .register(meterRegistry);
+        Gauge.builder("takharrujy.uploads.queued", this, scheduler -> scheduler.queued)
+            .description("Uploads waiting for a slot on this node")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Wait for a slot to upload {@code bytes} for a user of a university. The permit must be
+     * closed when the upload has been written.
+     *
+     * @throws BusinessException when the university's queue is full or no slot came up in time
+     */
+    public Permit admit(Long universityId, Long userId, long bytes) {
+        if (!enabled) {
+            return Permit.UNLIMITED;
+        }
+        long started = System.nanoTime();
+        long deadline = started + maxQueueTime.toNanos();
+        Tenant tenant;
+        Waiter waiter;
+
+        lock.lock();
+        try {
+            tenant = tenant(universityId == null ? NO_UNIVERSITY : universityId);
+            if (tenant.queue.size() >= maxQueuedPerUniversity) {
+                throw reject(tenant, "queue_full");
+            }
+            // A university with nothing queued or running starts afresh rather than paying for past uploads
+            double start = (tenant.queue.isEmpty() && tenant.active == 0)
+                ? virtualTime : Math.max(virtualTime, tenant.finishTag);
+            waiter = new Waiter(userId, start, start + Math.max(bytes, 1L) / (double) tenant.weight);
+            tenant.finishTag = waiter.finish;
+            tenant.queue.add(waiter);
+            queued++;
+            dispatch();
+
+            while (!waiter.granted) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    withdraw(tenant, waiter);
+                    throw reject(tenant, "timeout");
+                }
+                try {
+                    dispatched.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (waiter.granted) {
+                        release(tenant, userId);
+                    } else {
+                        withdraw(tenant, waiter);
+                    }
+                    throw new CancellationException("Upload interrupted while waiting for a slot");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        tenant.queueTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return new Permit(this, tenant, userId);
+    }
+
+    /**
+     * Let in the waiting uploads with the smallest finish tags while slots are free,
+     * skipping universities and users already at their limit. Called with the lock held.
+     */
+    private void dispatch() {
+        while (active < maxConcurrent && queued > 0) {
+            Tenant owner = null;
+            Waiter next = null;
+            for (Tenant tenant : tenants.values()) {
+                if (tenant.active >= maxConcurrentPerUniversity) {
+                    continue;
+                }
+                // Tags rise along a university's queue, so its first eligible waiter is its best
+                for (Waiter waiter : tenant.queue) {
+                    if (activeUploads(waiter.userId) < maxConcurrentPerUser) {
+                        if (next == null || waiter.finish < next.finish) {
+                            owner = tenant;
+                            next = waiter;
+                        }
+                        break;
+                    }
+                }
+            }
+            if (next == null) {
+                return;
+            }
+
+            owner.queue.remove(next);
+            queued--;
+            next.granted = true;
+            virtualTime = Math.max(virtualTime, next.start);
+            if (owner.active++ == 0) {
+                activeWeight += owner.weight;
+            }
+            active++;
+            if (next.userId != null) {
+                activeByUser.merge(next.userId, 1, Integer::sum);
+            }
+            dispatched.signalAll();
+        }
+    }
+
+    private void release(Tenant tenant, Long userId) {
+        lock.lock();
+        try {
+            active--;
+            if (--tenant.active == 0) {
+                activeWeight -= tenant.weight;
+            }
+            if (userId != null) {
+                activeByUser.computeIfPresent(userId, (user, count) -> count > 1 ? count - 1 : null);
+            }
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take a waiter that gave up out of the queue. Called with the lock held.
+     */
+    private void withdraw(Tenant tenant, Waiter waiter) {
+        tenant.queue.remove(waiter);
+        queued--;
+        if (tenant.finishTag == waiter.finish) {
+            // Nothing was queued after it, so the university is not charged for it
+            tenant.finishTag = waiter.start;
+        }
+        // The user's place may have been holding back later waiters of other users
+        dispatch();
+    }
+
+    /**
+     * Account for bytes read by an upload of a university and wait until its share of the
+     * node's bandwidth allows them
+     */
+    private void consume(Tenant tenant, long bytes) throws InterruptedIOException {
+        tenant.bytes.increment(bytes);
+        long budget = maxBytesPerSecond.toBytes();
+        if (budget <= 0) {
+            return;
+        }
+        long wait;
+        lock.lock();
+        try {
+            long share = Math.max(1L, budget * tenant.weight / Math.max(activeWeight, tenant.weight));
+            long now = System.nanoTime();
+            long slot = Math.max(tenant.nextSlot, now);
+            tenant.nextSlot = slot + bytes * TimeUnit.SECONDS.toNanos(1) / share;
+            wait = slot - now;
+        } finally {
+            lock.unlock();
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Upload interrupted");
+            }
+        }
+    }
+
+    private BusinessException reject(Tenant tenant, String reason) {
+        tenant.rejected(reason).increment();
+        log.warn("Upload for university {} turned away ({}): {} running, {} queued on this node",
+            tenant.label, reason, tenant.active, tenant.queue.size());
+        return BusinessException.uploadBusy("Too many uploads in progress for this university, retry shortly");
+    }
+
+    private int activeUploads(Long userId) {
+        return userId == null ? 0 : activeByUser.getOrDefault(userId, 0);
+    }
+
+    private Tenant tenant(long universityId) {
+        return tenants.computeIfAbsent(universityId, id -> new Tenant(
+            id == NO_UNIVERSITY ? "none" : String.valueOf(id), weightByUniversity.getOrDefault(id, 1), meterRegistry));
+    }
+
+    /**
+     * A slot to write one upload. Closing it lets the next waiting upload in.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        /**
+         * Handed out while scheduling is disabled; neither waits nor counts
+         */
+        static final Permit UNLIMITED = new Permit(null, null, null);
+
+        private final UploadIoScheduler scheduler;
+        private final Tenant tenant;
+        private final Long userId;
+        private boolean closed;
+
+        private Permit(UploadIoScheduler scheduler, Tenant tenant, Long userId) {
+            this.scheduler = scheduler;
+            this.tenant = tenant;
+            this.userId = userId;
+        }
+
+        /**
+         * The upload body, read no faster than the university's share of the bandwidth
+         */
+        public InputStream throttle(InputStream in) {
+            if (tenant == null) {
+                return in;
+            }
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b != -1) {
+                        scheduler.consume(tenant, 1);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = super.read(buffer, offset, length);
+                    if (read > 0) {
+                        scheduler.consume(tenant, read);
+                    }
+                    return read;
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            if (tenant != null && !closed) {
+                closed = true;
+                scheduler.release(tenant, userId);
+            }
+        }
+    }
+
+    private static final class Tenant {
+
+        private final String label;
+        private final int weight;
+        private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        private final MeterRegistry meterRegistry;
+        private final Timer queueTime;
+        private final Counter bytes;
+        private int active;
+        private double finishTag;
+        private long nextSlot = System.nanoTime();
+
+        Tenant(String label, int weight, MeterRegistry meterRegistry) {
+            this.label = label;
+            this.weight = weight;
+            this.meterRegistry = meterRegistry;
+            this.queueTime = Timer.builder("takharrujy.uploads.queue.time")
+                .description("Time uploads waited for a slot")
+                .tag("university", label)
+                .register(meterRegistry);
+            this.bytes = Counter.builder("takharrujy.uploads.bytes")
+                .description("Upload bytes written to storage")
+                .baseUnit("bytes")
+                .tag("university", label)
+                .register(meterRegistry);
+        }
+
+        Counter rejected(String reason) {
+            return Counter.builder("takharrujy.uploads.rejected")
+                .description("Uploads turned away because their university was over its share")
+                .tag("university", label)
+                .tag("reason", reason)
+                .register(meterRegistry);
+        }
+    }
+
+    private static final class Waiter {
+
+        private final Long userId;
+        private final double start;
+        private final double finish;
+        private boolean granted;
+
+        Waiter(Long userId, double start, double finish) {
+            this.userId = userId;
+            this.start = start;
+            this.finish = finish;
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.exception.ResourceNotFoundException;
+import com.university.takharrujy.infrastructure.exception.ValidationException;
+import com.university.takharrujy.presentation.dto.file.FileResponse;
+import com.university.takharrujy.presentation.dto.file.UploadSessionRequest;
+import com.university.takharrujy.presentation.dto.file.UploadSessionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Upload Session Service
+ * Resumable, chunked uploads of project files. A session owns one quarantined file;
+ * each chunk is written straight into it at its offset, so completing the upload moves
+ * no data. Chunks must arrive in order: the next one starts where the last one ended,
+ * and a connection that drops mid-chunk keeps every byte that was written.
+ *
+ * Because chunks arrive in order, the SHA-256 digest and the virus scan are fed as the
+ * bytes are written and the file never has to be read again. That state lives in memory
+ * on the node that received the chunks; when a chunk lands on another node, or after a
+ * restart, the prefix already on disk is replayed first.
+ *
+ * A chunk is written under a lease on the session row, so two requests for the same
+ * upload never write at once, even on different nodes.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PURGE_BATCH_SIZE = 100;
+
+    private static final String COLUMNS =
+        "id, university_id, project_id, user_id, original_filename, content_type, total_size, received_bytes, storage_path, "
+        + "expires_at";
+
+    private static final String INSERT_SQL = """
+        INSERT INTO upload_sessions (id, university_id, project_id, user_id, original_filename, content_type,
+                                     total_size, storage_path, expires_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    /**
+     * Take the write lease, only at the expected offset and if no live writer holds it
+     */
+    private static final String CLAIM_SQL = """
+        UPDATE upload_sessions
+        SET writer_token = ?, writer_since = ?
+        WHERE id = ? AND user_id = ? AND received_bytes = ? AND expires_at > ?
+          AND (writer_token IS NULL OR writer_since < ?)
+        RETURNING\s""" + COLUMNS;
+
+    private static final String ADVANCE_SQL = """
+        UPDATE upload_sessions
+        SET received_bytes = ?, writer_token = NULL, writer_since = NULL, expires_at = ?
+        WHERE id = ? AND writer_token = ?
+        """;
+
+    private static final String COMPLETE_SQL = """
+        DELETE FROM upload_sessions
+        WHERE id = ? AND user_id = ? AND received_bytes = total_size
+          AND (writer_token IS NULL OR writer_since < ?)
+        RETURNING\s""" + COLUMNS;
+
+    private static final String CANCEL_SQL = """
+        DELETE FROM upload_sessions
+        WHERE id = ? AND user_id = ? AND (writer_token IS NULL OR writer_since < ?)
+        RETURNING\s""" + COLUMNS;
+
+    private static final String PURGE_SQL = """
+        DELETE FROM upload_sessions
+        WHERE id IN (
+            SELECT id FROM upload_sessions
+            WHERE expires_at < ? AND (writer_token IS NULL OR writer_since < ?)
+            LIMIT ?
+        )
+        RETURNING\s""" + COLUMNS;
+
+    private static final RowMapper<Session> ROW_MAPPER = (rs, rowNum) -> new Session(
+        rs.getObject("id", UUID.class),
+        rs.getLong("university_id"),
+        rs.getLong("project_id"),
+        rs.getLong("user_id"),
+        rs.getString("original_filename"),
+        rs.getString("content_type"),
+        rs.getLong("total_size"),
+        rs.getLong("received_bytes"),
+        rs.getString("storage_path"),
+        rs.getTimestamp("expires_at").toInstant());
+
+    @Value("${takharrujy.files.upload.max-chunk-size:8MB}")
+    private DataSize maxChunkSize;
+
+    @Value("${takharrujy.files.upload.session-ttl:PT24H}")
+    private Duration sessionTtl;
+
+    @Value("${takharrujy.files.upload.lease-timeout:PT5M}")
+    private Duration leaseTimeout;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FileStorageService storage;
+    private final VirusScanService virusScanService;
+    private final ProjectFileService projectFileService;
+    private final UploadIoScheduler uploadIoScheduler;
+    private final StorageUsageService storageUsageService;
+
+    /**
+     * Digest and scan state of uploads whose chunks arrived on this node
+     */
+    private final Map<UUID, Progress> progress = new ConcurrentHashMap<>();
+
+    public UploadSessionService(JdbcTemplate jdbcTemplate,
+                                FileStorageService storage,
+                                VirusScanService virusScanService,
+                                ProjectFileService projectFileService,
+                                UploadIoScheduler uploadIoScheduler,
+                                StorageUsageService storageUsageService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storage = storage;
+        this.virusScanService = virusScanService;
+        this.projectFileService = projectFileService;
+        this.uploadIoScheduler = uploadIoScheduler;
+        this.storageUsageService = storageUsageService;
+    }
+
+    /**
+     * Start an upload: validate what the client declares, check it fits the storage quotas
+     * and create the empty file
+     */
+    public UploadSessionResponse create(Long projectId, Long userId, UploadSessionRequest request) {
+        projectFileService.validateUpload(request.contentType(), request.size());
+        if (!virusScanService.passesPrecheck(request.filename(), request.contentType(), request.size())) {
+            throw new ValidationException("File failed security scan - potential malware detected");
+        }
+
+        // The declared size is checked against the quotas before any chunk is accepted
+        Long universityId = storageUsageService.checkQuota(projectId, userId, request.size());
+
+        UUID id = UUID.randomUUID();
+        Instant expiresAt = Instant.now().plus(sessionTtl);
+        String storagePath = storage.createQuarantineFile(request.filename());
+        try {
+            jdbcTemplate.update(INSERT_SQL, id, universityId, projectId, userId, request.filename(),
+                request.contentType(), request.size(), storagePath, Timestamp.from(expiresAt));
+        } catch (RuntimeException e) {
+            storage.deleteFile(storagePath);
+            throw e;
+        }
+        log.debug("Started upload {} of {} bytes to project {}", id, request.size(), projectId);
+        return new UploadSessionResponse(id, projectId, request.filename(), request.size(), 0,
+            maxChunkSize.toBytes(), expiresAt);
+    }
+
+    /**
+     * Current progress, for a client resuming after a dropped connection
+     */
+    public UploadSessionResponse getStatus(UUID uploadId, Long userId) {
+        return toResponse(find(uploadId, userId));
+    }
+
+    /**
+     * Write one chunk starting at {@code offset}. Whatever was written before the body
+     * ended or broke off is kept, and the returned offset says where to resume.
+     */
+    public UploadSessionResponse writeChunk(UUID uploadId, Long userId, long offset, InputStream body)
+            throws IOException {
+        UUID token = UUID.randomUUID();
+        Session session = claim(uploadId, userId, offset, token);
+        Instant expiresAt = Instant.now().plus(sessionTtl);
+
+        long limit = Math.min(maxChunkSize.toBytes(), session.totalSize() - offset);
+        UploadIoScheduler.Permit slot;
+        try {
+            slot = uploadIoScheduler.admit(session.universityId(), userId, limit);
+        } catch (RuntimeException e) {
+            // Give the lease back so the client can retry the chunk right away
+            advance(session, token, offset, session.expiresAt());
+            throw e;
+        }
+
+        long written = 0;
+        boolean infected = false;
+        try (slot; FileChannel channel = storage.openForWrite(session.storagePath())) {
+            InputStream in = slot.throttle(body);
+            Progress state = resume(session, offset);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (written + read > limit) {
+                    throw new ValidationException("Chunk exceeds the remaining " + (session.totalSize() - offset)
+                        + " bytes of the file or the " + maxChunkSize.toBytes() + " byte chunk limit");
+                }
+                wrapped.clear().limit(read);
+                long position = offset + written;
+                while (wrapped.hasRemaining()) {
+                    position += channel.write(wrapped, position);
+                }
+                written += read;
+                if (!state.feed(buffer, read)) {
+                    infected = true;
+                    break;
+                }
+            }
+        } finally {
+            if (!infected && !advance(session, token, offset + written, expiresAt)) {
+                progress.remove(uploadId);
+            }
+        }
+
+        if (infected) {
+            discard(session, token);
+            throw new ValidationException("File failed security scan - potential malware detected");
+        }
+        return toResponse(session.withProgress(offset + written, expiresAt));
+    }
+
+    /**
+     * Finish an upload whose bytes have all arrived. The file is registered with the
+     * digest and verdict computed from its chunks, so completion does not read it again.
+     */
+    @Transactional
+    public FileResponse complete(UUID uploadId, Long userId) {
+        List<Session> completed = jdbcTemplate.query(COMPLETE_SQL, ROW_MAPPER,
+            uploadId, userId, Timestamp.from(Instant.now().minus(leaseTimeout)));
+        if (completed.isEmpty()) {
+            Session session = find(uploadId, userId);
+            if (session.receivedBytes() < session.totalSize()) {
+                throw BusinessException.uploadConflict("Upload is incomplete: " + session.receivedBytes()
+                    + " of " + session.totalSize() + " bytes received");
+            }
+            throw BusinessException.uploadConflict("A chunk of this upload is still being written");
+        }
+
+        Session session = completed.get(0);
+        Progress state = progress.remove(uploadId);
+        String contentHash = null;
+        boolean clean = false;
+        if (state != null && state.position == session.totalSize()) {
+            contentHash = HexFormat.of().formatHex(state.digest.digest());
+            clean = state.scan.isClean();
+        }
+        FileStorageService.StoredFile stored =
+            new FileStorageService.StoredFile(session.storagePath(), contentHash, session.totalSize());
+        return projectFileService.registerUpload(session.projectId(), userId, session.originalFilename(),
+            session.contentType(), stored, clean);
+    }
+
+    /**
+     * Abandon an upload and delete what was received
+     */
+    public void cancel(UUID uploadId, Long userId) {
+        List<Session> cancelled = jdbcTemplate.query(CANCEL_SQL, ROW_MAPPER,
+            uploadId, userId, Timestamp.from(Instant.now().minus(leaseTimeout)));
+        if (cancelled.isEmpty()) {
+            find(uploadId, userId);
+            throw BusinessException.uploadConflict("A chunk of this upload is still being written");
+        }
+        progress.remove(uploadId);
+        storage.deleteFile(cancelled.get(0).storagePath());
+    }
+
+    /**
+     * Delete uploads that were abandoned before completion
+     */
+    @Scheduled(fixedDelayString = "${takharrujy.files.upload.purge-interval:PT1H}")
+    public void purgeExpired() {
+        try {
+            Instant now = Instant.now();
+            List<Session> expired = jdbcTemplate.query(PURGE_SQL, ROW_MAPPER,
+                Timestamp.from(now), Timestamp.from(now.minus(leaseTimeout)), PURGE_BATCH_SIZE);
+            for (Session session : expired) {
+                progress.remove(session.id());
+                storage.deleteFile(session.storagePath());
+            }
+            if (!expired.isEmpty()) {
+                log.info("Removed {} expired uploads", expired.size());
+            }
+        } catch (Exception e) {
+            log.error("Upload purge failed", e);
+        }
+    }
+
+    private Session claim(UUID uploadId, Long userId, long offset, UUID token) {
+        Instant now = Instant.now();
+        List<Session> claimed = jdbcTemplate.query(CLAIM_SQL, ROW_MAPPER, token, Timestamp.from(now),
+            uploadId, userId, offset, Timestamp.from(now), Timestamp.from(now.minus(leaseTimeout)));
+        if (!claimed.isEmpty()) {
+            return claimed.get(0);
+        }
+        Session session = find(uploadId, userId);
+        if (session.receivedBytes() != offset) {
+            throw BusinessException.uploadConflict("Chunk offset " + offset + " does not match the "
+                + session.receivedBytes() + " bytes received");
+        }
+        throw BusinessException.uploadConflict("Another chunk of this upload is still being written");
+    }
+
+    /**
+     * Record the new offset and give up the lease; false if the lease was lost meanwhile
+     */
+    private boolean advance(Session session, UUID token, long receivedBytes, Instant expiresAt) {
+        int updated = jdbcTemplate.update(ADVANCE_SQL, receivedBytes, Timestamp.from(expiresAt), session.id(), token);
+        if (updated == 0) {
+            log.warn("Lost the write lease of upload {} at offset {}", session.id(), receivedBytes);
+        }
+        return updated > 0;
+    }
+
+    private void discard(Session session, UUID token) {
+        jdbcTemplate.update("DELETE FROM upload_sessions WHERE id = ? AND writer_token = ?", session.id(), token);
+        progress.remove(session.id());
+        storage.deleteFile(session.storagePath());
+        log.warn("Upload {} failed the virus scan and was removed", session.id());
+    }
+
+    /**
+     * Digest and scan state positioned at {@code offset}, replaying the file's prefix
+     * when this node did not see the earlier chunks
+     */
+    private Progress resume(Session session, long offset) throws IOException {
+        Progress state = progress.get(session.id());
+        if (state != null && state.position == offset) {
+            return state;
+        }
+
+        state = new Progress(virusScanService.startScan(session.contentType()));
+        if (offset > 0) {
+            log.debug("Replaying {} bytes of upload {}", offset, session.id());
+            try (InputStream in = storage.openStream(session.storagePath())) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long remaining = offset;
+                while (remaining > 0) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read == -1) {
+                        throw new EOFException("Upload " + session.id() + " has fewer than " + offset + " bytes on disk");
+                    }
+                    state.feed(buffer, read);
+                    remaining -= read;
+                }
+            }
+        }
+        progress.put(session.id(), state);
+        return state;
+    }
+
+    private Session find(UUID uploadId, Long userId) {
+        List<Session> found = jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM upload_sessions WHERE id = ? AND user_id = ? AND expires_at > ?",
+            ROW_MAPPER, uploadId, userId, Timestamp.from(Instant.now()));
+        if (found.isEmpty()) {
+            throw new ResourceNotFoundException("Upload not found with ID: " + uploadId);
+        }
+        return found.get(0);
+    }
+
+    private UploadSessionResponse toResponse(Session session) {
+        return new UploadSessionResponse(session.id(), session.projectId(), session.originalFilename(),
+            session.totalSize(), session.receivedBytes(), maxChunkSize.toBytes(), session.expiresAt());
+    }
+
+    private record Session(UUID id, Long universityId, Long projectId, Long userId, String originalFilename, String contentType,
+                           long totalSize, long receivedBytes, String storagePath, Instant expiresAt) {
+
+        Session withProgress(long received, Instant newExpiresAt) {
+            return new Session(id, universityId, projectId, userId, originalFilename, contentType, totalSize, received,
+                storagePath, newExpiresAt);
+        }
+    }
+
+    /**
+     * Running digest and scan over the bytes received so far, in order
+     */
+    private static final class Progress {
+
+        private final MessageDigest digest;
+        private final VirusScanService.ContentScan scan;
+        private long position;
+
+        private Progress(VirusScanService.ContentScan scan) {
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+            this.scan = scan;
+        }
+
+        /**
+         * Returns false once the content is known to be infected
+         */
+        private boolean feed(byte[] buffer, int length) {
+            digest.update(buffer, 0, length);
+            position += length;
+            return scan.feed(buffer, 0, length);
+        }
+    }
+}
@@ -48,7 +48,7 @@ public class UserService {
     private PasswordEncoder passwordEncoder;
     
     @Autowired
-    private FileStorageService fileStorageService;
+    private ImagePipelineService imagePipelineService;
     
     @Autowired
     private ActivityLoggingService activityLoggingService;
@@ -146,6 +146,8 @@ public class UserService {
     
     /**
      * Upload user avatar
+     * Thumbnails are rendered in the background and the profile picture switches once they
+     * are ready; an image rendered before is applied straight away.
      */
     public UserResponse uploadAvatar(Long userId, MultipartFile file, HttpServletRequest httpRequest) {
         User user = findUserById(userId);
@@ -153,12 +155,15 @@ public class UserService {
         // Validate file
         validateAvatarFile(file);
         
-        // Upload file and get URL
-        String avatarUrl = fileStorageService.uploadAvatar(file, userId);
+        // Queue the image for rendering
+        Optional<String> avatarUrl = imagePipelineService.submitAvatar(userId, file);
         
-        // Update user profile picture URL
-        user.setProfilePictureUrl(avatarUrl);
-        User savedUser = userRepository.save(user);
+        // Update user profile picture URL if already rendered
+        User savedUser = user;
+        if (avatarUrl.isPresent()) {
+            user.setProfilePictureUrl(avatarUrl.get());
+            savedUser = userRepository.save(user);
+        }
         
         // Log activity
         activityLoggingService.logActivity(
@@ -1,11 +1,13 @@
 package com.university.takharrujy.application.service;
 
-import com.university.takharrujy.infrastructure.exception.SecurityException;
+import com.university.takharrujy.infrastructure.security.AhoCorasickMatcher;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
@@ -13,6 +15,10 @@ import java.util.List;
  * Virus Scan Service
  * Handles virus scanning for uploaded files
  * This is a basic implementation - in production, integrate with proper antivirus solution
+ *
+ * Uploads are streamed through a fixed-size, per-thread buffer and every signature and
+ * suspicious pattern is matched in one pass by an {@link AhoCorasickMatcher}, so a scan
+ * never holds more than one buffer of the file in memory.
  */
 @Service
 public class VirusScanService {
@@ -28,12 +34,36 @@ public class VirusScanService {
         new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE} // Java class file
     );
     
+    // Script and shell patterns that should never appear inside an image
+    private static final List<String> SUSPICIOUS_PATTERNS = Arrays.asList(
+        "<script", "javascript:", "eval(", "document.write",
+        "cmd.exe", "powershell", "system("
+    );
+    
     // Dangerous file extensions
     private static final List<String> DANGEROUS_EXTENSIONS = Arrays.asList(
         ".exe", ".bat", ".cmd", ".scr", ".pif", ".com", ".jar", ".vbs", ".js", 
         ".ps1", ".sh", ".dll", ".sys", ".bin", ".app", ".deb", ".rpm"
     );
     
+    // Signatures are pattern indexes [0, SIGNATURE_COUNT), suspicious patterns follow
+    private static final AhoCorasickMatcher MATCHER;
+    private static final int SIGNATURE_COUNT = MALICIOUS_SIGNATURES.size();
+    
+    static {
+        AhoCorasickMatcher.Builder builder = AhoCorasickMatcher.builder();
+        MALICIOUS_SIGNATURES.forEach(signature -> builder.add(signature, false));
+        SUSPICIOUS_PATTERNS.forEach(pattern -> builder.add(pattern.getBytes(StandardCharsets.US_ASCII), true));
+        MATCHER = builder.build();
+    }
+    
+    // Signatures only count in files of at least this many bytes
+    private static final int MIN_SIGNATURE_SCAN_LENGTH = 4;
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    
     /**
      * Scan file for viruses and malicious content
      */
@@ -42,31 +72,12 @@ public class VirusScanService {
             return true; // Skip scanning if disabled
         }
         
-        try {
-            // Check file extension
-            if (hasDangerousExtension(file.getOriginalFilename())) {
-                return false;
-            }
-            
-            // Check file content for malicious signatures
-            byte[] fileContent = file.getBytes();
-            
-            if (containsMaliciousSignature(fileContent)) {
-                return false;
-            }
-            
-            // Check file size - suspicious if too large for claimed type
-            if (isSuspiciousFileSize(file)) {
-                return false;
-            }
-            
-            // Additional checks for image files
-            if (isImageFile(file.getContentType())) {
-                return scanImageFile(file);
-            }
-            
-            return true;
-            
+        if (!passesPrecheck(file)) {
+            return false;
+        }
+        
+        try (InputStream content = file.getInputStream()) {
+            return content == null || scanContent(content, isImageFile(file.getContentType()));
         } catch (IOException e) {
             // If we can't read the file, consider it suspicious
             return false;
@@ -74,66 +85,85 @@ public class VirusScanService {
     }
     
     /**
-     * Check if filename has dangerous extension
+     * Checks that need no file content (extension and size), cheap enough for the request thread
      */
-    private boolean hasDangerousExtension(String filename) {
-        if (filename == null) {
-            return true;
-        }
-        
-        String lowerFilename = filename.toLowerCase();
-        return DANGEROUS_EXTENSIONS.stream()
-            .anyMatch(lowerFilename::endsWith);
+    public boolean passesPrecheck(MultipartFile file) {
+        return passesPrecheck(file.getOriginalFilename(), file.getContentType(), file.getSize());
     }
     
     /**
-     * Check if file content contains malicious signatures
+     * The same checks from declared metadata, before any content has arrived
      */
-    private boolean containsMaliciousSignature(byte[] fileContent) {
-        if (fileContent == null || fileContent.length < 4) {
-            return false;
+    public boolean passesPrecheck(String originalFilename, String contentType, long size) {
+        if (!virusScanEnabled) {
+            return true;
         }
         
-        for (byte[] signature : MALICIOUS_SIGNATURES) {
-            if (containsSignature(fileContent, signature)) {
-                return true;
-            }
+        // Check file extension
+        if (hasDangerousExtension(originalFilename)) {
+            return false;
         }
         
-        return false;
+        // Check file size - suspicious if too large for claimed type
+        return !isSuspiciousFileSize(contentType, size);
     }
     
     /**
-     * Check if file contains specific byte signature
+     * Scan a file already written to storage, e.g. an upload waiting in quarantine
      */
-    private boolean containsSignature(byte[] fileContent, byte[] signature) {
-        if (fileContent.length < signature.length) {
+    public boolean scanStoredFile(InputStream content, String originalFilename, String contentType, long size)
+            throws IOException {
+        if (!virusScanEnabled) {
+            return true;
+        }
+        if (hasDangerousExtension(originalFilename) || isSuspiciousFileSize(contentType, size)) {
             return false;
         }
+        return scanContent(content, isImageFile(contentType));
+    }
+    
+    /**
+     * Stream content through the matcher. Images are additionally checked for
+     * script-like metadata; executables embedded in them are caught by the signatures.
+     */
+    public boolean scanContent(InputStream content, boolean image) throws IOException {
+        ContentScan scan = new ContentScan(image, true);
+        byte[] buffer = BUFFER.get();
         
-        for (int i = 0; i <= fileContent.length - signature.length; i++) {
-            boolean found = true;
-            for (int j = 0; j < signature.length; j++) {
-                if (fileContent[i + j] != signature[j]) {
-                    found = false;
-                    break;
-                }
-            }
-            if (found) {
-                return true;
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            if (!scan.feed(buffer, 0, read)) {
+                return false;
             }
         }
+        return scan.isClean();
+    }
+    
+    /**
+     * Start a scan that is fed content piece by piece as it arrives, e.g. the chunks
+     * of a resumable upload, so no second pass over the stored file is needed
+     */
+    public ContentScan startScan(String contentType) {
+        return new ContentScan(isImageFile(contentType), virusScanEnabled);
+    }
+    
+    /**
+     * Check if filename has dangerous extension
+     */
+    private boolean hasDangerousExtension(String filename) {
+        if (filename == null) {
+            return true;
+        }
         
-        return false;
+        String lowerFilename = filename.toLowerCase();
+        return DANGEROUS_EXTENSIONS.stream()
+            .anyMatch(lowerFilename::endsWith);
     }
     
     /**
      * Check if file size is suspicious for the claimed type
      */
-    private boolean isSuspiciousFileSize(MultipartFile file) {
-        String contentType = file.getContentType();
-        long fileSize = file.getSize();
-        
+    private boolean isSuspiciousFileSize(String contentType, long fileSize) {
         if (contentType != null && contentType.startsWith("image/")) {
             // Image files shouldn't be larger than 50MB
             return fileSize > 50 * 1024 * 1024;
@@ -151,67 +181,59 @@ public class VirusScanService {
     }
     
     /**
-     * Scan image file for embedded malicious content
+     * Scan state for one input fed in order, in pieces of any size. Not thread-safe.
      */
-    private boolean scanImageFile(MultipartFile file) {
-        try {
-            byte[] fileContent = file.getBytes();
-            
-            // Check for embedded executables in image files
-            // Look for PE header embedded in image
-            if (containsEmbeddedExecutable(fileContent)) {
-                return false;
-            }
-            
-            // Check for suspicious metadata or EXIF data
-            if (hasSuspiciousMetadata(fileContent)) {
-                return false;
-            }
-            
-            return true;
-            
-        } catch (IOException e) {
-            return false;
+    public static final class ContentScan {
+        
+        private final Findings findings;
+        private final AhoCorasickMatcher.Cursor cursor = MATCHER.cursor();
+        private final boolean enabled;
+        private boolean infected;
+        
+        private ContentScan(boolean image, boolean enabled) {
+            this.findings = new Findings(image);
+            this.enabled = enabled;
         }
-    }
-    
-    /**
-     * Check for embedded executables in file content
-     */
-    private boolean containsEmbeddedExecutable(byte[] content) {
-        // Simple check for PE header beyond the beginning of file
-        byte[] peHeader = {0x4D, 0x5A};
         
-        // Skip first 100 bytes (normal image headers)
-        for (int i = 100; i < content.length - 1; i++) {
-            if (content[i] == peHeader[0] && content[i + 1] == peHeader[1]) {
-                return true;
+        /**
+         * Feed the next piece of content; returns false once the content is known to be infected
+         */
+        public boolean feed(byte[] buffer, int offset, int length) {
+            if (enabled && !infected && cursor.feed(buffer, offset, length, findings)) {
+                infected = true;
             }
+            return !infected;
         }
         
-        return false;
+        /**
+         * Verdict for everything fed so far
+         */
+        public boolean isClean() {
+            // A signature found in a file too short to be a real executable is ignored
+            return !infected && !(findings.signature && cursor.position() >= MIN_SIGNATURE_SCAN_LENGTH);
+        }
     }
     
     /**
-     * Check for suspicious metadata in file
+     * Match outcome for one scan; stops the scan as soon as the verdict is certain
      */
-    private boolean hasSuspiciousMetadata(byte[] content) {
-        // Convert to string and check for suspicious patterns
-        String contentString = new String(content);
+    private static final class Findings implements AhoCorasickMatcher.MatchHandler {
         
-        // Check for script tags or suspicious keywords
-        String[] suspiciousPatterns = {
-            "<script", "javascript:", "eval(", "document.write",
-            "cmd.exe", "powershell", "system("
-        };
+        private final boolean image;
+        private boolean signature;
         
-        String lowerContent = contentString.toLowerCase();
-        for (String pattern : suspiciousPatterns) {
-            if (lowerContent.contains(pattern)) {
-                return true;
-            }
+        private Findings(boolean image) {
+            this.image = image;
         }
         
-        return false;
+        @Override
+        public boolean onMatch(int pattern, long end) {
+            if (pattern < SIGNATURE_COUNT) {
+                signature = true;
+                return end + 1 >= MIN_SIGNATURE_SCAN_LENGTH;
+            }
+            // Suspicious metadata only matters for images
+            return image;
+        }
     }
-}
\ No newline at end of file
+}
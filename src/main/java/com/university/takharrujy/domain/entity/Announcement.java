@@ -0,0 +1,75 @@
+package com.university.takharrujy.domain.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Announcement Entity
+ * A message from an admin to every user of a university, or of one department.
+ * Stored once and merged into each recipient's inbox when the inbox is read.
+ */
+@Entity
+@Table(name = "announcements")
+public class Announcement extends BaseEntity {
+
+    @Column(nullable = false, length = 200)
+    private String title;
+
+    @Column(nullable = false, length = 1000)
+    private String message;
+
+    /**
+     * Target department, or null for the whole university
+     */
+    @Column(name = "department_id")
+    private Long departmentId;
+
+    @Column(name = "author_id")
+    private Long authorId;
+
+    @Column(nullable = false)
+    private Boolean materialize = false;
+
+    @Column(name = "materialized_through_user_id")
+    private Long materializedThroughUserId;
+
+    @Column(name = "materialized_at")
+    private Instant materializedAt;
+
+    // Constructors
+    public Announcement() {
+        super();
+    }
+
+    public Announcement(Long universityId) {
+        super(universityId);
+    }
+
+    // Business methods
+    public boolean isMaterializedFor(Long userId) {
+        return materializedThroughUserId != null && userId != null && userId <= materializedThroughUserId;
+    }
+
+    // Getters & Setters
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public Long getDepartmentId() { return departmentId; }
+    public void setDepartmentId(Long departmentId) { this.departmentId = departmentId; }
+
+    public Long getAuthorId() { return authorId; }
+    public void setAuthorId(Long authorId) { this.authorId = authorId; }
+
+    public Boolean getMaterialize() { return materialize; }
+    public void setMaterialize(Boolean materialize) { this.materialize = materialize; }
+
+    public Long getMaterializedThroughUserId() { return materializedThroughUserId; }
+    public void setMaterializedThroughUserId(Long materializedThroughUserId) { this.materializedThroughUserId = materializedThroughUserId; }
+
+    public Instant getMaterializedAt() { return materializedAt; }
+    public void setMaterializedAt(Instant materializedAt) { this.materializedAt = materializedAt; }
+}
@@ -0,0 +1,44 @@
+package com.university.takharrujy.domain.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Chat Message Entity
+ * An append-only message in a project conversation. Project and sender are kept
+ * as plain ids so writing and paging messages never loads the project graph.
+ */
+@Entity
+@Table(name = "chat_messages")
+public class ChatMessage extends BaseEntity {
+
+    @Column(name = "project_id", nullable = false, updatable = false)
+    private Long projectId;
+
+    @Column(name = "sender_id", updatable = false)
+    private Long senderId;
+
+    @Column(nullable = false, length = 4000, updatable = false)
+    private String content;
+
+    // Constructors
+    public ChatMessage() {
+        super();
+    }
+
+    public ChatMessage(Long universityId, Long projectId, Long senderId, String content) {
+        super(universityId);
+        this.projectId = projectId;
+        this.senderId = senderId;
+        this.content = content;
+    }
+
+    // Getters & Setters
+    public Long getProjectId() { return projectId; }
+    public void setProjectId(Long projectId) { this.projectId = projectId; }
+
+    public Long getSenderId() { return senderId; }
+    public void setSenderId(Long senderId) { this.senderId = senderId; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+}
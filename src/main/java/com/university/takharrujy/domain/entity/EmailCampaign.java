@@ -0,0 +1,93 @@
+package com.university.takharrujy.domain.entity;
+
+import com.university.takharrujy.domain.enums.EmailCampaignStatus;
+import com.university.takharrujy.domain.enums.EmailCampaignType;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Email Campaign Entity
+ * A bulk send to every user matching a target, processed in keyset chunks of user ids.
+ * The cursor is committed together with each chunk of queued emails, so a campaign
+ * resumes exactly where it stopped after a restart.
+ */
+@Entity
+@Table(name = "email_campaigns")
+public class EmailCampaign extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private EmailCampaignType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EmailCampaignStatus status = EmailCampaignStatus.RUNNING;
+
+    /**
+     * Target users registered before this instant
+     */
+    @Column(name = "target_created_before", nullable = false)
+    private Instant targetCreatedBefore;
+
+    @Column(name = "cursor_user_id", nullable = false)
+    private Long cursorUserId = 0L;
+
+    @Column(name = "total_targets", nullable = false)
+    private Long totalTargets = 0L;
+
+    @Column(name = "processed_count", nullable = false)
+    private Long processedCount = 0L;
+
+    @Column(name = "started_by_user_id")
+    private Long startedByUserId;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    // Constructors
+    public EmailCampaign() {
+        super();
+    }
+
+    public EmailCampaign(Long universityId, EmailCampaignType type) {
+        super(universityId);
+        this.type = type;
+    }
+
+    // Business methods
+    public void advance(Long lastUserId, int processed) {
+        this.cursorUserId = lastUserId;
+        this.processedCount += processed;
+    }
+
+    public void complete() {
+        this.status = EmailCampaignStatus.COMPLETED;
+        this.completedAt = Instant.now();
+    }
+
+    // Getters & Setters
+    public EmailCampaignType getType() { return type; }
+    public void setType(EmailCampaignType type) { this.type = type; }
+
+    public EmailCampaignStatus getStatus() { return status; }
+    public void setStatus(EmailCampaignStatus status) { this.status = status; }
+
+    public Instant getTargetCreatedBefore() { return targetCreatedBefore; }
+    public void setTargetCreatedBefore(Instant targetCreatedBefore) { this.targetCreatedBefore = targetCreatedBefore; }
+
+    public Long getCursorUserId() { return cursorUserId; }
+    public void setCursorUserId(Long cursorUserId) { this.cursorUserId = cursorUserId; }
+
+    public Long getTotalTargets() { return totalTargets; }
+    public void setTotalTargets(Long totalTargets) { this.totalTargets = totalTargets; }
+
+    public Long getProcessedCount() { return processedCount; }
+    public void setProcessedCount(Long processedCount) { this.processedCount = processedCount; }
+
+    public Long getStartedByUserId() { return startedByUserId; }
+    public void setStartedByUserId(Long startedByUserId) { this.startedByUserId = startedByUserId; }
+
+    public Instant getCompletedAt() { return completedAt; }
+    public void setCompletedAt(Instant completedAt) { this.completedAt = completedAt; }
+}
@@ -3,6 +3,8 @@ package com.university.takharrujy.domain.entity;
 import com.university.takharrujy.domain.enums.NotificationType;
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 @Entity
 @Table(name = "notifications")
 public class Notification extends BaseEntity {
@@ -18,6 +20,19 @@ public class Notification extends BaseEntity {
     @Enumerated(EnumType.STRING)
     private NotificationType type;
 
+    // Coalescing key: notifications about the same resource merge within a window
+    @Column(name = "resource_type", length = 50)
+    private String resourceType;
+
+    @Column(name = "resource_id")
+    private Long resourceId;
+
+    @Column(name = "occurrence_count", nullable = false)
+    private Integer occurrenceCount = 1;
+
+    @Column(name = "last_occurred_at", nullable = false)
+    private Instant lastOccurredAt = Instant.now();
+
     // Relationships
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false)
@@ -45,6 +60,18 @@ public class Notification extends BaseEntity {
     public NotificationType getType() { return type; }
     public void setType(NotificationType type) { this.type = type; }
 
+    public String getResourceType() { return resourceType; }
+    public void setResourceType(String resourceType) { this.resourceType = resourceType; }
+
+    public Long getResourceId() { return resourceId; }
+    public void setResourceId(Long resourceId) { this.resourceId = resourceId; }
+
+    public Integer getOccurrenceCount() { return occurrenceCount; }
+    public void setOccurrenceCount(Integer occurrenceCount) { this.occurrenceCount = occurrenceCount; }
+
+    public Instant getLastOccurredAt() { return lastOccurredAt; }
+    public void setLastOccurredAt(Instant lastOccurredAt) { this.lastOccurredAt = lastOccurredAt; }
+
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
 }
@@ -1,5 +1,6 @@
 package com.university.takharrujy.domain.entity;
 
+import com.university.takharrujy.domain.enums.VirusScanStatus;
 import jakarta.persistence.*;
 import java.time.Instant;
 
@@ -37,12 +38,30 @@ public class ProjectFile {
     @Column(nullable = false, length = 512)
     private String storagePath;
 
+    @Column(length = 64)
+    private String contentHash;
+
     @Column(nullable = false)
     private Long uploadedByUserId;
 
     @Column(nullable = false, updatable = false)
     private Instant uploadedAt = Instant.now();
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private VirusScanStatus virusScanStatus = VirusScanStatus.PENDING;
+
+    @Column(nullable = false)
+    private int scanAttempts = 0;
+
+    private Instant scannedAt;
+
+    /**
+     * Maintained by DownloadCounterService with relative updates; never written from the entity
+     */
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long downloadCount;
+
     // Constructors
     public ProjectFile() {}
 
@@ -58,6 +77,11 @@ public class ProjectFile {
         this.uploadedByUserId = uploadedByUserId;
     }
 
+    // Business methods
+    public boolean isDownloadable() {
+        return virusScanStatus == VirusScanStatus.CLEAN;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -131,6 +155,42 @@ public class ProjectFile {
         this.uploadedAt = uploadedAt;
     }
 
+    public VirusScanStatus getVirusScanStatus() {
+        return virusScanStatus;
+    }
+
+    public void setVirusScanStatus(VirusScanStatus virusScanStatus) {
+        this.virusScanStatus = virusScanStatus;
+    }
+
+    public int getScanAttempts() {
+        return scanAttempts;
+    }
+
+    public void setScanAttempts(int scanAttempts) {
+        this.scanAttempts = scanAttempts;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Instant getScannedAt() {
+        return scannedAt;
+    }
+
+    public void setScannedAt(Instant scannedAt) {
+        this.scannedAt = scannedAt;
+    }
+
+    public long getDownloadCount() {
+        return downloadCount;
+    }
+
     @Override
     public String toString() {
         return "ProjectFile{" +
@@ -142,6 +202,7 @@ public class ProjectFile {
                 ", fileSize=" + fileSize +
                 ", uploadedByUserId=" + uploadedByUserId +
                 ", uploadedAt=" + uploadedAt +
+                ", virusScanStatus=" + virusScanStatus +
                 '}';
     }
 }
@@ -1,8 +1,11 @@
 package com.university.takharrujy.domain.entity;
 
+import com.university.takharrujy.domain.enums.DigestFrequency;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
+import java.time.Instant;
+
 /**
  * UserPreferences Entity
  * Represents user notification and application preferences
@@ -52,6 +55,14 @@ public class UserPreferences extends BaseEntity {
     @Column(name = "progress_reports", nullable = false)
     private Boolean progressReports = true;
     
+    // Digest delivery
+    @Enumerated(EnumType.STRING)
+    @Column(name = "digest_frequency", nullable = false, length = 20)
+    private DigestFrequency digestFrequency = DigestFrequency.NONE;
+    
+    @Column(name = "last_digest_sent_at")
+    private Instant lastDigestSentAt;
+    
     // UI preferences
     @Column(name = "theme", length = 20)
     private String theme = "auto"; // auto, light, dark
@@ -179,6 +190,22 @@ public class UserPreferences extends BaseEntity {
         this.progressReports = progressReports;
     }
     
+    public DigestFrequency getDigestFrequency() {
+        return digestFrequency;
+    }
+    
+    public void setDigestFrequency(DigestFrequency digestFrequency) {
+        this.digestFrequency = digestFrequency;
+    }
+    
+    public Instant getLastDigestSentAt() {
+        return lastDigestSentAt;
+    }
+    
+    public void setLastDigestSentAt(Instant lastDigestSentAt) {
+        this.lastDigestSentAt = lastDigestSentAt;
+    }
+    
     public String getTheme() {
         return theme;
     }
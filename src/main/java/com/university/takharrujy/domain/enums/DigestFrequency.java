@@ -0,0 +1,22 @@
+package com.university.takharrujy.domain.enums;
+
+import java.time.Duration;
+
+/**
+ * How often a user receives a summary email of their notifications
+ */
+public enum DigestFrequency {
+    NONE(Duration.ZERO),
+    HOURLY(Duration.ofHours(1)),
+    DAILY(Duration.ofDays(1));
+
+    private final Duration period;
+
+    DigestFrequency(Duration period) {
+        this.period = period;
+    }
+
+    public Duration getPeriod() {
+        return period;
+    }
+}
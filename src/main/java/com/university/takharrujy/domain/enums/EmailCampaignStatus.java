@@ -0,0 +1,15 @@
+package com.university.takharrujy.domain.enums;
+
+/**
+ * Lifecycle of a bulk email campaign
+ */
+public enum EmailCampaignStatus {
+    RUNNING,
+    PAUSED,
+    COMPLETED,
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,8 @@
+package com.university.takharrujy.domain.enums;
+
+/**
+ * Kind of bulk email campaign
+ */
+public enum EmailCampaignType {
+    VERIFICATION_REMINDER
+}
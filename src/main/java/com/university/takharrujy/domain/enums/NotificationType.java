@@ -1,5 +1,5 @@
 package com.university.takharrujy.domain.enums;
 
 public enum NotificationType {
-    USER, TASK, DELIVERABLE, COMMENT, PROJECT_UPDATE
+    USER, TASK, DELIVERABLE, COMMENT, PROJECT_UPDATE, ANNOUNCEMENT, FILE
 }
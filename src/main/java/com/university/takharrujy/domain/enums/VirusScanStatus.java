@@ -0,0 +1,15 @@
+package com.university.takharrujy.domain.enums;
+
+/**
+ * Security scan state of an uploaded file. Only CLEAN files leave quarantine.
+ */
+public enum VirusScanStatus {
+    PENDING,
+    CLEAN,
+    INFECTED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this != PENDING;
+    }
+}
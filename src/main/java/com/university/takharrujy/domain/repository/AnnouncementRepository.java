@@ -0,0 +1,110 @@
+package com.university.takharrujy.domain.repository;
+
+import com.university.takharrujy.domain.entity.Announcement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Announcement Repository Interface
+ * Audience queries used to merge announcements into a user's inbox, plus the
+ * per-user read watermark and materialization cursor
+ */
+@Repository
+public interface AnnouncementRepository extends JpaRepository<Announcement, Long> {
+
+    /**
+     * Announcements addressed to a user that have not been materialized into
+     * their own notification rows yet, newest first
+     */
+    @Query("""
+        SELECT a FROM Announcement a
+        WHERE a.universityId = :universityId
+        AND (a.departmentId IS NULL OR a.departmentId = :departmentId)
+        AND (a.materializedThroughUserId IS NULL OR a.materializedThroughUserId < :userId)
+        ORDER BY a.id DESC
+    """)
+    List<Announcement> findInboxAnnouncements(@Param("universityId") Long universityId,
+                                              @Param("departmentId") Long departmentId,
+                                              @Param("userId") Long userId,
+                                              Pageable pageable);
+
+    /**
+     * Count announcements addressed to a user above their read watermark
+     */
+    @Query("""
+        SELECT COUNT(a) FROM Announcement a
+        WHERE a.universityId = :universityId
+        AND (a.departmentId IS NULL OR a.departmentId = :departmentId)
+        AND (a.materializedThroughUserId IS NULL OR a.materializedThroughUserId < :userId)
+        AND a.id > :watermark
+    """)
+    long countUnread(@Param("universityId") Long universityId,
+                     @Param("departmentId") Long departmentId,
+                     @Param("userId") Long userId,
+                     @Param("watermark") long watermark);
+
+    /**
+     * Highest announcement id addressed to a user, for "mark all as read"
+     */
+    @Query("""
+        SELECT COALESCE(MAX(a.id), 0) FROM Announcement a
+        WHERE a.universityId = :universityId
+        AND (a.departmentId IS NULL OR a.departmentId = :departmentId)
+    """)
+    long findMaxAudienceId(@Param("universityId") Long universityId, @Param("departmentId") Long departmentId);
+
+    /**
+     * Current read watermark of a user (0 when the user never read an announcement)
+     */
+    @Query(value = "SELECT COALESCE((SELECT last_read_id FROM announcement_read_watermarks WHERE user_id = :userId), 0)",
+           nativeQuery = true)
+    long findReadWatermark(@Param("userId") Long userId);
+
+    /**
+     * Raise a user's read watermark in a single upsert; never moves it backwards
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO announcement_read_watermarks (user_id, university_id, last_read_id, updated_at)
+        VALUES (:userId, :universityId, :lastReadId, :now)
+        ON CONFLICT (user_id) DO UPDATE
+        SET last_read_id = GREATEST(announcement_read_watermarks.last_read_id, EXCLUDED.last_read_id),
+            updated_at = EXCLUDED.updated_at
+        """, nativeQuery = true)
+    int raiseReadWatermark(@Param("userId") Long userId,
+                           @Param("universityId") Long universityId,
+                           @Param("lastReadId") long lastReadId,
+                           @Param("now") Instant now);
+
+    /**
+     * Announcements whose materialization has not finished, oldest first
+     */
+    @Query("SELECT a FROM Announcement a WHERE a.materialize = true AND a.materializedAt IS NULL ORDER BY a.id ASC")
+    List<Announcement> findPendingMaterialization(Pageable pageable);
+
+    /**
+     * Advance the materialization cursor after a chunk has been inserted
+     */
+    @Modifying
+    @Query("UPDATE Announcement a SET a.materializedThroughUserId = :throughUserId WHERE a.id = :id")
+    int advanceMaterialization(@Param("id") Long id, @Param("throughUserId") Long throughUserId);
+
+    /**
+     * Mark materialization as complete
+     */
+    @Modifying
+    @Query("UPDATE Announcement a SET a.materializedAt = :now WHERE a.id = :id")
+    int completeMaterialization(@Param("id") Long id, @Param("now") Instant now);
+
+    /**
+     * Announcements of a university, newest first (admin listing)
+     */
+    List<Announcement> findByUniversityIdOrderByIdDesc(Long universityId, Pageable pageable);
+}
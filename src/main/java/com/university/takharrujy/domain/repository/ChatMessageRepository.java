@@ -0,0 +1,47 @@
+package com.university.takharrujy.domain.repository;
+
+import com.university.takharrujy.domain.entity.ChatMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Chat Message Repository Interface
+ * Keyset access over (project_id, id); history pages are bounded by an id cursor, never an offset
+ */
+@Repository
+public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
+
+    /**
+     * Latest messages of a project, newest first
+     */
+    List<ChatMessage> findByProjectIdOrderByIdDesc(Long projectId, Pageable pageable);
+
+    /**
+     * Messages older than the cursor, newest first
+     */
+    List<ChatMessage> findByProjectIdAndIdLessThanOrderByIdDesc(Long projectId, Long beforeId, Pageable pageable);
+
+    /**
+     * Messages newer than the cursor, oldest first. Used to catch up a reconnecting stream.
+     */
+    List<ChatMessage> findByProjectIdAndIdGreaterThanOrderByIdAsc(Long projectId, Long afterId, Pageable pageable);
+
+    /**
+     * Unread messages of a project: a range count above the reader's watermark
+     */
+    long countByProjectIdAndIdGreaterThan(Long projectId, Long afterId);
+
+    /**
+     * Current chat read watermark of a user in a project (0 when nothing was read)
+     */
+    @Query(value = """
+        SELECT COALESCE((SELECT last_read_id FROM chat_read_watermarks
+                         WHERE user_id = :userId AND project_id = :projectId), 0)
+        """, nativeQuery = true)
+    long findReadWatermark(@Param("userId") Long userId, @Param("projectId") Long projectId);
+}
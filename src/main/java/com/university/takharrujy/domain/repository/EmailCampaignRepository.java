@@ -0,0 +1,38 @@
+package com.university.takharrujy.domain.repository;
+
+import com.university.takharrujy.domain.entity.EmailCampaign;
+import com.university.takharrujy.domain.enums.EmailCampaignStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Email Campaign Repository Interface
+ */
+@Repository
+public interface EmailCampaignRepository extends JpaRepository<EmailCampaign, Long> {
+
+    /**
+     * Ids of campaigns in a status, oldest first
+     */
+    @Query("SELECT c.id FROM EmailCampaign c WHERE c.status = :status ORDER BY c.id ASC")
+    List<Long> findIdsByStatus(@Param("status") EmailCampaignStatus status);
+
+    /**
+     * Lock a running campaign for one chunk. Returns empty when another node holds it
+     * or it is no longer running.
+     */
+    @Query(value = "SELECT * FROM email_campaigns WHERE id = :id AND status = 'RUNNING' FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    Optional<EmailCampaign> lockRunning(@Param("id") Long id);
+
+    /**
+     * Campaigns of a university, newest first
+     */
+    List<EmailCampaign> findByUniversityIdOrderByIdDesc(Long universityId, Pageable pageable);
+}
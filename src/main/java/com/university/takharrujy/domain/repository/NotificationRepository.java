@@ -5,7 +5,9 @@ import com.university.takharrujy.domain.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -13,39 +15,94 @@ import java.util.List;
  * Data access layer for notification entities
  */
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
+    /*
+     * Every per-user query takes a created_at lower bound so that only the
+     * retained monthly partitions of the notifications table are scanned.
+     */
+
     /**
-     * Find notifications by user
+     * Find notifications by user, most recently active first
      */
-    List<Notification> findByUserOrderByCreatedAtDesc(User user);
+    List<Notification> findByUserAndCreatedAtGreaterThanEqualOrderByLastOccurredAtDesc(User user, Instant createdAfter);
 
     /**
-     * Find notifications that are not readed by user
+     * Find notifications that are not readed by user, most recently active first
      */
-    List<Notification> findByUserAndReadFalseOrderByCreatedAtDesc(User user);
+    List<Notification> findByUserAndReadFalseAndCreatedAtGreaterThanEqualOrderByLastOccurredAtDesc(User user, Instant createdAfter);
 
     /**
      * Mark all notifications as read
      */
     @Modifying
-    @Query("UPDATE Notification n SET n.read = true WHERE n.user = :user AND n.read = false")
-    int markAllAsRead(User user);
+    @Query("UPDATE Notification n SET n.read = true WHERE n.user = :user AND n.read = false AND n.createdAt >= :createdAfter")
+    int markAllAsRead(@Param("user") User user, @Param("createdAfter") Instant createdAfter);
 
 
     /**
      * Clear all notifications
      */
     @Modifying
-    @Query("DELETE FROM Notification n WHERE n.user = :user")
-    int deleteAllByUser(User user);
+    @Query("DELETE FROM Notification n WHERE n.user = :user AND n.createdAt >= :createdAfter")
+    int deleteAllByUser(@Param("user") User user, @Param("createdAfter") Instant createdAfter);
 
     /**
      * Get total number of notifications by user
      */
-    long countByUser(User user);
+    long countByUserAndCreatedAtGreaterThanEqual(User user, Instant createdAfter);
 
     /**
      * Get total number of unread notifications by user
      */
-    long countByUserAndReadFalse(User user);
+    long countByUserAndReadFalseAndCreatedAtGreaterThanEqual(User user, Instant createdAfter);
+
+    /**
+     * Merge a new event into the most recent unread notification with the same
+     * (recipient, type, resource) key inside the coalescing window.
+     * Returns 0 when there is nothing to merge into and a new row must be inserted.
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE notifications
+        SET occurrence_count = occurrence_count + 1,
+            title = :title,
+            message = :message,
+            last_occurred_at = :now,
+            updated_at = :now,
+            version = version + 1
+        WHERE id = (
+            SELECT n.id FROM notifications n
+            WHERE n.user_id = :userId
+              AND n.type = :type
+              AND n.resource_type = :resourceType
+              AND n.resource_id = :resourceId
+              AND n.read = false
+              AND n.last_occurred_at >= :windowStart
+              AND n.created_at >= :createdAfter
+            ORDER BY n.last_occurred_at DESC
+            LIMIT 1
+        )
+          AND created_at >= :createdAfter
+        """, nativeQuery = true)
+    int coalesce(@Param("userId") Long userId,
+                 @Param("type") String type,
+                 @Param("resourceType") String resourceType,
+                 @Param("resourceId") Long resourceId,
+                 @Param("title") String title,
+                 @Param("message") String message,
+                 @Param("now") Instant now,
+                 @Param("windowStart") Instant windowStart,
+                 @Param("createdAfter") Instant createdAfter);
+
+    /**
+     * Notifications of a user that occurred after the given instant, for digest emails
+     */
+    @Query("""
+        SELECT n FROM Notification n
+        WHERE n.user.id = :userId AND n.lastOccurredAt > :since AND n.createdAt >= :createdAfter
+        ORDER BY n.lastOccurredAt DESC
+    """)
+    List<Notification> findOccurredSince(@Param("userId") Long userId,
+                                         @Param("since") Instant since,
+                                         @Param("createdAfter") Instant createdAfter);
 
 }
@@ -1,9 +1,16 @@
 package com.university.takharrujy.domain.repository;
 
 import com.university.takharrujy.domain.entity.ProjectFile;
+import com.university.takharrujy.domain.enums.VirusScanStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -18,6 +25,11 @@ public interface ProjectFileRepository extends JpaRepository<ProjectFile, Long>
      */
     List<ProjectFile> findByProjectIdOrderByUploadedAtDesc(Long projectId);
     
+    /**
+     * Find the files of several projects, grouped by project and oldest first
+     */
+    List<ProjectFile> findByProjectIdInOrderByProjectIdAscUploadedAtAsc(Collection<Long> projectIds);
+    
     /**
      * Find all files uploaded by a specific user
      */
@@ -27,5 +39,71 @@ public interface ProjectFileRepository extends JpaRepository<ProjectFile, Long>
      * Count total files in a project
      */
     long countByProjectId(Long projectId);
+    
+    /**
+     * Ids of files still waiting for a scan, oldest first
+     */
+    @Query("SELECT f.id FROM ProjectFile f WHERE f.virusScanStatus = :status AND f.uploadedAt < :uploadedBefore ORDER BY f.uploadedAt")
+    List<Long> findIdsByScanStatusUploadedBefore(@Param("status") VirusScanStatus status,
+                                                 @Param("uploadedBefore") Instant uploadedBefore,
+                                                 Pageable pageable);
+    
+    /**
+     * Record a scan verdict, only if no other worker got there first
+     */
+    @Modifying
+    @Query("""
+        UPDATE ProjectFile f
+        SET f.virusScanStatus = :status, f.storagePath = :storagePath, f.filename = :filename,
+            f.contentHash = :contentHash, f.scannedAt = :scannedAt
+        WHERE f.id = :id AND f.virusScanStatus = com.university.takharrujy.domain.enums.VirusScanStatus.PENDING
+    """)
+    int completeScan(@Param("id") Long id,
+                     @Param("status") VirusScanStatus status,
+                     @Param("storagePath") String storagePath,
+                     @Param("filename") String filename,
+                     @Param("contentHash") String contentHash,
+                     @Param("scannedAt") Instant scannedAt);
+    
+    /**
+     * Count a failed scan attempt
+     */
+    @Modifying
+    @Query("UPDATE ProjectFile f SET f.scanAttempts = f.scanAttempts + 1 WHERE f.id = :id")
+    int incrementScanAttempts(@Param("id") Long id);
+    
+    /**
+     * Ids of clean files of a project whose text matches a web-style search query, best match first
+     */
+    @Query(value = """
+        SELECT f.id FROM project_files f
+        JOIN file_blobs b ON b.university_id = f.university_id AND b.content_hash = f.content_hash
+        WHERE f.project_id = :projectId AND f.virus_scan_status = 'CLEAN'
+          AND b.search_vector @@ websearch_to_tsquery('english', :query)
+        ORDER BY ts_rank(b.search_vector, websearch_to_tsquery('english', :query)) DESC, f.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Long> searchProjectFileIds(@Param("projectId") Long projectId,
+                                    @Param("query") String query,
+                                    @Param("limit") int limit);
+    
+    /**
+     * Ids of clean files of a department's projects, those led by its members, whose text
+     * matches a web-style search query, best match first; only files of the given university
+     */
+    @Query(value = """
+        SELECT f.id FROM project_files f
+        JOIN file_blobs b ON b.university_id = f.university_id AND b.content_hash = f.content_hash
+        JOIN projects p ON p.id = f.project_id
+        JOIN users u ON u.id = p.team_leader_id
+        WHERE u.department_id = :departmentId AND f.university_id = :universityId
+          AND f.virus_scan_status = 'CLEAN'
+          AND b.search_vector @@ websearch_to_tsquery('english', :query)
+        ORDER BY ts_rank(b.search_vector, websearch_to_tsquery('english', :query)) DESC, f.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Long> searchDepartmentFileIds(@Param("departmentId") Long departmentId,
+                                       @Param("universityId") Long universityId,
+                                       @Param("query") String query,
+                                       @Param("limit") int limit);
 }
-
@@ -43,6 +43,11 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
 
     Optional<Project> findByIdAndSupervisorId(Long projectId, Long supervisorId);
 
+    /**
+     * Find project by ID within a university
+     */
+    Optional<Project> findByIdAndUniversityId(Long id, Long universityId);
+
     long countBySupervisorId(Long supervisorId);
     long countBySupervisorIdAndStatus(Long supervisorId, ProjectStatus status);
 
@@ -74,6 +79,21 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
            "p.status IN ('SUBMITTED', 'UNDER_REVIEW', 'APPROVED', 'IN_PROGRESS')")
     long countActiveProjectsByUserId(@Param("userId") Long userId);
 
+    /**
+     * Check if user takes part in a project (team leader, supervisor or member)
+     * without loading the member collection
+     */
+    @Query("SELECT COUNT(p) > 0 FROM Project p WHERE p.id = :projectId AND (" +
+           "p.teamLeader.id = :userId OR p.supervisor.id = :userId OR " +
+           "EXISTS (SELECT 1 FROM ProjectMember pm WHERE pm.project.id = p.id AND pm.user.id = :userId))")
+    boolean isParticipant(@Param("projectId") Long projectId, @Param("userId") Long userId);
+
+    /**
+     * Find projects whose team leader belongs to a department
+     */
+    @Query("SELECT p FROM Project p WHERE p.teamLeader.department.id = :departmentId ORDER BY p.id")
+    List<Project> findByTeamLeaderDepartmentId(@Param("departmentId") Long departmentId);
+
     /**
      * Find projects pending supervisor assignment
      */
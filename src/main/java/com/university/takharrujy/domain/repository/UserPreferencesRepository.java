@@ -1,11 +1,14 @@
 package com.university.takharrujy.domain.repository;
 
 import com.university.takharrujy.domain.entity.UserPreferences;
+import com.university.takharrujy.domain.enums.DigestFrequency;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -31,4 +34,16 @@ public interface UserPreferencesRepository extends JpaRepository<UserPreferences
      */
     @Query("DELETE FROM UserPreferences up WHERE up.user.id = :userId")
     void deleteByUserId(@Param("userId") Long userId);
+    
+    /**
+     * Find users on the given digest frequency whose last digest is older than the cutoff
+     */
+    @Query("""
+        SELECT up FROM UserPreferences up JOIN FETCH up.user u
+        WHERE up.digestFrequency = :frequency
+        AND up.emailNotifications = true
+        AND u.isActive = true
+        AND (up.lastDigestSentAt IS NULL OR up.lastDigestSentAt < :cutoff)
+    """)
+    List<UserPreferences> findDueForDigest(@Param("frequency") DigestFrequency frequency, @Param("cutoff") Instant cutoff);
 }
\ No newline at end of file
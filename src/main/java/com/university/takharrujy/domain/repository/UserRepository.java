@@ -6,6 +6,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -85,6 +86,31 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     """)
     Page<User> searchByNameOrEmail(@Param("searchTerm") String searchTerm, @Param("universityId") Long universityId, Pageable pageable);
     
+    /**
+     * Next keyset chunk of active unverified users of a university registered before the cutoff
+     */
+    @Query("""
+        SELECT u FROM User u
+        WHERE u.universityId = :universityId AND u.isEmailVerified = false AND u.isActive = true
+        AND u.createdAt < :cutoffDate AND u.id > :afterId
+        ORDER BY u.id ASC
+    """)
+    List<User> findUnverifiedUsersAfter(@Param("universityId") Long universityId,
+                                        @Param("cutoffDate") java.time.Instant cutoffDate,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
+
+    /**
+     * Count active unverified users of a university registered before the cutoff
+     */
+    @Query("""
+        SELECT COUNT(u) FROM User u
+        WHERE u.universityId = :universityId AND u.isEmailVerified = false AND u.isActive = true
+        AND u.createdAt < :cutoffDate
+    """)
+    long countUnverifiedUsers(@Param("universityId") Long universityId,
+                              @Param("cutoffDate") java.time.Instant cutoffDate);
+
     /**
      * Find unverified users older than specified days
      */
@@ -111,4 +137,20 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
         ORDER BY COUNT(p) ASC
     """)
     List<Object[]> findAvailableSupervisors(@Param("universityId") Long universityId, @Param("maxProjects") int maxProjects);
-}
\ No newline at end of file
+    
+    /**
+     * Number for a new avatar upload; later uploads get higher numbers
+     */
+    @Query(value = "SELECT nextval('avatar_submission_seq')", nativeQuery = true)
+    long nextAvatarSequence();
+    
+    /**
+     * Switch the profile picture to the avatar with this number, unless a later one is already shown
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE users SET profile_picture_url = :url, avatar_seq = :sequence
+        WHERE id = :id AND avatar_seq < :sequence
+    """, nativeQuery = true)
+    int applyAvatar(@Param("id") Long id, @Param("url") String url, @Param("sequence") long sequence);
+}
@@ -0,0 +1,13 @@
+package com.university.takharrujy.infrastructure.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling Configuration
+ * Enables @Scheduled background jobs (digests, maintenance, flushes)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
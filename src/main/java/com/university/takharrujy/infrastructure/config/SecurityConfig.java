@@ -50,6 +50,10 @@ public class SecurityConfig {
                 .requestMatchers("/api/v1/system/health").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
                 
+                // Signed download links carry their own credential
+                .requestMatchers(HttpMethod.GET, "/api/v1/downloads/*").permitAll()
+                .requestMatchers(HttpMethod.HEAD, "/api/v1/downloads/*").permitAll()
+                
                 // API Documentation
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                 
@@ -0,0 +1,103 @@
+package com.university.takharrujy.infrastructure.config;
+
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.university.takharrujy.infrastructure.storage.AzureBlobObjectStore;
+import com.university.takharrujy.infrastructure.storage.CompressingStorageBackend;
+import com.university.takharrujy.infrastructure.storage.FileSystemObjectStore;
+import com.university.takharrujy.infrastructure.storage.LocalStorageBackend;
+import com.university.takharrujy.infrastructure.storage.MeteredStorageBackend;
+import com.university.takharrujy.infrastructure.storage.ObjectStorageBackend;
+import com.university.takharrujy.infrastructure.storage.StorageBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Storage Configuration
+ * Selects the backend for stored file content from {@code takharrujy.file-storage.type}:
+ * {@code local} (a directory), {@code azure} (Azure Blob Storage) or {@code filesystem}
+ * (the object-store code path against a local directory, for development and tests).
+ * Quarantined uploads and avatars always stay on the local file system. Blobs of inactive
+ * projects move to a separate cold backend of any of the same types.
+ */
+@Configuration
+public class StorageConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageConfig.class);
+
+    @Bean
+    @Primary
+    public StorageBackend fileStorageBackend(
+            @Value("${takharrujy.file-storage.type:local}") String type,
+            @Value("${takharrujy.file-storage.local.upload-dir:./uploads}") String localDir,
+            @Value("${takharrujy.file-storage.azure.connection-string:}") String azureConnectionString,
+            @Value("${takharrujy.file-storage.azure.container-name:takharrujy-files}") String azureContainer,
+            @Value("${takharrujy.file-storage.filesystem.root:./object-store}") String filesystemRoot,
+            @Value("${takharrujy.file-storage.object.block-size:8MB}") DataSize blockSize,
+            @Value("${takharrujy.file-storage.object.max-concurrency:8}") int maxConcurrency,
+            MeterRegistry meterRegistry) throws IOException {
+
+        StorageBackend backend = createBackend(type, localDir, azureConnectionString, azureContainer,
+            filesystemRoot, blockSize, maxConcurrency);
+        logger.info("File storage backend: {}", backend.getName());
+        return new MeteredStorageBackend(backend, meterRegistry);
+    }
+
+    /**
+     * Backend for blobs moved to the cold tier, configured like the main one under
+     * {@code takharrujy.file-storage.cold}; keys ending in {@code .gz} are stored compressed
+     */
+    @Bean
+    public StorageBackend coldStorageBackend(
+            @Value("${takharrujy.file-storage.cold.type:local}") String type,
+            @Value("${takharrujy.file-storage.cold.local-dir:./cold-storage}") String localDir,
+            @Value("${takharrujy.file-storage.azure.connection-string:}") String azureConnectionString,
+            @Value("${takharrujy.file-storage.cold.container-name:takharrujy-cold}") String azureContainer,
+            @Value("${takharrujy.file-storage.cold.filesystem-root:./object-store-cold}") String filesystemRoot,
+            @Value("${takharrujy.file-storage.object.block-size:8MB}") DataSize blockSize,
+            @Value("${takharrujy.file-storage.object.max-concurrency:8}") int maxConcurrency,
+            MeterRegistry meterRegistry) throws IOException {
+
+        StorageBackend backend = createBackend(type, localDir, azureConnectionString, azureContainer,
+            filesystemRoot, blockSize, maxConcurrency);
+        logger.info("Cold storage backend: {}", backend.getName());
+        return new MeteredStorageBackend(new CompressingStorageBackend(backend, "cold-" + backend.getName()),
+            meterRegistry);
+    }
+
+    private static StorageBackend createBackend(String type, String localDir, String azureConnectionString,
+                                                String azureContainer, String filesystemRoot,
+                                                DataSize blockSize, int maxConcurrency) throws IOException {
+        return switch (type.toLowerCase()) {
+            case "local" -> new LocalStorageBackend(Paths.get(localDir));
+            case "azure" -> {
+                if (azureConnectionString.isBlank()) {
+                    throw new IllegalStateException(
+                        "Storage type is azure but no connection string is configured");
+                }
+                BlobContainerClient container = new BlobServiceClientBuilder()
+                    .connectionString(azureConnectionString)
+                    .buildClient()
+                    .getBlobContainerClient(azureContainer);
+                if (!container.exists()) {
+                    container.create();
+                }
+                yield new ObjectStorageBackend(new AzureBlobObjectStore(container),
+                    blockSize.toBytes(), maxConcurrency);
+            }
+            case "filesystem" -> new ObjectStorageBackend(new FileSystemObjectStore(Paths.get(filesystemRoot)),
+                blockSize.toBytes(), maxConcurrency);
+            default -> throw new IllegalStateException("Unsupported file storage type: " + type
+                + " (supported: local, azure, filesystem)");
+        };
+    }
+}
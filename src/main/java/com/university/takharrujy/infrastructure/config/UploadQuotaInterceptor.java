@@ -0,0 +1,102 @@
+package com.university.takharrujy.infrastructure.config;
+
+import com.university.takharrujy.application.service.StorageUsageService;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.security.CustomUserDetailsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Upload Quota Interceptor
+ * Refuses a multipart upload that would exceed a storage quota from its Content-Length,
+ * before the body is parsed. Multipart requests are resolved lazily, so nothing of an
+ * over-quota upload is read or spooled to disk. The length includes the multipart framing,
+ * a few hundred bytes more than the files.
+ *
+ * The servlet multipart limit is sized for the multi-file upload; every other upload is
+ * held to the smaller request limit here, and must declare its length so it can be. Multi-file
+ * uploads without a length are checked by the upload service once their parts are read.
+ */
+@Component
+public class UploadQuotaInterceptor implements HandlerInterceptor {
+
+    private static final String BATCH_PATTERN_SUFFIX = "/files/batch";
+
+    @Value("${takharrujy.files.max-request-size:100MB}")
+    private DataSize maxRequestSize;
+
+    private final StorageUsageService storageUsageService;
+
+    public UploadQuotaInterceptor(StorageUsageService storageUsageService) {
+        this.storageUsageService = storageUsageService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long length = request.getContentLengthLong();
+        if (!"POST".equals(request.getMethod())) {
+            return true;
+        }
+        if (!isBatch(request)) {
+            if (length < 0) {
+                throw BusinessException.uploadLengthRequired("Upload requests must declare their Content-Length");
+            }
+            if (length > maxRequestSize.toBytes()) {
+                throw BusinessException.uploadTooLarge("Upload request of " + length + " bytes exceeds the "
+                    + maxRequestSize.toBytes() + " byte limit");
+            }
+        }
+        if (length <= 0) {
+            return true;
+        }
+        Long projectId = projectId(request);
+        Long userId = currentUserId();
+        if (projectId != null && userId != null) {
+            storageUsageService.checkQuota(projectId, userId, length);
+        }
+        return true;
+    }
+
+    private static boolean isBatch(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null && pattern.toString().endsWith(BATCH_PATTERN_SUFFIX);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Long projectId(HttpServletRequest request) {
+        Map<String, String> variables =
+            (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null || variables.get("projectId") == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(variables.get("projectId"));
+        } catch (NumberFormatException e) {
+            // Left to the controller's own binding error
+            return null;
+        }
+    }
+
+    /**
+     * The user authenticated by the JWT filter, whose principal is the loaded
+     * user details
+     */
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getPrincipal() instanceof CustomUserDetailsService.CustomUserPrincipal principal
+            ? principal.getUserId()
+            : null;
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.web.filter.CharacterEncodingFilter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.nio.charset.StandardCharsets;
@@ -18,6 +19,12 @@ import java.util.List;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final UploadQuotaInterceptor uploadQuotaInterceptor;
+
+    public WebConfig(UploadQuotaInterceptor uploadQuotaInterceptor) {
+        this.uploadQuotaInterceptor = uploadQuotaInterceptor;
+    }
+
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
         StringHttpMessageConverter stringConverter = new StringHttpMessageConverter(StandardCharsets.UTF_8);
@@ -25,5 +32,10 @@ public class WebConfig implements WebMvcConfigurer {
         converters.add(0, stringConverter);
     }
 
-
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Multipart uploads are checked against size limits and storage quotas before their body is read
+        registry.addInterceptor(uploadQuotaInterceptor)
+            .addPathPatterns("/api/v1/projects/*/files", "/api/v1/projects/*/files/batch", "/api/v1/users/me/avatar");
+    }
 }
\ No newline at end of file
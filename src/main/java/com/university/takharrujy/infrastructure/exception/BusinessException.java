@@ -73,4 +73,39 @@ public class BusinessException extends RuntimeException {
     public static BusinessException quotaExceeded(String message) {
         return new BusinessException("QUOTA_EXCEEDED", message, "business.quota.exceeded");
     }
-}
\ No newline at end of file
+
+    public static BusinessException storageQuotaExceeded(String message) {
+        return new BusinessException("STORAGE_QUOTA_EXCEEDED", message, "business.storage.quota.exceeded",
+            HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    public static BusinessException fileNotAvailable(String message) {
+        return new BusinessException("FILE_NOT_AVAILABLE", message, "business.file.not.available", HttpStatus.CONFLICT);
+    }
+
+    public static BusinessException uploadConflict(String message) {
+        return new BusinessException("UPLOAD_CONFLICT", message, "business.upload.conflict", HttpStatus.CONFLICT);
+    }
+
+    public static BusinessException uploadBusy(String message) {
+        return new BusinessException("UPLOAD_BUSY", message, "business.upload.busy", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    public static BusinessException uploadTooLarge(String message) {
+        return new BusinessException("UPLOAD_TOO_LARGE", message, "business.upload.too.large", HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    public static BusinessException uploadLengthRequired(String message) {
+        return new BusinessException("LENGTH_REQUIRED", message, "business.upload.length.required",
+            HttpStatus.LENGTH_REQUIRED);
+    }
+
+    public static BusinessException exportBusy(String message) {
+        return new BusinessException("EXPORT_BUSY", message, "business.export.busy", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    public static BusinessException reconciliationRunning(String message) {
+        return new BusinessException("RECONCILIATION_RUNNING", message, "business.storage.reconciliation.running",
+            HttpStatus.CONFLICT);
+    }
+}
@@ -0,0 +1,262 @@
+package com.university.takharrujy.infrastructure.security;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick Matcher
+ * Finds every occurrence of a fixed set of byte patterns in a single pass over the input.
+ * The automaton is compiled into a dense transition table, so each input byte costs one
+ * array lookup regardless of how many patterns there are.
+ *
+ * Transitions are built over ASCII-case-folded bytes. Case-insensitive patterns therefore
+ * match directly; case-sensitive patterns are confirmed against the raw bytes when they
+ * fire. Input can be fed in chunks of any size through a {@link Cursor}, which carries the
+ * automaton state and the few raw bytes needed to confirm a match that straddles chunks.
+ *
+ * Instances are immutable and may be shared between threads; cursors may not.
+ */
+public final class AhoCorasickMatcher {
+
+    private static final int ALPHABET = 256;
+
+    private final byte[][] patterns;
+    private final boolean[] ignoreCase;
+    private final int[] delta;
+    private final boolean[] terminal;
+    private final int[][] outputs;
+    private final int maxLength;
+
+    private AhoCorasickMatcher(byte[][] patterns, boolean[] ignoreCase, int[] delta,
+                               boolean[] terminal, int[][] outputs, int maxLength) {
+        this.patterns = patterns;
+        this.ignoreCase = ignoreCase;
+        this.delta = delta;
+        this.terminal = terminal;
+        this.outputs = outputs;
+        this.maxLength = maxLength;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Start scanning a new input
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Receives matches as they are found
+     */
+    @FunctionalInterface
+    public interface MatchHandler {
+
+        /**
+         * @param pattern index returned by {@link Builder#add}
+         * @param end     offset of the last matched byte from the start of the input
+         * @return true to stop scanning
+         */
+        boolean onMatch(int pattern, long end);
+    }
+
+    /**
+     * Scan state for one input
+     */
+    public final class Cursor {
+
+        private final byte[] tail = new byte[Math.max(0, maxLength - 1)];
+        private int tailLength;
+        private int state;
+        private long position;
+        private boolean stopped;
+
+        private Cursor() {
+        }
+
+        /**
+         * Feed the next chunk of input. Returns true once a handler asked to stop;
+         * later calls are then ignored.
+         */
+        public boolean feed(byte[] buffer, int offset, int length, MatchHandler handler) {
+            if (stopped) {
+                return true;
+            }
+            int current = state;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                current = delta[(current << 8) | (buffer[i] & 0xFF)];
+                if (terminal[current] && report(current, buffer, offset, i, handler)) {
+                    state = current;
+                    position += i - offset + 1;
+                    stopped = true;
+                    return true;
+                }
+            }
+            state = current;
+            position += length;
+            keepTail(buffer, offset, length);
+            return false;
+        }
+
+        /**
+         * Number of bytes fed so far
+         */
+        public long position() {
+            return position;
+        }
+
+        private boolean report(int current, byte[] buffer, int offset, int index, MatchHandler handler) {
+            for (int pattern : outputs[current]) {
+                if (!ignoreCase[pattern] && !matchesExactly(pattern, buffer, offset, index)) {
+                    continue;
+                }
+                if (handler.onMatch(pattern, position + (index - offset))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Compare the raw bytes ending at {@code index}, reaching into the previous chunks' tail if needed
+         */
+        private boolean matchesExactly(int pattern, byte[] buffer, int offset, int index) {
+            byte[] expected = patterns[pattern];
+            for (int k = expected.length - 1, i = index; k >= 0; k--, i--) {
+                byte actual = i >= offset ? buffer[i] : tail[tailLength - (offset - i)];
+                if (actual != expected[k]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void keepTail(byte[] buffer, int offset, int length) {
+            int capacity = tail.length;
+            if (capacity == 0) {
+                return;
+            }
+            if (length >= capacity) {
+                System.arraycopy(buffer, offset + length - capacity, tail, 0, capacity);
+                tailLength = capacity;
+                return;
+            }
+            int keep = Math.min(tailLength, capacity - length);
+            System.arraycopy(tail, tailLength - keep, tail, 0, keep);
+            System.arraycopy(buffer, offset, tail, keep, length);
+            tailLength = keep + length;
+        }
+    }
+
+    public static final class Builder {
+
+        private final List<byte[]> patterns = new ArrayList<>();
+        private final List<Boolean> ignoreCase = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Add a pattern and return its index. Case-insensitivity applies to ASCII letters only.
+         */
+        public int add(byte[] pattern, boolean caseInsensitive) {
+            if (pattern.length == 0) {
+                throw new IllegalArgumentException("Pattern must not be empty");
+            }
+            patterns.add(pattern.clone());
+            ignoreCase.add(caseInsensitive);
+            return patterns.size() - 1;
+        }
+
+        public AhoCorasickMatcher build() {
+            // Trie over folded bytes
+            List<int[]> trie = new ArrayList<>();
+            List<List<Integer>> found = new ArrayList<>();
+            trie.add(emptyRow());
+            found.add(new ArrayList<>());
+            int maxLength = 0;
+            for (int p = 0; p < patterns.size(); p++) {
+                byte[] pattern = patterns.get(p);
+                maxLength = Math.max(maxLength, pattern.length);
+                int node = 0;
+                for (byte b : pattern) {
+                    int symbol = fold(b & 0xFF);
+                    if (trie.get(node)[symbol] < 0) {
+                        trie.get(node)[symbol] = trie.size();
+                        trie.add(emptyRow());
+                        found.add(new ArrayList<>());
+                    }
+                    node = trie.get(node)[symbol];
+                }
+                found.get(node).add(p);
+            }
+
+            // Breadth-first failure links, folded straight into a complete transition table
+            int states = trie.size();
+            int[] delta = new int[states * ALPHABET];
+            int[] fail = new int[states];
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int child = trie.get(0)[symbol];
+                if (child > 0) {
+                    fail[child] = 0;
+                    delta[symbol] = child;
+                    queue.add(child);
+                } else {
+                    delta[symbol] = 0;
+                }
+            }
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                found.get(node).addAll(found.get(fail[node]));
+                for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                    int child = trie.get(node)[symbol];
+                    if (child > 0) {
+                        fail[child] = delta[(fail[node] << 8) | symbol];
+                        delta[(node << 8) | symbol] = child;
+                        queue.add(child);
+                    } else {
+                        delta[(node << 8) | symbol] = delta[(fail[node] << 8) | symbol];
+                    }
+                }
+            }
+
+            // Upper-case input follows the lower-case transitions
+            for (int state = 0; state < states; state++) {
+                for (int upper = 'A'; upper <= 'Z'; upper++) {
+                    delta[(state << 8) | upper] = delta[(state << 8) | (upper + ('a' - 'A'))];
+                }
+            }
+
+            boolean[] terminal = new boolean[states];
+            int[][] outputs = new int[states][];
+            for (int state = 0; state < states; state++) {
+                outputs[state] = found.get(state).stream().mapToInt(Integer::intValue).distinct().toArray();
+                terminal[state] = outputs[state].length > 0;
+            }
+
+            boolean[] caseInsensitive = new boolean[ignoreCase.size()];
+            for (int p = 0; p < caseInsensitive.length; p++) {
+                caseInsensitive[p] = ignoreCase.get(p);
+            }
+            return new AhoCorasickMatcher(patterns.toArray(byte[][]::new), caseInsensitive,
+                    delta, terminal, outputs, maxLength);
+        }
+
+        private static int[] emptyRow() {
+            int[] row = new int[ALPHABET];
+            Arrays.fill(row, -1);
+            return row;
+        }
+
+        private static int fold(int b) {
+            return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+        }
+    }
+}
@@ -28,6 +28,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
+    private static final String SIGNED_DOWNLOAD_PREFIX = "/api/v1/downloads/";
 
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsService userDetailsService;
@@ -41,6 +42,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         this.sessionService = sessionService;
     }
 
+    /**
+     * Signed download links are verified by their handler; skip the token and session lookups
+     */
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + SIGNED_DOWNLOAD_PREFIX);
+    }
+
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                   @NonNull HttpServletResponse response,
@@ -0,0 +1,116 @@
+package com.university.takharrujy.infrastructure.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * URL Signer
+ * Signs a payload into a URL-safe token, {@code {keyId}.{payload}.{signature}}, with
+ * HMAC-SHA256, and verifies such tokens in memory.
+ *
+ * Keys are configured as {@code id:secret} pairs. New tokens are signed with the active
+ * key; tokens signed with any configured key verify. To rotate, add a new key and make it
+ * active, then remove the old one once every token it signed has expired. Without
+ * configured keys a single key is derived from the JWT secret.
+ */
+@Component
+public class UrlSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Pattern KEY_ID = Pattern.compile("[A-Za-z0-9_-]{1,16}");
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Map<String, SecretKeySpec> keys = new LinkedHashMap<>();
+    private final String activeKeyId;
+
+    public UrlSigner(
+            @Value("${takharrujy.files.signed-urls.keys:}") String configuredKeys,
+            @Value("${takharrujy.files.signed-urls.active-key:}") String activeKey,
+            @Value("${takharrujy.jwt.secret}") String jwtSecret) {
+        for (String entry : configuredKeys.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int colon = entry.indexOf(':');
+            String id = colon > 0 ? entry.substring(0, colon).strip() : "";
+            String secret = colon > 0 ? entry.substring(colon + 1).strip() : "";
+            if (!KEY_ID.matcher(id).matches()) {
+                throw new IllegalStateException("Signed URL key ids must be 1-16 letters, digits, '_' or '-': " + id);
+            }
+            if (secret.getBytes(StandardCharsets.UTF_8).length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("Signed URL key " + id + " must be at least "
+                    + MIN_SECRET_BYTES + " bytes");
+            }
+            keys.put(id, new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        }
+        if (keys.isEmpty()) {
+            keys.put("d", new SecretKeySpec(
+                hmac(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM),
+                    "takharrujy-signed-urls".getBytes(StandardCharsets.UTF_8)), ALGORITHM));
+        }
+        this.activeKeyId = activeKey.isBlank() ? keys.keySet().iterator().next() : activeKey.strip();
+        if (!keys.containsKey(activeKeyId)) {
+            throw new IllegalStateException("Active signed URL key " + activeKeyId + " is not configured");
+        }
+    }
+
+    /**
+     * Sign a payload with the active key
+     */
+    public String sign(byte[] payload) {
+        String signed = activeKeyId + "." + ENCODER.encodeToString(payload);
+        return signed + "." + ENCODER.encodeToString(
+            hmac(keys.get(activeKeyId), signed.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * The payload of a token signed with any configured key, or empty if the token is
+     * malformed, signed with an unknown key or altered
+     */
+    public Optional<byte[]> verify(String token) {
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first <= 0 || last == first) {
+            return Optional.empty();
+        }
+        SecretKeySpec key = keys.get(token.substring(0, first));
+        if (key == null) {
+            return Optional.empty();
+        }
+        try {
+            byte[] signature = DECODER.decode(token.substring(last + 1));
+            byte[] expected = hmac(key, token.substring(0, last).getBytes(StandardCharsets.US_ASCII));
+            if (!MessageDigest.isEqual(expected, signature)) {
+                return Optional.empty();
+            }
+            return Optional.of(DECODER.decode(token.substring(first + 1, last)));
+        } catch (IllegalArgumentException e) {
+            // Not Base64
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] hmac(SecretKeySpec key, byte[] data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.university.takharrujy.infrastructure.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.presentation.dto.chat.ChatMessageResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chat Stream Broker
+ * Delivers project chat messages to Server-Sent Event connections. Messages are
+ * published to a Redis channel per project so every node receives them, and each
+ * node writes them only to its own local connections.
+ *
+ * Every connection owns a small bounded queue drained by a shared pool of delivery
+ * threads, so a slow client costs at most its queue and never blocks others. A
+ * connection whose queue overflows is closed; the client reconnects with
+ * Last-Event-ID and catches up from the database.
+ */
+@Service
+public class ChatStreamBroker implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatStreamBroker.class);
+
+    private static final String CHANNEL_PREFIX = "chat:project:";
+
+    @Value("${takharrujy.chat.stream.timeout:PT30M}")
+    private Duration streamTimeout;
+
+    @Value("${takharrujy.chat.stream.max-connections:2000}")
+    private int maxConnections;
+
+    @Value("${takharrujy.chat.stream.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${takharrujy.chat.stream.delivery-threads:4}")
+    private int deliveryThreads;
+
+    private final RedisTemplate<String, String> sessionRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<Long, Set<Connection>> rooms = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private ExecutorService deliveryExecutor;
+
+    public ChatStreamBroker(RedisTemplate<String, String> sessionRedisTemplate,
+                            RedisMessageListenerContainer listenerContainer,
+                            ObjectMapper objectMapper) {
+        this.sessionRedisTemplate = sessionRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        deliveryExecutor = Executors.newFixedThreadPool(Math.max(1, deliveryThreads), runnable -> {
+            Thread thread = new Thread(runnable, "chat-delivery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        listenerContainer.addMessageListener(this, new PatternTopic(CHANNEL_PREFIX + "*"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        listenerContainer.removeMessageListener(this);
+        rooms.values().forEach(room -> room.forEach(Connection::close));
+        deliveryExecutor.shutdownNow();
+    }
+
+    /**
+     * Open a stream for a user on a project. Live messages are held back until
+     * {@link Connection#start(List)} has written the catch-up backlog, so the
+     * client always sees messages in id order.
+     */
+    public Connection open(Long projectId, Long userId) {
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            throw BusinessException.quotaExceeded("Too many open chat streams, please retry later");
+        }
+
+        Connection connection = new Connection(projectId, userId, new SseEmitter(streamTimeout.toMillis()));
+        connection.emitter.onCompletion(() -> unregister(connection));
+        connection.emitter.onTimeout(() -> unregister(connection));
+        connection.emitter.onError(e -> unregister(connection));
+
+        rooms.computeIfAbsent(projectId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+        return connection;
+    }
+
+    /**
+     * Publish a stored message to every node
+     */
+    public void publish(ChatMessageResponse message) {
+        try {
+            sessionRedisTemplate.convertAndSend(CHANNEL_PREFIX + message.projectId(),
+                    objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize chat message [{}]", message.id(), e);
+        } catch (Exception e) {
+            // The message is stored; clients pick it up from history or on reconnect
+            log.warn("Failed to publish chat message [{}] for project [{}]", message.id(), message.projectId(), e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        Long projectId;
+        try {
+            projectId = Long.valueOf(channel.substring(CHANNEL_PREFIX.length()));
+        } catch (RuntimeException e) {
+            return;
+        }
+
+        Set<Connection> room = rooms.get(projectId);
+        if (room == null || room.isEmpty()) {
+            return;
+        }
+
+        String json = new String(message.getBody(), StandardCharsets.UTF_8);
+        ChatMessageResponse response;
+        try {
+            response = objectMapper.readValue(json, ChatMessageResponse.class);
+        } catch (IOException e) {
+            log.warn("Dropping malformed chat message on channel {}", channel);
+            return;
+        }
+
+        for (Connection connection : room) {
+            connection.enqueue(response.id(), json);
+        }
+    }
+
+    /**
+     * Keep idle streams alive through proxies and detect dead connections
+     */
+    @Scheduled(fixedDelayString = "${takharrujy.chat.stream.heartbeat:PT25S}")
+    public void heartbeat() {
+        rooms.values().forEach(room -> room.forEach(connection -> connection.enqueue(null, null)));
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    private void unregister(Connection connection) {
+        if (!connection.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connectionCount.decrementAndGet();
+        rooms.computeIfPresent(connection.projectId, (id, room) -> {
+            room.remove(connection);
+            return room.isEmpty() ? null : room;
+        });
+    }
+
+    private record Event(Long id, String json) { }
+
+    /**
+     * One client stream. Events are written by at most one delivery thread at a time.
+     */
+    public final class Connection {
+
+        private final Long projectId;
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean started;
+        private long lastDeliveredId;
+
+        private Connection(Long projectId, Long userId, SseEmitter emitter) {
+            this.projectId = projectId;
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        public SseEmitter getEmitter() {
+            return emitter;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        /**
+         * Write the catch-up backlog, then start delivering live messages
+         */
+        public void start(List<ChatMessageResponse> backlog) {
+            try {
+                for (ChatMessageResponse message : backlog) {
+                    send(message.id(), objectMapper.writeValueAsString(message));
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            started = true;
+            scheduleDrain();
+        }
+
+        private void enqueue(Long id, String json) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(new Event(id, json))) {
+                log.debug("Closing slow chat stream of user [{}] on project [{}]", userId, projectId);
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (started && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                deliveryExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Event event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    if (event.id() == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else if (event.id() > lastDeliveredId) {
+                        send(event.id(), event.json());
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if (!closed.get()) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(Long id, String json) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(id))
+                    .name("message")
+                    .data(json, MediaType.APPLICATION_JSON));
+            lastDeliveredId = Math.max(lastDeliveredId, id);
+        }
+
+        private void close() {
+            unregister(this);
+            queue.clear();
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {
+                // Already completed by the container
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.university.takharrujy.infrastructure.service;
+
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Document Text Extractor
+ * Streams the text out of plain-text and OOXML (.docx, .pptx, .xlsx) files for search.
+ *
+ * An OOXML file is a ZIP of XML parts. It is read entry by entry from the stream, and only
+ * the parts that hold text are parsed, with StAX, so memory is bounded by the text kept and
+ * never by the document: a deck of hundreds of slides is read one slide at a time. Text is
+ * normalized as it is appended (see {@link #normalize}) and extraction stops once
+ * {@code maxChars} are collected or {@code maxBytes} have been decompressed.
+ */
+@Component
+public class DocumentTextExtractor {
+
+    public static final String TEXT = "text/plain";
+    public static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+    public static final String PPTX = "application/vnd.openxmlformats-officedocument.presentationml.presentation";
+    public static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    public static final List<String> CONTENT_TYPES = List.of(TEXT, DOCX, PPTX, XLSX);
+
+    /**
+     * Parts holding the text of each format: body, notes, headers and footers; slides and
+     * speaker notes; shared and inline cell strings
+     */
+    private static final Map<String, Pattern> TEXT_PARTS = Map.of(
+        DOCX, Pattern.compile("word/(document|footnotes|endnotes|header\\d*|footer\\d*)\\.xml"),
+        PPTX, Pattern.compile("ppt/(slides/slide|notesSlides/notesSlide)\\d+\\.xml"),
+        XLSX, Pattern.compile("xl/(sharedStrings|worksheets/sheet\\d+)\\.xml"));
+
+    /**
+     * Elements whose end separates words: paragraphs (w:p, a:p), shared strings and cells
+     */
+    private static final Set<String> BLOCK_ELEMENTS = Set.of("p", "si", "c");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    public static boolean supports(String contentType) {
+        return contentType != null && CONTENT_TYPES.contains(contentType);
+    }
+
+    /**
+     * Normalized text of a document, at most {@code maxChars} long
+     *
+     * @throws IOException if the content cannot be read or is not a valid document of its type
+     */
+    public String extract(InputStream source, String contentType, int maxChars, long maxBytes) throws IOException {
+        if (!supports(contentType)) {
+            throw new IllegalArgumentException("Text extraction is not supported for " + contentType);
+        }
+        TextBuffer text = new TextBuffer(maxChars);
+        if (TEXT.equals(contentType)) {
+            extractPlainText(new BoundedInputStream(source, maxBytes), text);
+        } else {
+            extractOoxml(source, TEXT_PARTS.get(contentType), maxBytes, text);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Search normalization: NFKC (folds Arabic presentation forms and full-width Latin), lower
+     * case, Arabic diacritics and tatweel removed, alef variants folded to bare alef, alef
+     * maqsura to yeh and teh marbuta to heh, Arabic-Indic digits to ASCII, and runs of
+     * whitespace or control characters collapsed to one space. The same rules apply to
+     * indexed text and to search queries.
+     */
+    public static String normalize(CharSequence value) {
+        TextBuffer text = new TextBuffer(Integer.MAX_VALUE);
+        text.append(value);
+        return text.toString();
+    }
+
+    private void extractPlainText(InputStream in, TextBuffer text) throws IOException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while (!text.isFull() && (read = reader.read(buffer)) != -1) {
+            text.append(buffer, 0, read);
+        }
+    }
+
+    private void extractOoxml(InputStream in, Pattern textParts, long maxBytes, TextBuffer text) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        ZipInputStream zip = new ZipInputStream(in);
+        // Parts are counted as they are decompressed, so a small archive cannot inflate without bound
+        InputStream parts = new BoundedInputStream(zip, maxBytes);
+        ZipEntry entry;
+        while (!text.isFull() && (entry = zip.getNextEntry()) != null) {
+            if (entry.isDirectory() || !textParts.matcher(entry.getName()).matches()) {
+                continue;
+            }
+            try {
+                XMLStreamReader reader = factory.createXMLStreamReader(parts);
+                try {
+                    extractPart(reader, text);
+                } finally {
+                    reader.close();
+                }
+            } catch (XMLStreamException e) {
+                if (e.getNestedException() instanceof IOException cause) {
+                    // Read failure or size limit, not bad XML
+                    throw cause;
+                }
+                throw new IOException("Invalid XML in " + entry.getName() + ": " + e.getMessage(), e);
+            }
+            text.separate();
+        }
+    }
+
+    private void extractPart(XMLStreamReader reader, TextBuffer text) throws XMLStreamException {
+        boolean inText = false;
+        while (!text.isFull() && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    String name = reader.getLocalName();
+                    if ("t".equals(name)) {
+                        inText = true;
+                    } else if ("tab".equals(name) || "br".equals(name)) {
+                        text.separate();
+                    }
+                }
+                case XMLStreamConstants.END_ELEMENT -> {
+                    String name = reader.getLocalName();
+                    if ("t".equals(name)) {
+                        inText = false;
+                    } else if (BLOCK_ELEMENTS.contains(name)) {
+                        text.separate();
+                    }
+                }
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> {
+                    if (inText) {
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                }
+                default -> {
+                    // Attributes, comments and processing instructions hold no document text
+                }
+            }
+        }
+    }
+
+    /**
+     * Normalized text, capped at a number of characters
+     */
+    private static final class TextBuffer {
+
+        private final StringBuilder text = new StringBuilder();
+        private final int maxChars;
+
+        TextBuffer(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        boolean isFull() {
+            return text.length() >= maxChars;
+        }
+
+        void append(char[] chars, int offset, int length) {
+            append(CharBuffer.wrap(chars, offset, length));
+        }
+
+        void append(CharSequence chars) {
+            CharSequence folded = needsCompatibilityFolding(chars)
+                ? Normalizer.normalize(chars, Normalizer.Form.NFKC) : chars;
+            for (int i = 0; i < folded.length() && !isFull(); i++) {
+                appendNormalized(folded.charAt(i));
+            }
+        }
+
+        void separate() {
+            if (!isFull() && !text.isEmpty() && text.charAt(text.length() - 1) != ' ') {
+                text.append(' ');
+            }
+        }
+
+        private void appendNormalized(char c) {
+            if ((c >= '\u064B' && c <= '\u065F') || c == '\u0670' || c == '\u0640'
+                    || Character.getType(c) == Character.FORMAT) {
+                // Diacritics, tatweel and invisible formatting marks
+                return;
+            }
+            if (Character.isWhitespace(c) || Character.isISOControl(c) || Character.isSpaceChar(c)) {
+                separate();
+                return;
+            }
+            text.append(switch (c) {
+                case '\u0622', '\u0623', '\u0625', '\u0671' -> '\u0627'; // alef with madda, hamza, wasla
+                case '\u0649' -> '\u064A'; // alef maqsura
+                case '\u0629' -> '\u0647'; // teh marbuta
+                default -> {
+                    if (c >= '\u0660' && c <= '\u0669') {
+                        yield (char) ('0' + (c - '\u0660'));
+                    }
+                    if (c >= '\u06F0' && c <= '\u06F9') {
+                        yield (char) ('0' + (c - '\u06F0'));
+                    }
+                    yield Character.toLowerCase(c);
+                }
+            });
+        }
+
+        private static boolean needsCompatibilityFolding(CharSequence chars) {
+            for (int i = 0; i < chars.length(); i++) {
+                char c = chars.charAt(i);
+                // Presentation forms, full-width forms and CJK compatibility
+                if (c >= '\uFB50' || (c >= '\u3000' && c <= '\u33FF')) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return (text.length() > maxChars ? text.substring(0, maxChars) : text.toString()).strip();
+        }
+    }
+
+    /**
+     * Fails once more than a number of bytes have been read, against decompression bombs.
+     * Closing it leaves the underlying stream open.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private final long maxBytes;
+        private long read;
+
+        BoundedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // The caller owns the source
+        }
+
+        private void count(int n) throws IOException {
+            read += n;
+            if (read > maxBytes) {
+                throw new IOException("Document exceeds " + maxBytes + " bytes");
+            }
+        }
+    }
+}
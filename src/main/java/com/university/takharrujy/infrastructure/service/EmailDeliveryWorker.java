@@ -0,0 +1,226 @@
+package com.university.takharrujy.infrastructure.service;
+
+import com.university.takharrujy.infrastructure.service.EmailOutbox.OutboxEmail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Email Delivery Worker
+ * Drains the email outbox. Each poll claims a batch and splits it across a small
+ * pool of delivery threads; every thread hands its whole slice to a single
+ * {@code JavaMailSender.send(MimeMessage...)} call, which opens one SMTP connection
+ * and reuses it for every message in the slice.
+ *
+ * Failed messages are retried with exponential backoff and jitter, and moved to
+ * the dead-letter table once they exhaust their attempts.
+ */
+@Service
+public class EmailDeliveryWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailDeliveryWorker.class);
+
+    @Value("${takharrujy.email.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${takharrujy.email.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${takharrujy.email.outbox.workers:4}")
+    private int workers;
+
+    @Value("${takharrujy.email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${takharrujy.email.outbox.initial-backoff:PT30S}")
+    private Duration initialBackoff;
+
+    @Value("${takharrujy.email.outbox.max-backoff:PT1H}")
+    private Duration maxBackoff;
+
+    @Value("${takharrujy.email.outbox.lock-timeout:PT10M}")
+    private Duration lockTimeout;
+
+    private final EmailOutbox emailOutbox;
+    private final EmailService emailService;
+    private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
+
+    private ExecutorService deliveryExecutor;
+
+    public EmailDeliveryWorker(EmailOutbox emailOutbox, EmailService emailService,
+                               JavaMailSender mailSender, MeterRegistry meterRegistry) {
+        this.emailOutbox = emailOutbox;
+        this.emailService = emailService;
+        this.mailSender = mailSender;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        deliveryExecutor = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "email-delivery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            Gauge.builder("takharrujy.email.outbox.pending", emailOutbox, EmailOutbox::countPending)
+                    .description("Emails waiting in the outbox")
+                    .register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        deliveryExecutor.shutdown();
+    }
+
+    /**
+     * Claim and deliver due emails until the outbox has nothing due
+     */
+    @Scheduled(fixedDelayString = "${takharrujy.email.outbox.poll-interval:PT1S}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<OutboxEmail> batch;
+            do {
+                batch = emailOutbox.claim(batchSize, Instant.now().minus(lockTimeout));
+                deliver(batch);
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            logger.error("Email outbox poll failed", e);
+        }
+    }
+
+    /**
+     * Deliver a claimed batch, one pooled SMTP connection per slice
+     */
+    void deliver(List<OutboxEmail> batch) throws InterruptedException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        int slices = Math.min(Math.max(1, workers), batch.size());
+        int sliceSize = (batch.size() + slices - 1) / slices;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += sliceSize) {
+            List<OutboxEmail> slice = batch.subList(from, Math.min(from + sliceSize, batch.size()));
+            futures.add(deliveryExecutor.submit(() -> deliverSlice(slice)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                logger.error("Email delivery slice failed", e.getCause());
+            }
+        }
+    }
+
+    private void deliverSlice(List<OutboxEmail> slice) {
+        Map<MimeMessage, OutboxEmail> messages = new IdentityHashMap<>();
+        for (OutboxEmail email : slice) {
+            try {
+                messages.put(emailService.createMimeMessage(
+                        email.toEmail(), email.subject(), email.body(), email.html(), email.language()), email);
+            } catch (Exception e) {
+                // A message that cannot even be built will never succeed
+                handleFailure(email, e, true);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages().isEmpty() ? allFailed(messages, e) : e.getFailedMessages();
+        } catch (Exception e) {
+            failures = allFailed(messages, e);
+        }
+        sample.stop(Timer.builder("takharrujy.email.outbox.send")
+                .description("Time to deliver one SMTP batch")
+                .register(meterRegistry));
+
+        List<Long> sent = new ArrayList<>();
+        for (Map.Entry<MimeMessage, OutboxEmail> entry : messages.entrySet()) {
+            Exception failure = failures.get(entry.getKey());
+            if (failure == null) {
+                sent.add(entry.getValue().id());
+                counter("takharrujy.email.sent", entry.getValue().template()).increment();
+            } else {
+                handleFailure(entry.getValue(), failure, false);
+            }
+        }
+        emailOutbox.markSent(sent);
+    }
+
+    private void handleFailure(OutboxEmail email, Exception error, boolean permanent) {
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        if (permanent || email.attempts() >= maxAttempts) {
+            logger.error("Email [{}] to {} moved to dead letters after {} attempts: {}",
+                    email.id(), email.toEmail(), email.attempts(), message);
+            emailOutbox.deadLetter(email.id(), message);
+            counter("takharrujy.email.dead_lettered", email.template()).increment();
+        } else {
+            Instant nextAttempt = Instant.now().plus(backoff(email.attempts()));
+            logger.warn("Email [{}] to {} failed (attempt {}), retrying at {}: {}",
+                    email.id(), email.toEmail(), email.attempts(), nextAttempt, message);
+            emailOutbox.reschedule(email.id(), nextAttempt, message);
+            counter("takharrujy.email.retried", email.template()).increment();
+        }
+    }
+
+    /**
+     * initialBackoff * 2^(attempt - 1), capped, with up to 20% jitter so retries
+     * after a relay outage do not arrive in one burst
+     */
+    Duration backoff(int attempt) {
+        long factor = 1L << Math.min(Math.max(attempt - 1, 0), 20);
+        Duration delay = initialBackoff.multipliedBy(factor);
+        if (delay.compareTo(maxBackoff) > 0) {
+            delay = maxBackoff;
+        }
+        long jitter = (long) (delay.toMillis() * 0.2 * ThreadLocalRandom.current().nextDouble());
+        return delay.plusMillis(jitter);
+    }
+
+    private Map<Object, Exception> allFailed(Map<MimeMessage, OutboxEmail> messages, Exception error) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        messages.keySet().forEach(message -> failures.put(message, error));
+        return failures;
+    }
+
+    private Counter counter(String name, String template) {
+        return Counter.builder(name)
+                .tag("template", template)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,144 @@
+package com.university.takharrujy.infrastructure.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Email Outbox
+ * Storage of rendered emails awaiting delivery. {@link #enqueue} runs on the caller's
+ * connection, so an email is only queued if the surrounding transaction commits.
+ * Workers claim batches with FOR UPDATE SKIP LOCKED, so several nodes can deliver
+ * concurrently without sending a message twice.
+ */
+@Component
+public class EmailOutbox {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO email_outbox (to_email, subject, body, html, template, language, next_attempt_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String CLAIM_SQL = """
+        UPDATE email_outbox o
+        SET status = 'SENDING', locked_at = ?, attempts = o.attempts + 1
+        WHERE o.id IN (
+            SELECT id FROM email_outbox
+            WHERE (status = 'PENDING' AND next_attempt_at <= ?)
+               OR (status = 'SENDING' AND locked_at < ?)
+            ORDER BY next_attempt_at
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+        )
+        RETURNING o.id, o.to_email, o.subject, o.body, o.html, o.template, o.language, o.attempts
+        """;
+
+    private static final String RESCHEDULE_SQL = """
+        UPDATE email_outbox
+        SET status = 'PENDING', locked_at = NULL, next_attempt_at = ?, last_error = ?
+        WHERE id = ?
+        """;
+
+    private static final String DEAD_LETTER_SQL = """
+        WITH moved AS (
+            DELETE FROM email_outbox WHERE id = ?
+            RETURNING id, to_email, subject, body, html, template, language, attempts, created_at
+        )
+        INSERT INTO email_dead_letters (outbox_id, to_email, subject, body, html, template, language,
+                                        attempts, last_error, created_at, failed_at)
+        SELECT id, to_email, subject, body, html, template, language, attempts, ?, created_at, ?
+        FROM moved
+        """;
+
+    private static final RowMapper<OutboxEmail> ROW_MAPPER = (rs, rowNum) -> new OutboxEmail(
+            rs.getLong("id"),
+            rs.getString("to_email"),
+            rs.getString("subject"),
+            rs.getString("body"),
+            rs.getBoolean("html"),
+            rs.getString("template"),
+            rs.getString("language"),
+            rs.getInt("attempts"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EmailOutbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Queue a rendered email for delivery
+     */
+    public void enqueue(String toEmail, String subject, String body, boolean html,
+                        String template, String language) {
+        jdbcTemplate.update(INSERT_SQL, toEmail, subject, body, html, template, language,
+                Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * Queue many rendered emails in one JDBC batch
+     */
+    public void enqueueAll(List<NewEmail> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, emails.stream()
+                .map(email -> new Object[]{email.toEmail(), email.subject(), email.body(), email.html(),
+                        email.template(), email.language(), now})
+                .toList());
+    }
+
+    /**
+     * Claim up to {@code limit} due messages. Messages left in SENDING for longer
+     * than the lock timeout belong to a dead worker and are claimed again.
+     */
+    public List<OutboxEmail> claim(int limit, Instant lockExpiredBefore) {
+        Timestamp now = Timestamp.from(Instant.now());
+        return jdbcTemplate.query(CLAIM_SQL, ROW_MAPPER, now, now, Timestamp.from(lockExpiredBefore), limit);
+    }
+
+    public void markSent(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM email_outbox WHERE id = ?",
+                ids.stream().map(id -> new Object[]{id}).toList());
+    }
+
+    public void reschedule(Long id, Instant nextAttemptAt, String error) {
+        jdbcTemplate.update(RESCHEDULE_SQL, Timestamp.from(nextAttemptAt), truncate(error), id);
+    }
+
+    public void deadLetter(Long id, String error) {
+        jdbcTemplate.update(DEAD_LETTER_SQL, id, truncate(error), Timestamp.from(Instant.now()));
+    }
+
+    public long countPending() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM email_outbox", Long.class);
+        return count != null ? count : 0;
+    }
+
+    private String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+
+    /**
+     * An email to queue
+     */
+    public record NewEmail(String toEmail, String subject, String body, boolean html,
+                           String template, String language) { }
+
+    /**
+     * A claimed outbox row
+     */
+    public record OutboxEmail(Long id, String toEmail, String subject, String body, boolean html,
+                              String template, String language, int attempts) { }
+}
@@ -8,15 +8,17 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
-import java.util.Locale;
+import java.io.UnsupportedEncodingException;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Email Service with Brevo SMTP Integration
- * Handles sending transactional emails with Arabic language support
+ * Handles sending transactional emails with Arabic language support.
+ * Bodies are rendered from the templates precompiled by {@link EmailTemplateRegistry}.
+ * Rendered emails are written to the {@link EmailOutbox} and delivered in the background
+ * by {@link EmailDeliveryWorker}, so callers never wait on the mail relay.
  */
 @Service
 public class EmailService {
@@ -24,7 +26,11 @@ public class EmailService {
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
     private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
+    private final EmailTemplateRegistry emailTemplates;
+    private final EmailOutbox emailOutbox;
+
+    @Value("${takharrujy.email.outbox.enabled:true}")
+    private boolean outboxEnabled;
 
     @Value("${takharrujy.email.from}")
     private String fromEmail;
@@ -35,9 +41,10 @@ public class EmailService {
     @Value("${takharrujy.email.templates.base-url}")
     private String baseUrl;
 
-    public EmailService(JavaMailSender mailSender, TemplateEngine templateEngine) {
+    public EmailService(JavaMailSender mailSender, EmailTemplateRegistry emailTemplates, EmailOutbox emailOutbox) {
         this.mailSender = mailSender;
-        this.templateEngine = templateEngine;
+        this.emailTemplates = emailTemplates;
+        this.emailOutbox = emailOutbox;
     }
 
     /**
@@ -48,20 +55,13 @@ public class EmailService {
         try {
             logger.info("Sending welcome email to: {}", toEmail);
 
-            Map<String, Object> variables = Map.of(
+            Map<String, String> variables = Map.of(
                 "userName", userName,
                 "userNameAr", userNameAr != null ? userNameAr : userName,
-                "verificationUrl", baseUrl + "/auth/verify-email?token=" + verificationToken,
-                "baseUrl", baseUrl,
-                "supportEmail", fromEmail
+                "verificationUrl", verificationUrl(verificationToken)
             );
 
-            String templateName = "ar".equals(preferredLanguage) ? "welcome-ar" : "welcome-en";
-            String subject = "ar".equals(preferredLanguage) ? 
-                "مرحباً بك في منصة تخرجي - تأكيد البريد الإلكتروني" : 
-                "Welcome to Takharrujy Platform - Email Verification";
-
-            sendTemplatedEmail(toEmail, subject, templateName, variables, preferredLanguage);
+            sendTemplatedEmail(toEmail, EmailTemplate.WELCOME, variables, preferredLanguage);
 
             logger.info("Welcome email sent successfully to: {}", toEmail);
         } catch (Exception e) {
@@ -78,20 +78,13 @@ public class EmailService {
         try {
             logger.info("Sending email verification reminder to: {}", toEmail);
 
-            Map<String, Object> variables = Map.of(
+            Map<String, String> variables = Map.of(
                 "userName", userName,
                 "userNameAr", userNameAr != null ? userNameAr : userName,
-                "verificationUrl", baseUrl + "/auth/verify-email?token=" + verificationToken,
-                "baseUrl", baseUrl,
-                "supportEmail", fromEmail
+                "verificationUrl", verificationUrl(verificationToken)
             );
 
-            String templateName = "ar".equals(preferredLanguage) ? "verification-reminder-ar" : "verification-reminder-en";
-            String subject = "ar".equals(preferredLanguage) ? 
-                "تذكير - تأكيد البريد الإلكتروني في منصة تخرجي" : 
-                "Reminder - Email Verification for Takharrujy Platform";
-
-            sendTemplatedEmail(toEmail, subject, templateName, variables, preferredLanguage);
+            sendTemplatedEmail(toEmail, EmailTemplate.VERIFICATION_REMINDER, variables, preferredLanguage);
 
             logger.info("Email verification reminder sent successfully to: {}", toEmail);
         } catch (Exception e) {
@@ -108,21 +101,14 @@ public class EmailService {
         try {
             logger.info("Sending password reset email to: {}", toEmail);
 
-            Map<String, Object> variables = Map.of(
+            Map<String, String> variables = Map.of(
                 "userName", userName,
                 "userNameAr", userNameAr != null ? userNameAr : userName,
                 "resetUrl", baseUrl + "/auth/reset-password?token=" + resetToken,
-                "baseUrl", baseUrl,
-                "supportEmail", fromEmail,
                 "expirationHours", "24"
             );
 
-            String templateName = "ar".equals(preferredLanguage) ? "password-reset-ar" : "password-reset-en";
-            String subject = "ar".equals(preferredLanguage) ? 
-                "إعادة تعيين كلمة المرور - منصة تخرجي" : 
-                "Password Reset - Takharrujy Platform";
-
-            sendTemplatedEmail(toEmail, subject, templateName, variables, preferredLanguage);
+            sendTemplatedEmail(toEmail, EmailTemplate.PASSWORD_RESET, variables, preferredLanguage);
 
             logger.info("Password reset email sent successfully to: {}", toEmail);
         } catch (Exception e) {
@@ -139,20 +125,13 @@ public class EmailService {
         try {
             logger.info("Sending password changed confirmation email to: {}", toEmail);
 
-            Map<String, Object> variables = Map.of(
+            Map<String, String> variables = Map.of(
                 "userName", userName,
                 "userNameAr", userNameAr != null ? userNameAr : userName,
-                "baseUrl", baseUrl,
-                "supportEmail", fromEmail,
                 "changedAt", java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(java.time.LocalDateTime.now())
             );
 
-            String templateName = "ar".equals(preferredLanguage) ? "password-changed-ar" : "password-changed-en";
-            String subject = "ar".equals(preferredLanguage) ? 
-                "تم تغيير كلمة المرور - منصة تخرجي" : 
-                "Password Changed - Takharrujy Platform";
-
-            sendTemplatedEmail(toEmail, subject, templateName, variables, preferredLanguage);
+            sendTemplatedEmail(toEmail, EmailTemplate.PASSWORD_CHANGED, variables, preferredLanguage);
 
             logger.info("Password changed confirmation email sent successfully to: {}", toEmail);
         } catch (Exception e) {
@@ -170,20 +149,13 @@ public class EmailService {
         try {
             logger.info("Sending account locked notification email to: {}", toEmail);
 
-            Map<String, Object> variables = Map.of(
+            Map<String, String> variables = Map.of(
                 "userName", userName,
                 "userNameAr", userNameAr != null ? userNameAr : userName,
-                "reason", reason,
-                "baseUrl", baseUrl,
-                "supportEmail", fromEmail
+                "reason", reason
             );
 
-            String templateName = "ar".equals(preferredLanguage) ? "account-locked-ar" : "account-locked-en";
-            String subject = "ar".equals(preferredLanguage) ? 
-                "تم إيقاف حسابك - منصة تخرجي" : 
-                "Account Locked - Takharrujy Platform";
-
-            sendTemplatedEmail(toEmail, subject, templateName, variables, preferredLanguage);
+            sendTemplatedEmail(toEmail, EmailTemplate.ACCOUNT_LOCKED, variables, preferredLanguage);
 
             logger.info("Account locked notification email sent successfully to: {}", toEmail);
         } catch (Exception e) {
@@ -193,34 +165,50 @@ public class EmailService {
     }
 
     /**
-     * Send generic templated email
+     * Link a verification token is redeemed at
      */
-    private void sendTemplatedEmail(String toEmail, String subject, String templateName,
-                                  Map<String, Object> variables, String preferredLanguage) {
-        try {
-            // Create email context
-            Context context = new Context(getLocaleFromLanguage(preferredLanguage));
-            variables.forEach(context::setVariable);
-
-            // Process template
-            String htmlContent = templateEngine.process("email/" + templateName, context);
+    public String verificationUrl(String verificationToken) {
+        return baseUrl + "/auth/verify-email?token=" + verificationToken;
+    }
 
-            // Create and send email
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+    /**
+     * Send periodic notification digest email
+     */
+    public void sendNotificationDigestEmail(String toEmail, String userName, List<String> lines,
+                                          int totalCount, String preferredLanguage) {
+        boolean arabic = "ar".equals(preferredLanguage);
+        String subject = arabic ?
+            "ملخص الإشعارات (" + totalCount + ") - منصة تخرجي" :
+            "Your notification digest (" + totalCount + ") - Takharrujy Platform";
+
+        StringBuilder content = new StringBuilder();
+        content.append(arabic ? "مرحباً " : "Hello ").append(userName).append(",\n\n");
+        content.append(arabic ? "إليك ملخص الإشعارات الأخيرة:" : "Here is a summary of your recent notifications:")
+               .append("\n\n");
+        for (String line : lines) {
+            content.append("- ").append(line).append('\n');
+        }
+        if (totalCount > lines.size()) {
+            content.append(arabic ? "\n... و " : "\n... and ")
+                   .append(totalCount - lines.size())
+                   .append(arabic ? " إشعارات أخرى" : " more")
+                   .append('\n');
+        }
+        content.append('\n').append(baseUrl).append("/notifications\n");
 
-            helper.setFrom(fromEmail, fromName);
-            helper.setTo(toEmail);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
+        sendPlainTextEmail(toEmail, subject, content.toString());
+    }
 
-            // Set appropriate headers for RTL content
-            if ("ar".equals(preferredLanguage)) {
-                message.setHeader("Content-Language", "ar");
-                message.setHeader("X-Priority", "3");
-            }
+    /**
+     * Send generic templated email
+     */
+    private void sendTemplatedEmail(String toEmail, EmailTemplate template,
+                                  Map<String, String> variables, String preferredLanguage) {
+        try {
+            String language = "ar".equals(preferredLanguage) ? "ar" : "en";
+            String htmlContent = emailTemplates.render(template, language, variables);
 
-            mailSender.send(message);
+            dispatch(toEmail, template.getSubject(language), htmlContent, true, template.getId(), language);
 
         } catch (MessagingException e) {
             logger.error("Failed to create or send email message", e);
@@ -238,15 +226,7 @@ public class EmailService {
         try {
             logger.info("Sending plain text email to: {}", toEmail);
 
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
-
-            helper.setFrom(fromEmail, fromName);
-            helper.setTo(toEmail);
-            helper.setSubject(subject);
-            helper.setText(content, false);
-
-            mailSender.send(message);
+            dispatch(toEmail, subject, content, false, "plain", null);
 
             logger.info("Plain text email sent successfully to: {}", toEmail);
         } catch (Exception e) {
@@ -255,6 +235,39 @@ public class EmailService {
         }
     }
 
+    /**
+     * Queue the email in the outbox, or send it inline when the outbox is disabled
+     */
+    private void dispatch(String toEmail, String subject, String body, boolean html,
+                          String template, String language) throws MessagingException, UnsupportedEncodingException {
+        if (outboxEnabled && emailOutbox != null) {
+            emailOutbox.enqueue(toEmail, subject, body, html, template, language);
+            return;
+        }
+        mailSender.send(createMimeMessage(toEmail, subject, body, html, language));
+    }
+
+    /**
+     * Build a ready-to-send message; also used by the outbox delivery worker
+     */
+    public MimeMessage createMimeMessage(String toEmail, String subject, String body, boolean html,
+                                        String language) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, html, "UTF-8");
+
+        helper.setFrom(fromEmail, fromName);
+        helper.setTo(toEmail);
+        helper.setSubject(subject);
+        helper.setText(body, html);
+
+        // Set appropriate headers for RTL content
+        if ("ar".equals(language)) {
+            message.setHeader("Content-Language", "ar");
+            message.setHeader("X-Priority", "3");
+        }
+        return message;
+    }
+
     /**
      * Check email service health
      */
@@ -269,14 +282,4 @@ public class EmailService {
             return false;
         }
     }
-
-    /**
-     * Convert language code to Locale
-     */
-    private Locale getLocaleFromLanguage(String language) {
-        if ("ar".equals(language)) {
-            return Locale.forLanguageTag("ar");
-        }
-        return Locale.ENGLISH;
-    }
-}
\ No newline at end of file
+}
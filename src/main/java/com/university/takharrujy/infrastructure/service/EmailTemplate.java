@@ -0,0 +1,73 @@
+package com.university.takharrujy.infrastructure.service;
+
+import java.util.Set;
+
+/**
+ * Email Template
+ * The localized HTML emails under {@code templates/email}. Each one is stored as
+ * {@code <fileName>-en.html} and {@code <fileName>-ar.html} and may only reference
+ * the variables declared here; {@link EmailTemplateRegistry} checks both at startup.
+ */
+public enum EmailTemplate {
+
+    WELCOME("verification",
+            "Welcome to Takharrujy Platform - Email Verification",
+            "مرحباً بك في منصة تخرجي - تأكيد البريد الإلكتروني",
+            Set.of("userName", "userNameAr", "verificationUrl")),
+
+    VERIFICATION_REMINDER("verification-reminder",
+            "Reminder - Email Verification for Takharrujy Platform",
+            "تذكير - تأكيد البريد الإلكتروني في منصة تخرجي",
+            Set.of("userName", "userNameAr", "verificationUrl")),
+
+    PASSWORD_RESET("password-reset",
+            "Password Reset - Takharrujy Platform",
+            "إعادة تعيين كلمة المرور - منصة تخرجي",
+            Set.of("userName", "userNameAr", "resetUrl", "expirationHours")),
+
+    PASSWORD_CHANGED("password-changed",
+            "Password Changed - Takharrujy Platform",
+            "تم تغيير كلمة المرور - منصة تخرجي",
+            Set.of("userName", "userNameAr", "changedAt")),
+
+    ACCOUNT_LOCKED("account-locked",
+            "Account Locked - Takharrujy Platform",
+            "تم إيقاف حسابك - منصة تخرجي",
+            Set.of("userName", "userNameAr", "reason"));
+
+    /**
+     * Variables bound once per deployment rather than per recipient
+     */
+    public static final Set<String> GLOBAL_VARIABLES = Set.of("baseUrl", "supportEmail");
+
+    private final String fileName;
+    private final String subjectEn;
+    private final String subjectAr;
+    private final Set<String> variables;
+
+    EmailTemplate(String fileName, String subjectEn, String subjectAr, Set<String> variables) {
+        this.fileName = fileName;
+        this.subjectEn = subjectEn;
+        this.subjectAr = subjectAr;
+        this.variables = variables;
+    }
+
+    /**
+     * Stable identifier used for outbox rows and metric tags, e.g. {@code password-reset}
+     */
+    public String getId() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getSubject(String language) {
+        return "ar".equals(language) ? subjectAr : subjectEn;
+    }
+
+    public Set<String> getVariables() {
+        return variables;
+    }
+}
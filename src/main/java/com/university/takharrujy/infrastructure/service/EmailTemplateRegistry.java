@@ -0,0 +1,200 @@
+package com.university.takharrujy.infrastructure.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Email Template Registry
+ * Compiles every {@link EmailTemplate} in both languages once at startup. Each template
+ * is rendered through Thymeleaf with the deployment-wide variables bound and merge
+ * placeholders for the per-recipient ones, then kept as a {@link MailMergeTemplate};
+ * sending an email is then string appends into a per-thread buffer, with no template
+ * resolution, parsing or expression evaluation.
+ *
+ * Startup fails if a template file is missing, references a variable its
+ * {@link EmailTemplate} does not declare, or uses Thymeleaf features that cannot be
+ * frozen at compile time (conditionals, iteration, fragments, unescaped text).
+ */
+@Component
+public class EmailTemplateRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailTemplateRegistry.class);
+
+    static final List<String> LANGUAGES = List.of("en", "ar");
+
+    private static final String LOCATION = "classpath:templates/email/";
+
+    private static final Pattern VARIABLE_EXPRESSION = Pattern.compile("\\$\\{([^}]*)}");
+    private static final Pattern SIMPLE_VARIABLE = Pattern.compile("\\s*([A-Za-z]+)\\s*");
+    private static final Pattern THYMELEAF_ATTRIBUTE = Pattern.compile("\\bth:([a-z-]+)=");
+    private static final Set<String> ALLOWED_ATTRIBUTES = Set.of("text", "href", "src", "alt", "title", "value");
+
+    /**
+     * Buffers larger than this are not kept for reuse
+     */
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    private final TemplateEngine templateEngine;
+    private final String baseUrl;
+    private final String supportEmail;
+
+    private final Map<EmailTemplate, MailMergeTemplate> english = new EnumMap<>(EmailTemplate.class);
+    private final Map<EmailTemplate, MailMergeTemplate> arabic = new EnumMap<>(EmailTemplate.class);
+
+    public EmailTemplateRegistry(TemplateEngine templateEngine,
+                                 @Value("${takharrujy.email.templates.base-url}") String baseUrl,
+                                 @Value("${takharrujy.email.from}") String supportEmail) {
+        this.templateEngine = templateEngine;
+        this.baseUrl = baseUrl;
+        this.supportEmail = supportEmail;
+    }
+
+    /**
+     * Validate and compile all templates; any problem fails startup
+     */
+    @PostConstruct
+    void load() {
+        List<String> problems = new ArrayList<>();
+        Set<String> expectedFiles = new HashSet<>();
+
+        for (EmailTemplate template : EmailTemplate.values()) {
+            for (String language : LANGUAGES) {
+                String file = template.getFileName() + "-" + language;
+                expectedFiles.add(file + ".html");
+                try {
+                    MailMergeTemplate compiled = compile(template, language, problems);
+                    if (compiled != null) {
+                        ("ar".equals(language) ? arabic : english).put(template, compiled);
+                    }
+                } catch (Exception e) {
+                    problems.add(file + ": " + e.getMessage());
+                }
+            }
+        }
+        warnAboutUnusedFiles(expectedFiles);
+
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid email templates:\n  " + String.join("\n  ", problems));
+        }
+        logger.info("Compiled {} email templates", english.size() + arabic.size());
+    }
+
+    /**
+     * Compiled template for a language; anything other than Arabic falls back to English
+     */
+    public MailMergeTemplate get(EmailTemplate template, String language) {
+        MailMergeTemplate compiled = ("ar".equals(language) ? arabic : english).get(template);
+        if (compiled == null) {
+            throw new IllegalStateException("Email template not loaded: " + template);
+        }
+        return compiled;
+    }
+
+    /**
+     * Render a template for one recipient using this thread's reusable buffer
+     */
+    public String render(EmailTemplate template, String language, Map<String, String> values) {
+        MailMergeTemplate compiled = get(template, language);
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(compiled.estimatedLength());
+        compiled.renderTo(buffer, values);
+        String body = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return body;
+    }
+
+    private MailMergeTemplate compile(EmailTemplate template, String language, List<String> problems) throws IOException {
+        String file = template.getFileName() + "-" + language;
+        Resource resource = new PathMatchingResourcePatternResolver().getResource(LOCATION + file + ".html");
+        if (!resource.exists()) {
+            problems.add(file + ": template file is missing");
+            return null;
+        }
+
+        String source = resource.getContentAsString(StandardCharsets.UTF_8);
+        int problemCount = problems.size();
+        Set<String> referenced = validateSource(file, source, template, problems);
+        if (problems.size() > problemCount) {
+            return null;
+        }
+
+        Context context = new Context("ar".equals(language) ? Locale.forLanguageTag("ar") : Locale.ENGLISH);
+        context.setVariable("baseUrl", baseUrl);
+        context.setVariable("supportEmail", supportEmail);
+        template.getVariables().forEach(name -> context.setVariable(name, MailMergeTemplate.placeholder(name)));
+        String html = templateEngine.process("email/" + file, context);
+
+        MailMergeTemplate compiled = MailMergeTemplate.compile(template.getSubject(language), html, template.getId(), language);
+        for (String variable : referenced) {
+            if (!EmailTemplate.GLOBAL_VARIABLES.contains(variable) && !compiled.getFields().contains(variable)) {
+                problems.add(file + ": variable '" + variable + "' did not survive rendering");
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Check the raw template only uses declared variables and plain substitution
+     */
+    private Set<String> validateSource(String file, String source, EmailTemplate template, List<String> problems) {
+        Matcher attributes = THYMELEAF_ATTRIBUTE.matcher(source);
+        while (attributes.find()) {
+            if (!ALLOWED_ATTRIBUTES.contains(attributes.group(1))) {
+                problems.add(file + ": th:" + attributes.group(1) + " cannot be precompiled");
+            }
+        }
+
+        Set<String> referenced = new HashSet<>();
+        Matcher expressions = VARIABLE_EXPRESSION.matcher(source);
+        while (expressions.find()) {
+            Matcher variable = SIMPLE_VARIABLE.matcher(expressions.group(1));
+            if (!variable.matches()) {
+                problems.add(file + ": expression ${" + expressions.group(1) + "} is not a plain variable");
+                continue;
+            }
+            String name = variable.group(1);
+            if (!template.getVariables().contains(name) && !EmailTemplate.GLOBAL_VARIABLES.contains(name)) {
+                problems.add(file + ": undeclared variable '" + name + "'");
+            }
+            referenced.add(name);
+        }
+        return referenced;
+    }
+
+    private void warnAboutUnusedFiles(Set<String> expectedFiles) {
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION + "*.html")) {
+                if (!expectedFiles.contains(resource.getFilename())) {
+                    logger.warn("Email template {} is not registered in EmailTemplate and will never be sent",
+                            resource.getFilename());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not list email templates", e);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.university.takharrujy.infrastructure.service;
+
+import com.university.takharrujy.infrastructure.storage.StorageBackend;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * File Download Writer
+ * Writes a stored file to an HTTP response with conditional and partial request support:
+ * {@code ETag}/{@code If-None-Match}, {@code Last-Modified}/{@code If-Modified-Since},
+ * {@code Range} with single and multipart byte ranges, and {@code If-Range}.
+ *
+ * Files on the local file system never pass through the Java heap. When the container
+ * supports it (Tomcat's NIO connector) single-region responses are handed to the
+ * container's sendfile; otherwise the region is copied with {@link FileChannel#transferTo}.
+ * Objects in remote storage are streamed range by range through a small buffer.
+ */
+@Component
+public class FileDownloadWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileDownloadWriter.class);
+
+    /**
+     * More ranges than this (after merging overlaps) are answered with the whole file
+     */
+    static final int MAX_RANGES = 16;
+
+    /**
+     * Smaller regions are cheaper to write directly than to hand to the container
+     */
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * What to send; the ETag is the quoted, strong entity tag. Inline downloads are shown
+     * by the browser instead of saved, for embedding.
+     */
+    public record Download(StorageBackend storage, String key, long length, String contentType, String filename,
+                           String etag, Instant lastModified, boolean inline) {
+
+        public Download(StorageBackend storage, String key, long length, String contentType, String filename,
+                        String etag, Instant lastModified) {
+            this(storage, key, length, contentType, filename, etag, lastModified, false);
+        }
+    }
+
+    /**
+     * Byte range, both ends inclusive
+     */
+    record Range(long start, long end) {
+
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    public void write(HttpServletRequest request, HttpServletResponse response, Download download) throws IOException {
+        long lastModified = download.lastModified().truncatedTo(ChronoUnit.SECONDS).toEpochMilli();
+        response.setHeader(HttpHeaders.ETAG, download.etag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        if (notModified(request, download.etag(), lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ContentDisposition.Builder disposition = download.inline()
+                ? ContentDisposition.inline()
+                : ContentDisposition.attachment();
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition
+                .filename(download.filename(), StandardCharsets.UTF_8).build().toString());
+        if (download.inline()) {
+            response.setHeader("X-Content-Type-Options", "nosniff");
+        }
+
+        long length = download.length();
+        List<Range> ranges = rangeApplies(request, download.etag(), lastModified)
+                ? parseRanges(request.getHeader(HttpHeaders.RANGE), length)
+                : null;
+
+        if (ranges != null && ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+
+        boolean head = "HEAD".equals(request.getMethod());
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(download.contentType());
+            response.setContentLengthLong(length);
+            if (!head) {
+                sendRegion(request, response, download, 0, length);
+            }
+        } else if (ranges.size() == 1) {
+            Range range = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(download.contentType());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(range, length));
+            response.setContentLengthLong(range.length());
+            if (!head) {
+                sendRegion(request, response, download, range.start(), range.length());
+            }
+        } else {
+            sendMultipart(response, download, ranges, head);
+        }
+    }
+
+    /**
+     * Whether a written response delivered the file from its first byte: a full GET, or a
+     * range starting at 0. Resumed and seeking requests are not new downloads.
+     */
+    public static boolean startedDownload(HttpServletRequest request, HttpServletResponse response) {
+        if (!"GET".equals(request.getMethod())) {
+            return false;
+        }
+        if (response.getStatus() == HttpServletResponse.SC_OK) {
+            return true;
+        }
+        String range = request.getHeader(HttpHeaders.RANGE);
+        return response.getStatus() == HttpServletResponse.SC_PARTIAL_CONTENT
+            && range != null && range.replace(" ", "").startsWith("bytes=0-");
+    }
+
+    /**
+     * If-None-Match wins over If-Modified-Since when both are present (RFC 9110 13.2.2)
+     */
+    private boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesAny(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * A Range is honoured on GET/HEAD, unless If-Range names a different representation
+     */
+    private boolean rangeApplies(HttpServletRequest request, String etag, long lastModified) {
+        if (request.getHeader(HttpHeaders.RANGE) == null
+                || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+            return false;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.trim().equals(etag);
+        }
+        return dateHeader(request, HttpHeaders.IF_RANGE) == lastModified;
+    }
+
+    /**
+     * Parse a Range header into sorted, merged, satisfiable ranges. Returns null when the
+     * header should be ignored (not bytes, malformed, too many ranges) and an empty list
+     * when it is valid but nothing in it can be satisfied.
+     */
+    static List<Range> parseRanges(String header, long length) {
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+        List<Range> ranges = new ArrayList<>();
+        for (String spec : header.substring("bytes=".length()).split(",")) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                String first = spec.substring(0, dash).trim();
+                String last = spec.substring(dash + 1).trim();
+                if (first.isEmpty()) {
+                    // Suffix range: the final N bytes
+                    long suffix = Long.parseLong(last);
+                    if (suffix > 0 && length > 0) {
+                        ranges.add(new Range(Math.max(0, length - suffix), length - 1));
+                    }
+                    continue;
+                }
+                long start = Long.parseLong(first);
+                long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                if (end < start) {
+                    return null;
+                }
+                if (start < length) {
+                    ranges.add(new Range(start, Math.min(end, length - 1)));
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        ranges.sort(Comparator.comparingLong(Range::start));
+        List<Range> merged = new ArrayList<>();
+        for (Range range : ranges) {
+            Range previous = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (previous != null && range.start() <= previous.end() + 1) {
+                merged.set(merged.size() - 1, new Range(previous.start(), Math.max(previous.end(), range.end())));
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged.size() > MAX_RANGES ? null : merged;
+    }
+
+    private void sendMultipart(HttpServletResponse response, Download download, List<Range> ranges, boolean head)
+            throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (Range range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + download.contentType() + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range, download.length()) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (head) {
+            return;
+        }
+
+        ServletOutputStream out = response.getOutputStream();
+        Path path = download.storage().localPath(download.key()).orElse(null);
+        if (path != null) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                for (int i = 0; i < ranges.size(); i++) {
+                    out.write(partHeaders.get(i));
+                    transfer(channel, ranges.get(i).start(), ranges.get(i).length(), target);
+                }
+            }
+        } else {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                stream(download, ranges.get(i).start(), ranges.get(i).length(), out);
+            }
+        }
+        out.write(closing);
+    }
+
+    /**
+     * Send one contiguous region, through the container's sendfile when it is available
+     */
+    private void sendRegion(HttpServletRequest request, HttpServletResponse response, Download download,
+                            long start, long length) throws IOException {
+        Path path = download.storage().localPath(download.key()).orElse(null);
+        if (path == null) {
+            stream(download, start, length, response.getOutputStream());
+            return;
+        }
+        if (length >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat only accepts the canonical path
+            request.setAttribute(SENDFILE_FILENAME, path.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            transfer(channel, start, length, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    /**
+     * Copy a region of a remote object without holding more than one buffer of it
+     */
+    private static void stream(Download download, long start, long length, OutputStream out) throws IOException {
+        try (InputStream in = download.storage().open(download.key(), start, length)) {
+            long copied = in.transferTo(out);
+            if (copied != length) {
+                throw new EOFException("Object " + download.key() + " ended after " + copied + " of " + length + " bytes");
+            }
+        }
+    }
+
+    private static void transfer(FileChannel channel, long position, long count, WritableByteChannel target)
+            throws IOException {
+        long end = position + count;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) {
+                throw new EOFException("File ended at " + position + " of " + end);
+            }
+            position += sent;
+        }
+    }
+
+    private static String contentRange(Range range, long length) {
+        return "bytes " + range.start() + "-" + range.end() + "/" + length;
+    }
+
+    private static boolean matchesAny(String header, String etag) {
+        String strong = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate)) {
+                return true;
+            }
+            // Weak comparison, as If-None-Match requires
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(strong)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Ignoring malformed {} header", name);
+            return -1;
+        }
+    }
+}
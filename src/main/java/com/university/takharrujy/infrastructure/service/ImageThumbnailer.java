@@ -0,0 +1,178 @@
+package com.university.takharrujy.infrastructure.service;
+
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Image Thumbnailer
+ * Renders JPEG thumbnails at several sizes from one decode of the source image.
+ *
+ * The source is decoded with subsampling chosen from the dimensions in its header, so
+ * a 48 MP phone photo is read at roughly twice the largest thumbnail size and its full
+ * raster is never held in memory. Sizes are then produced largest first, each scaled
+ * from the previous one.
+ */
+@Component
+public class ImageThumbnailer {
+
+    /**
+     * Refuse images whose header claims more pixels than this (decompression bombs)
+     */
+    static final long MAX_SOURCE_PIXELS = 200_000_000L;
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    /**
+     * Longest side of the throwaway decode done by {@link #verify}
+     */
+    private static final int VERIFY_SIZE = 16;
+
+    /**
+     * Render the image into each size (longest side, in pixels); images are never enlarged.
+     * Returns the encoded JPEG per size, largest first.
+     */
+    public Map<Integer, byte[]> render(InputStream source, int[] sizes) throws IOException {
+        int[] descending = Arrays.stream(sizes).distinct().sorted().toArray();
+        reverse(descending);
+        if (descending.length == 0) {
+            throw new IllegalArgumentException("At least one size is required");
+        }
+
+        BufferedImage current = decode(source, descending[0]);
+        Map<Integer, byte[]> rendered = new LinkedHashMap<>();
+        for (int size : descending) {
+            current = fit(current, size);
+            rendered.put(size, encodeJpeg(current));
+        }
+        return rendered;
+    }
+
+    /**
+     * Check that the image decodes, without rendering it: the whole source is read, but
+     * at the coarsest subsampling, so only a few pixels are kept
+     */
+    public void verify(InputStream source) throws IOException {
+        decode(source, VERIFY_SIZE);
+    }
+
+    /**
+     * Decode at the coarsest subsampling that still leaves at least twice the target size
+     */
+    private BufferedImage decode(InputStream source, int largestSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    throw new IOException("Image is too large: " + width + "x" + height);
+                }
+                int factor = Math.max(1, Math.max(width, height) / (largestSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(factor, factor, 0, 0);
+                return toRgb(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale so the longest side is at most {@code size}, halving first for quality
+     */
+    private static BufferedImage fit(BufferedImage image, int size) {
+        int longest = Math.max(image.getWidth(), image.getHeight());
+        if (longest <= size) {
+            return image;
+        }
+        int targetWidth = Math.max(1, (int) Math.round((double) image.getWidth() * size / longest));
+        int targetHeight = Math.max(1, (int) Math.round((double) image.getHeight() * size / longest));
+
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return current.getWidth() == targetWidth && current.getHeight() == targetHeight
+            ? current
+            : draw(current, targetWidth, targetHeight);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = target.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2d.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g2d.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * JPEG has no alpha; transparent areas become white
+     */
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = rgb.createGraphics();
+        try {
+            g2d.setColor(Color.WHITE);
+            g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g2d.drawImage(image, 0, 0, null);
+        } finally {
+            g2d.dispose();
+        }
+        return rgb;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static void reverse(int[] values) {
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.university.takharrujy.infrastructure.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mail Merge Template
+ * An email rendered once through Thymeleaf with placeholder markers in place of
+ * per-recipient values, then split into literal segments. Rendering for a
+ * recipient is a single pass of string appends, with each value HTML-escaped.
+ * Instances are immutable and shared between threads.
+ */
+public final class MailMergeTemplate {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("@@MERGE:([A-Za-z]+)@@");
+
+    private final String subject;
+    private final String template;
+    private final String language;
+    private final String[] literals;
+    private final String[] fields;
+    private final int literalLength;
+
+    private MailMergeTemplate(String subject, String template, String language,
+                              String[] literals, String[] fields) {
+        this.subject = subject;
+        this.template = template;
+        this.language = language;
+        this.literals = literals;
+        this.fields = fields;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Marker to pass as a template variable in place of a per-recipient value
+     */
+    public static String placeholder(String field) {
+        return "@@MERGE:" + field + "@@";
+    }
+
+    public static MailMergeTemplate compile(String subject, String body, String template, String language) {
+        List<String> literals = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(body);
+        int position = 0;
+        while (matcher.find()) {
+            literals.add(body.substring(position, matcher.start()));
+            fields.add(matcher.group(1));
+            position = matcher.end();
+        }
+        literals.add(body.substring(position));
+        return new MailMergeTemplate(subject, template, language,
+                literals.toArray(String[]::new), fields.toArray(String[]::new));
+    }
+
+    /**
+     * Body for one recipient. Missing values render as empty text.
+     */
+    public String render(Map<String, String> values) {
+        StringBuilder body = new StringBuilder(estimatedLength());
+        renderTo(body, values);
+        return body.toString();
+    }
+
+    /**
+     * Append the body for one recipient to a caller-owned, reusable buffer
+     */
+    public void renderTo(StringBuilder body, Map<String, String> values) {
+        for (int i = 0; i < fields.length; i++) {
+            body.append(literals[i]);
+            String value = values.get(fields[i]);
+            if (value != null) {
+                appendEscaped(body, value);
+            }
+        }
+        body.append(literals[fields.length]);
+    }
+
+    public int estimatedLength() {
+        return literalLength + fields.length * 48;
+    }
+
+    /**
+     * Merge fields in template order
+     */
+    public List<String> getFields() {
+        return List.of(fields);
+    }
+
+    /**
+     * Same escaping as Thymeleaf's th:text, without an intermediate string
+     */
+    private static void appendEscaped(StringBuilder body, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> body.append("&amp;");
+                case '<' -> body.append("&lt;");
+                case '>' -> body.append("&gt;");
+                case '"' -> body.append("&quot;");
+                case '\'' -> body.append("&#39;");
+                default -> body.append(c);
+            }
+        }
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+}
@@ -2,7 +2,9 @@ package com.university.takharrujy.infrastructure.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
@@ -64,6 +66,46 @@ public class TokenService {
         }
     }
 
+    /**
+     * Generate and store email verification tokens for many users in one Redis pipeline.
+     * Returns the token of each user id.
+     */
+    public Map<Long, String> generateEmailVerificationTokens(Map<Long, String> emailsByUserId) {
+        Map<Long, String> tokens = new HashMap<>();
+        emailsByUserId.keySet().forEach(userId -> tokens.put(userId, generateSecureToken()));
+
+        Instant now = Instant.now();
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    tokens.forEach((userId, token) -> {
+                        String key = EMAIL_VERIFICATION_PREFIX + token;
+
+                        Map<String, Object> tokenData = new HashMap<>();
+                        tokenData.put("email", emailsByUserId.get(userId));
+                        tokenData.put("userId", userId);
+                        tokenData.put("type", "EMAIL_VERIFICATION");
+                        tokenData.put("createdAt", now.toString());
+                        tokenData.put("expiresAt", now.plus(EMAIL_VERIFICATION_EXPIRY).toString());
+
+                        ops.opsForHash().putAll(key, tokenData);
+                        ops.expire(key, EMAIL_VERIFICATION_EXPIRY);
+                    });
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Failed to generate {} email verification tokens", tokens.size(), e);
+            throw new RuntimeException("Failed to generate verification tokens", e);
+        }
+
+        logger.debug("Generated {} email verification tokens", tokens.size());
+        return tokens;
+    }
+
     /**
      * Generate and store password reset token
      */
@@ -0,0 +1,183 @@
+package com.university.takharrujy.infrastructure.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * ZIP Export Writer
+ * Streams stored files into a ZIP archive written straight to an output stream, such as
+ * an HTTP response. Nothing is staged on disk and each entry is copied through one small
+ * buffer, so memory use does not depend on the size of the files or the archive.
+ *
+ * Formats that are already compressed (PDF, images, Office Open XML, ZIP) are not
+ * compressed again. They are written as level 0 deflate, which is a copy with a few
+ * bytes of framing: the STORED method would need each entry's CRC before its data, and
+ * so a second read of the file. Everything else is deflated at the fastest level.
+ *
+ * Opening a stored file can take a round trip to an object store, so the next few
+ * entries are opened ahead on a small shared pool while the current one is written.
+ */
+@Component
+public class ZipExportWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZipExportWriter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static final String MANIFEST_NAME = "manifest.json";
+
+    private static final Set<String> COMPRESSED_TYPES = Set.of(
+        "application/pdf",
+        "application/zip",
+        "application/x-zip-compressed",
+        "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+        "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+        "application/vnd.openxmlformats-officedocument.presentationml.presentation"
+    );
+
+    @Value("${takharrujy.files.export.open-ahead:4}")
+    private int openAhead;
+
+    @Value("${takharrujy.files.export.open-workers:4}")
+    private int openWorkers;
+
+    private ThreadPoolExecutor openExecutor;
+
+    /**
+     * Opens the content of an entry
+     */
+    @FunctionalInterface
+    public interface ContentSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * One file to add; the name is the path inside the archive
+     */
+    public record Entry(String name, String contentType, Instant lastModified, ContentSource source) {
+    }
+
+    @PostConstruct
+    void start() {
+        int threads = Math.max(1, openWorkers);
+        openExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * Math.max(1, openAhead)), runnable -> {
+                    Thread thread = new Thread(runnable, "zip-export");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // A full queue opens on the writing thread instead
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        openExecutor.shutdown();
+    }
+
+    /**
+     * Write the entries, then a manifest built from the entries that could not be read
+     * (missing from storage) and were left out. Returns those entries.
+     */
+    public List<Entry> write(OutputStream out, List<Entry> entries, Function<List<Entry>, byte[]> manifest)
+            throws IOException {
+        List<Entry> skipped = new ArrayList<>();
+        Deque<CompletableFuture<InputStream>> opening = new ArrayDeque<>();
+        int next = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                // The caller owns the underlying stream
+                flush();
+            }
+        });
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (Entry entry : entries) {
+                while (next < entries.size() && opening.size() <= Math.max(0, openAhead)) {
+                    ContentSource source = entries.get(next++).source();
+                    opening.add(CompletableFuture.supplyAsync(() -> open(source), openExecutor));
+                }
+                InputStream in;
+                try {
+                    in = opening.removeFirst().join();
+                } catch (CompletionException e) {
+                    logger.warn("Leaving {} out of export: {}", entry.name(), e.getCause().getMessage());
+                    skipped.add(entry);
+                    continue;
+                }
+                try (in) {
+                    zip.setLevel(isCompressed(entry.contentType()) ? Deflater.NO_COMPRESSION : Deflater.BEST_SPEED);
+                    ZipEntry zipEntry = new ZipEntry(entry.name());
+                    if (entry.lastModified() != null) {
+                        zipEntry.setTime(entry.lastModified().toEpochMilli());
+                    }
+                    zip.putNextEntry(zipEntry);
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        zip.write(buffer, 0, read);
+                    }
+                    zip.closeEntry();
+                }
+            }
+
+            zip.setLevel(Deflater.BEST_SPEED);
+            zip.putNextEntry(new ZipEntry(MANIFEST_NAME));
+            zip.write(manifest.apply(skipped));
+            zip.closeEntry();
+            // Not on failure: a truncated response is better than a complete-looking archive
+            zip.close();
+        } finally {
+            // Streams opened ahead of a failed write
+            for (CompletableFuture<InputStream> pending : opening) {
+                pending.thenAccept(ZipExportWriter::closeQuietly);
+            }
+        }
+        return skipped;
+    }
+
+    static boolean isCompressed(String contentType) {
+        return contentType != null && (contentType.startsWith("image/") || COMPRESSED_TYPES.contains(contentType));
+    }
+
+    private static InputStream open(ContentSource source) {
+        try {
+            return source.open();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // Nothing to do
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.university.takharrujy.infrastructure.storage;
+
+import com.azure.core.util.BinaryData;
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.models.BlobItem;
+import com.azure.storage.blob.models.BlobItemProperties;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.ListBlobsOptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Azure Blob Object Store
+ * Block blobs in one container. Blocks are read from the source file region by region
+ * ({@link BinaryData#fromFile(Path, Long, Long)}), which the SDK can replay on retries
+ * without holding the block in memory; reads use the SDK's chunked blob input stream.
+ */
+public class AzureBlobObjectStore implements ObjectStore {
+
+    private final BlobContainerClient container;
+
+    public AzureBlobObjectStore(BlobContainerClient container) {
+        this.container = container;
+    }
+
+    @Override
+    public String getName() {
+        return "azure";
+    }
+
+    @Override
+    public void put(String key, Path file, long offset, long length) throws IOException {
+        try {
+            blob(key).upload(BinaryData.fromFile(file, offset, length), true);
+        } catch (BlobStorageException e) {
+            throw failure("put", key, e);
+        }
+    }
+
+    @Override
+    public void stageBlock(String key, int index, Path file, long offset, long length) throws IOException {
+        try {
+            blob(key).getBlockBlobClient().stageBlock(blockId(index), BinaryData.fromFile(file, offset, length));
+        } catch (BlobStorageException e) {
+            throw failure("stage block " + index + " of", key, e);
+        }
+    }
+
+    @Override
+    public void commitBlocks(String key, int count) throws IOException {
+        List<String> ids = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            ids.add(blockId(index));
+        }
+        try {
+            blob(key).getBlockBlobClient().commitBlockList(ids, true);
+        } catch (BlobStorageException e) {
+            throw failure("commit", key, e);
+        }
+    }
+
+    @Override
+    public void abortBlocks(String key) {
+        // Uncommitted blocks are discarded by the service after seven days
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        try {
+            return blob(key).openInputStream(new BlobRange(offset, length < 0 ? null : length), null);
+        } catch (BlobStorageException e) {
+            throw failure("read", key, e);
+        }
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        try {
+            return blob(key).getProperties().getBlobSize();
+        } catch (BlobStorageException e) {
+            throw failure("stat", key, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            return blob(key).exists();
+        } catch (BlobStorageException e) {
+            throw failure("stat", key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            blob(key).deleteIfExists();
+        } catch (BlobStorageException e) {
+            throw failure("delete", key, e);
+        }
+    }
+
+    @Override
+    public void list(String prefix, Consumer<StorageBackend.StoredObject> visitor) throws IOException {
+        try {
+            // The iterable fetches the next page as the previous one is consumed
+            for (BlobItem item : container.listBlobs(new ListBlobsOptions().setPrefix(prefix), null)) {
+                BlobItemProperties properties = item.getProperties();
+                visitor.accept(new StorageBackend.StoredObject(item.getName(), properties.getContentLength(),
+                    properties.getLastModified().toInstant()));
+            }
+        } catch (BlobStorageException e) {
+            throw failure("list", prefix, e);
+        }
+    }
+
+    private BlobClient blob(String key) {
+        return container.getBlobClient(key);
+    }
+
+    /**
+     * Block ids must be Base64 and all the same length within a blob
+     */
+    private static String blockId(int index) {
+        return Base64.getEncoder().encodeToString(String.format("%08d", index).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static IOException failure(String operation, String key, BlobStorageException e) {
+        if (e.getStatusCode() == 404) {
+            return new NoSuchFileException(key);
+        }
+        return new IOException("Azure blob " + operation + " " + key + " failed: " + e.getErrorCode(), e);
+    }
+}
@@ -0,0 +1,171 @@
+package com.university.takharrujy.infrastructure.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compressing Storage Backend
+ * Objects whose key ends in {@code .gz} are gzip-compressed on store and decompressed as
+ * they are read, so callers see the original bytes and size; other keys pass through. A
+ * range of a compressed object is read by decompressing from the start and skipping, which
+ * suits cold content that is rarely read and almost never by range.
+ */
+public class CompressingStorageBackend implements StorageBackend {
+
+    public static final String SUFFIX = ".gz";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final StorageBackend delegate;
+    private final String name;
+
+    public CompressingStorageBackend(StorageBackend delegate, String name) {
+        this.delegate = delegate;
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void store(String key, Path source) throws IOException {
+        if (!compressed(key)) {
+            delegate.store(key, source);
+            return;
+        }
+        Path temp = Files.createTempFile(source.toAbsolutePath().getParent(), "compress", SUFFIX);
+        try {
+            try (InputStream in = Files.newInputStream(source);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), BUFFER_SIZE)) {
+                in.transferTo(out);
+            }
+            delegate.store(key, temp);
+            Files.deleteIfExists(source);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long offset, long length) throws IOException {
+        if (!compressed(key)) {
+            return delegate.open(key, offset, length);
+        }
+        InputStream in = new GZIPInputStream(delegate.open(key), BUFFER_SIZE);
+        try {
+            in.skipNBytes(offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return length < 0 ? in : new LimitedInputStream(in, length);
+    }
+
+    /**
+     * The uncompressed size, from the gzip trailer; exact below 4 GB
+     */
+    @Override
+    public long size(String key) throws IOException {
+        if (!compressed(key)) {
+            return delegate.size(key);
+        }
+        long stored = delegate.size(key);
+        try (InputStream in = delegate.open(key, stored - 4, 4)) {
+            byte[] trailer = in.readNBytes(4);
+            if (trailer.length < 4) {
+                throw new IOException("Truncated gzip object " + key);
+            }
+            return (trailer[0] & 0xffL) | (trailer[1] & 0xffL) << 8 | (trailer[2] & 0xffL) << 16
+                | (trailer[3] & 0xffL) << 24;
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return delegate.exists(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        delegate.delete(key);
+    }
+
+    /**
+     * Lists stored sizes, which are compressed for {@code .gz} keys
+     */
+    @Override
+    public void list(String prefix, Consumer<StoredObject> visitor) throws IOException {
+        delegate.list(prefix, visitor);
+    }
+
+    /**
+     * Compressed objects have no file the caller could send as is
+     */
+    @Override
+    public Optional<Path> localPath(String key) {
+        return compressed(key) ? Optional.empty() : delegate.localPath(key);
+    }
+
+    private static boolean compressed(String key) {
+        return key.endsWith(SUFFIX);
+    }
+
+    /**
+     * Ends after a fixed number of bytes
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+}
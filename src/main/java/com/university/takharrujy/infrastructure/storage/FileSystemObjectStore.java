@@ -0,0 +1,147 @@
+package com.university.takharrujy.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * File System Object Store
+ * An object store on a local directory with the same block semantics as a cloud store:
+ * blocks are staged as separate files and only become visible when committed. Used to
+ * run the object-store path offline, in tests and local development.
+ */
+public class FileSystemObjectStore implements ObjectStore {
+
+    private final Path objects;
+    private final Path staging;
+
+    public FileSystemObjectStore(Path root) throws IOException {
+        Path base = root.toAbsolutePath().normalize();
+        this.objects = Files.createDirectories(base.resolve("objects"));
+        this.staging = Files.createDirectories(base.resolve("staging"));
+    }
+
+    @Override
+    public String getName() {
+        return "filesystem";
+    }
+
+    @Override
+    public void put(String key, Path file, long offset, long length) throws IOException {
+        Path temp = Files.createTempFile(staging, "put", null);
+        try {
+            copyRegion(file, offset, length, temp, false);
+            publish(temp, key);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void stageBlock(String key, int index, Path file, long offset, long length) throws IOException {
+        Path dir = Files.createDirectories(stagingDir(key));
+        copyRegion(file, offset, length, dir.resolve(String.format("%08d", index)), false);
+    }
+
+    @Override
+    public void commitBlocks(String key, int count) throws IOException {
+        Path dir = stagingDir(key);
+        Path temp = Files.createTempFile(staging, "commit", null);
+        try {
+            for (int index = 0; index < count; index++) {
+                Path block = dir.resolve(String.format("%08d", index));
+                if (!Files.exists(block)) {
+                    throw new NoSuchFileException(block.toString(), null, "Block " + index + " was not staged");
+                }
+                copyRegion(block, 0, Files.size(block), temp, true);
+            }
+            publish(temp, key);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        abortBlocks(key);
+    }
+
+    @Override
+    public void abortBlocks(String key) throws IOException {
+        Path dir = stagingDir(key);
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> blocks = Files.list(dir)) {
+            for (Path block : (Iterable<Path>) blocks::iterator) {
+                Files.deleteIfExists(block);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Override
+    public InputStream get(String key, long offset, long length) throws IOException {
+        return FileRegionInputStream.open(object(key), offset, length);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(object(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(object(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(object(key));
+    }
+
+    @Override
+    public void list(String prefix, Consumer<StorageBackend.StoredObject> visitor) throws IOException {
+        LocalStorageBackend.walk(objects, prefix.isEmpty() ? objects : object(prefix), visitor);
+    }
+
+    private void publish(Path temp, String key) throws IOException {
+        Path target = object(key);
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path object(String key) {
+        Path path = objects.resolve(key).normalize();
+        if (!path.startsWith(objects) || path.equals(objects)) {
+            throw new IllegalArgumentException("Invalid object key: " + key);
+        }
+        return path;
+    }
+
+    private Path stagingDir(String key) {
+        return staging.resolve(HexFormat.of().formatHex(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void copyRegion(Path source, long offset, long length, Path target, boolean append)
+            throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                long copied = in.transferTo(position, end - position, out);
+                if (copied <= 0) {
+                    throw new IOException("Source ended at " + position + " of " + end);
+                }
+                position += copied;
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.university.takharrujy.infrastructure.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Metered Storage Backend
+ * Records per-backend latency of every operation ({@code takharrujy.storage.operation}),
+ * bytes moved in each direction ({@code takharrujy.storage.bytes}) and the throughput of
+ * each store ({@code takharrujy.storage.store.throughput}, bytes per second).
+ */
+public class MeteredStorageBackend implements StorageBackend {
+
+    private final StorageBackend delegate;
+    private final MeterRegistry meterRegistry;
+    private final Counter bytesWritten;
+    private final Counter bytesRead;
+    private final DistributionSummary storeThroughput;
+
+    public MeteredStorageBackend(StorageBackend delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.bytesWritten = Counter.builder("takharrujy.storage.bytes")
+                .tag("backend", delegate.getName()).tag("direction", "write")
+                .baseUnit("bytes").register(meterRegistry);
+        this.bytesRead = Counter.builder("takharrujy.storage.bytes")
+                .tag("backend", delegate.getName()).tag("direction", "read")
+                .baseUnit("bytes").register(meterRegistry);
+        this.storeThroughput = DistributionSummary.builder("takharrujy.storage.store.throughput")
+                .tag("backend", delegate.getName())
+                .baseUnit("bytes/s")
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void store(String key, Path source) throws IOException {
+        long size = Files.size(source);
+        long start = System.nanoTime();
+        delegate.store(key, source);
+        long elapsed = System.nanoTime() - start;
+        timer("store").record(elapsed, TimeUnit.NANOSECONDS);
+        bytesWritten.increment(size);
+        if (elapsed > 0) {
+            storeThroughput.record(size * 1e9 / elapsed);
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long offset, long length) throws IOException {
+        long start = System.nanoTime();
+        InputStream in = delegate.open(key, offset, length);
+        timer("open").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new CountingInputStream(in);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return delegate.size(key);
+        } finally {
+            timer("size").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return delegate.exists(key);
+        } finally {
+            timer("exists").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.delete(key);
+        } finally {
+            timer("delete").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void list(String prefix, Consumer<StoredObject> visitor) throws IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.list(prefix, visitor);
+        } finally {
+            timer("list").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return delegate.localPath(key);
+    }
+
+    private Timer timer(String operation) {
+        return Timer.builder("takharrujy.storage.operation")
+                .description("Latency of storage backend operations")
+                .tag("backend", delegate.getName())
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts bytes as the caller reads them
+     */
+    private class CountingInputStream extends FilterInputStream {
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytesRead.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                bytesRead.increment(read);
+            }
+            return read;
+        }
+    }
+}
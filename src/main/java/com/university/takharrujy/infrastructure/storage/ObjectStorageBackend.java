@@ -0,0 +1,128 @@
+package com.university.takharrujy.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Object Storage Backend
+ * Stores objects in an {@link ObjectStore}. Files up to one block are uploaded in a
+ * single request; larger files are split into blocks that are uploaded in parallel on
+ * virtual threads, at most {@code maxConcurrency} at a time, and then committed. Blocks
+ * are read straight from the source file, so memory use does not grow with the file.
+ */
+public class ObjectStorageBackend implements StorageBackend {
+
+    private final ObjectStore store;
+    private final long blockSize;
+    private final int maxConcurrency;
+
+    public ObjectStorageBackend(ObjectStore store, long blockSize, int maxConcurrency) {
+        if (blockSize <= 0 || maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Block size and concurrency must be positive");
+        }
+        this.store = store;
+        this.blockSize = blockSize;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public String getName() {
+        return store.getName();
+    }
+
+    @Override
+    public void store(String key, Path source) throws IOException {
+        long size = Files.size(source);
+        if (size <= blockSize) {
+            store.put(key, source, 0, size);
+        } else {
+            uploadBlocks(key, source, size);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    private void uploadBlocks(String key, Path source, long size) throws IOException {
+        int blocks = (int) ((size + blockSize - 1) / blockSize);
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<Future<Void>> uploads = new ArrayList<>(blocks);
+        IOException failure = null;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                for (int index = 0; index < blocks; index++) {
+                    permits.acquire();
+                    int block = index;
+                    long offset = block * blockSize;
+                    long length = Math.min(blockSize, size - offset);
+                    uploads.add(executor.submit(() -> {
+                        try {
+                            store.stageBlock(key, block, source, offset, length);
+                            return null;
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                }
+                for (Future<Void> upload : uploads) {
+                    upload.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new InterruptedIOException("Interrupted uploading " + key);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                failure = cause instanceof IOException io ? io : new IOException("Block upload failed for " + key, cause);
+            }
+            if (failure != null) {
+                uploads.forEach(upload -> upload.cancel(true));
+            }
+        }
+
+        if (failure != null) {
+            try {
+                store.abortBlocks(key);
+            } catch (IOException e) {
+                // Staged blocks that are never committed expire on their own
+                failure.addSuppressed(e);
+            }
+            throw failure;
+        }
+        store.commitBlocks(key, blocks);
+    }
+
+    @Override
+    public InputStream open(String key, long offset, long length) throws IOException {
+        return store.get(key, offset, length);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return store.size(key);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return store.exists(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        store.delete(key);
+    }
+
+    @Override
+    public void list(String prefix, Consumer<StoredObject> visitor) throws IOException {
+        store.list(prefix, visitor);
+    }
+}
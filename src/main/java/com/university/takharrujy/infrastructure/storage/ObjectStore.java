@@ -0,0 +1,53 @@
+package com.university.takharrujy.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Object Store
+ * The operations {@link ObjectStorageBackend} needs from an object store: single-shot
+ * puts, and block uploads where blocks are staged independently (in any order, in
+ * parallel) and then committed in index order to form the object.
+ */
+public interface ObjectStore {
+
+    String getName();
+
+    /**
+     * Upload {@code length} bytes of the file from {@code offset} as the whole object
+     */
+    void put(String key, Path file, long offset, long length) throws IOException;
+
+    /**
+     * Upload one block of a multi-block object; safe to call concurrently for different blocks
+     */
+    void stageBlock(String key, int index, Path file, long offset, long length) throws IOException;
+
+    /**
+     * Make blocks {@code 0..count-1} the content of the object
+     */
+    void commitBlocks(String key, int count) throws IOException;
+
+    /**
+     * Discard staged blocks after a failed upload
+     */
+    void abortBlocks(String key) throws IOException;
+
+    /**
+     * Stream a range of the object; a negative length reads to the end
+     */
+    InputStream get(String key, long offset, long length) throws IOException;
+
+    long size(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Visit the objects whose key starts with the prefix, a page at a time
+     */
+    void list(String prefix, Consumer<StorageBackend.StoredObject> visitor) throws IOException;
+}
@@ -0,0 +1,72 @@
+package com.university.takharrujy.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Storage Backend
+ * Where stored file content lives, addressed by a relative key such as
+ * {@code blobs/3/ab/cd/abcd...}. Implementations are the local file system and object
+ * stores; {@link MeteredStorageBackend} adds latency and throughput metrics to either.
+ *
+ * Missing objects are reported with {@link java.nio.file.NoSuchFileException}.
+ */
+public interface StorageBackend {
+
+    /**
+     * Short name used in metrics and logs, e.g. "local" or "azure"
+     */
+    String getName();
+
+    /**
+     * Store a local file under the key. The source is consumed: it is moved or uploaded
+     * and then deleted, so callers must not use it afterwards.
+     */
+    void store(String key, Path source) throws IOException;
+
+    /**
+     * Stream the whole object without buffering it
+     */
+    default InputStream open(String key) throws IOException {
+        return open(key, 0, -1);
+    }
+
+    /**
+     * Stream {@code length} bytes from {@code offset}; a negative length reads to the end
+     */
+    InputStream open(String key, long offset, long length) throws IOException;
+
+    long size(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Delete the object; deleting a missing object is not an error
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Visit every object whose key starts with the prefix, in no particular order and
+     * without collecting them first. The prefix is a directory such as {@code blobs/3/ab/};
+     * a missing one has no objects. Objects deleted during the listing may or may not be seen.
+     */
+    void list(String prefix, Consumer<StoredObject> visitor) throws IOException;
+
+    /**
+     * The object's file on the local file system, when there is one, so callers can
+     * use zero-copy transfers instead of streaming
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * An object found by {@link #list}
+     */
+    record StoredObject(String key, long size, Instant lastModified) {
+    }
+}
@@ -2,6 +2,12 @@ package com.university.takharrujy.presentation.controller;
 
 import com.university.takharrujy.application.service.AdminService;
 import com.university.takharrujy.application.service.ProjectService;
+import com.university.takharrujy.application.service.StorageReconciliationService;
+import com.university.takharrujy.application.service.StorageReconciliationService.ReconciliationReport;
+import com.university.takharrujy.application.service.StorageScrubService;
+import com.university.takharrujy.application.service.StorageScrubService.IntegrityReport;
+import com.university.takharrujy.application.service.StorageUsageService;
+import com.university.takharrujy.application.service.StorageUsageService.UsageReport;
 import com.university.takharrujy.presentation.common.ApiResponse;
 import com.university.takharrujy.presentation.dto.admin.AdminDashboardResponse;
 import com.university.takharrujy.presentation.dto.admin.RoleUpdateRequest;
@@ -12,6 +18,7 @@ import com.university.takharrujy.presentation.dto.user.UserResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -27,10 +34,19 @@ public class AdminController {
 
     private final AdminService adminService;
     private final ProjectService projectService;
+    private final StorageReconciliationService storageReconciliationService;
+    private final StorageScrubService storageScrubService;
+    private final StorageUsageService storageUsageService;
 
-    public AdminController(AdminService adminService, ProjectService projectService) {
+    public AdminController(AdminService adminService, ProjectService projectService,
+                           StorageReconciliationService storageReconciliationService,
+                           StorageScrubService storageScrubService,
+                           StorageUsageService storageUsageService) {
         this.adminService = adminService;
         this.projectService = projectService;
+        this.storageReconciliationService = storageReconciliationService;
+        this.storageScrubService = storageScrubService;
+        this.storageUsageService = storageUsageService;
     }
 
     @Operation(summary = "Get admin dashboard data", description = "Fetches statistics about projects, users, supervisors, deliverables, and universities")
@@ -90,4 +106,42 @@ public class AdminController {
         ProjectResponse updatedProject = projectService.assignSupervisor(projectId, request);
         return ResponseEntity.ok(ApiResponse.success(updatedProject, "Supervisor assigned successfully"));
     }
+
+    @Operation(summary = "Get storage reconciliation report", description = "Report of the last storage reconciliation run on this node")
+    @GetMapping("/storage/reconciliation")
+    public ResponseEntity<ApiResponse<ReconciliationReport>> getStorageReconciliation() {
+        return storageReconciliationService.getLastReport()
+                .map(report -> ResponseEntity.ok(ApiResponse.success(report, storageReconciliationService.isRunning()
+                        ? "Last reconciliation report fetched, another run is in progress"
+                        : "Last reconciliation report fetched successfully")))
+                .orElseGet(() -> ResponseEntity.ok(ApiResponse.success(null, storageReconciliationService.isRunning()
+                        ? "The first storage reconciliation is in progress"
+                        : "No storage reconciliation has run yet")));
+    }
+
+    @Operation(summary = "Run storage reconciliation", description = "Start a storage reconciliation in the background; a dry run only reports orphans")
+    @PostMapping("/storage/reconciliation")
+    public ResponseEntity<ApiResponse<Void>> runStorageReconciliation(
+            @RequestParam(defaultValue = "false") boolean dryRun
+    ) {
+        storageReconciliationService.startRun(dryRun);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(null, "Storage reconciliation started"));
+    }
+
+    @Operation(summary = "Get stored file integrity", description = "Progress of the integrity scrub pass and blobs whose content is corrupt or missing")
+    @GetMapping("/storage/integrity")
+    public ResponseEntity<ApiResponse<IntegrityReport>> getStorageIntegrity() {
+        return ResponseEntity.ok(ApiResponse.success(storageScrubService.getReport(), "Storage integrity fetched successfully"));
+    }
+
+    @Operation(summary = "Get storage usage", description = "Largest universities, projects and users by stored bytes, with their quotas, from the usage counters")
+    @GetMapping("/storage/usage")
+    public ResponseEntity<ApiResponse<UsageReport>> getStorageUsage(
+            @RequestParam(required = false) Long universityId,
+            @RequestParam(defaultValue = "20") int top
+    ) {
+        return ResponseEntity.ok(ApiResponse.success(storageUsageService.getReport(universityId, top),
+                "Storage usage fetched successfully"));
+    }
 }
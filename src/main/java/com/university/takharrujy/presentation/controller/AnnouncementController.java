@@ -0,0 +1,62 @@
+package com.university.takharrujy.presentation.controller;
+
+import com.university.takharrujy.application.service.AnnouncementService;
+import com.university.takharrujy.presentation.dto.announcement.AnnouncementRequest;
+import com.university.takharrujy.presentation.dto.announcement.AnnouncementResponse;
+import com.university.takharrujy.presentation.dto.common.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1")
+@Tag(name = "Announcements", description = "University and department wide announcements")
+@SecurityRequirement(name = "bearerAuth")
+public class AnnouncementController {
+
+    private final AnnouncementService announcementService;
+
+    public AnnouncementController(AnnouncementService announcementService) {
+        this.announcementService = announcementService;
+    }
+
+    @Operation(summary = "Publish announcement",
+            description = "Publish an announcement to every user of the admin's university or of one department. "
+                    + "Recipients see it in their notification inbox immediately.")
+    @PostMapping("/admin/announcements")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<AnnouncementResponse>> publish(
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId,
+            @Valid @RequestBody AnnouncementRequest request) {
+        AnnouncementResponse response = announcementService.publish(request, currentUserId);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(response, "Announcement published successfully", "تم نشر الإعلان بنجاح"));
+    }
+
+    @Operation(summary = "List announcements", description = "List announcements of the admin's university, newest first")
+    @GetMapping("/admin/announcements")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<AnnouncementResponse>>> list(
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId,
+            @RequestParam(defaultValue = "50") int limit) {
+        List<AnnouncementResponse> announcements = announcementService.listForAdmin(currentUserId, Math.min(Math.max(limit, 1), 200));
+        return ResponseEntity.ok(ApiResponse.success(announcements, "Fetched announcements"));
+    }
+
+    @Operation(summary = "Mark announcements as read", description = "Mark the given announcement and every older one as read")
+    @PutMapping("/announcements/{announcementId}/read")
+    public ResponseEntity<ApiResponse<String>> markReadThrough(
+            @PathVariable Long announcementId,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId) {
+        announcementService.markReadThrough(currentUserId, announcementId);
+        return ResponseEntity.ok(ApiResponse.success("Announcements marked as read"));
+    }
+}
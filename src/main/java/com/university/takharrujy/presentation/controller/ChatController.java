@@ -0,0 +1,83 @@
+package com.university.takharrujy.presentation.controller;
+
+import com.university.takharrujy.application.service.ChatService;
+import com.university.takharrujy.presentation.dto.chat.ChatMessageResponse;
+import com.university.takharrujy.presentation.dto.chat.MessageRequest;
+import com.university.takharrujy.presentation.dto.common.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/projects/{projectId}/messages")
+@Tag(name = "Project Chat", description = "Project conversation history and live message stream")
+@SecurityRequirement(name = "bearerAuth")
+public class ChatController {
+
+    private final ChatService chatService;
+
+    public ChatController(ChatService chatService) {
+        this.chatService = chatService;
+    }
+
+    @Operation(summary = "Send message", description = "Post a message to the project conversation")
+    @PostMapping
+    public ResponseEntity<ApiResponse<ChatMessageResponse>> sendMessage(
+            @PathVariable Long projectId,
+            @RequestBody MessageRequest request,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId) {
+        ChatMessageResponse response = chatService.sendMessage(projectId, request, currentUserId);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(response, "Message sent successfully", "تم إرسال الرسالة بنجاح"));
+    }
+
+    @Operation(summary = "Get message history",
+            description = "Fetch messages newest first. Pass the id of the oldest loaded message as 'before' for the previous page.")
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<ChatMessageResponse>>> getHistory(
+            @PathVariable Long projectId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId) {
+        List<ChatMessageResponse> messages = chatService.getHistory(projectId, before, limit, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(messages, "Fetched messages"));
+    }
+
+    @Operation(summary = "Mark messages as read",
+            description = "Mark the conversation as read up to and including the given message")
+    @PutMapping("/{messageId}/read")
+    public ResponseEntity<ApiResponse<String>> markAsRead(
+            @PathVariable Long projectId,
+            @PathVariable Long messageId,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId) {
+        chatService.markAsRead(projectId, messageId, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success("Messages marked as read"));
+    }
+
+    @Operation(summary = "Get unread count", description = "Number of messages above the user's read position")
+    @GetMapping("/unread-count")
+    public ResponseEntity<ApiResponse<Long>> getUnreadCount(
+            @PathVariable Long projectId,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId) {
+        long unread = chatService.getUnreadCount(projectId, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(unread, "Fetched unread message count"));
+    }
+
+    @Operation(summary = "Stream messages",
+            description = "Server-Sent Events stream of new messages. Reconnect with the Last-Event-ID header to replay missed messages.")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @PathVariable Long projectId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId) {
+        return chatService.openStream(projectId, lastEventId, currentUserId);
+    }
+}
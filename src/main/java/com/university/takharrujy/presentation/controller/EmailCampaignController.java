@@ -0,0 +1,93 @@
+package com.university.takharrujy.presentation.controller;
+
+import com.university.takharrujy.application.service.EmailCampaignService;
+import com.university.takharrujy.domain.enums.EmailCampaignStatus;
+import com.university.takharrujy.presentation.dto.campaign.EmailCampaignRequest;
+import com.university.takharrujy.presentation.dto.campaign.EmailCampaignResponse;
+import com.university.takharrujy.presentation.dto.common.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/admin/email-campaigns")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Email Campaigns", description = "Bulk email campaigns (Admin only)")
+@SecurityRequirement(name = "bearerAuth")
+public class EmailCampaignController {
+
+    private final EmailCampaignService emailCampaignService;
+
+    public EmailCampaignController(EmailCampaignService emailCampaignService) {
+        this.emailCampaignService = emailCampaignService;
+    }
+
+    @Operation(summary = "Start verification reminders", description = "Queue a verification reminder for every unverified user of the university")
+    @PostMapping("/verification-reminders")
+    public ResponseEntity<ApiResponse<EmailCampaignResponse>> startVerificationReminder(
+            @Valid @RequestBody EmailCampaignRequest request,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId
+    ) {
+        EmailCampaignResponse campaign = emailCampaignService.startVerificationReminder(request, currentUserId);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(campaign, "Campaign started successfully", "تم بدء الحملة بنجاح"));
+    }
+
+    @Operation(summary = "List campaigns", description = "Most recent campaigns of the university")
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<EmailCampaignResponse>>> listCampaigns(
+            @RequestParam(defaultValue = "20") int limit,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId
+    ) {
+        List<EmailCampaignResponse> campaigns = emailCampaignService.listCampaigns(currentUserId, Math.min(Math.max(limit, 1), 100));
+        return ResponseEntity.ok(ApiResponse.success(campaigns, "Campaigns fetched successfully"));
+    }
+
+    @Operation(summary = "Get campaign progress")
+    @GetMapping("/{campaignId}")
+    public ResponseEntity<ApiResponse<EmailCampaignResponse>> getCampaign(
+            @PathVariable Long campaignId,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId
+    ) {
+        EmailCampaignResponse campaign = emailCampaignService.getCampaign(campaignId, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(campaign, "Campaign fetched successfully"));
+    }
+
+    @Operation(summary = "Pause campaign")
+    @PutMapping("/{campaignId}/pause")
+    public ResponseEntity<ApiResponse<EmailCampaignResponse>> pauseCampaign(
+            @PathVariable Long campaignId,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId
+    ) {
+        EmailCampaignResponse campaign = emailCampaignService.changeStatus(campaignId, EmailCampaignStatus.PAUSED, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(campaign, "Campaign paused successfully"));
+    }
+
+    @Operation(summary = "Resume campaign", description = "Continue a paused campaign from where it stopped")
+    @PutMapping("/{campaignId}/resume")
+    public ResponseEntity<ApiResponse<EmailCampaignResponse>> resumeCampaign(
+            @PathVariable Long campaignId,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId
+    ) {
+        EmailCampaignResponse campaign = emailCampaignService.changeStatus(campaignId, EmailCampaignStatus.RUNNING, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(campaign, "Campaign resumed successfully"));
+    }
+
+    @Operation(summary = "Cancel campaign", description = "Stop a campaign; emails already queued are still delivered")
+    @PutMapping("/{campaignId}/cancel")
+    public ResponseEntity<ApiResponse<EmailCampaignResponse>> cancelCampaign(
+            @PathVariable Long campaignId,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId
+    ) {
+        EmailCampaignResponse campaign = emailCampaignService.changeStatus(campaignId, EmailCampaignStatus.CANCELLED, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(campaign, "Campaign cancelled successfully"));
+    }
+}
@@ -1,9 +1,16 @@
 package com.university.takharrujy.presentation.controller;
 
+import com.university.takharrujy.application.service.MultiFileUploadService;
+import com.university.takharrujy.application.service.ProjectExportService;
 import com.university.takharrujy.application.service.ProjectFileService;
-import com.university.takharrujy.domain.entity.ProjectFile;
+import com.university.takharrujy.application.service.UploadSessionService;
+import com.university.takharrujy.infrastructure.security.CustomUserDetailsService;
+import com.university.takharrujy.infrastructure.service.FileDownloadWriter;
 import com.university.takharrujy.presentation.dto.common.ApiResponse;
 import com.university.takharrujy.presentation.dto.file.FileResponse;
+import com.university.takharrujy.presentation.dto.file.MultiFileUploadResponse;
+import com.university.takharrujy.presentation.dto.file.UploadSessionRequest;
+import com.university.takharrujy.presentation.dto.file.UploadSessionResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,17 +18,25 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.core.io.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * FileController
@@ -35,9 +50,19 @@ import java.util.List;
 public class FileController {
 
     private final ProjectFileService fileService;
+    private final UploadSessionService uploadSessionService;
+    private final FileDownloadWriter downloadWriter;
+    private final ProjectExportService exportService;
+    private final MultiFileUploadService multiFileUploadService;
 
-    public FileController(ProjectFileService fileService) {
+    public FileController(ProjectFileService fileService, UploadSessionService uploadSessionService,
+                          FileDownloadWriter downloadWriter, ProjectExportService exportService,
+                          MultiFileUploadService multiFileUploadService) {
         this.fileService = fileService;
+        this.uploadSessionService = uploadSessionService;
+        this.downloadWriter = downloadWriter;
+        this.exportService = exportService;
+        this.multiFileUploadService = multiFileUploadService;
     }
 
     /**
@@ -46,11 +71,12 @@ public class FileController {
     @PostMapping(value = "/projects/{projectId}/files", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasAnyRole('STUDENT','SUPERVISOR','ADMIN')")
     @Operation(summary = "Upload file to project", 
-              description = "Upload a file to a specific project with virus scanning and validation. Max size: 100MB")
+              description = "Upload a file to a specific project. The file is validated and quarantined, then " +
+                           "virus scanned in the background; it can be downloaded once its scan status is CLEAN. Max size: 100MB")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
-            responseCode = "200", 
-            description = "File uploaded successfully",
+            responseCode = "202", 
+            description = "File uploaded and queued for virus scanning",
             content = @Content(schema = @Schema(implementation = FileResponse.class))
         ),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
@@ -63,7 +89,7 @@ public class FileController {
         ),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "413", 
-            description = "File too large - max 100MB"
+            description = "File too large - max 100MB, or a storage quota would be exceeded"
         )
     })
     public ResponseEntity<ApiResponse<FileResponse>> upload(
@@ -75,8 +101,239 @@ public class FileController {
         Long userId = getCurrentUserId();
         FileResponse response = fileService.upload(projectId, userId, file);
         
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+            ApiResponse.success(response, "File uploaded and queued for security scan", "تم رفع الملف وجارٍ فحصه أمنياً")
+        );
+    }
+
+    /**
+     * Upload several files to a project in one request
+     */
+    @PostMapping(value = "/projects/{projectId}/files/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyRole('STUDENT','SUPERVISOR','ADMIN')")
+    @Operation(summary = "Upload several files to project", 
+              description = "Upload up to 25 files in one request, each as a part named 'files'. All parts are validated " +
+                           "first, then stored in parallel; each part gets its own result, so invalid files do not " +
+                           "stop the others. Accepted files are virus scanned in the background like single uploads. " +
+                           "Max size: 100MB per file")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "202", 
+            description = "All files uploaded and queued for virus scanning",
+            content = @Content(schema = @Schema(implementation = MultiFileUploadResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "207", 
+            description = "Some or all files were rejected or could not be stored; see each result",
+            content = @Content(schema = @Schema(implementation = MultiFileUploadResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400", 
+            description = "No files, or more than allowed in one request"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404", 
+            description = "Project not found"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "413", 
+            description = "Request too large, or a storage quota would be exceeded"
+        )
+    })
+    public ResponseEntity<ApiResponse<MultiFileUploadResponse>> uploadMany(
+            @Parameter(description = "Project ID to upload files to")
+            @PathVariable Long projectId,
+            @Parameter(description = "Files to upload (PDF, DOC, DOCX, XLS, XLSX, PPT, PPTX, ZIP, TXT, images)")
+            @RequestParam("files") List<MultipartFile> files,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId
+    ) {
+        MultiFileUploadResponse response = multiFileUploadService.upload(projectId, currentUserId, files);
+        
+        if (response.failed() == 0) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+                ApiResponse.success(response, "Files uploaded and queued for security scan", "تم رفع الملفات وجارٍ فحصها أمنياً")
+            );
+        }
+        return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(
+            ApiResponse.success(response,
+                response.accepted() + " of " + response.results().size() + " files uploaded and queued for security scan",
+                "تم رفع " + response.accepted() + " من " + response.results().size() + " ملفات وجارٍ فحصها أمنياً")
+        );
+    }
+
+    /**
+     * Start a resumable upload
+     */
+    @PostMapping("/projects/{projectId}/uploads")
+    @PreAuthorize("hasAnyRole('STUDENT','SUPERVISOR','ADMIN')")
+    @Operation(summary = "Start resumable upload", 
+              description = "Start a chunked upload for a large file. Send the content with PUT /uploads/{uploadId} " +
+                           "in chunks of at most maxChunkSize bytes, each starting at the current offset, then complete it. " +
+                           "After a dropped connection, GET the upload for the offset to resume from.")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "201", 
+            description = "Upload started",
+            content = @Content(schema = @Schema(implementation = UploadSessionResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400", 
+            description = "Invalid file type, size or name"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404", 
+            description = "Project not found"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "413", 
+            description = "The file would exceed a storage quota"
+        )
+    })
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> startUpload(
+            @Parameter(description = "Project ID to upload file to")
+            @PathVariable Long projectId,
+            @Valid @RequestBody UploadSessionRequest request,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId
+    ) {
+        UploadSessionResponse response = uploadSessionService.create(projectId, currentUserId, request);
+        
+        return ResponseEntity.status(HttpStatus.CREATED).body(
+            ApiResponse.success(response, "Upload started", "تم بدء الرفع")
+        );
+    }
+
+    /**
+     * Get resumable upload progress
+     */
+    @GetMapping("/uploads/{uploadId}")
+    @PreAuthorize("hasAnyRole('STUDENT','SUPERVISOR','ADMIN')")
+    @Operation(summary = "Get upload progress", 
+              description = "Get the offset a resumable upload should continue from")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200", 
+            description = "Upload progress retrieved"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404", 
+            description = "Upload not found or expired"
+        )
+    })
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> getUpload(
+            @Parameter(description = "Upload ID")
+            @PathVariable UUID uploadId,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId
+    ) {
+        UploadSessionResponse response = uploadSessionService.getStatus(uploadId, currentUserId);
+        
+        return ResponseEntity.ok(
+            ApiResponse.success(response, "Upload progress retrieved", "تم استرداد حالة الرفع")
+        );
+    }
+
+    /**
+     * Upload one chunk
+     */
+    @PutMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('STUDENT','SUPERVISOR','ADMIN')")
+    @Operation(summary = "Upload chunk", 
+              description = "Write the request body at the offset given in the Upload-Offset header, which must " +
+                           "equal the bytes received so far. If the connection drops, the bytes that arrived are kept.")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200", 
+            description = "Chunk stored; the response carries the new offset"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400", 
+            description = "Chunk too large, or the content failed the virus scan and the upload was removed"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404", 
+            description = "Upload not found or expired"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "409", 
+            description = "Offset does not match the bytes received, or another chunk is being written"
+        )
+    })
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> uploadChunk(
+            @Parameter(description = "Upload ID")
+            @PathVariable UUID uploadId,
+            @Parameter(description = "Offset of the first byte of this chunk")
+            @RequestHeader("Upload-Offset") long offset,
+            HttpServletRequest request,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId
+    ) throws IOException {
+        UploadSessionResponse response = uploadSessionService.writeChunk(uploadId, currentUserId, offset,
+            request.getInputStream());
+        
+        return ResponseEntity.ok(
+            ApiResponse.success(response, "Chunk received", "تم استلام الجزء")
+        );
+    }
+
+    /**
+     * Complete a resumable upload
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    @PreAuthorize("hasAnyRole('STUDENT','SUPERVISOR','ADMIN')")
+    @Operation(summary = "Complete resumable upload", 
+              description = "Turn a fully received upload into a project file. The content was hashed and scanned " +
+                           "as it arrived, so the file becomes available without another pass over it.")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "202", 
+            description = "File created and queued for its scan verdict",
+            content = @Content(schema = @Schema(implementation = FileResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404", 
+            description = "Upload not found or expired"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "409", 
+            description = "Upload is incomplete or a chunk is still being written"
+        )
+    })
+    public ResponseEntity<ApiResponse<FileResponse>> completeUpload(
+            @Parameter(description = "Upload ID")
+            @PathVariable UUID uploadId,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId
+    ) {
+        FileResponse response = uploadSessionService.complete(uploadId, currentUserId);
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+            ApiResponse.success(response, "File uploaded and queued for security scan", "تم رفع الملف وجارٍ فحصه أمنياً")
+        );
+    }
+
+    /**
+     * Cancel a resumable upload
+     */
+    @DeleteMapping("/uploads/{uploadId}")
+    @PreAuthorize("hasAnyRole('STUDENT','SUPERVISOR','ADMIN')")
+    @Operation(summary = "Cancel resumable upload", 
+              description = "Abandon an upload and delete the bytes received so far")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200", 
+            description = "Upload cancelled"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404", 
+            description = "Upload not found or expired"
+        )
+    })
+    public ResponseEntity<ApiResponse<Void>> cancelUpload(
+            @Parameter(description = "Upload ID")
+            @PathVariable UUID uploadId,
+            @AuthenticationPrincipal(expression = "userId") Long currentUserId
+    ) {
+        uploadSessionService.cancel(uploadId, currentUserId);
+        
         return ResponseEntity.ok(
-            ApiResponse.success(response, "File uploaded successfully", "تم رفع الملف بنجاح")
+            ApiResponse.success(null, "Upload cancelled", "تم إلغاء الرفع")
         );
     }
 
@@ -108,6 +365,81 @@ public class FileController {
         );
     }
 
+    /**
+     * Search project files
+     */
+    @GetMapping("/projects/{projectId}/files/search")
+    @PreAuthorize("hasAnyRole('STUDENT','SUPERVISOR','ADMIN')")
+    @Operation(summary = "Search project files", 
+              description = "Full-text search of the text of a project's .txt, .docx, .pptx and .xlsx files, " +
+                           "best match first. Supports quoted phrases, OR and -excluded words. Files are " +
+                           "searchable shortly after they pass the virus scan.")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200", 
+            description = "Matching files listed"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400", 
+            description = "Missing or too long search query"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "401", 
+            description = "Unauthorized - Invalid or expired token"
+        )
+    })
+    public ResponseEntity<ApiResponse<List<FileResponse>>> searchProjectFiles(
+            @Parameter(description = "Project ID to search")
+            @PathVariable Long projectId,
+            @Parameter(description = "Search query, in English or Arabic")
+            @RequestParam("q") String query,
+            @Parameter(description = "Maximum number of files returned, up to 100")
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        List<FileResponse> files = fileService.searchProject(projectId, query, limit);
+        
+        return ResponseEntity.ok(
+            ApiResponse.success(files, "Files searched successfully", "تم البحث في الملفات بنجاح")
+        );
+    }
+
+    /**
+     * Search the files of a department's projects
+     */
+    @GetMapping("/departments/{departmentId}/files/search")
+    @PreAuthorize("hasAnyRole('SUPERVISOR','ADMIN')")
+    @Operation(summary = "Search department submissions", 
+              description = "Full-text search of the text of the .txt, .docx, .pptx and .xlsx files of every " +
+                           "project led by a student of the department, best match first")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200", 
+            description = "Matching files listed"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400", 
+            description = "Missing or too long search query"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "401", 
+            description = "Unauthorized - Invalid or expired token"
+        )
+    })
+    public ResponseEntity<ApiResponse<List<FileResponse>>> searchDepartmentFiles(
+            @Parameter(description = "Department ID to search")
+            @PathVariable Long departmentId,
+            @Parameter(description = "Search query, in English or Arabic")
+            @RequestParam("q") String query,
+            @Parameter(description = "Maximum number of files returned, up to 100")
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        List<FileResponse> files = fileService.searchDepartment(departmentId, query, limit);
+        
+        return ResponseEntity.ok(
+            ApiResponse.success(files, "Files searched successfully", "تم البحث في الملفات بنجاح")
+        );
+    }
+
     /**
      * Get file metadata
      */
@@ -142,34 +474,112 @@ public class FileController {
     @GetMapping("/files/{fileId}")
     @PreAuthorize("hasAnyRole('STUDENT','SUPERVISOR','ADMIN')")
     @Operation(summary = "Download file", 
-              description = "Download a file by its ID")
+              description = "Download a file by its ID. Supports Range requests (single and multipart byte ranges) " +
+                           "and conditional requests with ETag / If-None-Match and Last-Modified / If-Modified-Since")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "200", 
             description = "File downloaded successfully"
         ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "206", 
+            description = "Requested byte range(s) of the file"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "304", 
+            description = "File not modified since the client's cached copy"
+        ),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "404", 
             description = "File not found"
         ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "409", 
+            description = "File is still being scanned or failed the virus scan"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "416", 
+            description = "Requested range not satisfiable"
+        ),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "401", 
             description = "Unauthorized - Invalid or expired token"
         )
     })
-    public ResponseEntity<Resource> download(
+    public void download(
             @Parameter(description = "File ID to download")
-            @PathVariable Long fileId
-    ) {
-        Resource resource = fileService.download(fileId);
-        ProjectFile file = fileService.getFileForDownload(fileId);
-        
-        return ResponseEntity.ok()
-            .contentType(MediaType.parseMediaType(file.getContentType()))
-            .header(HttpHeaders.CONTENT_DISPOSITION, 
-                "attachment; filename=\"" + file.getOriginalFilename() + "\"")
-            .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(file.getFileSize()))
-            .body(resource);
+            @PathVariable Long fileId,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        downloadWriter.write(request, response, fileService.prepareDownload(fileId));
+        if (FileDownloadWriter.startedDownload(request, response)) {
+            fileService.recordDownload(fileId);
+        }
+    }
+
+    /**
+     * Export all project files
+     */
+    @GetMapping("/projects/{projectId}/files/export")
+    @PreAuthorize("hasAnyRole('SUPERVISOR','ADMIN')")
+    @Operation(summary = "Export project files", 
+              description = "Download every file of a project that passed the virus scan as one ZIP, with a " +
+                           "manifest.json of all file metadata. The archive is streamed as it is built.")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200", 
+            description = "ZIP archive streamed"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404", 
+            description = "Project not found"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "401", 
+            description = "Unauthorized - Invalid or expired token"
+        )
+    })
+    public void exportProjectFiles(
+            @Parameter(description = "Project ID to export")
+            @PathVariable Long projectId,
+            HttpServletResponse response
+    ) throws IOException {
+        try (ProjectExportService.Export export = exportService.prepareProjectExport(projectId)) {
+            writeExport(export, response);
+        }
+    }
+
+    /**
+     * Export all files of a department's projects
+     */
+    @GetMapping("/departments/{departmentId}/files/export")
+    @PreAuthorize("hasAnyRole('SUPERVISOR','ADMIN')")
+    @Operation(summary = "Export department submissions", 
+              description = "Download the files of every project led by a student of the department as one ZIP, " +
+                           "one folder per project, with a manifest.json of all file metadata")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200", 
+            description = "ZIP archive streamed"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404", 
+            description = "Department not found"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "503", 
+            description = "Too many department exports running, retry later"
+        )
+    })
+    public void exportDepartmentFiles(
+            @Parameter(description = "Department ID to export")
+            @PathVariable Long departmentId,
+            HttpServletResponse response
+    ) throws IOException {
+        try (ProjectExportService.Export export = exportService.prepareDepartmentExport(departmentId)) {
+            writeExport(export, response);
+        }
     }
 
     /**
@@ -204,6 +614,18 @@ public class FileController {
         );
     }
 
+    /**
+     * Stream an export; its length is unknown up front, so it goes out chunked
+     */
+    private void writeExport(ProjectExportService.Export export, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename(export.filename(), StandardCharsets.UTF_8).build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        exportService.write(export, response.getOutputStream());
+    }
+
     /**
      * Get current user ID from security context
      */
@@ -211,7 +633,9 @@ public class FileController {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && authentication.isAuthenticated()) {
             Object principal = authentication.getPrincipal();
-            if (principal instanceof Long) {
+            if (principal instanceof CustomUserDetailsService.CustomUserPrincipal userPrincipal) {
+                return userPrincipal.getUserId();
+            } else if (principal instanceof Long) {
                 return (Long) principal;
             } else if (principal instanceof String) {
                 try {
@@ -0,0 +1,72 @@
+package com.university.takharrujy.presentation.controller;
+
+import com.university.takharrujy.application.service.ImagePipelineService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+
+/**
+ * ImageController
+ * Serves rendered avatar and image preview thumbnails
+ */
+@RestController
+@RequestMapping("/api/v1/images")
+@Tag(name = "Images", description = "Avatar and image preview thumbnails")
+@SecurityRequirement(name = "bearerAuth")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173", "https://takharrujy.com"})
+public class ImageController {
+
+    /**
+     * The URL names the content hash, so a thumbnail never changes once rendered
+     */
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable();
+
+    private final ImagePipelineService imagePipelineService;
+
+    public ImageController(ImagePipelineService imagePipelineService) {
+        this.imagePipelineService = imagePipelineService;
+    }
+
+    /**
+     * Get a thumbnail
+     */
+    @GetMapping("/{hash}/{size}")
+    @Operation(summary = "Get image thumbnail",
+              description = "Get a JPEG thumbnail of an avatar or project image, by content hash and size in pixels")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Thumbnail returned"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "304",
+            description = "Thumbnail not modified"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404",
+            description = "Thumbnail not rendered (yet) or size not offered"
+        )
+    })
+    public ResponseEntity<Resource> getThumbnail(
+            @Parameter(description = "SHA-256 of the source image") @PathVariable String hash,
+            @Parameter(description = "Longest side in pixels") @PathVariable int size) {
+
+        return imagePipelineService.findThumbnail(hash, size)
+                .<ResponseEntity<Resource>>map(file -> ResponseEntity.ok()
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .cacheControl(IMMUTABLE)
+                        .eTag("\"" + hash + "-" + size + "\"")
+                        .body(new FileSystemResource(file)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,82 @@
+package com.university.takharrujy.presentation.controller;
+
+import com.university.takharrujy.application.service.DownloadCounterService;
+import com.university.takharrujy.application.service.SignedDownloadService;
+import com.university.takharrujy.infrastructure.service.FileDownloadWriter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * SignedDownloadController
+ * Serves project files through signed links issued by the file info endpoint. The link is
+ * the credential: it is checked in memory and the file streamed from storage, with no
+ * authentication, session lookup or database query on the way.
+ */
+@RestController
+@RequestMapping("/api/v1/downloads")
+@Tag(name = "File Management", description = "Project file upload, listing, download, and deletion with virus scanning")
+public class SignedDownloadController {
+
+    private final SignedDownloadService signedDownloadService;
+    private final FileDownloadWriter downloadWriter;
+    private final DownloadCounterService downloadCounterService;
+
+    public SignedDownloadController(SignedDownloadService signedDownloadService, FileDownloadWriter downloadWriter,
+                                    DownloadCounterService downloadCounterService) {
+        this.signedDownloadService = signedDownloadService;
+        this.downloadWriter = downloadWriter;
+        this.downloadCounterService = downloadCounterService;
+    }
+
+    /**
+     * Download a file through a signed link
+     */
+    @GetMapping("/{token}")
+    @Operation(summary = "Download file through a signed link",
+              description = "Download a file using the short-lived downloadUrl returned by the file info endpoint; " +
+                           "no Authorization header is needed. Supports Range and conditional requests. " +
+                           "PDFs and images are served inline")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "File downloaded successfully"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "206",
+            description = "Requested byte range(s) of the file"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "304",
+            description = "File not modified since the client's cached copy"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "403",
+            description = "Link is invalid or has expired"
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "416",
+            description = "Requested range not satisfiable"
+        )
+    })
+    public void download(
+            @Parameter(description = "Signed token from the download URL")
+            @PathVariable String token,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        SignedDownloadService.Grant grant = signedDownloadService.redeem(token)
+                .orElseThrow(() -> new AccessDeniedException("Download link is invalid or has expired"));
+        downloadWriter.write(request, response, signedDownloadService.toDownload(grant));
+        if (FileDownloadWriter.startedDownload(request, response)) {
+            downloadCounterService.record(grant.fileId());
+        }
+    }
+}
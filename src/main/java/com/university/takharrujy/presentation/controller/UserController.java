@@ -109,7 +109,8 @@ public class UserController {
      */
     @PostMapping(value = "/me/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Upload user avatar", 
-              description = "Upload and set user profile picture with virus scanning and image processing")
+              description = "Upload a profile picture. Thumbnails are rendered in the background and the " +
+                           "profile picture switches once they are ready; an image uploaded before is applied immediately")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "200", 
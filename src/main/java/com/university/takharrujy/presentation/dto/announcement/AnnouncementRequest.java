@@ -0,0 +1,27 @@
+package com.university.takharrujy.presentation.dto.announcement;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Request to publish an announcement to a university or one of its departments
+ */
+@Schema(description = "Request to publish an announcement")
+public record AnnouncementRequest(
+    @Schema(description = "Announcement title", example = "Final submission deadline", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotBlank(message = "Title is required")
+    @Size(max = 200, message = "Title cannot exceed 200 characters")
+    String title,
+
+    @Schema(description = "Announcement body", example = "All graduation projects must be submitted by June 1st.", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotBlank(message = "Message is required")
+    @Size(max = 1000, message = "Message cannot exceed 1000 characters")
+    String message,
+
+    @Schema(description = "Target department ID, omit to address the whole university", example = "3")
+    Long departmentId,
+
+    @Schema(description = "Also copy the announcement into every recipient's notification rows in the background", example = "false")
+    Boolean materialize
+) {}
@@ -0,0 +1,35 @@
+package com.university.takharrujy.presentation.dto.announcement;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+/**
+ * Announcement response DTO
+ */
+@Schema(description = "Announcement response object")
+public record AnnouncementResponse(
+    @Schema(description = "Announcement ID", example = "12")
+    Long id,
+
+    @Schema(description = "University ID", example = "1")
+    Long universityId,
+
+    @Schema(description = "Target department ID, null for the whole university", example = "3")
+    Long departmentId,
+
+    @Schema(description = "Announcement title", example = "Final submission deadline")
+    String title,
+
+    @Schema(description = "Announcement body")
+    String message,
+
+    @Schema(description = "Whether per-user notification rows are being materialized", example = "false")
+    boolean materialize,
+
+    @Schema(description = "When materialization finished, null while pending or when not requested")
+    Instant materializedAt,
+
+    @Schema(description = "Publication time")
+    Instant createdAt
+) {}
@@ -0,0 +1,16 @@
+package com.university.takharrujy.presentation.dto.campaign;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+/**
+ * Request to start a verification reminder campaign
+ */
+@Schema(description = "Request to remind unverified users to verify their email")
+public record EmailCampaignRequest(
+    @Schema(description = "Only remind users who registered at least this many days ago", example = "3")
+    @Min(value = 0, message = "Days cannot be negative")
+    @Max(value = 365, message = "Days cannot exceed 365")
+    Integer unverifiedForDays
+) {}
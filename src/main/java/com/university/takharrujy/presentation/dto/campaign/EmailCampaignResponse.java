@@ -0,0 +1,40 @@
+package com.university.takharrujy.presentation.dto.campaign;
+
+import com.university.takharrujy.domain.enums.EmailCampaignStatus;
+import com.university.takharrujy.domain.enums.EmailCampaignType;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+/**
+ * Email campaign progress DTO
+ */
+@Schema(description = "Email campaign progress")
+public record EmailCampaignResponse(
+    @Schema(description = "Campaign ID", example = "4")
+    Long id,
+
+    @Schema(description = "Campaign type", example = "VERIFICATION_REMINDER")
+    EmailCampaignType type,
+
+    @Schema(description = "Campaign status", example = "RUNNING")
+    EmailCampaignStatus status,
+
+    @Schema(description = "Number of users matching the target when the campaign started", example = "5400")
+    long totalTargets,
+
+    @Schema(description = "Number of users whose email has been queued", example = "1200")
+    long processedCount,
+
+    @Schema(description = "Progress in percent", example = "22")
+    int progressPercent,
+
+    @Schema(description = "Users registered before this instant are targeted")
+    Instant targetCreatedBefore,
+
+    @Schema(description = "When the campaign was started")
+    Instant createdAt,
+
+    @Schema(description = "When the campaign finished, null while running")
+    Instant completedAt
+) {}
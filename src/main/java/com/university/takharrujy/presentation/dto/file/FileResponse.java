@@ -1,5 +1,6 @@
 package com.university.takharrujy.presentation.dto.file;
 
+import com.university.takharrujy.domain.enums.VirusScanStatus;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.time.Instant;
 
@@ -35,7 +36,20 @@ public record FileResponse(
     Long uploadedByUserId,
     
     @Schema(description = "Upload timestamp")
-    Instant uploadedAt
+    Instant uploadedAt,
+    
+    @Schema(description = "Virus scan status; the file can be downloaded once it is CLEAN")
+    VirusScanStatus virusScanStatus,
+    
+    @Schema(description = "Preview thumbnail URL for clean images, otherwise null")
+    String previewUrl,
+    
+    @Schema(description = "Number of times the file has been downloaded")
+    Long downloadCount,
+    
+    @Schema(description = "Short-lived signed link to the content that needs no Authorization header; "
+        + "only on file info for clean files")
+    String downloadUrl
 ) {
     
     /**
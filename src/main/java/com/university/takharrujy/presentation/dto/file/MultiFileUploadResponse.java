@@ -0,0 +1,52 @@
+package com.university.takharrujy.presentation.dto.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * MultiFileUploadResponse DTO
+ * Outcome of each part of a multi-file upload, in the order the parts were sent
+ */
+@Schema(description = "Per-file results of a multi-file upload")
+public record MultiFileUploadResponse(
+
+    @Schema(description = "Files stored and queued for virus scanning")
+    int accepted,
+
+    @Schema(description = "Files rejected by validation or that could not be stored")
+    int failed,
+
+    @Schema(description = "One result per uploaded part, in request order")
+    List<Item> results
+) {
+
+    public static MultiFileUploadResponse of(List<Item> results) {
+        int accepted = (int) results.stream().filter(item -> item.status() == Status.ACCEPTED).count();
+        return new MultiFileUploadResponse(accepted, results.size() - accepted, results);
+    }
+
+    public enum Status {
+        ACCEPTED, REJECTED, FAILED
+    }
+
+    @Schema(description = "Result of one uploaded part")
+    public record Item(
+
+        @Schema(description = "Position of the part in the request, from 0")
+        int index,
+
+        @Schema(description = "Original filename of the part")
+        String originalFilename,
+
+        @Schema(description = "ACCEPTED (stored, scan pending), REJECTED (failed validation) or FAILED (could not be stored)")
+        Status status,
+
+        @Schema(description = "The stored file, when accepted")
+        FileResponse file,
+
+        @Schema(description = "Why the part was not accepted")
+        String error
+    ) {
+    }
+}
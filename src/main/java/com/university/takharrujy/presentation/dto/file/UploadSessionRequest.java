@@ -0,0 +1,27 @@
+package com.university.takharrujy.presentation.dto.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Request to start a resumable upload of a project file
+ */
+@Schema(description = "Request to start a resumable upload")
+public record UploadSessionRequest(
+    @Schema(description = "Original filename", example = "final-report.pdf", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotBlank(message = "Filename is required")
+    @Size(max = 255, message = "Filename cannot exceed 255 characters")
+    String filename,
+
+    @Schema(description = "File content type (MIME type)", example = "application/pdf")
+    @Size(max = 100, message = "Content type cannot exceed 100 characters")
+    String contentType,
+
+    @Schema(description = "Total file size in bytes", example = "52428800", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "Size is required")
+    @Positive(message = "Size must be positive")
+    Long size
+) {}
@@ -0,0 +1,42 @@
+package com.university.takharrujy.presentation.dto.file;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * UploadSessionResponse DTO
+ * Progress of a resumable upload; the next chunk must start at {@code offset}
+ */
+@Schema(description = "Resumable upload progress")
+public record UploadSessionResponse(
+
+    @Schema(description = "Upload ID, used in the chunk and completion URLs")
+    UUID uploadId,
+
+    @Schema(description = "Project ID the file is uploaded to")
+    Long projectId,
+
+    @Schema(description = "Original filename")
+    String filename,
+
+    @Schema(description = "Total file size in bytes")
+    long size,
+
+    @Schema(description = "Bytes received so far; the offset the next chunk must start at")
+    long offset,
+
+    @Schema(description = "Largest chunk accepted in one request, in bytes")
+    long maxChunkSize,
+
+    @Schema(description = "When the upload is discarded if it is not completed")
+    Instant expiresAt
+) {
+
+    /**
+     * Whether every byte has arrived and the upload can be completed
+     */
+    public boolean isComplete() {
+        return offset == size;
+    }
+}
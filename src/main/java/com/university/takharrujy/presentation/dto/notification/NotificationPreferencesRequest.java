@@ -1,5 +1,6 @@
 package com.university.takharrujy.presentation.dto.notification;
 
+import com.university.takharrujy.domain.enums.DigestFrequency;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 @Schema(description = "User notification preferences update request")
@@ -36,5 +37,8 @@ public record NotificationPreferencesRequest(
         Boolean submissionNotifications,
 
         @Schema(description = "Notify supervisors about progress reports", example = "true")
-        Boolean progressReports
+        Boolean progressReports,
+
+        @Schema(description = "Periodic summary email instead of per-event emails: NONE, HOURLY or DAILY", example = "NONE")
+        DigestFrequency digestFrequency
 ) {}
@@ -2,11 +2,13 @@ package com.university.takharrujy.presentation.dto.notification;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.time.Instant;
+
 
 @Schema(description = "Notification response object")
 public record NotificationResponse(
 
-        @Schema(description = "Notification unique identifier", example = "101")
+        @Schema(description = "Notification unique identifier; negative for announcement entries", example = "101")
         Long id,
 
         @Schema(description = "Short title of the notification", example = "New Task Assigned")
@@ -19,5 +21,11 @@ public record NotificationResponse(
         String type,
 
         @Schema(description = "Whether the notification has been read", example = "false")
-        Boolean read
+        Boolean read,
+
+        @Schema(description = "Number of events merged into this notification", example = "3")
+        Integer count,
+
+        @Schema(description = "Time of the most recent merged event", example = "2025-09-28T12:45:30Z")
+        Instant lastOccurredAt
 ) {}
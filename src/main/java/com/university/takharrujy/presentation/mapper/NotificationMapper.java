@@ -17,7 +17,9 @@ public class NotificationMapper {
                 notification.getTitle(),
                 notification.getMessage(),
                 notification.getType().toString(),
-                notification.getRead()
+                notification.getRead(),
+                notification.getOccurrenceCount(),
+                notification.getLastOccurredAt()
         );
     }
 
@@ -33,7 +35,8 @@ public class NotificationMapper {
                 preferences.getNewMessages(),
                 preferences.getMessageMentions(),
                 preferences.getSubmissionNotifications(),
-                preferences.getProgressReports()
+                preferences.getProgressReports(),
+                preferences.getDigestFrequency()
         );
     }
 
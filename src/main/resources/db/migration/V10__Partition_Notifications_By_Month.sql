@@ -0,0 +1,129 @@
+-- Migration: Time-partitioned notification storage
+-- Version: V10
+-- Description: Rebuilds notifications as a table range-partitioned by month on created_at.
+--              Retention drops whole monthly partitions instead of deleting rows, and inbox
+--              queries bounded by created_at only touch the recent partitions.
+
+-- Keep the id sequence alive while the old table is dropped
+ALTER SEQUENCE notifications_id_seq OWNED BY NONE;
+
+ALTER TABLE notifications RENAME TO notifications_legacy;
+DROP POLICY IF EXISTS notifications_tenant_policy ON notifications_legacy;
+DROP TRIGGER IF EXISTS update_notifications_updated_at ON notifications_legacy;
+
+CREATE TABLE notifications (
+    id BIGINT NOT NULL DEFAULT nextval('notifications_id_seq'),
+    university_id BIGINT NOT NULL,
+
+    title VARCHAR(200) NOT NULL,
+    message VARCHAR(1000) NOT NULL,
+    read BOOLEAN NOT NULL DEFAULT FALSE,
+    type VARCHAR(50),
+
+    resource_type VARCHAR(50),
+    resource_id BIGINT,
+    occurrence_count INTEGER NOT NULL DEFAULT 1,
+    last_occurred_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    -- Relationships
+    user_id BIGINT NOT NULL,
+
+    -- Audit fields (from BaseEntity)
+    created_by VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_by VARCHAR(255),
+    updated_at TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    -- The partition key has to be part of the primary key
+    PRIMARY KEY (id, created_at),
+    CONSTRAINT fk_notifications_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT fk_notifications_university FOREIGN KEY (university_id) REFERENCES universities(id) ON DELETE CASCADE
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE notifications_id_seq OWNED BY notifications.id;
+
+-- ============================================
+-- Partition management
+-- ============================================
+
+-- Create the monthly partition containing the given timestamp, if missing.
+-- Partitions are named notifications_pYYYY_MM.
+CREATE OR REPLACE FUNCTION create_notification_partition(month_start TIMESTAMP)
+RETURNS TEXT AS $$
+DECLARE
+    from_ts TIMESTAMP := date_trunc('month', month_start);
+    to_ts TIMESTAMP := date_trunc('month', month_start) + INTERVAL '1 month';
+    partition_name TEXT := 'notifications_p' || to_char(from_ts, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, from_ts, to_ts);
+    END IF;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for every month that has data, plus the next three months
+DO $$
+DECLARE
+    m TIMESTAMP;
+BEGIN
+    FOR m IN
+        SELECT generate_series(
+            date_trunc('month', LEAST(COALESCE((SELECT MIN(created_at) FROM notifications_legacy), CURRENT_TIMESTAMP), CURRENT_TIMESTAMP)),
+            date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months',
+            INTERVAL '1 month')
+    LOOP
+        PERFORM create_notification_partition(m);
+    END LOOP;
+END $$;
+
+-- Safety net for rows outside every monthly partition; the maintenance job keeps it empty
+CREATE TABLE notifications_default PARTITION OF notifications DEFAULT;
+
+-- ============================================
+-- Data copy
+-- ============================================
+INSERT INTO notifications (id, university_id, title, message, read, type,
+                           resource_type, resource_id, occurrence_count, last_occurred_at,
+                           user_id, created_by, created_at, updated_by, updated_at, version)
+SELECT id, university_id, title, message, read, type,
+       resource_type, resource_id, occurrence_count, last_occurred_at,
+       user_id, created_by, created_at, updated_by, updated_at, version
+FROM notifications_legacy;
+
+DROP TABLE notifications_legacy;
+
+-- ============================================
+-- Indexes (created on every partition)
+-- ============================================
+CREATE INDEX idx_notifications_university_id ON notifications(university_id);
+CREATE INDEX idx_notifications_user_created ON notifications(user_id, created_at DESC);
+CREATE INDEX idx_notifications_user_unread ON notifications(user_id, last_occurred_at DESC) WHERE read = false;
+CREATE INDEX idx_notifications_user_last_occurred ON notifications(user_id, last_occurred_at);
+CREATE INDEX idx_notifications_coalesce
+    ON notifications(user_id, type, resource_type, resource_id, last_occurred_at DESC)
+    WHERE read = false AND resource_id IS NOT NULL;
+
+-- ============================================
+-- Trigger for updated_at
+-- ============================================
+CREATE TRIGGER update_notifications_updated_at
+BEFORE UPDATE ON notifications
+FOR EACH ROW
+EXECUTE FUNCTION update_updated_at_column();
+
+-- ============================================
+-- Row Level Security (RLS) for multi-tenancy
+-- ============================================
+ALTER TABLE notifications ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY notifications_tenant_policy ON notifications
+    FOR ALL
+    TO PUBLIC
+    USING (
+        university_id = COALESCE(current_setting('app.current_university_id', true)::bigint, university_id)
+    );
+
+COMMENT ON TABLE notifications IS 'User notifications, range-partitioned by month on created_at; old months are dropped by the retention job';
@@ -0,0 +1,36 @@
+-- Migration: Project chat
+-- Version: V11
+-- Description: Append-only chat messages per project. History is read newest first with
+--              keyset pagination on (project_id, id), so pages never use OFFSET.
+
+CREATE TABLE chat_messages (
+    id BIGSERIAL PRIMARY KEY,
+    university_id BIGINT NOT NULL REFERENCES universities(id) ON DELETE CASCADE,
+    project_id BIGINT NOT NULL REFERENCES projects(id) ON DELETE CASCADE,
+    sender_id BIGINT REFERENCES users(id) ON DELETE SET NULL,
+
+    content VARCHAR(4000) NOT NULL,
+
+    -- Audit fields
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by VARCHAR(255),
+    updated_by VARCHAR(255),
+    version BIGINT DEFAULT 0
+);
+
+-- Keyset pagination and catch-up after reconnect both walk this index
+CREATE INDEX idx_chat_messages_project_id ON chat_messages(project_id, id DESC);
+CREATE INDEX idx_chat_messages_university_id ON chat_messages(university_id);
+
+-- Chat access check looks up a single membership row
+CREATE INDEX IF NOT EXISTS idx_project_members_project_user ON project_members(project_id, user_id);
+
+ALTER TABLE chat_messages ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY chat_messages_tenant_policy ON chat_messages
+    FOR ALL
+    TO PUBLIC
+    USING (university_id = COALESCE(current_setting('app.current_university_id', true)::bigint, university_id));
+
+COMMENT ON TABLE chat_messages IS 'Append-only project chat messages, paginated by (project_id, id)';
@@ -0,0 +1,24 @@
+-- Migration: Chat read watermarks
+-- Version: V12
+-- Description: Read state of project chat as one high-water mark per (user, project) instead of
+--              per-message read flags. Unread count = messages above the mark, a range count
+--              over idx_chat_messages_project_id.
+
+CREATE TABLE chat_read_watermarks (
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    project_id BIGINT NOT NULL REFERENCES projects(id) ON DELETE CASCADE,
+    university_id BIGINT NOT NULL REFERENCES universities(id) ON DELETE CASCADE,
+    last_read_id BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (user_id, project_id)
+);
+
+ALTER TABLE chat_read_watermarks ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY chat_read_watermarks_tenant_policy ON chat_read_watermarks
+    FOR ALL
+    TO PUBLIC
+    USING (university_id = COALESCE(current_setting('app.current_university_id', true)::bigint, university_id));
+
+COMMENT ON TABLE chat_read_watermarks IS 'Per-user, per-project read high-water mark over chat message ids';
@@ -0,0 +1,51 @@
+-- Migration: Email outbox
+-- Version: V13
+-- Description: Emails are rendered and written to the outbox in the caller's transaction and
+--              delivered by a background worker pool. Messages that exhaust their retries are
+--              moved to email_dead_letters for inspection and manual replay.
+
+CREATE TABLE email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+
+    to_email VARCHAR(255) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    body TEXT NOT NULL,
+    html BOOLEAN NOT NULL DEFAULT true,
+    template VARCHAR(100) NOT NULL, -- metrics tag, e.g. welcome, password-reset, plain
+    language VARCHAR(5),
+
+    -- Delivery state
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'SENDING')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_at TIMESTAMP WITH TIME ZONE,
+    last_error VARCHAR(1000),
+
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Claim queries: due pending messages, and messages whose worker died mid-delivery
+CREATE INDEX idx_email_outbox_due ON email_outbox(next_attempt_at) WHERE status = 'PENDING';
+CREATE INDEX idx_email_outbox_locked ON email_outbox(locked_at) WHERE status = 'SENDING';
+
+CREATE TABLE email_dead_letters (
+    id BIGSERIAL PRIMARY KEY,
+    outbox_id BIGINT NOT NULL,
+
+    to_email VARCHAR(255) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    body TEXT NOT NULL,
+    html BOOLEAN NOT NULL,
+    template VARCHAR(100) NOT NULL,
+    language VARCHAR(5),
+
+    attempts INTEGER NOT NULL,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    failed_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_email_dead_letters_failed_at ON email_dead_letters(failed_at DESC);
+
+COMMENT ON TABLE email_outbox IS 'Transactional outbox of rendered emails awaiting SMTP delivery';
+COMMENT ON TABLE email_dead_letters IS 'Emails that failed every delivery attempt';
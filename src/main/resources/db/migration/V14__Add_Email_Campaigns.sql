@@ -0,0 +1,45 @@
+-- Migration: Bulk email campaigns
+-- Version: V14
+-- Description: Resumable bulk sends (e.g. verification reminders). Targets are walked in keyset
+--              chunks of user ids; cursor_user_id is committed together with each chunk of queued
+--              emails, so a restart continues exactly after the last processed user.
+
+CREATE TABLE email_campaigns (
+    id BIGSERIAL PRIMARY KEY,
+    university_id BIGINT NOT NULL REFERENCES universities(id) ON DELETE CASCADE,
+
+    type VARCHAR(50) NOT NULL CHECK (type IN ('VERIFICATION_REMINDER')),
+    status VARCHAR(20) NOT NULL DEFAULT 'RUNNING' CHECK (status IN ('RUNNING', 'PAUSED', 'COMPLETED', 'CANCELLED')),
+
+    target_created_before TIMESTAMP WITH TIME ZONE NOT NULL,
+    cursor_user_id BIGINT NOT NULL DEFAULT 0,
+    total_targets BIGINT NOT NULL DEFAULT 0,
+    processed_count BIGINT NOT NULL DEFAULT 0,
+    started_by_user_id BIGINT REFERENCES users(id) ON DELETE SET NULL,
+    completed_at TIMESTAMP WITH TIME ZONE,
+
+    -- Audit fields
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by VARCHAR(255),
+    updated_by VARCHAR(255),
+    version BIGINT DEFAULT 0
+);
+
+CREATE INDEX idx_email_campaigns_university_id ON email_campaigns(university_id, id DESC);
+CREATE INDEX idx_email_campaigns_running ON email_campaigns(id) WHERE status = 'RUNNING';
+
+-- Keyset walk over unverified users of a university
+CREATE INDEX IF NOT EXISTS idx_users_unverified_university_id ON users(university_id, id)
+    WHERE is_email_verified = false AND is_active = true;
+
+CREATE TRIGGER update_email_campaigns_updated_at BEFORE UPDATE ON email_campaigns FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+ALTER TABLE email_campaigns ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY email_campaigns_tenant_policy ON email_campaigns
+    FOR ALL
+    TO PUBLIC
+    USING (university_id = COALESCE(current_setting('app.current_university_id', true)::bigint, university_id));
+
+COMMENT ON TABLE email_campaigns IS 'Resumable bulk email campaigns processed in keyset chunks';
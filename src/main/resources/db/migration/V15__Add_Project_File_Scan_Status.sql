@@ -0,0 +1,22 @@
+-- Migration: Quarantine scan status for project files
+-- Version: V15
+-- Description: Uploads are stored in quarantine as PENDING and scanned in the background, then
+--              promoted to CLEAN or marked INFECTED / FAILED. Files uploaded before this version
+--              were scanned synchronously and are CLEAN.
+
+ALTER TABLE project_files
+    ADD COLUMN virus_scan_status VARCHAR(20) NOT NULL DEFAULT 'CLEAN',
+    ADD COLUMN scan_attempts INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN scanned_at TIMESTAMP;
+
+ALTER TABLE project_files ALTER COLUMN virus_scan_status SET DEFAULT 'PENDING';
+
+ALTER TABLE project_files
+    ADD CONSTRAINT chk_project_files_virus_scan_status
+    CHECK (virus_scan_status IN ('PENDING', 'CLEAN', 'INFECTED', 'FAILED'));
+
+-- Sweeper lookup of uploads whose scan was lost (restart, full queue)
+CREATE INDEX idx_project_files_scan_pending ON project_files(uploaded_at)
+    WHERE virus_scan_status = 'PENDING';
+
+COMMENT ON COLUMN project_files.virus_scan_status IS 'PENDING while in quarantine; only CLEAN files can be downloaded';
@@ -0,0 +1,31 @@
+-- Migration: Content-addressed file blobs
+-- Version: V16
+-- Description: Clean project files are stored once per (university, SHA-256) under
+--              uploads/blobs/{university}/{aa}/{bb}/{hash} and shared by every project file with
+--              the same content. ref_count is the number of project_files rows pointing at the
+--              blob; the blob file is deleted when it drops to zero. Files stored before this
+--              version keep their own paths and have no content_hash.
+
+CREATE TABLE file_blobs (
+    university_id BIGINT NOT NULL REFERENCES universities(id) ON DELETE CASCADE,
+    content_hash VARCHAR(64) NOT NULL,
+    storage_path VARCHAR(512) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    ref_count INTEGER NOT NULL DEFAULT 1,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (university_id, content_hash),
+    CONSTRAINT chk_file_blobs_ref_count CHECK (ref_count >= 0)
+);
+
+ALTER TABLE file_blobs ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY file_blobs_tenant_policy ON file_blobs
+    FOR ALL
+    TO PUBLIC
+    USING (university_id = COALESCE(current_setting('app.current_university_id', true)::bigint, university_id));
+
+ALTER TABLE project_files ADD COLUMN content_hash VARCHAR(64);
+
+COMMENT ON TABLE file_blobs IS 'Deduplicated file content per university, reference-counted by project_files.content_hash';
+COMMENT ON COLUMN project_files.content_hash IS 'SHA-256 of the content, computed while the upload is written; NULL for files stored before V16';
@@ -0,0 +1,39 @@
+-- Migration: Resumable upload sessions
+-- Version: V17
+-- Description: A large project file can be uploaded in chunks over several requests. Each
+--              session owns one quarantined file that chunks are written into at their
+--              offsets; received_bytes is the length of the prefix written so far, and the
+--              next chunk must start there. A chunk is written under a short lease
+--              (writer_token) so two requests never write the same session at once. The
+--              row is deleted when the upload completes, is cancelled or expires.
+
+CREATE TABLE upload_sessions (
+    id UUID PRIMARY KEY,
+    university_id BIGINT NOT NULL REFERENCES universities(id) ON DELETE CASCADE,
+    project_id BIGINT NOT NULL REFERENCES projects(id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    original_filename VARCHAR(255) NOT NULL,
+    content_type VARCHAR(100) NOT NULL,
+    total_size BIGINT NOT NULL,
+    received_bytes BIGINT NOT NULL DEFAULT 0,
+    storage_path VARCHAR(512) NOT NULL,
+    writer_token UUID,
+    writer_since TIMESTAMP WITH TIME ZONE,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+
+    CONSTRAINT chk_upload_sessions_received CHECK (received_bytes >= 0 AND received_bytes <= total_size)
+);
+
+CREATE INDEX idx_upload_sessions_expires_at ON upload_sessions(expires_at);
+
+ALTER TABLE upload_sessions ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY upload_sessions_tenant_policy ON upload_sessions
+    FOR ALL
+    TO PUBLIC
+    USING (university_id = COALESCE(current_setting('app.current_university_id', true)::bigint, university_id));
+
+COMMENT ON TABLE upload_sessions IS 'In-progress resumable uploads of project files';
+COMMENT ON COLUMN upload_sessions.received_bytes IS 'Bytes written from offset 0; the offset the next chunk must start at';
+COMMENT ON COLUMN upload_sessions.writer_token IS 'Lease held while a chunk is being written; stale after takharrujy.files.upload.lease-timeout';
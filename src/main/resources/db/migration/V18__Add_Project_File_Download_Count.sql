@@ -0,0 +1,10 @@
+-- Migration: Download counts for project files
+-- Version: V18
+-- Description: Downloads are counted in memory on each node and added to download_count in
+--              batches (download_count = download_count + n), so a download never updates the
+--              file row itself. The application maps the column read-only.
+
+ALTER TABLE project_files
+    ADD COLUMN download_count BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN project_files.download_count IS 'Flushed downloads; counts still buffered on application nodes are added on read';
@@ -0,0 +1,17 @@
+-- Migration: Indexes for storage reconciliation
+-- Version: V19
+-- Description: The storage reconciliation job lists the upload tree and looks up, a batch of
+--              objects at a time, which of them are still referenced by a project file, an
+--              upload session or a profile picture. Without these indexes each batch would scan
+--              the whole table.
+
+CREATE INDEX idx_project_files_storage_path ON project_files(storage_path);
+
+-- Rendered thumbnails are named after the content they were rendered from
+CREATE INDEX idx_project_files_content_hash ON project_files(content_hash)
+    WHERE content_hash IS NOT NULL;
+
+CREATE INDEX idx_upload_sessions_storage_path ON upload_sessions(storage_path);
+
+CREATE INDEX idx_users_profile_picture_url ON users(profile_picture_url)
+    WHERE profile_picture_url IS NOT NULL;
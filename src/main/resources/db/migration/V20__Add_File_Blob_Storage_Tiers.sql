@@ -0,0 +1,25 @@
+-- Migration: Hot and cold storage tiers for file blobs
+-- Version: V20
+-- Description: Blobs referenced only by ARCHIVED or COMPLETED projects are moved to a cold storage
+--              backend, text-like content compressed, and brought back to the hot tier when an active
+--              project uses them again. storage_path is where the content is read from in either tier;
+--              project_files.storage_path follows it. cold_path is kept after a blob returns to the hot
+--              tier, so moving it out again needs no copy. hot_copy_expires_at is set while the hot copy
+--              of a cold blob is left in place for downloads that started before the move.
+
+ALTER TABLE file_blobs
+    ADD COLUMN tier VARCHAR(10) NOT NULL DEFAULT 'HOT',
+    ADD COLUMN cold_path VARCHAR(512),
+    ADD COLUMN hot_copy_expires_at TIMESTAMP WITH TIME ZONE;
+
+ALTER TABLE file_blobs
+    ADD CONSTRAINT chk_file_blobs_tier CHECK (tier IN ('HOT', 'COLD'));
+
+CREATE INDEX idx_file_blobs_tier ON file_blobs(tier, university_id, content_hash);
+
+CREATE INDEX idx_file_blobs_hot_copy_expires_at ON file_blobs(hot_copy_expires_at)
+    WHERE hot_copy_expires_at IS NOT NULL;
+
+COMMENT ON COLUMN file_blobs.tier IS 'HOT while any referencing project is active; COLD once all of them are archived or completed';
+COMMENT ON COLUMN file_blobs.cold_path IS 'Copy in the cold tier, kept after the blob returns to the hot tier';
+COMMENT ON COLUMN file_blobs.hot_copy_expires_at IS 'When the hot copy of a cold blob is deleted';
@@ -0,0 +1,23 @@
+-- Migration: Integrity verification of file blobs
+-- Version: V21
+-- Description: A background scrubber re-reads every blob once per pass and compares the SHA-256
+--              of what is stored with content_hash. verified_at records when a blob was last
+--              checked, which is also how a pass spanning several days resumes after a restart:
+--              blobs are checked oldest verification first. integrity_status is NULL until the
+--              first check.
+
+ALTER TABLE file_blobs
+    ADD COLUMN verified_at TIMESTAMP WITH TIME ZONE,
+    ADD COLUMN integrity_status VARCHAR(10);
+
+ALTER TABLE file_blobs
+    ADD CONSTRAINT chk_file_blobs_integrity_status CHECK (integrity_status IN ('OK', 'CORRUPT', 'MISSING'));
+
+CREATE INDEX idx_file_blobs_verified_at ON file_blobs(verified_at NULLS FIRST, university_id, content_hash)
+    WHERE ref_count > 0;
+
+CREATE INDEX idx_file_blobs_integrity_failures ON file_blobs(verified_at)
+    WHERE integrity_status IN ('CORRUPT', 'MISSING');
+
+COMMENT ON COLUMN file_blobs.verified_at IS 'When the stored content was last re-read and checked against content_hash';
+COMMENT ON COLUMN file_blobs.integrity_status IS 'Result of the last check: OK, CORRUPT (digest or size differs) or MISSING';
@@ -0,0 +1,92 @@
+-- Migration: Storage usage counters
+-- Version: V22
+-- Description: Bytes and file counts of project files per university, per project and per user
+--              (within a university), kept up to date by a trigger on project_files so quota
+--              checks read one row per scope instead of summing file_size. The trigger fires on
+--              every insert, delete and relevant update, including deletes cascaded from projects,
+--              in the same transaction as the change. INFECTED files are not counted: their
+--              content is deleted when the scan fails.
+--
+--              The trigger updates the UNIVERSITY row first, so writers of one university are
+--              ordered on that row and the periodic reconciliation can take it to stop changes
+--              while it recounts.
+
+CREATE TABLE storage_usage (
+    university_id BIGINT NOT NULL REFERENCES universities(id) ON DELETE CASCADE,
+    scope VARCHAR(10) NOT NULL,
+    scope_id BIGINT NOT NULL,
+    bytes BIGINT NOT NULL DEFAULT 0,
+    files BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (university_id, scope, scope_id),
+    CONSTRAINT chk_storage_usage_scope CHECK (scope IN ('UNIVERSITY', 'PROJECT', 'USER'))
+);
+
+-- Largest consumers first for the admin usage report
+CREATE INDEX idx_storage_usage_scope_bytes ON storage_usage(scope, bytes DESC);
+
+ALTER TABLE storage_usage ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY storage_usage_tenant_policy ON storage_usage
+    FOR ALL
+    TO PUBLIC
+    USING (university_id = COALESCE(current_setting('app.current_university_id', true)::bigint, university_id));
+
+CREATE OR REPLACE FUNCTION add_storage_usage(p_university_id BIGINT, p_project_id BIGINT, p_user_id BIGINT,
+                                             p_bytes BIGINT, p_files INTEGER)
+RETURNS VOID AS $$
+BEGIN
+    INSERT INTO storage_usage (university_id, scope, scope_id, bytes, files)
+    VALUES (p_university_id, 'UNIVERSITY', p_university_id, p_bytes, p_files),
+           (p_university_id, 'PROJECT', p_project_id, p_bytes, p_files),
+           (p_university_id, 'USER', p_user_id, p_bytes, p_files)
+    ON CONFLICT (university_id, scope, scope_id) DO UPDATE
+    SET bytes = storage_usage.bytes + EXCLUDED.bytes,
+        files = storage_usage.files + EXCLUDED.files,
+        updated_at = CURRENT_TIMESTAMP;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION track_project_file_usage()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+       AND (OLD.university_id, OLD.project_id, OLD.uploaded_by_user_id, OLD.file_size,
+            OLD.virus_scan_status = 'INFECTED')
+           IS NOT DISTINCT FROM
+           (NEW.university_id, NEW.project_id, NEW.uploaded_by_user_id, NEW.file_size,
+            NEW.virus_scan_status = 'INFECTED') THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.virus_scan_status <> 'INFECTED' THEN
+        PERFORM add_storage_usage(OLD.university_id, OLD.project_id, OLD.uploaded_by_user_id, -OLD.file_size, -1);
+    END IF;
+    IF TG_OP IN ('UPDATE', 'INSERT') AND NEW.virus_scan_status <> 'INFECTED' THEN
+        PERFORM add_storage_usage(NEW.university_id, NEW.project_id, NEW.uploaded_by_user_id, NEW.file_size, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER track_project_file_usage
+AFTER INSERT OR DELETE OR UPDATE OF university_id, project_id, uploaded_by_user_id, file_size, virus_scan_status
+ON project_files
+FOR EACH ROW EXECUTE FUNCTION track_project_file_usage();
+
+-- Current usage
+INSERT INTO storage_usage (university_id, scope, scope_id, bytes, files)
+SELECT university_id, 'UNIVERSITY', university_id, SUM(file_size), COUNT(*)
+FROM project_files WHERE virus_scan_status <> 'INFECTED'
+GROUP BY university_id
+UNION ALL
+SELECT university_id, 'PROJECT', project_id, SUM(file_size), COUNT(*)
+FROM project_files WHERE virus_scan_status <> 'INFECTED'
+GROUP BY university_id, project_id
+UNION ALL
+SELECT university_id, 'USER', uploaded_by_user_id, SUM(file_size), COUNT(*)
+FROM project_files WHERE virus_scan_status <> 'INFECTED'
+GROUP BY university_id, uploaded_by_user_id;
+
+COMMENT ON TABLE storage_usage IS 'Bytes and files of non-INFECTED project files per university, project and user, maintained by trigger';
+COMMENT ON COLUMN storage_usage.scope_id IS 'universities.id, projects.id or users.id depending on scope';
@@ -0,0 +1,45 @@
+-- Migration: Full-text search of document content
+-- Version: V23
+-- Description: The text of clean .txt, .docx, .pptx and .xlsx blobs is extracted in the background
+--              and stored as a tsvector on the blob, so project files sharing content share one
+--              index entry. text_status is NULL for blobs that are not documents, PENDING until the
+--              text is extracted, then INDEXED, UNSUPPORTED (no content type that can be read) or
+--              FAILED (unreadable or malformed). A PENDING blob whose text_updated_at is old is
+--              resubmitted by the sweeper.
+--
+--              Text is normalized before it gets here (NFKC, lower case, Arabic diacritics and
+--              tatweel removed, alef/yeh/teh marbuta variants folded) and indexed with the
+--              'english' configuration: English words are stemmed, Arabic words are left as they
+--              are by the stemmer and so match exactly after normalization. Queries go through
+--              the same normalization.
+
+ALTER TABLE file_blobs
+    ADD COLUMN search_vector TSVECTOR,
+    ADD COLUMN text_status VARCHAR(12),
+    ADD COLUMN text_updated_at TIMESTAMP WITH TIME ZONE;
+
+ALTER TABLE file_blobs
+    ADD CONSTRAINT chk_file_blobs_text_status CHECK (text_status IN ('PENDING', 'INDEXED', 'UNSUPPORTED', 'FAILED'));
+
+CREATE INDEX idx_file_blobs_search_vector ON file_blobs USING GIN (search_vector);
+
+CREATE INDEX idx_file_blobs_text_pending ON file_blobs(text_updated_at)
+    WHERE text_status = 'PENDING';
+
+-- Documents stored before this version are extracted by the sweeper
+UPDATE file_blobs b
+SET text_status = 'PENDING', text_updated_at = TIMESTAMP WITH TIME ZONE 'epoch'
+WHERE b.ref_count > 0
+  AND EXISTS (
+      SELECT 1 FROM project_files f
+      WHERE f.university_id = b.university_id AND f.content_hash = b.content_hash
+        AND f.virus_scan_status = 'CLEAN'
+        AND f.content_type IN (
+            'text/plain',
+            'application/vnd.openxmlformats-officedocument.wordprocessingml.document',
+            'application/vnd.openxmlformats-officedocument.presentationml.presentation',
+            'application/vnd.openxmlformats-officedocument.spreadsheetml.sheet'));
+
+COMMENT ON COLUMN file_blobs.search_vector IS 'Normalized document text for full-text search, to_tsvector(''english'', ...)';
+COMMENT ON COLUMN file_blobs.text_status IS 'Text extraction: NULL (not a document), PENDING, INDEXED, UNSUPPORTED or FAILED';
+COMMENT ON COLUMN file_blobs.text_updated_at IS 'When text_status last changed';
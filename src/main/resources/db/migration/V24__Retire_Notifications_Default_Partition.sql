@@ -0,0 +1,30 @@
+-- Migration: Retire the default notifications partition
+-- Version: V24
+-- Description: Expired monthly partitions are detached with DETACH PARTITION ... CONCURRENTLY
+--              before they are dropped, so retention never takes an ACCESS EXCLUSIVE lock on
+--              notifications. PostgreSQL (14+) refuses a concurrent detach while the table has a
+--              default partition, so the default partition is removed: any rows in it move to
+--              monthly partitions created for them. Inserts now rely on the maintenance job
+--              keeping partitions created partitions-ahead months in advance.
+
+ALTER TABLE notifications DETACH PARTITION notifications_default;
+
+DO $$
+DECLARE
+    m TIMESTAMP;
+BEGIN
+    FOR m IN SELECT DISTINCT date_trunc('month', created_at) FROM notifications_default
+    LOOP
+        PERFORM create_notification_partition(m);
+    END LOOP;
+END $$;
+
+INSERT INTO notifications (id, university_id, title, message, read, type,
+                           resource_type, resource_id, occurrence_count, last_occurred_at,
+                           user_id, created_by, created_at, updated_by, updated_at, version)
+SELECT id, university_id, title, message, read, type,
+       resource_type, resource_id, occurrence_count, last_occurred_at,
+       user_id, created_by, created_at, updated_by, updated_at, version
+FROM notifications_default;
+
+DROP TABLE notifications_default;
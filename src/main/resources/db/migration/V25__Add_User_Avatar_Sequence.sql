@@ -0,0 +1,11 @@
+-- Migration: Order avatar changes
+-- Version: V25
+-- Description: Avatars are rendered in the background, so two uploads by the same user can
+--              finish out of order. Every avatar upload draws a number from avatar_submission_seq,
+--              carried by its job; users.avatar_seq is the number of the avatar currently shown,
+--              and a job only applies when its number is higher.
+
+CREATE SEQUENCE avatar_submission_seq;
+
+ALTER TABLE users
+    ADD COLUMN avatar_seq BIGINT NOT NULL DEFAULT 0;
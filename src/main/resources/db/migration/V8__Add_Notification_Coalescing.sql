@@ -0,0 +1,34 @@
+-- Migration: Notification coalescing and digest windows
+-- Version: V8
+-- Description: Lets repeated notifications about the same resource merge into one row with a counter,
+--              and adds a per-user digest frequency for periodic summary emails
+
+-- Coalescing key and counter on notifications
+ALTER TABLE notifications
+ADD COLUMN resource_type VARCHAR(50),
+ADD COLUMN resource_id BIGINT,
+ADD COLUMN occurrence_count INTEGER NOT NULL DEFAULT 1,
+ADD COLUMN last_occurred_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+UPDATE notifications SET last_occurred_at = created_at;
+
+-- Lookup of the open (unread) row for a (recipient, type, resource) key inside the coalescing window
+CREATE INDEX idx_notifications_coalesce
+    ON notifications(user_id, type, resource_type, resource_id, last_occurred_at DESC)
+    WHERE read = false AND resource_id IS NOT NULL;
+
+-- Digest scan: notifications of a user since the last digest
+CREATE INDEX idx_notifications_user_last_occurred ON notifications(user_id, last_occurred_at);
+
+-- Digest preferences
+ALTER TABLE user_preferences
+ADD COLUMN digest_frequency VARCHAR(20) NOT NULL DEFAULT 'NONE'
+    CHECK (digest_frequency IN ('NONE', 'HOURLY', 'DAILY')),
+ADD COLUMN last_digest_sent_at TIMESTAMP WITH TIME ZONE;
+
+CREATE INDEX idx_user_preferences_digest ON user_preferences(digest_frequency, last_digest_sent_at)
+    WHERE digest_frequency <> 'NONE';
+
+COMMENT ON COLUMN notifications.occurrence_count IS 'Number of events merged into this notification within the coalescing window';
+COMMENT ON COLUMN notifications.last_occurred_at IS 'Time of the most recent event merged into this notification';
+COMMENT ON COLUMN user_preferences.digest_frequency IS 'Periodic notification digest email: NONE, HOURLY or DAILY';
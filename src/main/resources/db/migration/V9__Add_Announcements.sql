@@ -0,0 +1,59 @@
+-- Migration: University-wide announcements
+-- Version: V9
+-- Description: One row per announcement, read on demand into each user's inbox (fan-out on read),
+--              with per-user read watermarks instead of per-user notification rows
+
+CREATE TABLE announcements (
+    id BIGSERIAL PRIMARY KEY,
+    university_id BIGINT NOT NULL REFERENCES universities(id) ON DELETE CASCADE,
+    department_id BIGINT REFERENCES departments(id) ON DELETE CASCADE, -- NULL = whole university
+
+    title VARCHAR(200) NOT NULL,
+    message VARCHAR(1000) NOT NULL,
+    author_id BIGINT REFERENCES users(id) ON DELETE SET NULL,
+
+    -- Optional background materialization into per-user notification rows
+    materialize BOOLEAN NOT NULL DEFAULT false,
+    materialized_through_user_id BIGINT, -- keyset cursor: users with id <= this have a notification row
+    materialized_at TIMESTAMP WITH TIME ZONE,
+
+    -- Audit fields
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by VARCHAR(255),
+    updated_by VARCHAR(255),
+    version BIGINT DEFAULT 0
+);
+
+CREATE INDEX idx_announcements_audience ON announcements(university_id, department_id, id DESC);
+CREATE INDEX idx_announcements_pending_materialization ON announcements(id)
+    WHERE materialize = true AND materialized_at IS NULL;
+
+-- Per-user high-water mark: every announcement with id <= last_read_id counts as read
+CREATE TABLE announcement_read_watermarks (
+    user_id BIGINT PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    university_id BIGINT NOT NULL REFERENCES universities(id) ON DELETE CASCADE,
+    last_read_id BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Keyset scan of the audience during materialization
+CREATE INDEX IF NOT EXISTS idx_users_university_dept_id ON users(university_id, department_id, id) WHERE is_active = true;
+
+CREATE TRIGGER update_announcements_updated_at BEFORE UPDATE ON announcements FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+ALTER TABLE announcements ENABLE ROW LEVEL SECURITY;
+ALTER TABLE announcement_read_watermarks ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY announcements_tenant_policy ON announcements
+    FOR ALL
+    TO PUBLIC
+    USING (university_id = COALESCE(current_setting('app.current_university_id', true)::bigint, university_id));
+
+CREATE POLICY announcement_read_watermarks_tenant_policy ON announcement_read_watermarks
+    FOR ALL
+    TO PUBLIC
+    USING (university_id = COALESCE(current_setting('app.current_university_id', true)::bigint, university_id));
+
+COMMENT ON TABLE announcements IS 'University or department wide announcements, merged into user inboxes at read time';
+COMMENT ON TABLE announcement_read_watermarks IS 'Per-user read high-water mark over announcement ids';
@@ -0,0 +1,144 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.entity.ChatMessage;
+import com.university.takharrujy.domain.entity.User;
+import com.university.takharrujy.domain.repository.ChatMessageRepository;
+import com.university.takharrujy.domain.repository.ProjectRepository;
+import com.university.takharrujy.domain.repository.UserRepository;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.service.ChatStreamBroker;
+import com.university.takharrujy.presentation.dto.chat.ChatMessageResponse;
+import com.university.takharrujy.presentation.dto.chat.MessageRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ChatService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ChatService Tests")
+class ChatServiceTest {
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ChatStreamBroker chatStreamBroker;
+
+    @Mock
+    private ChatReadWatermarkService chatReadWatermarkService;
+
+    @InjectMocks
+    private ChatService chatService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(chatService, "maxPageSize", 100);
+        ReflectionTestUtils.setField(chatService, "maxCatchUp", 200);
+    }
+
+    @Test
+    @DisplayName("Should store message and publish it")
+    void shouldStoreAndPublishMessage() {
+        // Given
+        User sender = new User();
+        sender.setId(7L);
+        sender.setUniversityId(1L);
+        when(projectRepository.existsById(5L)).thenReturn(true);
+        when(projectRepository.isParticipant(5L, 7L)).thenReturn(true);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(sender));
+        when(chatMessageRepository.save(any(ChatMessage.class))).thenAnswer(invocation -> {
+            ChatMessage message = invocation.getArgument(0);
+            message.setId(101L);
+            return message;
+        });
+
+        // When
+        ChatMessageResponse response = chatService.sendMessage(5L, new MessageRequest(5L, "  Hello team  "), 7L);
+
+        // Then
+        assertThat(response.id()).isEqualTo(101L);
+        assertThat(response.content()).isEqualTo("Hello team");
+        assertThat(response.read()).isTrue();
+
+        ArgumentCaptor<ChatMessageResponse> published = ArgumentCaptor.forClass(ChatMessageResponse.class);
+        verify(chatStreamBroker).publish(published.capture());
+        assertThat(published.getValue().projectId()).isEqualTo(5L);
+        verify(chatReadWatermarkService).markReadThrough(7L, 5L, 101L);
+    }
+
+    @Test
+    @DisplayName("Should reject messages from non participants")
+    void shouldRejectNonParticipant() {
+        // Given
+        when(projectRepository.existsById(5L)).thenReturn(true);
+        when(projectRepository.isParticipant(5L, 9L)).thenReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> chatService.sendMessage(5L, new MessageRequest(null, "Hi"), 9L))
+                .isInstanceOf(BusinessException.class);
+        verify(chatMessageRepository, never()).save(any());
+        verifyNoInteractions(chatStreamBroker);
+    }
+
+    @Test
+    @DisplayName("Should page history with the keyset cursor")
+    void shouldPageHistoryWithCursor() {
+        // Given
+        when(projectRepository.existsById(5L)).thenReturn(true);
+        when(projectRepository.isParticipant(5L, 7L)).thenReturn(true);
+        ChatMessage older = new ChatMessage(1L, 5L, 8L, "older");
+        older.setId(250L);
+        ChatMessage newer = new ChatMessage(1L, 5L, 8L, "newer");
+        newer.setId(280L);
+        when(chatMessageRepository.findByProjectIdAndIdLessThanOrderByIdDesc(eq(5L), eq(300L), any(Pageable.class)))
+                .thenReturn(List.of(newer, older));
+        when(chatReadWatermarkService.getWatermark(7L, 5L)).thenReturn(260L);
+
+        // When
+        List<ChatMessageResponse> history = chatService.getHistory(5L, 300L, 1000, 7L);
+
+        // Then
+        assertThat(history).extracting(ChatMessageResponse::read).containsExactly(false, true);
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(chatMessageRepository).findByProjectIdAndIdLessThanOrderByIdDesc(eq(5L), eq(300L), page.capture());
+        assertThat(page.getValue().getPageSize()).isEqualTo(100);
+        verify(chatMessageRepository, never()).findByProjectIdOrderByIdDesc(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should record read position without touching messages")
+    void shouldRecordReadPosition() {
+        // Given
+        when(projectRepository.existsById(5L)).thenReturn(true);
+        when(projectRepository.isParticipant(5L, 7L)).thenReturn(true);
+
+        // When
+        chatService.markAsRead(5L, 280L, 7L);
+
+        // Then
+        verify(chatReadWatermarkService).markReadThrough(7L, 5L, 280L);
+        verifyNoInteractions(chatMessageRepository);
+    }
+}
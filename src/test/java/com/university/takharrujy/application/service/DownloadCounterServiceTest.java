@@ -0,0 +1,159 @@
+package com.university.takharrujy.application.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DownloadCounterService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DownloadCounterService Tests")
+class DownloadCounterServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DownloadCounterService downloadCounterService;
+
+    @BeforeEach
+    void setUp() {
+        downloadCounterService = new DownloadCounterService(jdbcTemplate, new SimpleMeterRegistry(),
+            transactionManager);
+        ReflectionTestUtils.setField(downloadCounterService, "batchSize", 500);
+    }
+
+    @Test
+    @DisplayName("Should flush concurrent downloads as one relative update per file")
+    void shouldFlushAggregatedCounts() throws InterruptedException {
+        // Given - 8 threads downloading two files
+        ExecutorService downloaders = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            downloaders.execute(() -> {
+                for (int n = 0; n < 1000; n++) {
+                    downloadCounterService.record(42L);
+                }
+                downloadCounterService.record(7L);
+            });
+        }
+        downloaders.shutdown();
+        assertThat(downloaders.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        downloadCounterService.flush();
+
+        // Then - ordered by file id
+        List<Object[]> increments = captureFlush();
+        assertThat(increments).containsExactly(new Object[] {8L, 7L}, new Object[] {8000L, 42L});
+        assertThat(downloadCounterService.count(42L, 100L)).isEqualTo(100L);
+    }
+
+    @Test
+    @DisplayName("Should add counts not yet flushed to the persisted count")
+    void shouldMergePendingCounts() {
+        // Given
+        downloadCounterService.record(42L);
+        downloadCounterService.record(42L);
+
+        // When / Then
+        assertThat(downloadCounterService.count(42L, 10L)).isEqualTo(12L);
+        assertThat(downloadCounterService.count(7L, 10L)).isEqualTo(10L);
+    }
+
+    @Test
+    @DisplayName("Should keep the counts of a failed flush for the next one")
+    void shouldRetryFailedFlush() {
+        // Given
+        downloadCounterService.record(42L);
+        downloadCounterService.record(42L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenThrow(new QueryTimeoutException("timeout"))
+            .thenReturn(new int[] {1});
+
+        // When
+        downloadCounterService.flush();
+        downloadCounterService.record(42L);
+        downloadCounterService.flush();
+
+        // Then
+        assertThat(downloadCounterService.count(42L, 0L)).isZero();
+        List<Object[]> increments = captureFlushes(2).get(1);
+        assertThat(increments).containsExactly(new Object[] {3L, 42L});
+    }
+
+    @Test
+    @DisplayName("Should roll back a batch that fails partway, and keep only its counts")
+    void shouldRollBackFailedBatch() {
+        // Given - one file per batch; the second batch fails after some of its rows were updated
+        ReflectionTestUtils.setField(downloadCounterService, "batchSize", 1);
+        TransactionStatus first = mock(TransactionStatus.class);
+        TransactionStatus second = mock(TransactionStatus.class);
+        when(transactionManager.getTransaction(any())).thenReturn(first, second);
+        downloadCounterService.record(7L);
+        downloadCounterService.record(42L);
+        downloadCounterService.record(42L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+            .thenReturn(new int[] {1})
+            .thenThrow(new QueryTimeoutException("timeout"));
+
+        // When
+        downloadCounterService.flush();
+
+        // Then - nothing of the failed batch is committed, so re-adding it cannot double count
+        verify(transactionManager).commit(first);
+        verify(transactionManager).rollback(second);
+        verify(transactionManager, never()).commit(second);
+        assertThat(downloadCounterService.count(7L, 0L)).isZero();
+        assertThat(downloadCounterService.count(42L, 0L)).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Should not write when nothing was downloaded")
+    void shouldSkipEmptyFlush() {
+        // Given
+        downloadCounterService.record(42L);
+        downloadCounterService.flush();
+
+        // When - idle for two flushes, then evicted
+        downloadCounterService.flush();
+        downloadCounterService.flush();
+
+        // Then
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        assertThat(downloadCounterService.count(42L, 5L)).isEqualTo(5L);
+    }
+
+    private List<Object[]> captureFlush() {
+        return captureFlushes(1).get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Object[]>> captureFlushes(int times) {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(times)).batchUpdate(
+            eq("UPDATE project_files SET download_count = download_count + ? WHERE id = ?"), captor.capture());
+        return captor.getAllValues().stream().map(List::copyOf).toList();
+    }
+}
@@ -0,0 +1,99 @@
+package com.university.takharrujy.application.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FileBlobService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FileBlobService Tests")
+class FileBlobServiceTest {
+
+    private static final String HASH = "ab".repeat(32);
+    private static final String BLOB_PATH = "/uploads/blobs/3/ab/ab/" + HASH;
+    private static final String COLD_PATH = "/uploads/cold/3/ab/ab/" + HASH + ".gz";
+    private static final String QUARANTINE_PATH = "/uploads/quarantine/upload.pdf";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private FileStorageService storage;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FileBlobService fileBlobService;
+
+    @BeforeEach
+    void setUp() {
+        fileBlobService = new FileBlobService(jdbcTemplate, storage, transactionManager);
+        when(storage.blobStoragePath(3L, HASH)).thenReturn(BLOB_PATH);
+    }
+
+    @Test
+    @DisplayName("Should return a cold blob to the hot tier when its content is uploaded again")
+    void shouldReturnColdBlobToHotTierOnAcquire() throws Exception {
+        // Given
+        acquireReturns(false, "COLD", COLD_PATH);
+
+        // When
+        String path = fileBlobService.acquire(3L, HASH, QUARANTINE_PATH, 1024L);
+
+        // Then - the upload becomes the hot copy and files pointing at the cold copy follow it
+        assertThat(path).isEqualTo(BLOB_PATH);
+        InOrder inOrder = inOrder(jdbcTemplate, storage);
+        inOrder.verify(jdbcTemplate).query(contains("pg_advisory_xact_lock"), any(ResultSetExtractor.class), eq(3L), eq(HASH));
+        inOrder.verify(jdbcTemplate).queryForObject(contains("INSERT INTO file_blobs"), any(RowMapper.class),
+            eq(3L), eq(HASH), eq(BLOB_PATH), eq(1024L));
+        inOrder.verify(storage).stageBlob(QUARANTINE_PATH, BLOB_PATH);
+        inOrder.verify(jdbcTemplate).update(contains("SET tier = 'HOT'"), eq(BLOB_PATH), eq(3L), eq(HASH));
+        inOrder.verify(jdbcTemplate).update(contains("UPDATE project_files"), eq(BLOB_PATH), eq(COLD_PATH));
+    }
+
+    @Test
+    @DisplayName("Should only add a reference to an existing hot blob")
+    void shouldDeduplicateAgainstHotBlob() throws Exception {
+        // Given
+        acquireReturns(false, "HOT", BLOB_PATH);
+
+        // When
+        String path = fileBlobService.acquire(3L, HASH, QUARANTINE_PATH, 1024L);
+
+        // Then
+        assertThat(path).isEqualTo(BLOB_PATH);
+        verify(storage).stageBlob(QUARANTINE_PATH, BLOB_PATH);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    /**
+     * Answer the acquire upsert with one row, mapped by the service's own row mapper
+     */
+    private void acquireReturns(boolean inserted, String tier, String storagePath) {
+        when(jdbcTemplate.queryForObject(contains("INSERT INTO file_blobs"), any(RowMapper.class), any(Object[].class)))
+            .thenAnswer(invocation -> {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getBoolean(1)).thenReturn(inserted);
+                when(rs.getString(2)).thenReturn(tier);
+                when(rs.getString(3)).thenReturn(storagePath);
+                RowMapper<?> mapper = invocation.getArgument(1);
+                return mapper.mapRow(rs, 0);
+            });
+    }
+}
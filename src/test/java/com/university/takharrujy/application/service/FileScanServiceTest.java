@@ -0,0 +1,225 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.entity.ProjectFile;
+import com.university.takharrujy.domain.entity.User;
+import com.university.takharrujy.domain.enums.NotificationType;
+import com.university.takharrujy.domain.enums.VirusScanStatus;
+import com.university.takharrujy.domain.repository.ProjectFileRepository;
+import com.university.takharrujy.domain.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FileScanService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FileScanService Tests")
+class FileScanServiceTest {
+
+    private static final String QUARANTINE_PATH = "/uploads/quarantine/q_1234.pdf";
+    private static final String HASH = "0d5a6f0b3c9e4e1f8a2b7c6d5e4f3a2b1c0d9e8f7a6b5c4d3e2f1a0b9c8d7e6f";
+    private static final String BLOB_PATH = "/uploads/blobs/3/0d/5a/" + HASH;
+
+    @Mock
+    private ProjectFileRepository repository;
+
+    @Mock
+    private FileStorageService storage;
+
+    @Mock
+    private VirusScanService virusScanService;
+
+    @Mock
+    private FileBlobService fileBlobService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private ImagePipelineService imagePipelineService;
+
+    @Mock
+    private TextExtractionService textExtractionService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FileScanService fileScanService;
+    private ProjectFile file;
+    private User uploader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fileScanService = new FileScanService(repository, storage, virusScanService, fileBlobService, userRepository,
+                notificationService, imagePipelineService, textExtractionService, new SimpleMeterRegistry(), transactionManager);
+        ReflectionTestUtils.setField(fileScanService, "maxAttempts", 3);
+
+        file = new ProjectFile();
+        file.setId(1L);
+        file.setProjectId(7L);
+        file.setUploadedByUserId(5L);
+        file.setOriginalFilename("report.pdf");
+        file.setContentType("application/pdf");
+        file.setFileSize(4L);
+        file.setStoragePath(QUARANTINE_PATH);
+        file.setFilename("q_1234.pdf");
+        file.setContentHash(HASH);
+        file.setVirusScanStatus(VirusScanStatus.PENDING);
+
+        uploader = new User();
+        uploader.setId(5L);
+
+        when(repository.findById(1L)).thenReturn(Optional.of(file));
+        lenient().when(fileBlobService.getUniversityId(7L)).thenReturn(3L);
+        lenient().when(storage.blobStoragePath(3L, HASH)).thenReturn(BLOB_PATH);
+        lenient().when(storage.openStream(QUARANTINE_PATH)).thenReturn(new ByteArrayInputStream("%PDF".getBytes()));
+        lenient().when(userRepository.findById(5L)).thenReturn(Optional.of(uploader));
+    }
+
+    @Test
+    @DisplayName("Should move a clean file into its content blob and notify the uploader")
+    void shouldPromoteCleanFile() throws IOException {
+        // Given
+        when(virusScanService.scanStoredFile(any(), eq("report.pdf"), eq("application/pdf"), eq(4L))).thenReturn(true);
+        when(repository.completeScan(eq(1L), eq(VirusScanStatus.CLEAN), eq(BLOB_PATH), eq(HASH), eq(HASH), any()))
+                .thenReturn(1);
+
+        // When
+        fileScanService.scan(1L);
+
+        // Then - uploaded before the transaction, quarantine dropped after it
+        InOrder order = inOrder(fileBlobService, storage);
+        order.verify(fileBlobService).stage(3L, HASH, QUARANTINE_PATH);
+        order.verify(fileBlobService).acquire(3L, HASH, QUARANTINE_PATH, 4L);
+        order.verify(storage).deleteFile(QUARANTINE_PATH);
+        verify(notificationService).createNotification(eq(uploader), eq("File Ready"), anyString(),
+                eq(NotificationType.FILE), eq("PROJECT_FILE"), eq(1L));
+        verifyNoInteractions(textExtractionService);
+    }
+
+    @Test
+    @DisplayName("Should queue the text of a clean document for indexing")
+    void shouldSubmitCleanDocumentForTextExtraction() throws IOException {
+        // Given
+        String docx = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+        file.setContentType(docx);
+        when(virusScanService.scanStoredFile(any(), eq("report.pdf"), eq(docx), eq(4L))).thenReturn(true);
+        when(repository.completeScan(eq(1L), eq(VirusScanStatus.CLEAN), eq(BLOB_PATH), eq(HASH), eq(HASH), any()))
+                .thenReturn(1);
+
+        // When
+        fileScanService.scan(1L);
+
+        // Then
+        verify(textExtractionService).submit(3L, HASH);
+        verifyNoInteractions(imagePipelineService);
+    }
+
+    @Test
+    @DisplayName("Should not rescan content already stored for the university")
+    void shouldSkipScanForKnownContent() throws IOException {
+        // Given
+        when(fileBlobService.exists(3L, HASH)).thenReturn(true);
+        when(repository.completeScan(eq(1L), eq(VirusScanStatus.CLEAN), eq(BLOB_PATH), eq(HASH), eq(HASH), any()))
+                .thenReturn(1);
+
+        // When
+        fileScanService.scan(1L);
+
+        // Then
+        verifyNoInteractions(virusScanService);
+        verify(storage, never()).openStream(anyString());
+        verify(fileBlobService).acquire(3L, HASH, QUARANTINE_PATH, 4L);
+    }
+
+    @Test
+    @DisplayName("Should delete an infected file and mark it INFECTED")
+    void shouldRejectInfectedFile() throws IOException {
+        // Given
+        when(virusScanService.scanStoredFile(any(), anyString(), anyString(), anyLong())).thenReturn(false);
+        when(repository.completeScan(eq(1L), eq(VirusScanStatus.INFECTED), eq(QUARANTINE_PATH),
+                eq("q_1234.pdf"), eq(HASH), any())).thenReturn(1);
+
+        // When
+        fileScanService.scan(1L);
+
+        // Then
+        verify(storage).deleteFile(QUARANTINE_PATH);
+        verify(fileBlobService, never()).acquire(anyLong(), anyString(), anyString(), anyLong());
+        verify(notificationService).createNotification(eq(uploader), eq("File Rejected"), anyString(),
+                eq(NotificationType.FILE), eq("PROJECT_FILE"), eq(1L));
+    }
+
+    @Test
+    @DisplayName("Should not take a blob reference when the file was settled elsewhere")
+    void shouldDropQuarantinedCopyWhenAlreadySettled() throws IOException {
+        // Given
+        when(virusScanService.scanStoredFile(any(), anyString(), anyString(), anyLong())).thenReturn(true);
+        when(repository.completeScan(anyLong(), any(), anyString(), anyString(), anyString(), any())).thenReturn(0);
+
+        // When
+        fileScanService.scan(1L);
+
+        // Then
+        verify(fileBlobService, never()).acquire(anyLong(), anyString(), anyString(), anyLong());
+        verify(storage).deleteFile(QUARANTINE_PATH);
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    @DisplayName("Should count failed attempts and give up after the last one")
+    void shouldMarkFailedAfterMaxAttempts() throws IOException {
+        // Given
+        when(storage.openStream(QUARANTINE_PATH)).thenThrow(new IOException("disk error"));
+
+        // When - first failure is only counted
+        fileScanService.scan(1L);
+
+        // Then
+        verify(repository).incrementScanAttempts(1L);
+        verify(repository, never()).completeScan(anyLong(), any(), anyString(), anyString(), anyString(), any());
+
+        // Given - this is the last attempt
+        file.setScanAttempts(2);
+        when(repository.completeScan(eq(1L), eq(VirusScanStatus.FAILED), eq(QUARANTINE_PATH),
+                eq("q_1234.pdf"), eq(HASH), any())).thenReturn(1);
+
+        // When
+        fileScanService.scan(1L);
+
+        // Then
+        verify(notificationService).createNotification(eq(uploader), eq("File Scan Failed"), anyString(),
+                eq(NotificationType.FILE), eq("PROJECT_FILE"), eq(1L));
+    }
+
+    @Test
+    @DisplayName("Should skip files that are no longer pending")
+    void shouldSkipSettledFile() throws IOException {
+        // Given
+        file.setVirusScanStatus(VirusScanStatus.CLEAN);
+
+        // When
+        fileScanService.scan(1L);
+
+        // Then
+        verifyNoInteractions(virusScanService, storage, fileBlobService, notificationService);
+    }
+}
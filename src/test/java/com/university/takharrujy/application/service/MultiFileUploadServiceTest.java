@@ -0,0 +1,257 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.repository.ProjectFileRepository;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.exception.FileStorageException;
+import com.university.takharrujy.infrastructure.exception.ValidationException;
+import com.university.takharrujy.presentation.dto.file.MultiFileUploadResponse;
+import com.university.takharrujy.presentation.dto.file.MultiFileUploadResponse.Item;
+import com.university.takharrujy.presentation.dto.file.MultiFileUploadResponse.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for MultiFileUploadService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MultiFileUploadService Tests")
+class MultiFileUploadServiceTest {
+
+    private static final Long PROJECT_ID = 7L;
+    private static final Long USER_ID = 5L;
+
+    @Mock
+    private ProjectFileService projectFileService;
+
+    @Mock
+    private ProjectFileRepository repository;
+
+    @Mock
+    private FileStorageService storage;
+
+    @Mock
+    private VirusScanService virusScanService;
+
+    @Mock
+    private FileScanService fileScanService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AuditorAware<String> auditorAware;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UploadIoScheduler uploadIoScheduler;
+
+    @Mock
+    private StorageUsageService storageUsageService;
+
+    private MultiFileUploadService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new MultiFileUploadService(projectFileService, repository, storage, virusScanService,
+                fileScanService, jdbcTemplate, auditorAware, transactionManager, uploadIoScheduler,
+                storageUsageService);
+        ReflectionTestUtils.setField(service, "maxFiles", 5);
+        ReflectionTestUtils.setField(service, "workers", 2);
+        ReflectionTestUtils.setField(service, "maxParallelPerRequest", 2);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    @DisplayName("Should store valid parts, reject invalid ones and insert all rows in one statement")
+    void shouldAcceptValidPartsAndRejectInvalidOnes() throws Exception {
+        // Given
+        givenProjectExists();
+        MultipartFile report = part("report.pdf", "application/pdf");
+        MultipartFile program = part("setup.exe", "application/x-msdownload");
+        MultipartFile notes = part("notes.txt", "text/plain");
+        lenient().doThrow(new ValidationException("Unsupported file type: application/x-msdownload"))
+                .when(projectFileService).validateUpload(eq("application/x-msdownload"), anyLong());
+        when(virusScanService.passesPrecheck(any(MultipartFile.class))).thenReturn(true);
+        givenStored(report, notes);
+        when(auditorAware.getCurrentAuditor()).thenReturn(Optional.of("student@example.edu"));
+        givenInsertReturnsIds();
+
+        // When
+        MultiFileUploadResponse response = service.upload(PROJECT_ID, USER_ID, List.of(report, program, notes));
+
+        // Then
+        assertThat(response.results()).extracting(Item::index, Item::status).containsExactly(
+                tuple(0, Status.ACCEPTED), tuple(1, Status.REJECTED), tuple(2, Status.ACCEPTED));
+        assertThat(response.results().get(1).error()).contains("Unsupported file type");
+        assertThat(response.accepted()).isEqualTo(2);
+        assertThat(response.failed()).isEqualTo(1);
+        verify(storage, never()).storeQuarantined(eq(program), any());
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowCallbackHandler.class), any(Object[].class));
+        assertThat(sql.getValue()).containsOnlyOnce("INSERT INTO project_files");
+        assertThat(sql.getValue().split("'PENDING'", -1)).hasSize(3);
+        verify(fileScanService).submit(100L);
+        verify(fileScanService).submit(101L);
+    }
+
+    @Test
+    @DisplayName("Should fail only the part that could not be stored")
+    void shouldFailPartThatCouldNotBeStored() throws Exception {
+        // Given
+        givenProjectExists();
+        MultipartFile report = part("report.pdf", "application/pdf");
+        MultipartFile slides = part("slides.pdf", "application/pdf");
+        when(virusScanService.passesPrecheck(any(MultipartFile.class))).thenReturn(true);
+        givenStored(report);
+        when(storage.storeQuarantined(eq(slides), any())).thenThrow(new FileStorageException("Disk full"));
+        when(auditorAware.getCurrentAuditor()).thenReturn(Optional.empty());
+        givenInsertReturnsIds();
+
+        // When
+        MultiFileUploadResponse response = service.upload(PROJECT_ID, USER_ID, List.of(report, slides));
+
+        // Then
+        assertThat(response.results()).extracting(Item::status).containsExactly(Status.ACCEPTED, Status.FAILED);
+        verify(fileScanService, times(1)).submit(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should remove the quarantined copies and fail every stored part when the insert fails")
+    void shouldCleanUpWhenInsertFails() {
+        // Given
+        givenProjectExists();
+        MultipartFile report = part("report.pdf", "application/pdf");
+        MultipartFile notes = part("notes.txt", "text/plain");
+        when(virusScanService.passesPrecheck(any(MultipartFile.class))).thenReturn(true);
+        givenStored(report, notes);
+        when(auditorAware.getCurrentAuditor()).thenReturn(Optional.of("student@example.edu"));
+        doThrow(new DataIntegrityViolationException("constraint"))
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        // When
+        MultiFileUploadResponse response = service.upload(PROJECT_ID, USER_ID, List.of(report, notes));
+
+        // Then
+        assertThat(response.results()).extracting(Item::status).containsOnly(Status.FAILED);
+        verify(storage).deleteFile("/uploads/quarantine/q_report.pdf");
+        verify(storage).deleteFile("/uploads/quarantine/q_notes.txt");
+        verifyNoInteractions(fileScanService);
+    }
+
+    @Test
+    @DisplayName("Should fail the parts that got no upload slot")
+    void shouldFailPartsWithoutUploadSlot() throws Exception {
+        // Given
+        givenProjectExists();
+        MultipartFile report = part("report.pdf", "application/pdf");
+        MultipartFile slides = part("slides.pdf", "application/pdf");
+        when(virusScanService.passesPrecheck(any(MultipartFile.class))).thenReturn(true);
+        when(uploadIoScheduler.admit(eq(3L), eq(USER_ID), anyLong()))
+                .thenReturn(UploadIoScheduler.Permit.UNLIMITED)
+                .thenThrow(BusinessException.uploadBusy("Too many uploads in progress for this university"));
+        givenStored(report);
+        when(auditorAware.getCurrentAuditor()).thenReturn(Optional.empty());
+        givenInsertReturnsIds();
+
+        // When
+        MultiFileUploadResponse response = service.upload(PROJECT_ID, USER_ID, List.of(report, slides));
+
+        // Then
+        assertThat(response.results()).extracting(Item::status).containsExactly(Status.ACCEPTED, Status.FAILED);
+        assertThat(response.results().get(1).error()).contains("Too many uploads");
+        verify(storage, never()).storeQuarantined(eq(slides), any());
+    }
+
+    @Test
+    @DisplayName("Should store nothing when the valid parts together exceed a storage quota")
+    void shouldRejectUploadOverQuota() {
+        // Given
+        givenProjectExists();
+        MultipartFile report = part("report.pdf", "application/pdf");
+        MultipartFile notes = part("notes.txt", "text/plain");
+        when(virusScanService.passesPrecheck(any(MultipartFile.class))).thenReturn(true);
+        when(storageUsageService.checkQuota(PROJECT_ID, USER_ID, 8L))
+                .thenThrow(BusinessException.storageQuotaExceeded("Upload of 8 bytes exceeds the project storage quota"));
+
+        // When / Then
+        assertThatThrownBy(() -> service.upload(PROJECT_ID, USER_ID, List.of(report, notes)))
+                .isInstanceOf(BusinessException.class)
+                .extracting("errorCode").isEqualTo("STORAGE_QUOTA_EXCEEDED");
+        verifyNoInteractions(storage, fileScanService);
+    }
+
+    @Test
+    @DisplayName("Should refuse more files than allowed in one request")
+    void shouldRejectTooManyFiles() {
+        List<MultipartFile> files = Collections.nCopies(6, part("report.pdf", "application/pdf"));
+
+        assertThatThrownBy(() -> service.upload(PROJECT_ID, USER_ID, files))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(storage, jdbcTemplate);
+    }
+
+    private void givenProjectExists() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(PROJECT_ID))).thenReturn(List.of(3L));
+        lenient().when(uploadIoScheduler.admit(eq(3L), eq(USER_ID), anyLong()))
+                .thenReturn(UploadIoScheduler.Permit.UNLIMITED);
+    }
+
+    private void givenStored(MultipartFile... files) {
+        for (MultipartFile file : files) {
+            when(storage.storeQuarantined(eq(file), any())).thenReturn(new FileStorageService.StoredFile(
+                    "/uploads/quarantine/q_" + file.getOriginalFilename(), "hash-" + file.getOriginalFilename(), 4L));
+        }
+    }
+
+    /**
+     * Ids from 100 up, in the order the rows were bound
+     */
+    private void givenInsertReturnsIds() throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            Object[] args = (Object[]) invocation.getRawArguments()[2];
+            for (int row = 0; row * 11 < args.length; row++) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(100L + row);
+                when(rs.getString(2)).thenReturn((String) args[row * 11 + 6]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    private static MultipartFile part(String filename, String contentType) {
+        return new MockMultipartFile("files", filename, contentType, new byte[] {1, 2, 3, 4});
+    }
+}
@@ -0,0 +1,185 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.domain.entity.Notification;
+import com.university.takharrujy.domain.entity.User;
+import com.university.takharrujy.domain.enums.NotificationType;
+import com.university.takharrujy.domain.repository.NotificationRepository;
+import com.university.takharrujy.domain.repository.UserPreferencesRepository;
+import com.university.takharrujy.domain.repository.UserRepository;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.presentation.mapper.NotificationMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NotificationService coalescing
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationService Tests")
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationMapper notificationMapper;
+
+    @Mock
+    private UserPreferencesRepository userPreferencesRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private AnnouncementService announcementService;
+
+    @Spy
+    private NotificationRetentionPolicy retentionPolicy = new NotificationRetentionPolicy(6, 3, Duration.ofDays(1));
+
+    @InjectMocks
+    private NotificationService notificationService;
+
+    private User recipient;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(notificationService, "coalesceWindow", Duration.ofMinutes(10));
+
+        recipient = new User();
+        recipient.setId(7L);
+        recipient.setUniversityId(1L);
+    }
+
+    @Test
+    @DisplayName("Should merge into open notification when one exists in the window")
+    void shouldMergeIntoOpenNotification() {
+        // Given
+        when(notificationRepository.coalesce(eq(7L), eq("TASK"), eq("TASK"), eq(42L),
+                anyString(), anyString(), any(Instant.class), any(Instant.class), any(Instant.class))).thenReturn(1);
+
+        // When
+        notificationService.createNotification(recipient, "Task Updated", "Task 'A' has been updated.",
+                NotificationType.TASK, "TASK", 42L);
+
+        // Then
+        verify(notificationRepository, never()).save(any(Notification.class));
+    }
+
+    @Test
+    @DisplayName("Should insert a new notification when nothing to merge into")
+    void shouldInsertWhenNothingToMerge() {
+        // Given
+        when(notificationRepository.coalesce(anyLong(), anyString(), anyString(), anyLong(),
+                anyString(), anyString(), any(Instant.class), any(Instant.class), any(Instant.class))).thenReturn(0);
+
+        // When
+        notificationService.createNotification(recipient, "Task Updated", "Task 'A' has been updated.",
+                NotificationType.TASK, "TASK", 42L);
+
+        // Then
+        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationRepository).save(captor.capture());
+        Notification saved = captor.getValue();
+        assertThat(saved.getResourceType()).isEqualTo("TASK");
+        assertThat(saved.getResourceId()).isEqualTo(42L);
+        assertThat(saved.getOccurrenceCount()).isEqualTo(1);
+        assertThat(saved.getUniversityId()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should pass window start relative to now")
+    void shouldPassWindowStart() {
+        // Given
+        ArgumentCaptor<Instant> now = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> windowStart = ArgumentCaptor.forClass(Instant.class);
+        when(notificationRepository.coalesce(anyLong(), anyString(), anyString(), anyLong(),
+                anyString(), anyString(), now.capture(), windowStart.capture(), any(Instant.class))).thenReturn(1);
+
+        // When
+        notificationService.createNotification(recipient, "t", "m", NotificationType.DELIVERABLE, "DELIVERABLE", 5L);
+
+        // Then
+        assertThat(Duration.between(windowStart.getValue(), now.getValue())).isEqualTo(Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Should not coalesce notifications without a resource key")
+    void shouldNotCoalesceWithoutResource() {
+        // When
+        notificationService.createNotification(recipient, "Welcome", "Hello", NotificationType.USER);
+
+        // Then
+        verify(notificationRepository, never()).coalesce(anyLong(), anyString(), anyString(), anyLong(),
+                anyString(), anyString(), any(Instant.class), any(Instant.class), any(Instant.class));
+        verify(notificationRepository).save(any(Notification.class));
+    }
+
+    @Test
+    @DisplayName("Should bound the coalescing lookup by the max coalesce span")
+    void shouldBoundCoalesceByCreatedAt() {
+        // Given
+        ArgumentCaptor<Instant> now = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> createdAfter = ArgumentCaptor.forClass(Instant.class);
+        when(notificationRepository.coalesce(anyLong(), anyString(), anyString(), anyLong(),
+                anyString(), anyString(), now.capture(), any(Instant.class), createdAfter.capture())).thenReturn(1);
+
+        // When
+        notificationService.createNotification(recipient, "t", "m", NotificationType.TASK, "TASK", 5L);
+
+        // Then
+        assertThat(Duration.between(createdAfter.getValue(), now.getValue())).isEqualTo(Duration.ofDays(1));
+    }
+
+    @Test
+    @DisplayName("Should mark an announcement entry read through its watermark, not a notification with that id")
+    void shouldRouteAnnouncementEntryToWatermark() {
+        // Given - inbox entry of announcement 12
+        when(userRepository.findById(7L)).thenReturn(Optional.of(recipient));
+
+        // When
+        notificationService.markAsRead(-12L, 7L);
+
+        // Then
+        verify(announcementService).markInboxEntryRead(7L, -12L);
+        verify(notificationRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should refuse to delete an announcement entry")
+    void shouldNotDeleteAnnouncementEntry() {
+        // Given
+        when(userRepository.findById(7L)).thenReturn(Optional.of(recipient));
+
+        // When / Then
+        assertThatThrownBy(() -> notificationService.deleteNotification(-12L, 7L))
+                .isInstanceOf(BusinessException.class);
+        verify(notificationRepository, never()).delete(any(Notification.class));
+    }
+
+    @Test
+    @DisplayName("Should retain whole months including the current one")
+    void shouldComputeOldestRetainedMonth() {
+        // When
+        LocalDate oldest = retentionPolicy.oldestRetainedMonth(Instant.parse("2025-03-15T10:00:00Z"));
+
+        // Then
+        assertThat(oldest).isEqualTo(LocalDate.of(2024, 10, 1));
+    }
+}
@@ -0,0 +1,224 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.application.service.FileStorageService.Directory;
+import com.university.takharrujy.application.service.FileStorageService.StorageLocation;
+import com.university.takharrujy.application.service.StorageReconciliationService.AreaSummary;
+import com.university.takharrujy.application.service.StorageReconciliationService.ReconciliationReport;
+import com.university.takharrujy.infrastructure.storage.StorageBackend;
+import com.university.takharrujy.infrastructure.storage.StorageBackend.StoredObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StorageReconciliationService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StorageReconciliationService Tests")
+class StorageReconciliationServiceTest {
+
+    private static final String PROJECTS = "/uploads/projects/";
+    private static final String THUMBNAILS = "/uploads/thumbnails/";
+
+    private static final String LIVE_HASH = "ab".repeat(32);
+    private static final String AVATAR_HASH = "cd".repeat(32);
+    private static final String ORPHAN_HASH = "ef".repeat(32);
+
+    @Mock
+    private FileStorageService storage;
+
+    @Mock
+    private ImagePipelineService imagePipelineService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private StorageBackend backend;
+
+    private final Map<String, List<StoredObject>> listings = new HashMap<>();
+
+    private StorageReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        reconciliationService = new StorageReconciliationService(storage, imagePipelineService, jdbcTemplate,
+            new SimpleMeterRegistry(), transactionManager);
+        ReflectionTestUtils.setField(reconciliationService, "workers", 2);
+        ReflectionTestUtils.setField(reconciliationService, "maxOperationsPerSecond", 0);
+        ReflectionTestUtils.setField(reconciliationService, "batchSize", 500);
+        ReflectionTestUtils.setField(reconciliationService, "gracePeriod", Duration.ofDays(2));
+
+        for (Directory directory : Directory.values()) {
+            lenient().when(storage.directoryPath(directory))
+                .thenReturn("/uploads/" + directory.name().toLowerCase() + "/");
+        }
+        lenient().when(storage.locate(anyString()))
+            .thenAnswer(invocation -> new StorageLocation(backend, invocation.getArgument(0)));
+        lenient().doAnswer(invocation -> {
+            Consumer<StoredObject> visitor = invocation.getArgument(1);
+            listings.getOrDefault(invocation.<String>getArgument(0), List.of()).forEach(visitor);
+            return null;
+        }).when(storage).list(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should leave unreferenced objects younger than the grace period alone")
+    void shouldKeepObjectsWithinGracePeriod() throws IOException {
+        // Given - an upload whose row is not written yet
+        String recent = PROJECTS + "1/report.pdf";
+        listings.put(PROJECTS, List.of(new StoredObject(recent, 100, Instant.now().minus(Duration.ofHours(1)))));
+
+        // When
+        ReconciliationReport report = reconciliationService.reconcile(false);
+
+        // Then
+        AreaSummary projects = report.areas().get("projects");
+        assertThat(projects.objects()).isEqualTo(1);
+        assertThat(projects.withinGracePeriod()).isEqualTo(1);
+        assertThat(projects.orphaned()).isZero();
+        verify(backend, never()).delete(anyString());
+        verify(jdbcTemplate, never()).queryForList(contains("FROM project_files"), eq(String.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should spare an orphan that is referenced by the time it would be deleted")
+    void shouldRecheckReferencesBeforeDeleting() throws IOException {
+        // Given - unreferenced when its batch is looked up, referenced on the check before the delete
+        String path = PROJECTS + "1/report.pdf";
+        listings.put(PROJECTS, List.of(new StoredObject(path, 100, Instant.now().minus(Duration.ofDays(3)))));
+        when(jdbcTemplate.queryForList(contains("FROM project_files"), eq(String.class), any(Object[].class)))
+            .thenReturn(List.of())
+            .thenReturn(List.of(path));
+
+        // When
+        ReconciliationReport report = reconciliationService.reconcile(false);
+
+        // Then
+        AreaSummary projects = report.areas().get("projects");
+        assertThat(projects.orphaned()).isEqualTo(1);
+        assertThat(projects.referenced()).isEqualTo(1);
+        assertThat(projects.deleted()).isZero();
+        verify(backend, never()).delete(anyString());
+    }
+
+    @Test
+    @DisplayName("Should delete an old orphan once the re-check confirms it")
+    void shouldDeleteConfirmedOrphan() throws IOException {
+        // Given
+        String path = PROJECTS + "1/report.pdf";
+        listings.put(PROJECTS, List.of(new StoredObject(path, 100, Instant.now().minus(Duration.ofDays(3)))));
+        when(jdbcTemplate.queryForList(contains("FROM project_files"), eq(String.class), any(Object[].class)))
+            .thenReturn(List.of());
+
+        // When
+        ReconciliationReport report = reconciliationService.reconcile(false);
+
+        // Then
+        assertThat(report.areas().get("projects").deleted()).isEqualTo(1);
+        assertThat(report.areas().get("projects").bytesDeleted()).isEqualTo(100);
+        verify(backend).delete(path);
+    }
+
+    @Test
+    @DisplayName("Should keep every size of thumbnails of live blobs and avatars")
+    void shouldKeepThumbnailsOfLiveContent() throws IOException {
+        // Given - thumbnails of a clean project file, of a profile picture, and of nothing
+        Instant old = Instant.now().minus(Duration.ofDays(3));
+        listings.put(THUMBNAILS + "ab/", List.of(
+            new StoredObject(thumbnail(LIVE_HASH, 64), 10, old),
+            new StoredObject(thumbnail(LIVE_HASH, 320), 10, old)));
+        listings.put(THUMBNAILS + "cd/", List.of(
+            new StoredObject(thumbnail(AVATAR_HASH, 64), 10, old),
+            new StoredObject(thumbnail(AVATAR_HASH, 320), 10, old)));
+        listings.put(THUMBNAILS + "ef/", List.of(new StoredObject(thumbnail(ORPHAN_HASH, 320), 10, old)));
+
+        String avatarUrl = "/api/v1/images/" + AVATAR_HASH + "/320";
+        when(imagePipelineService.previewUrl(anyString()))
+            .thenAnswer(invocation -> "/api/v1/images/" + invocation.getArgument(0) + "/320");
+        when(jdbcTemplate.queryForList(contains("FROM project_files"), eq(String.class), any(Object[].class)))
+            .thenAnswer(invocation -> matching(invocation.getArguments(), Set.of(LIVE_HASH)));
+        when(jdbcTemplate.queryForList(contains("FROM users"), eq(String.class), any(Object[].class)))
+            .thenAnswer(invocation -> matching(invocation.getArguments(), Set.of(avatarUrl)));
+
+        // When
+        ReconciliationReport report = reconciliationService.reconcile(false);
+
+        // Then - only the thumbnail nothing refers to is deleted
+        AreaSummary thumbnails = report.areas().get("thumbnails");
+        assertThat(thumbnails.objects()).isEqualTo(5);
+        assertThat(thumbnails.referenced()).isEqualTo(4);
+        assertThat(thumbnails.deleted()).isEqualTo(1);
+        verify(backend).delete(thumbnail(ORPHAN_HASH, 320));
+        verify(backend, never()).delete(contains(LIVE_HASH));
+        verify(backend, never()).delete(contains(AVATAR_HASH));
+    }
+
+    @Test
+    @DisplayName("Should count orphans without deleting them in a dry run")
+    void shouldNotDeleteInDryRun() throws IOException {
+        // Given
+        String path = PROJECTS + "1/report.pdf";
+        listings.put(PROJECTS, List.of(new StoredObject(path, 100, Instant.now().minus(Duration.ofDays(3)))));
+        when(jdbcTemplate.queryForList(contains("FROM project_files"), eq(String.class), any(Object[].class)))
+            .thenReturn(List.of());
+
+        // When
+        ReconciliationReport report = reconciliationService.reconcile(true);
+
+        // Then
+        assertThat(report.dryRun()).isTrue();
+        assertThat(report.areas().get("projects").orphaned()).isEqualTo(1);
+        verify(backend, never()).delete(anyString());
+    }
+
+    @Test
+    @DisplayName("Should not run on schedule unless enabled")
+    void shouldNotRunScheduledWhenDisabled() {
+        // When
+        reconciliationService.scheduledRun();
+
+        // Then
+        assertThat(reconciliationService.isRunning()).isFalse();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static String thumbnail(String hash, int size) {
+        return THUMBNAILS + hash.substring(0, 2) + "/" + hash + "/" + size + ".jpg";
+    }
+
+    /**
+     * The query arguments (after the SQL and element type) that are in {@code present}
+     */
+    private static List<String> matching(Object[] arguments, Set<String> present) {
+        return Arrays.stream(arguments, 2, arguments.length)
+            .map(String::valueOf)
+            .filter(present::contains)
+            .distinct()
+            .toList();
+    }
+}
@@ -0,0 +1,250 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.application.service.FileStorageService.StorageLocation;
+import com.university.takharrujy.infrastructure.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StorageScrubService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StorageScrubService Tests")
+class StorageScrubServiceTest {
+
+    private static final byte[] CONTENT = "graduation project report".getBytes(StandardCharsets.UTF_8);
+    private static final String HASH = sha256(CONTENT);
+    private static final String OTHER_HASH = "cd".repeat(32);
+    private static final String PATH = "/uploads/blobs/1/" + HASH;
+    private static final String OTHER_PATH = "/uploads/blobs/1/" + OTHER_HASH;
+    private static final long PASS_SECONDS = Duration.ofDays(30).toSeconds();
+
+    @Mock
+    private FileStorageService storage;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private StorageBackend backend;
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StorageScrubService scrubService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scrubService = new StorageScrubService(storage, jdbcTemplate, meterRegistry);
+        ReflectionTestUtils.setField(scrubService, "passInterval", Duration.ofDays(30));
+        ReflectionTestUtils.setField(scrubService, "maxBytesPerSecond", DataSize.ofBytes(0));
+        ReflectionTestUtils.setField(scrubService, "readSize", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(scrubService, "batchSize", 100);
+        scrubService.start();
+
+        lenient().when(storage.locate(anyString()))
+            .thenAnswer(invocation -> new StorageLocation(backend, invocation.getArgument(0)));
+        lenient().when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scrubService.stop();
+    }
+
+    @Test
+    @DisplayName("Should record a streamed blob whose content matches its hash and size as OK")
+    void shouldVerifyIntactBlob() throws IOException {
+        // Given
+        dueBlobs(List.of(blob(HASH, PATH, CONTENT.length)));
+        storedAt(PATH, CONTENT);
+
+        // When
+        scrubService.run();
+
+        // Then
+        verify(jdbcTemplate).update(contains("SET verified_at = now()"), eq("OK"), eq(1L), eq(HASH), eq(PATH));
+        assertThat(verified("ok")).isEqualTo(1.0);
+        assertThat(meterRegistry.get("takharrujy.storage.scrub.bytes").counter().count()).isEqualTo(CONTENT.length);
+    }
+
+    @Test
+    @DisplayName("Should digest a blob on the local disk through mapped windows")
+    void shouldVerifyLocalBlob() throws IOException {
+        // Given - larger than one read window
+        byte[] content = new byte[200 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        String hash = sha256(content);
+        Path file = Files.write(tempDir.resolve(hash), content);
+        dueBlobs(List.of(blob(hash, PATH, content.length)));
+        when(backend.exists(PATH)).thenReturn(true);
+        when(backend.localPath(PATH)).thenReturn(Optional.of(file));
+
+        // When
+        scrubService.run();
+
+        // Then
+        verify(backend, never()).open(anyString());
+        verify(jdbcTemplate).update(contains("SET verified_at = now()"), eq("OK"), eq(1L), eq(hash), eq(PATH));
+    }
+
+    @Test
+    @DisplayName("Should flag a blob whose content no longer matches its hash")
+    void shouldDetectHashMismatch() throws IOException {
+        // Given - same size, one byte flipped
+        byte[] damaged = CONTENT.clone();
+        damaged[3] ^= 0x20;
+        dueBlobs(List.of(blob(HASH, PATH, CONTENT.length)));
+        storedAt(PATH, damaged);
+
+        // When
+        scrubService.run();
+
+        // Then
+        verify(jdbcTemplate).update(contains("SET verified_at = now()"), eq("CORRUPT"), eq(1L), eq(HASH), eq(PATH));
+        assertThat(verified("corrupt")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should flag a blob whose content is gone")
+    void shouldDetectMissingBlob() throws IOException {
+        // Given
+        dueBlobs(List.of(blob(HASH, PATH, CONTENT.length)));
+        when(backend.exists(PATH)).thenReturn(false);
+
+        // When
+        scrubService.run();
+
+        // Then
+        verify(backend, never()).open(anyString());
+        verify(jdbcTemplate).update(contains("SET verified_at = now()"), eq("MISSING"), eq(1L), eq(HASH), eq(PATH));
+        assertThat(verified("missing")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should record each blob as soon as it is checked, so a pass resumes where it stopped")
+    void shouldPersistProgressPerBlob() throws IOException {
+        // Given
+        dueBlobs(List.of(blob(HASH, PATH, CONTENT.length), blob(OTHER_HASH, OTHER_PATH, CONTENT.length)));
+        storedAt(PATH, CONTENT);
+        storedAt(OTHER_PATH, CONTENT);
+
+        // When
+        scrubService.run();
+
+        // Then - the first result is written before the second blob is read
+        InOrder inOrder = inOrder(backend, jdbcTemplate);
+        inOrder.verify(backend).open(PATH);
+        inOrder.verify(jdbcTemplate).update(contains("SET verified_at = now()"), eq("OK"), eq(1L), eq(HASH), eq(PATH));
+        inOrder.verify(backend).open(OTHER_PATH);
+        inOrder.verify(jdbcTemplate).update(contains("SET verified_at = now()"),
+            eq("CORRUPT"), eq(1L), eq(OTHER_HASH), eq(OTHER_PATH));
+    }
+
+    @Test
+    @DisplayName("Should leave an unreadable blob due and skip past it for the rest of the run")
+    void shouldSkipUnreadableBlob() throws IOException {
+        // Given
+        Map<String, Object> unreadable = blob(HASH, PATH, CONTENT.length);
+        when(jdbcTemplate.queryForList(anyString(), any(Object[].class)))
+            .thenReturn(List.of(unreadable))
+            .thenReturn(List.of(unreadable));
+        when(backend.exists(PATH)).thenReturn(true);
+        when(backend.open(PATH)).thenThrow(new IOException("timeout"));
+
+        // When
+        scrubService.run();
+
+        // Then - read once, never recorded, and the next batch asks for one more row
+        verify(backend).open(PATH);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verify(jdbcTemplate).queryForList(contains("FROM file_blobs"), eq(PASS_SECONDS), eq(100));
+        verify(jdbcTemplate).queryForList(contains("FROM file_blobs"), eq(PASS_SECONDS), eq(101));
+    }
+
+    @Test
+    @DisplayName("Should not record the result for a blob whose path changed while it was read")
+    void shouldIgnoreBlobMovedDuringScan() throws IOException {
+        // Given - moved to the cold tier meanwhile, so the conditional update matches nothing
+        dueBlobs(List.of(blob(HASH, PATH, CONTENT.length)));
+        when(backend.exists(PATH)).thenReturn(false);
+        when(jdbcTemplate.update(contains("SET verified_at = now()"), any(Object[].class))).thenReturn(0);
+
+        // When
+        scrubService.run();
+
+        // Then - the update is conditional on the path read, and nothing is counted or flagged
+        verify(jdbcTemplate).update(contains("AND storage_path = ?"), eq("MISSING"), eq(1L), eq(HASH), eq(PATH));
+        assertThat(meterRegistry.find("takharrujy.storage.scrub.blobs").counter()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should not run on schedule unless enabled")
+    void shouldNotRunScheduledWhenDisabled() {
+        // When
+        scrubService.scheduledRun();
+
+        // Then
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private void dueBlobs(List<Map<String, Object>> rows) {
+        when(jdbcTemplate.queryForList(anyString(), any(Object[].class)))
+            .thenReturn(rows)
+            .thenReturn(List.of());
+    }
+
+    private void storedAt(String path, byte[] content) throws IOException {
+        when(backend.exists(path)).thenReturn(true);
+        when(backend.open(path)).thenReturn(new ByteArrayInputStream(content));
+    }
+
+    private double verified(String result) {
+        return meterRegistry.get("takharrujy.storage.scrub.blobs").tag("result", result).counter().count();
+    }
+
+    private static Map<String, Object> blob(String contentHash, String storagePath, long size) {
+        return Map.of("university_id", 1L, "content_hash", contentHash, "storage_path", storagePath,
+            "size_bytes", size);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
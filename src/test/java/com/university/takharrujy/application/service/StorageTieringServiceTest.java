@@ -0,0 +1,265 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.application.service.FileStorageService.StorageLocation;
+import com.university.takharrujy.infrastructure.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StorageTieringService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StorageTieringService Tests")
+class StorageTieringServiceTest {
+
+    private static final String HASH = "ab".repeat(32);
+    private static final String OTHER_HASH = "cd".repeat(32);
+    private static final String HOT_PATH = "/uploads/blobs/1/ab/ab/" + HASH;
+    private static final String COLD_PATH = "/uploads/cold/1/ab/ab/" + HASH + ".gz";
+
+    @Mock
+    private FileStorageService storage;
+
+    @Mock
+    private FileBlobService fileBlobService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private StorageBackend backend;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StorageTieringService tieringService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tieringService = new StorageTieringService(storage, fileBlobService, jdbcTemplate, meterRegistry,
+            transactionManager);
+        ReflectionTestUtils.setField(tieringService, "enabled", true);
+        ReflectionTestUtils.setField(tieringService, "minIdle", Duration.ofDays(30));
+        ReflectionTestUtils.setField(tieringService, "batchSize", 200);
+        ReflectionTestUtils.setField(tieringService, "hotCopyRetention", Duration.ofHours(1));
+        ReflectionTestUtils.setField(tieringService, "promoteOnRead", true);
+        ReflectionTestUtils.setField(tieringService, "promotionQueueCapacity", 10);
+        tieringService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tieringService.stop();
+    }
+
+    @Test
+    @DisplayName("Should copy an idle blob to cold storage and switch its rows")
+    void shouldDemoteIdleBlob() throws IOException {
+        // Given
+        lenient().when(jdbcTemplate.queryForList(contains("b.tier = 'HOT'"), any(Object[].class)))
+            .thenReturn(List.of(blob(HOT_PATH, null, "text/plain")));
+        when(storage.coldStoragePath(1L, HASH, true)).thenReturn(COLD_PATH);
+        lenient().when(jdbcTemplate.queryForList(contains("FOR UPDATE"), any(Object[].class)))
+            .thenReturn(List.of(locked(HOT_PATH, false)));
+
+        // When
+        tieringService.run();
+
+        // Then - the copy is made before the rows are switched
+        var inOrder = inOrder(storage, jdbcTemplate);
+        inOrder.verify(storage).copy(HOT_PATH, COLD_PATH);
+        inOrder.verify(jdbcTemplate).update(contains("SET tier = 'COLD'"),
+            eq(COLD_PATH), eq(COLD_PATH), eq(3600L), eq(1L), eq(HASH));
+        inOrder.verify(jdbcTemplate).update(contains("UPDATE project_files"), eq(COLD_PATH), eq(HOT_PATH));
+        verify(storage, never()).deleteFile(anyString());
+        assertThat(moves("demote")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should drop its cold copy when the blob was used again before the switch")
+    void shouldNotDemoteBlobUsedMeanwhile() throws IOException {
+        // Given - the project became active between the candidate query and the row lock
+        lenient().when(jdbcTemplate.queryForList(contains("b.tier = 'HOT'"), any(Object[].class)))
+            .thenReturn(List.of(blob(HOT_PATH, null, "application/pdf")));
+        when(storage.coldStoragePath(1L, HASH, false)).thenReturn(COLD_PATH);
+        lenient().when(jdbcTemplate.queryForList(contains("FOR UPDATE"), any(Object[].class)))
+            .thenReturn(List.of(locked(HOT_PATH, true)));
+
+        // When
+        tieringService.run();
+
+        // Then
+        verify(jdbcTemplate, never()).update(contains("SET tier = 'COLD'"), any(Object[].class));
+        verify(storage).deleteFile(COLD_PATH);
+        assertThat(moves("demote")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep the cold copy when another node moved the blob to it first")
+    void shouldKeepColdCopyOfConcurrentDemotion() throws IOException {
+        // Given - both nodes copied to the same path; the other switched the row before this lock
+        lenient().when(jdbcTemplate.queryForList(contains("b.tier = 'HOT'"), any(Object[].class)))
+            .thenReturn(List.of(blob(HOT_PATH, null, "text/plain")));
+        when(storage.coldStoragePath(1L, HASH, true)).thenReturn(COLD_PATH);
+        lenient().when(jdbcTemplate.queryForList(contains("FOR UPDATE"), any(Object[].class)))
+            .thenReturn(List.of());
+        when(jdbcTemplate.queryForObject(contains("cold_path = ?"), eq(Boolean.class),
+            eq(1L), eq(HASH), eq(COLD_PATH), eq(COLD_PATH))).thenReturn(true);
+
+        // When
+        tieringService.run();
+
+        // Then
+        verify(jdbcTemplate, never()).update(contains("SET tier = 'COLD'"), any(Object[].class));
+        verify(storage, never()).deleteFile(anyString());
+        assertThat(moves("demote")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not run on schedule unless enabled")
+    void shouldNotRunScheduledWhenDisabled() {
+        // Given
+        ReflectionTestUtils.setField(tieringService, "enabled", false);
+
+        // When
+        tieringService.scheduledRun();
+
+        // Then
+        verifyNoInteractions(jdbcTemplate, storage);
+    }
+
+    @Test
+    @DisplayName("Should reuse the cold copy left by an earlier move")
+    void shouldReuseExistingColdCopy() throws IOException {
+        // Given
+        lenient().when(jdbcTemplate.queryForList(contains("b.tier = 'HOT'"), any(Object[].class)))
+            .thenReturn(List.of(blob(HOT_PATH, COLD_PATH, "text/plain")));
+        when(storage.exists(COLD_PATH)).thenReturn(true);
+        lenient().when(jdbcTemplate.queryForList(contains("FOR UPDATE"), any(Object[].class)))
+            .thenReturn(List.of(locked(HOT_PATH, false)));
+
+        // When
+        tieringService.run();
+
+        // Then
+        verify(storage, never()).copy(anyString(), anyString());
+        verify(jdbcTemplate).update(contains("SET tier = 'COLD'"),
+            eq(COLD_PATH), eq(COLD_PATH), eq(3600L), eq(1L), eq(HASH));
+    }
+
+    @Test
+    @DisplayName("Should bring a cold blob back to hot storage when it is read by an active project")
+    void shouldPromoteOnRead() throws IOException {
+        // Given
+        when(storage.isCold(COLD_PATH)).thenReturn(true);
+        when(fileBlobService.getUniversityId(5L)).thenReturn(1L);
+        when(storage.blobStoragePath(1L, HASH)).thenReturn(HOT_PATH);
+        when(storage.exists(HOT_PATH)).thenReturn(false, true);
+        lenient().when(jdbcTemplate.queryForList(contains("FOR UPDATE"), any(Object[].class)))
+            .thenReturn(List.of(locked(COLD_PATH, true)));
+
+        // When
+        tieringService.onRead(5L, HASH, COLD_PATH);
+
+        // Then - on the promotion thread
+        verify(jdbcTemplate, timeout(1000)).update(contains("UPDATE project_files"), eq(HOT_PATH), eq(COLD_PATH));
+        verify(storage).copy(COLD_PATH, HOT_PATH);
+        verify(jdbcTemplate).update(contains("SET tier = 'HOT'"), eq(HOT_PATH), eq(1L), eq(HASH));
+    }
+
+    @Test
+    @DisplayName("Should leave reads of hot files alone")
+    void shouldNotPromoteHotRead() {
+        // Given
+        when(storage.isCold(HOT_PATH)).thenReturn(false);
+
+        // When
+        tieringService.onRead(5L, HASH, HOT_PATH);
+
+        // Then
+        verifyNoInteractions(fileBlobService, jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should delete expired hot copies of cold blobs and clear the expiry of promoted ones")
+    void shouldExpireHotCopies() throws IOException {
+        // Given - one blob still cold, one promoted again since it was demoted
+        lenient().when(jdbcTemplate.queryForList(contains("hot_copy_expires_at <= now()"), any(Object[].class)))
+            .thenReturn(List.of(expired(HASH), expired(OTHER_HASH)));
+        lenient().when(jdbcTemplate.queryForList(contains("SELECT tier FROM file_blobs"), eq(String.class), any(Object[].class)))
+            .thenAnswer(invocation -> List.of(HASH.equals(invocation.getArgument(3)) ? "COLD" : "HOT"));
+        when(storage.blobStoragePath(1L, HASH)).thenReturn(HOT_PATH);
+        when(storage.locate(HOT_PATH)).thenReturn(new StorageLocation(backend, "blobs/1/ab/ab/" + HASH));
+
+        // When
+        tieringService.run();
+
+        // Then
+        verify(backend).delete("blobs/1/ab/ab/" + HASH);
+        verify(storage, never()).blobStoragePath(1L, OTHER_HASH);
+        verify(jdbcTemplate).update(contains("SET hot_copy_expires_at = NULL"), eq(1L), eq(HASH));
+        verify(jdbcTemplate).update(contains("SET hot_copy_expires_at = NULL"), eq(1L), eq(OTHER_HASH));
+    }
+
+    @Test
+    @DisplayName("Should keep the expiry of a hot copy that could not be deleted")
+    void shouldRetryFailedHotCopyDelete() throws IOException {
+        // Given
+        lenient().when(jdbcTemplate.queryForList(contains("hot_copy_expires_at <= now()"), any(Object[].class)))
+            .thenReturn(List.of(expired(HASH)));
+        lenient().when(jdbcTemplate.queryForList(contains("SELECT tier FROM file_blobs"), eq(String.class), any(Object[].class)))
+            .thenReturn(List.of("COLD"));
+        when(storage.blobStoragePath(1L, HASH)).thenReturn(HOT_PATH);
+        when(storage.locate(HOT_PATH)).thenReturn(new StorageLocation(backend, "blobs/1/ab/ab/" + HASH));
+        doThrow(new IOException("unavailable")).when(backend).delete(anyString());
+
+        // When
+        tieringService.run();
+
+        // Then
+        verify(jdbcTemplate, never()).update(contains("SET hot_copy_expires_at = NULL"), any(Object[].class));
+    }
+
+    private double moves(String direction) {
+        return meterRegistry.get("takharrujy.storage.tier.moves").tag("direction", direction).counter().count();
+    }
+
+    private static Map<String, Object> blob(String storagePath, String coldPath, String contentType) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("university_id", 1L);
+        row.put("content_hash", HASH);
+        row.put("storage_path", storagePath);
+        row.put("cold_path", coldPath);
+        row.put("content_type", contentType);
+        return row;
+    }
+
+    private static Map<String, Object> locked(String storagePath, boolean active) {
+        return Map.of("storage_path", storagePath, "active", active);
+    }
+
+    private static Map<String, Object> expired(String contentHash) {
+        return Map.of("university_id", 1L, "content_hash", contentHash);
+    }
+}
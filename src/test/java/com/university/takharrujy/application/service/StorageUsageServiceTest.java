@@ -0,0 +1,195 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for StorageUsageService and the V22 counters it reads, against PostgreSQL
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("StorageUsageService Tests")
+class StorageUsageServiceTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static DataSourceTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StorageUsageService storageUsageService;
+
+    @BeforeAll
+    static void createSchema() throws IOException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+
+        // Only the columns the trigger and the quota queries read
+        jdbcTemplate.execute("""
+            CREATE TABLE universities (id BIGINT PRIMARY KEY);
+            CREATE TABLE projects (id BIGINT PRIMARY KEY, university_id BIGINT NOT NULL REFERENCES universities(id));
+            CREATE TABLE project_files (
+                id BIGSERIAL PRIMARY KEY,
+                university_id BIGINT NOT NULL,
+                project_id BIGINT NOT NULL,
+                uploaded_by_user_id BIGINT NOT NULL,
+                file_size BIGINT NOT NULL,
+                virus_scan_status VARCHAR(20) NOT NULL
+            );
+            """);
+        jdbcTemplate.execute(new ClassPathResource("db/migration/V22__Add_Storage_Usage_Counters.sql")
+            .getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE project_files, storage_usage, projects, universities");
+        jdbcTemplate.update("INSERT INTO universities (id) VALUES (1)");
+        jdbcTemplate.update("INSERT INTO projects (id, university_id) VALUES (10, 1), (11, 1)");
+
+        meterRegistry = new SimpleMeterRegistry();
+        storageUsageService = new StorageUsageService(jdbcTemplate, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(storageUsageService, "enabled", true);
+        ReflectionTestUtils.setField(storageUsageService, "universityQuota", DataSize.ofBytes(0));
+        ReflectionTestUtils.setField(storageUsageService, "projectQuota", DataSize.ofBytes(120));
+        ReflectionTestUtils.setField(storageUsageService, "userQuota", DataSize.ofGigabytes(5));
+    }
+
+    @Test
+    @DisplayName("Should count files as they are inserted")
+    void shouldCountInsertedFiles() {
+        // When
+        addFile(10, 5, 100, "CLEAN");
+        addFile(11, 5, 50, "PENDING");
+        addFile(11, 6, 20, "CLEAN");
+
+        // Then
+        assertThat(usage("UNIVERSITY", 1)).containsExactly(170L, 3L);
+        assertThat(usage("PROJECT", 10)).containsExactly(100L, 1L);
+        assertThat(usage("PROJECT", 11)).containsExactly(70L, 2L);
+        assertThat(usage("USER", 5)).containsExactly(150L, 2L);
+        assertThat(usage("USER", 6)).containsExactly(20L, 1L);
+    }
+
+    @Test
+    @DisplayName("Should stop counting files that are found infected or deleted")
+    void shouldUncountInfectedAndDeletedFiles() {
+        // Given
+        long infected = addFile(10, 5, 100, "PENDING");
+        long deleted = addFile(10, 5, 30, "CLEAN");
+        addFile(10, 5, 10, "CLEAN");
+
+        // When
+        jdbcTemplate.update("UPDATE project_files SET virus_scan_status = 'INFECTED' WHERE id = ?", infected);
+        jdbcTemplate.update("DELETE FROM project_files WHERE id = ?", deleted);
+
+        // Then
+        assertThat(usage("UNIVERSITY", 1)).containsExactly(10L, 1L);
+        assertThat(usage("PROJECT", 10)).containsExactly(10L, 1L);
+        assertThat(usage("USER", 5)).containsExactly(10L, 1L);
+    }
+
+    @Test
+    @DisplayName("Should move the count of a file that changes project, and ignore unrelated updates")
+    void shouldFollowFileBetweenProjects() {
+        // Given
+        long file = addFile(10, 5, 100, "PENDING");
+
+        // When
+        jdbcTemplate.update("UPDATE project_files SET virus_scan_status = 'CLEAN' WHERE id = ?", file);
+        jdbcTemplate.update("UPDATE project_files SET project_id = 11 WHERE id = ?", file);
+
+        // Then
+        assertThat(usage("PROJECT", 10)).containsExactly(0L, 0L);
+        assertThat(usage("PROJECT", 11)).containsExactly(100L, 1L);
+        assertThat(usage("UNIVERSITY", 1)).containsExactly(100L, 1L);
+    }
+
+    @Test
+    @DisplayName("Should refuse an upload over the project quota with 413 from the counters")
+    void shouldCheckQuotaAgainstCounters() {
+        // Given - 100 of 120 bytes used in project 10
+        addFile(10, 5, 100, "CLEAN");
+
+        // When / Then - the usage of the project is not disclosed to the uploader
+        assertThatThrownBy(() -> storageUsageService.checkQuota(10L, 5L, 30))
+            .isInstanceOfSatisfying(BusinessException.class,
+                e -> assertThat(e.getHttpStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE))
+            .message().contains("project").doesNotContain("100", "120");
+        assertThat(storageUsageService.checkQuota(11L, 5L, 30)).isEqualTo(1L);
+        assertThat(meterRegistry.get("takharrujy.storage.quota.rejections").tag("scope", "PROJECT")
+            .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should recount drifted counters and drop counters of scopes without files")
+    void shouldReconcileDriftedCounters() {
+        // Given - a counter changed by hand and one left by a deleted project
+        addFile(10, 5, 100, "CLEAN");
+        addFile(11, 6, 20, "CLEAN");
+        jdbcTemplate.update("UPDATE storage_usage SET bytes = 999 WHERE scope = 'PROJECT' AND scope_id = 10");
+        jdbcTemplate.update("INSERT INTO storage_usage (university_id, scope, scope_id, bytes, files) "
+            + "VALUES (1, 'PROJECT', 99, 40, 2)");
+
+        // When
+        storageUsageService.reconcile();
+
+        // Then
+        assertThat(usage("PROJECT", 10)).containsExactly(100L, 1L);
+        assertThat(usage("PROJECT", 11)).containsExactly(20L, 1L);
+        assertThat(usage("UNIVERSITY", 1)).containsExactly(120L, 2L);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM storage_usage WHERE scope = 'PROJECT' AND scope_id = 99", Long.class)).isZero();
+        assertThat(meterRegistry.get("takharrujy.storage.usage.corrections").counter().count()).isEqualTo(2.0);
+        assertThat(storageUsageService.getReport(1L, 10).lastCorrections()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should correct nothing when the counters are right")
+    void shouldLeaveCorrectCountersAlone() {
+        // Given
+        addFile(10, 5, 100, "CLEAN");
+
+        // When
+        storageUsageService.reconcile();
+
+        // Then
+        assertThat(meterRegistry.find("takharrujy.storage.usage.corrections").counter()).isNull();
+        assertThat(usage("PROJECT", 10)).containsExactly(100L, 1L);
+    }
+
+    private static long addFile(long projectId, long userId, long size, String status) {
+        return jdbcTemplate.queryForObject("""
+            INSERT INTO project_files (university_id, project_id, uploaded_by_user_id, file_size, virus_scan_status)
+            VALUES (1, ?, ?, ?, ?) RETURNING id
+            """, Long.class, projectId, userId, size, status);
+    }
+
+    private static List<Long> usage(String scope, long scopeId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT bytes, files FROM storage_usage WHERE university_id = 1 AND scope = ? AND scope_id = ?",
+            (rs, i) -> List.of(rs.getLong(1), rs.getLong(2)), scope, scopeId);
+    }
+}
@@ -0,0 +1,168 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for UploadIoScheduler
+ */
+@DisplayName("UploadIoScheduler Tests")
+class UploadIoSchedulerTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UploadIoScheduler scheduler;
+    private ExecutorService uploaders;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new UploadIoScheduler(meterRegistry);
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(scheduler, "maxConcurrentPerUniversity", 1);
+        ReflectionTestUtils.setField(scheduler, "maxConcurrentPerUser", 1);
+        ReflectionTestUtils.setField(scheduler, "maxBytesPerSecond", DataSize.ofBytes(0));
+        ReflectionTestUtils.setField(scheduler, "weights", "");
+        ReflectionTestUtils.setField(scheduler, "maxQueueTime", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(scheduler, "maxQueuedPerUniversity", 10);
+        uploaders = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploaders.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should let a university with nothing queued ahead of another's backlog")
+    void shouldServeUniversitiesFairly() throws Exception {
+        // Given - university 1 uploading, with two more uploads queued behind it
+        init();
+        ConcurrentLinkedQueue<Long> order = new ConcurrentLinkedQueue<>();
+        UploadIoScheduler.Permit first = scheduler.admit(1L, 10L, MB);
+        List<Future<?>> waiting = List.of(
+            uploadAsync(1L, 11L, order),
+            uploadAsync(1L, 12L, order));
+        awaitQueued(2);
+        Future<?> other = uploadAsync(2L, 20L, order);
+        awaitQueued(3);
+
+        // When
+        first.close();
+        for (Future<?> upload : List.of(waiting.get(0), waiting.get(1), other)) {
+            upload.get(5, TimeUnit.SECONDS);
+        }
+
+        // Then - university 2 arrived last but goes first
+        assertThat(order).containsExactly(2L, 1L, 1L);
+        assertThat(meterRegistry.get("takharrujy.uploads.queue.time").tag("university", "1").timer().count())
+            .isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should not hold back other users while one user is at their limit")
+    void shouldLimitConcurrentUploadsPerUser() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", 4);
+        ReflectionTestUtils.setField(scheduler, "maxConcurrentPerUniversity", 4);
+        init();
+        UploadIoScheduler.Permit first = scheduler.admit(1L, 10L, MB);
+        Future<?> second = uploadAsync(1L, 10L, new ConcurrentLinkedQueue<>());
+        awaitQueued(1);
+
+        // When / Then - another user of the same university is let in at once
+        try (UploadIoScheduler.Permit permit = scheduler.admit(1L, 11L, MB)) {
+            assertThat(permit).isNotNull();
+        }
+        assertThat(second.isDone()).isFalse();
+        first.close();
+        second.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should turn uploads away once their university's queue is full")
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(scheduler, "maxQueuedPerUniversity", 1);
+        init();
+        UploadIoScheduler.Permit first = scheduler.admit(1L, 10L, MB);
+        Future<?> queued = uploadAsync(1L, 11L, new ConcurrentLinkedQueue<>());
+        awaitQueued(1);
+
+        // When / Then
+        assertThatThrownBy(() -> scheduler.admit(1L, 12L, MB))
+            .isInstanceOf(BusinessException.class)
+            .extracting("errorCode").isEqualTo("UPLOAD_BUSY");
+        assertThat(meterRegistry.get("takharrujy.uploads.rejected")
+            .tags("university", "1", "reason", "queue_full").counter().count()).isEqualTo(1.0);
+
+        // Another university still gets in line
+        Future<?> other = uploadAsync(2L, 20L, new ConcurrentLinkedQueue<>());
+        awaitQueued(2);
+        first.close();
+        queued.get(5, TimeUnit.SECONDS);
+        other.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should give up on an upload that waited longer than the max queue time")
+    void shouldRejectAfterMaxQueueTime() {
+        // Given
+        ReflectionTestUtils.setField(scheduler, "maxQueueTime", Duration.ofMillis(100));
+        init();
+        UploadIoScheduler.Permit first = scheduler.admit(1L, 10L, MB);
+
+        // When / Then
+        assertThatThrownBy(() -> scheduler.admit(2L, 20L, MB)).isInstanceOf(BusinessException.class);
+        assertThat(meterRegistry.get("takharrujy.uploads.rejected")
+            .tags("university", "2", "reason", "timeout").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("takharrujy.uploads.queued").gauge().value()).isZero();
+
+        // The slot is still handed on normally
+        first.close();
+        scheduler.admit(2L, 20L, MB).close();
+    }
+
+    private void init() {
+        ReflectionTestUtils.invokeMethod(scheduler, "init");
+    }
+
+    /**
+     * Wait for a slot on another thread, note the university when let in and finish at once
+     */
+    private Future<?> uploadAsync(Long universityId, Long userId, ConcurrentLinkedQueue<Long> order) {
+        return uploaders.submit(() -> {
+            try (UploadIoScheduler.Permit permit = scheduler.admit(universityId, userId, MB)) {
+                order.add(universityId);
+            }
+        });
+    }
+
+    private void awaitQueued(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("takharrujy.uploads.queued").gauge().value() < expected) {
+            if (System.nanoTime() > deadline) {
+                fail("Expected " + expected + " queued uploads");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.university.takharrujy.application.service;
+
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.exception.ValidationException;
+import com.university.takharrujy.presentation.dto.file.UploadSessionRequest;
+import com.university.takharrujy.presentation.dto.file.UploadSessionResponse;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for UploadSessionService against PostgreSQL, with chunks written to a temporary directory
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("UploadSessionService Tests")
+class UploadSessionServiceTest {
+
+    private static final long PROJECT_ID = 10L;
+    private static final long USER_ID = 5L;
+    private static final int MAX_CHUNK = 128 * 1024;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    private FileStorageService storage;
+    private ProjectFileService projectFileService;
+    private VirusScanService virusScanService;
+    private UploadSessionService uploadSessionService;
+
+    @BeforeAll
+    static void createSchema() throws IOException {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+
+        // Only the tables upload_sessions references
+        jdbcTemplate.execute("""
+            CREATE TABLE universities (id BIGINT PRIMARY KEY);
+            CREATE TABLE projects (id BIGINT PRIMARY KEY);
+            CREATE TABLE users (id BIGINT PRIMARY KEY);
+            INSERT INTO universities (id) VALUES (1);
+            INSERT INTO projects (id) VALUES (10);
+            INSERT INTO users (id) VALUES (5);
+            """);
+        jdbcTemplate.execute(new ClassPathResource("db/migration/V17__Add_Upload_Sessions.sql")
+            .getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jdbcTemplate.execute("TRUNCATE upload_sessions");
+
+        // The quarantine area is a temporary directory; storage paths are absolute paths in it
+        storage = mock(FileStorageService.class);
+        lenient().when(storage.createQuarantineFile(anyString()))
+            .thenAnswer(invocation -> Files.createTempFile(tempDir, "q_", ".pdf").toString());
+        lenient().when(storage.openForWrite(anyString()))
+            .thenAnswer(invocation -> FileChannel.open(Path.of(invocation.<String>getArgument(0)),
+                StandardOpenOption.WRITE));
+        lenient().when(storage.openStream(anyString()))
+            .thenAnswer(invocation -> Files.newInputStream(Path.of(invocation.<String>getArgument(0))));
+        lenient().doAnswer(invocation -> Files.deleteIfExists(Path.of(invocation.<String>getArgument(0))))
+            .when(storage).deleteFile(anyString());
+
+        projectFileService = mock(ProjectFileService.class);
+        virusScanService = new VirusScanService();
+        ReflectionTestUtils.setField(virusScanService, "virusScanEnabled", true);
+        uploadSessionService = node();
+    }
+
+    @Test
+    @DisplayName("Should refuse a chunk that does not start at the bytes received with 409")
+    void shouldRejectWrongOffset() throws IOException {
+        // Given
+        byte[] content = content(1000);
+        UUID uploadId = start(content.length);
+        uploadSessionService.writeChunk(uploadId, USER_ID, 0, slice(content, 0, 400));
+
+        // When / Then - a retry of the chunk already received, and a chunk past the end
+        assertConflict(() -> uploadSessionService.writeChunk(uploadId, USER_ID, 0, slice(content, 0, 400)));
+        assertConflict(() -> uploadSessionService.writeChunk(uploadId, USER_ID, 600, slice(content, 600, 1000)));
+        assertThat(uploadSessionService.getStatus(uploadId, USER_ID).offset()).isEqualTo(400);
+    }
+
+    @Test
+    @DisplayName("Should refuse a chunk while another request holds the write lease")
+    void shouldRejectChunkWhileLeaseIsHeld() {
+        // Given - a writer, possibly on another node, claimed the session a moment ago
+        byte[] content = content(1000);
+        UUID uploadId = start(content.length);
+        jdbcTemplate.update("UPDATE upload_sessions SET writer_token = ?, writer_since = now() WHERE id = ?",
+            UUID.randomUUID(), uploadId);
+
+        // When / Then
+        assertConflict(() -> uploadSessionService.writeChunk(uploadId, USER_ID, 0, slice(content, 0, 400)));
+        assertConflict(() -> uploadSessionService.cancel(uploadId, USER_ID));
+    }
+
+    @Test
+    @DisplayName("Should refuse a chunk over the chunk limit and keep what was written before it")
+    void shouldRejectOversizedChunk() throws IOException {
+        // Given
+        byte[] content = content(3 * MAX_CHUNK);
+        UUID uploadId = start(content.length);
+
+        // When / Then
+        assertThatThrownBy(() -> uploadSessionService.writeChunk(uploadId, USER_ID, 0,
+                slice(content, 0, 2 * MAX_CHUNK)))
+            .isInstanceOf(ValidationException.class);
+
+        // Then - the lease is given back at the offset reached, so the client can resume there
+        long offset = uploadSessionService.getStatus(uploadId, USER_ID).offset();
+        assertThat(offset).isBetween(0L, (long) MAX_CHUNK);
+        UploadSessionResponse resumed = uploadSessionService.writeChunk(uploadId, USER_ID, offset,
+            slice(content, (int) offset, (int) offset + MAX_CHUNK));
+        assertThat(resumed.offset()).isEqualTo(offset + MAX_CHUNK);
+    }
+
+    @Test
+    @DisplayName("Should reach the same hash and verdict when a chunk lands on a node that did not see the earlier ones")
+    void shouldReplayPrefixOnAnotherNode() throws IOException {
+        // Given - the same content uploaded without a break on one node, and split across two nodes
+        byte[] content = content(MAX_CHUNK + 5000);
+        UUID unbroken = start(content.length);
+        uploadSessionService.writeChunk(unbroken, USER_ID, 0, slice(content, 0, MAX_CHUNK));
+        uploadSessionService.writeChunk(unbroken, USER_ID, MAX_CHUNK, slice(content, MAX_CHUNK, content.length));
+
+        UUID resumed = start(content.length);
+        uploadSessionService.writeChunk(resumed, USER_ID, 0, slice(content, 0, 70_000));
+        UploadSessionService otherNode = node();
+        otherNode.writeChunk(resumed, USER_ID, 70_000, slice(content, 70_000, content.length));
+
+        // When
+        uploadSessionService.complete(unbroken, USER_ID);
+        otherNode.complete(resumed, USER_ID);
+
+        // Then
+        ArgumentCaptor<FileStorageService.StoredFile> stored = ArgumentCaptor.forClass(FileStorageService.StoredFile.class);
+        ArgumentCaptor<Boolean> clean = ArgumentCaptor.forClass(Boolean.class);
+        verify(projectFileService, times(2)).registerUpload(eq(PROJECT_ID), eq(USER_ID), eq("report.pdf"),
+            eq("application/pdf"), stored.capture(), clean.capture());
+        assertThat(stored.getAllValues()).extracting(FileStorageService.StoredFile::contentHash)
+            .containsExactly(sha256(content), sha256(content));
+        assertThat(clean.getAllValues()).containsExactly(true, true);
+        assertThat(Files.readAllBytes(Path.of(stored.getAllValues().get(1).storagePath()))).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("Should catch a signature split across chunks that landed on different nodes")
+    void shouldScanAcrossNodeSwitch() throws IOException {
+        // Given - an executable header whose first half is in the chunk written on this node
+        byte[] content = content(2000);
+        byte[] signature = {0x7F, 0x45, 0x4C, 0x46};
+        System.arraycopy(signature, 0, content, 998, signature.length);
+        UUID uploadId = start(content.length);
+        uploadSessionService.writeChunk(uploadId, USER_ID, 0, slice(content, 0, 1000));
+
+        // When / Then - the other node replays the prefix, so the match continues into its chunk
+        UploadSessionService otherNode = node();
+        assertThatThrownBy(() -> otherNode.writeChunk(uploadId, USER_ID, 1000, slice(content, 1000, content.length)))
+            .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(projectFileService);
+    }
+
+    @Test
+    @DisplayName("Should remove the upload and its file when a chunk fails the virus scan")
+    void shouldDiscardInfectedUpload() throws IOException {
+        // Given - an executable header in the second chunk
+        byte[] content = content(2000);
+        byte[] signature = {0x4D, 0x5A, (byte) 0x90, 0x00};
+        System.arraycopy(signature, 0, content, 1500, signature.length);
+        UUID uploadId = start(content.length);
+        uploadSessionService.writeChunk(uploadId, USER_ID, 0, slice(content, 0, 1000));
+        String storagePath = quarantinePath(uploadId);
+
+        // When / Then
+        assertThatThrownBy(() -> uploadSessionService.writeChunk(uploadId, USER_ID, 1000,
+                slice(content, 1000, content.length)))
+            .isInstanceOf(ValidationException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM upload_sessions WHERE id = ?",
+            Long.class, uploadId)).isZero();
+        assertThat(Path.of(storagePath)).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should refuse to complete an upload with bytes still missing with 409")
+    void shouldRejectIncompleteUpload() throws IOException {
+        // Given
+        byte[] content = content(1000);
+        UUID uploadId = start(content.length);
+        uploadSessionService.writeChunk(uploadId, USER_ID, 0, slice(content, 0, 999));
+
+        // When / Then
+        assertConflict(() -> uploadSessionService.complete(uploadId, USER_ID));
+        assertThat(uploadSessionService.getStatus(uploadId, USER_ID).offset()).isEqualTo(999);
+        verifyNoInteractions(projectFileService);
+    }
+
+    /**
+     * A service instance with its own in-memory progress, as on a separate node
+     */
+    private UploadSessionService node() {
+        UploadIoScheduler uploadIoScheduler = mock(UploadIoScheduler.class);
+        lenient().when(uploadIoScheduler.admit(any(), any(), anyLong())).thenReturn(UploadIoScheduler.Permit.UNLIMITED);
+        StorageUsageService storageUsageService = mock(StorageUsageService.class);
+        lenient().when(storageUsageService.checkQuota(anyLong(), anyLong(), anyLong())).thenReturn(1L);
+
+        UploadSessionService service = new UploadSessionService(jdbcTemplate, storage, virusScanService,
+            projectFileService, uploadIoScheduler, storageUsageService);
+        ReflectionTestUtils.setField(service, "maxChunkSize", DataSize.ofBytes(MAX_CHUNK));
+        ReflectionTestUtils.setField(service, "sessionTtl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(service, "leaseTimeout", Duration.ofMinutes(5));
+        return service;
+    }
+
+    private UUID start(long size) {
+        return uploadSessionService.create(PROJECT_ID, USER_ID,
+            new UploadSessionRequest("report.pdf", "application/pdf", size)).uploadId();
+    }
+
+    private static String quarantinePath(UUID uploadId) {
+        return jdbcTemplate.queryForObject("SELECT storage_path FROM upload_sessions WHERE id = ?",
+            String.class, uploadId);
+    }
+
+    private static void assertConflict(ThrowingCallable call) {
+        assertThatThrownBy(call)
+            .isInstanceOfSatisfying(BusinessException.class,
+                e -> assertThat(e.getHttpStatus()).isEqualTo(HttpStatus.CONFLICT));
+    }
+
+    private static ByteArrayInputStream slice(byte[] content, int from, int to) {
+        return new ByteArrayInputStream(Arrays.copyOfRange(content, from, to));
+    }
+
+    /**
+     * Plain text that matches no scan signature
+     */
+    private static byte[] content(int size) {
+        byte[] line = "chapter of the graduation project report\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = line[i % line.length];
+        }
+        return content;
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
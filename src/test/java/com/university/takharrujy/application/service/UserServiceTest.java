@@ -60,7 +60,7 @@ class UserServiceTest {
     private PasswordEncoder passwordEncoder;
     
     @Mock
-    private FileStorageService fileStorageService;
+    private ImagePipelineService imagePipelineService;
     
     @Mock
     private ActivityLoggingService activityLoggingService;
@@ -254,10 +254,10 @@ class UserServiceTest {
         MultipartFile file = new MockMultipartFile(
             "avatar", "avatar.jpg", "image/jpeg", "test image data".getBytes()
         );
-        String avatarUrl = "/uploads/avatars/avatar_1_20240101_123456_abc12345.jpg";
+        String avatarUrl = "/api/v1/images/" + "ab".repeat(32) + "/320";
         
         when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(fileStorageService.uploadAvatar(file, userId)).thenReturn(avatarUrl);
+        when(imagePipelineService.submitAvatar(userId, file)).thenReturn(Optional.of(avatarUrl));
         when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(userMapper.toResponse(testUser)).thenReturn(testUserResponse);
         
@@ -266,7 +266,7 @@ class UserServiceTest {
         
         // Then
         assertThat(result).isNotNull();
-        verify(fileStorageService).uploadAvatar(file, userId);
+        verify(imagePipelineService).submitAvatar(userId, file);
         verify(userRepository).save(testUser);
         verify(activityLoggingService).logActivity(
             eq(testUser),
@@ -279,6 +279,28 @@ class UserServiceTest {
         assertThat(testUser.getProfilePictureUrl()).isEqualTo(avatarUrl);
     }
     
+    @Test
+    @DisplayName("Should keep the current avatar until a new one is rendered")
+    void shouldKeepAvatarWhileRendering() {
+        // Given
+        Long userId = 1L;
+        MultipartFile file = new MockMultipartFile(
+            "avatar", "avatar.jpg", "image/jpeg", "test image data".getBytes()
+        );
+        String currentUrl = testUser.getProfilePictureUrl();
+        
+        when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
+        when(imagePipelineService.submitAvatar(userId, file)).thenReturn(Optional.empty());
+        when(userMapper.toResponse(testUser)).thenReturn(testUserResponse);
+        
+        // When
+        userService.uploadAvatar(userId, file, httpRequest);
+        
+        // Then
+        verify(userRepository, never()).save(any(User.class));
+        assertThat(testUser.getProfilePictureUrl()).isEqualTo(currentUrl);
+    }
+    
     @Test
     @DisplayName("Should get user preferences successfully")
     void shouldGetUserPreferencesSuccessfully() {
@@ -0,0 +1,69 @@
+package com.university.takharrujy.application.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the streaming scanner on clean 1 MB, 10 MB and 100 MB inputs, which are
+ * read to the end, for plain files and for images (which also match the script patterns).
+ * Run with {@code main} from the test classpath; add {@code -prof gc} to see that the
+ * allocation per scan does not grow with the input size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class VirusScanBenchmark {
+
+    // Lower-case text without "z" or "(", so nothing matches and every byte is scanned
+    private static final byte[] ALPHABET = "abcdefghijklmnopqrstuvwxy0123456789 .,:;<>=/\n".getBytes();
+
+    @Param({"1", "10", "100"})
+    public int megabytes;
+
+    @Param({"false", "true"})
+    public boolean image;
+
+    private VirusScanService virusScanService;
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        virusScanService = new VirusScanService();
+        content = new byte[megabytes * 1024 * 1024];
+        Random random = new Random(42);
+        for (int i = 0; i < content.length; i++) {
+            content[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+    }
+
+    @Benchmark
+    public boolean streamingScan() throws IOException {
+        return virusScanService.scanContent(new ByteArrayInputStream(content), image);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VirusScanBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -9,6 +9,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 import static org.assertj.core.api.Assertions.*;
@@ -41,7 +42,7 @@ class VirusScanServiceTest {
         when(mockFile.getOriginalFilename()).thenReturn("document.pdf");
         when(mockFile.getContentType()).thenReturn("application/pdf");
         when(mockFile.getSize()).thenReturn(1024L);
-        when(mockFile.getBytes()).thenReturn("Safe PDF content".getBytes());
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream("Safe PDF content".getBytes()));
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -107,7 +108,7 @@ class VirusScanServiceTest {
         when(mockFile.getSize()).thenReturn(1024L);
         // Create content with PE header signature (0x4D, 0x5A)
         byte[] maliciousContent = new byte[]{(byte) 0x4D, (byte) 0x5A, (byte) 0x90, (byte) 0x00, (byte) 0x03, (byte) 0x00, (byte) 0x00, (byte) 0x00};
-        when(mockFile.getBytes()).thenReturn(maliciousContent);
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(maliciousContent));
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -124,13 +125,13 @@ class VirusScanServiceTest {
         when(mockFile.getOriginalFilename()).thenReturn("image.jpg");
         when(mockFile.getContentType()).thenReturn("image/jpeg");
         when(mockFile.getSize()).thenReturn(60L * 1024 * 1024); // 60MB - exceeds 50MB limit
-        when(mockFile.getBytes()).thenReturn("Large image content".getBytes());
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
 
         // Then
         assertThat(result).isFalse();
+        verify(mockFile, never()).getInputStream();
     }
 
     @Test
@@ -141,13 +142,13 @@ class VirusScanServiceTest {
         when(mockFile.getOriginalFilename()).thenReturn("document.pdf");
         when(mockFile.getContentType()).thenReturn("application/pdf");
         when(mockFile.getSize()).thenReturn(110L * 1024 * 1024); // 110MB - exceeds 100MB limit
-        when(mockFile.getBytes()).thenReturn("Large PDF content".getBytes());
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
 
         // Then
         assertThat(result).isFalse();
+        verify(mockFile, never()).getInputStream();
     }
 
     @Test
@@ -168,7 +169,7 @@ class VirusScanServiceTest {
         // Add PE header at position 100
         content[100] = 0x4D;
         content[101] = 0x5A;
-        when(mockFile.getBytes()).thenReturn(content);
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(content));
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -188,7 +189,7 @@ class VirusScanServiceTest {
         
         // Create content with suspicious script tag
         String suspiciousContent = "Normal image data <script>alert('xss')</script> more data";
-        when(mockFile.getBytes()).thenReturn(suspiciousContent.getBytes());
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(suspiciousContent.getBytes()));
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -205,7 +206,7 @@ class VirusScanServiceTest {
         when(mockFile.getOriginalFilename()).thenReturn("document.pdf");
         when(mockFile.getContentType()).thenReturn("application/pdf");
         when(mockFile.getSize()).thenReturn(1024L);
-        when(mockFile.getBytes()).thenThrow(new IOException("Cannot read file"));
+        when(mockFile.getInputStream()).thenThrow(new IOException("Cannot read file"));
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -222,7 +223,7 @@ class VirusScanServiceTest {
         when(mockFile.getOriginalFilename()).thenReturn("image.jpg");
         when(mockFile.getContentType()).thenReturn("image/jpeg");
         when(mockFile.getSize()).thenReturn(1024L);
-        when(mockFile.getBytes()).thenReturn("Safe image content".getBytes());
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream("Safe image content".getBytes()));
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -239,7 +240,7 @@ class VirusScanServiceTest {
         when(mockFile.getOriginalFilename()).thenReturn("document.pdf");
         when(mockFile.getContentType()).thenReturn("application/pdf");
         when(mockFile.getSize()).thenReturn(1024L);
-        when(mockFile.getBytes()).thenReturn("Safe PDF content".getBytes());
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream("Safe PDF content".getBytes()));
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -256,7 +257,7 @@ class VirusScanServiceTest {
         when(mockFile.getOriginalFilename()).thenReturn("document.txt");
         when(mockFile.getContentType()).thenReturn("text/plain");
         when(mockFile.getSize()).thenReturn(1024L);
-        when(mockFile.getBytes()).thenReturn("Safe text content".getBytes());
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream("Safe text content".getBytes()));
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -310,7 +311,7 @@ class VirusScanServiceTest {
         when(mockFile.getOriginalFilename()).thenReturn("document.txt");
         when(mockFile.getContentType()).thenReturn("text/plain");
         when(mockFile.getSize()).thenReturn(1024L);
-        when(mockFile.getBytes()).thenReturn(signature);
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(signature));
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -338,7 +339,7 @@ class VirusScanServiceTest {
             when(mockFile.getOriginalFilename()).thenReturn("image.jpg");
             when(mockFile.getContentType()).thenReturn("image/jpeg");
             when(mockFile.getSize()).thenReturn(1024L);
-            when(mockFile.getBytes()).thenReturn(("Normal content " + pattern + " more content").getBytes());
+            when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(("Normal content " + pattern + " more content").getBytes()));
 
             // When
             boolean result = virusScanService.scanFile(mockFile);
@@ -378,7 +379,7 @@ class VirusScanServiceTest {
         when(mockFile.getOriginalFilename()).thenReturn("image.jpg");
         when(mockFile.getContentType()).thenReturn("image/jpeg");
         when(mockFile.getSize()).thenReturn(1024L);
-        when(mockFile.getBytes()).thenReturn("Normal content <SCRIPT>alert('xss')</SCRIPT> more content".getBytes());
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream("Normal content <SCRIPT>alert('xss')</SCRIPT> more content".getBytes()));
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -395,7 +396,7 @@ class VirusScanServiceTest {
         when(mockFile.getOriginalFilename()).thenReturn("empty.txt");
         when(mockFile.getContentType()).thenReturn("text/plain");
         when(mockFile.getSize()).thenReturn(0L);
-        when(mockFile.getBytes()).thenReturn(new byte[0]);
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -412,7 +413,7 @@ class VirusScanServiceTest {
         when(mockFile.getOriginalFilename()).thenReturn("null.txt");
         when(mockFile.getContentType()).thenReturn("text/plain");
         when(mockFile.getSize()).thenReturn(0L);
-        when(mockFile.getBytes()).thenReturn(null);
+        when(mockFile.getInputStream()).thenReturn(null);
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -429,7 +430,7 @@ class VirusScanServiceTest {
         when(mockFile.getOriginalFilename()).thenReturn("tiny.txt");
         when(mockFile.getContentType()).thenReturn("text/plain");
         when(mockFile.getSize()).thenReturn(2L);
-        when(mockFile.getBytes()).thenReturn(new byte[]{0x4D, 0x5A}); // PE header but too small
+        when(mockFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{0x4D, 0x5A})); // PE header but too small
 
         // When
         boolean result = virusScanService.scanFile(mockFile);
@@ -437,4 +438,51 @@ class VirusScanServiceTest {
         // Then
         assertThat(result).isTrue(); // Should pass because content is too small for signature check
     }
+
+    @Test
+    @DisplayName("Should detect a pattern split across incrementally fed chunks")
+    void shouldDetectPatternAcrossChunks() {
+        // Given
+        byte[] content = "<html><script>alert(1)</script></html>".getBytes();
+        VirusScanService.ContentScan scan = virusScanService.startScan("image/png");
+
+        // When - the chunk boundary falls inside "<script"
+        boolean firstClean = scan.feed(content, 0, 9);
+        boolean secondClean = scan.feed(content, 9, content.length - 9);
+
+        // Then
+        assertThat(firstClean).isTrue();
+        assertThat(secondClean).isFalse();
+        assertThat(scan.isClean()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reach the same verdict incrementally as for the whole content")
+    void shouldMatchWholeContentVerdictIncrementally() throws IOException {
+        // Given
+        byte[] content = new byte[]{0x25, 0x50, 0x44, 0x46, 0x4D, 0x5A, 0x00, 0x01}; // "%PDF" then a PE header
+        VirusScanService.ContentScan scan = virusScanService.startScan("application/pdf");
+
+        // When
+        for (int i = 0; i < content.length; i++) {
+            scan.feed(content, i, 1);
+        }
+
+        // Then
+        assertThat(scan.isClean()).isEqualTo(virusScanService.scanContent(new ByteArrayInputStream(content), false));
+        assertThat(scan.isClean()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should accept any content incrementally when virus scan is disabled")
+    void shouldSkipIncrementalScanWhenDisabled() {
+        // Given
+        ReflectionTestUtils.setField(virusScanService, "virusScanEnabled", false);
+        byte[] content = "cmd.exe /c powershell".getBytes();
+        VirusScanService.ContentScan scan = virusScanService.startScan("image/png");
+
+        // When / Then
+        assertThat(scan.feed(content, 0, content.length)).isTrue();
+        assertThat(scan.isClean()).isTrue();
+    }
 }
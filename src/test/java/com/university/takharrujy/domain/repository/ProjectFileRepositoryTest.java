@@ -0,0 +1,84 @@
+package com.university.takharrujy.domain.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the native full-text search queries of ProjectFileRepository, against PostgreSQL
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("ProjectFileRepository Search Tests")
+class ProjectFileRepositoryTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void createSchema() {
+        jdbcTemplate = new NamedParameterJdbcTemplate(new DriverManagerDataSource(
+            postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+
+        // Only the columns the search queries read; department 7 and its project belong to university 2
+        jdbcTemplate.getJdbcTemplate().execute("""
+            CREATE TABLE users (id BIGINT PRIMARY KEY, department_id BIGINT);
+            CREATE TABLE projects (id BIGINT PRIMARY KEY, team_leader_id BIGINT NOT NULL);
+            CREATE TABLE file_blobs (
+                university_id BIGINT NOT NULL,
+                content_hash VARCHAR(64) NOT NULL,
+                search_vector TSVECTOR,
+                PRIMARY KEY (university_id, content_hash)
+            );
+            CREATE TABLE project_files (
+                id BIGINT PRIMARY KEY,
+                university_id BIGINT NOT NULL,
+                project_id BIGINT NOT NULL,
+                content_hash VARCHAR(64),
+                virus_scan_status VARCHAR(20) NOT NULL
+            );
+            INSERT INTO users (id, department_id) VALUES (1, 7), (2, 8);
+            INSERT INTO projects (id, team_leader_id) VALUES (10, 1), (20, 2);
+            INSERT INTO file_blobs VALUES
+                (2, 'a', to_tsvector('english', 'graduation thesis on solar energy')),
+                (1, 'b', to_tsvector('english', 'graduation thesis on wind energy'));
+            INSERT INTO project_files VALUES (100, 2, 10, 'a', 'CLEAN'), (200, 1, 20, 'b', 'CLEAN');
+            """);
+    }
+
+    @Test
+    @DisplayName("Should find nothing in a department of another university")
+    void shouldScopeDepartmentSearchToUniversity() throws NoSuchMethodException {
+        // Given
+        String sql = ProjectFileRepository.class.getMethod("searchDepartmentFileIds",
+            Long.class, Long.class, String.class, int.class).getAnnotation(Query.class).value();
+
+        // When
+        List<Long> fromOwnUniversity = search(sql, 2L);
+        List<Long> fromOtherUniversity = search(sql, 1L);
+
+        // Then
+        assertThat(fromOwnUniversity).containsExactly(100L);
+        assertThat(fromOtherUniversity).isEmpty();
+    }
+
+    private static List<Long> search(String sql, Long universityId) {
+        return jdbcTemplate.queryForList(sql, new MapSqlParameterSource()
+            .addValue("departmentId", 7L)
+            .addValue("universityId", universityId)
+            .addValue("query", "energy")
+            .addValue("limit", 20), Long.class);
+    }
+}
@@ -0,0 +1,196 @@
+package com.university.takharrujy.infrastructure.config;
+
+import com.university.takharrujy.application.service.StorageUsageService;
+import com.university.takharrujy.domain.entity.User;
+import com.university.takharrujy.infrastructure.exception.BusinessException;
+import com.university.takharrujy.infrastructure.security.CustomUserDetailsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UploadQuotaInterceptor
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UploadQuotaInterceptor Tests")
+class UploadQuotaInterceptorTest {
+
+    private static final long UPLOAD_LENGTH = 50L * 1024 * 1024;
+    private static final long BATCH_LENGTH = 300L * 1024 * 1024;
+    private static final String SINGLE_PATTERN = "/api/v1/projects/{projectId}/files";
+    private static final String BATCH_PATTERN = "/api/v1/projects/{projectId}/files/batch";
+
+    @Mock
+    private StorageUsageService storageUsageService;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    private UploadQuotaInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new UploadQuotaInterceptor(storageUsageService);
+        ReflectionTestUtils.setField(interceptor, "maxRequestSize", DataSize.ofMegabytes(100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should refuse an over-quota upload with 413 before its body is read")
+    void shouldRejectOverQuotaUploadBeforeReadingBody() throws Exception {
+        // Given - a user authenticated by the JWT filter
+        authenticate(5L);
+        uploadTo("42");
+        when(storageUsageService.checkQuota(42L, 5L, UPLOAD_LENGTH))
+            .thenThrow(BusinessException.storageQuotaExceeded("Upload exceeds the project storage quota"));
+
+        // When / Then
+        assertThatThrownBy(() -> interceptor.preHandle(request, response, new Object()))
+            .isInstanceOfSatisfying(BusinessException.class,
+                e -> assertThat(e.getHttpStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+        verify(request, never()).getInputStream();
+        verify(request, never()).getParts();
+        verify(request, never()).getParameterMap();
+    }
+
+    @Test
+    @DisplayName("Should let an upload within quota through")
+    void shouldAllowUploadWithinQuota() throws Exception {
+        // Given
+        authenticate(5L);
+        uploadTo("42");
+        when(storageUsageService.checkQuota(42L, 5L, UPLOAD_LENGTH)).thenReturn(1L);
+
+        // When
+        boolean proceed = interceptor.preHandle(request, response, new Object());
+
+        // Then
+        assertThat(proceed).isTrue();
+        verify(storageUsageService).checkQuota(42L, 5L, UPLOAD_LENGTH);
+    }
+
+    @Test
+    @DisplayName("Should leave unauthenticated requests to the security chain")
+    void shouldSkipWithoutAuthentication() throws Exception {
+        // Given
+        uploadTo("42");
+
+        // When
+        boolean proceed = interceptor.preHandle(request, response, new Object());
+
+        // Then
+        assertThat(proceed).isTrue();
+        verifyNoInteractions(storageUsageService);
+    }
+
+    @Test
+    @DisplayName("Should not check multi-file uploads without a declared length")
+    void shouldSkipBatchWithoutContentLength() throws Exception {
+        // Given - chunked; checked by the upload service once the parts are read
+        authenticate(5L);
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getContentLengthLong()).thenReturn(-1L);
+        when(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)).thenReturn(BATCH_PATTERN);
+
+        // When
+        boolean proceed = interceptor.preHandle(request, response, new Object());
+
+        // Then
+        assertThat(proceed).isTrue();
+        verify(storageUsageService, never()).checkQuota(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should require a declared length on uploads other than the multi-file upload")
+    void shouldRequireContentLengthOutsideBatch() {
+        // Given
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getContentLengthLong()).thenReturn(-1L);
+        when(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)).thenReturn(SINGLE_PATTERN);
+
+        // When / Then
+        assertThatThrownBy(() -> interceptor.preHandle(request, response, new Object()))
+            .isInstanceOfSatisfying(BusinessException.class,
+                e -> assertThat(e.getHttpStatus()).isEqualTo(HttpStatus.LENGTH_REQUIRED));
+    }
+
+    @Test
+    @DisplayName("Should hold uploads other than the multi-file upload to the request limit")
+    void shouldRejectSingleUploadOverRequestLimit() throws Exception {
+        // Given - fits the servlet limit, which is sized for the multi-file upload
+        authenticate(5L);
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getContentLengthLong()).thenReturn(BATCH_LENGTH);
+        when(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)).thenReturn(SINGLE_PATTERN);
+
+        // When / Then
+        assertThatThrownBy(() -> interceptor.preHandle(request, response, new Object()))
+            .isInstanceOfSatisfying(BusinessException.class,
+                e -> assertThat(e.getHttpStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+        verifyNoInteractions(storageUsageService);
+        verify(request, never()).getInputStream();
+        verify(request, never()).getParts();
+    }
+
+    @Test
+    @DisplayName("Should let a multi-file upload over the request limit through to the quota check")
+    void shouldAllowBatchOverRequestLimit() throws Exception {
+        // Given
+        authenticate(5L);
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getContentLengthLong()).thenReturn(BATCH_LENGTH);
+        when(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)).thenReturn(BATCH_PATTERN);
+        when(request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE))
+            .thenReturn(Map.of("projectId", "42"));
+        when(storageUsageService.checkQuota(42L, 5L, BATCH_LENGTH)).thenReturn(1L);
+
+        // When
+        boolean proceed = interceptor.preHandle(request, response, new Object());
+
+        // Then
+        assertThat(proceed).isTrue();
+        verify(storageUsageService).checkQuota(42L, 5L, BATCH_LENGTH);
+    }
+
+    private void authenticate(Long userId) {
+        User user = new User();
+        user.setId(userId);
+        CustomUserDetailsService.CustomUserPrincipal principal = new CustomUserDetailsService.CustomUserPrincipal(user);
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    private void uploadTo(String projectId) {
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getContentLengthLong()).thenReturn(UPLOAD_LENGTH);
+        when(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)).thenReturn(SINGLE_PATTERN);
+        when(request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE))
+            .thenReturn(Map.of("projectId", projectId));
+    }
+}
@@ -0,0 +1,99 @@
+package com.university.takharrujy.infrastructure.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for AhoCorasickMatcher
+ */
+@DisplayName("Aho-Corasick Matcher Tests")
+class AhoCorasickMatcherTest {
+
+    @Test
+    @DisplayName("Should report overlapping patterns with their end offsets")
+    void shouldReportOverlappingPatterns() {
+        // Given
+        AhoCorasickMatcher.Builder builder = AhoCorasickMatcher.builder();
+        int he = builder.add(ascii("he"), false);
+        int she = builder.add(ascii("she"), false);
+        int hers = builder.add(ascii("hers"), false);
+        AhoCorasickMatcher matcher = builder.build();
+
+        // When
+        List<String> matches = scan(matcher, ascii("ushers"), 64);
+
+        // Then
+        assertThat(matches).containsExactlyInAnyOrder(she + "@3", he + "@3", hers + "@5");
+    }
+
+    @Test
+    @DisplayName("Should find matches that straddle chunk boundaries")
+    void shouldMatchAcrossChunks() {
+        // Given
+        AhoCorasickMatcher.Builder builder = AhoCorasickMatcher.builder();
+        builder.add(ascii("powershell"), true);
+        builder.add(new byte[]{0x7F, 0x45, 0x4C, 0x46}, false);
+        AhoCorasickMatcher matcher = builder.build();
+        byte[] input = ascii("xxPowerSHELLyy\u007FELFzz");
+
+        // When / Then - every chunk size gives the same result
+        for (int chunk = 1; chunk <= input.length; chunk++) {
+            assertThat(scan(matcher, input, chunk)).as("chunk size %d", chunk).containsExactly("0@11", "1@17");
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep case-sensitive patterns case-sensitive")
+    void shouldRespectCaseSensitivity() {
+        // Given
+        AhoCorasickMatcher.Builder builder = AhoCorasickMatcher.builder();
+        builder.add(ascii("MZ"), false);
+        builder.add(ascii("<script"), true);
+        AhoCorasickMatcher matcher = builder.build();
+
+        // When / Then
+        assertThat(scan(matcher, ascii("mz Mz mZ"), 3)).isEmpty();
+        assertThat(scan(matcher, ascii("..MZ..<ScRiPt"), 3)).containsExactly("0@3", "1@12");
+    }
+
+    @Test
+    @DisplayName("Should stop when the handler asks to")
+    void shouldStopOnRequest() {
+        // Given
+        AhoCorasickMatcher.Builder builder = AhoCorasickMatcher.builder();
+        builder.add(ascii("a"), false);
+        AhoCorasickMatcher.Cursor cursor = builder.build().cursor();
+        List<Long> ends = new ArrayList<>();
+
+        // When
+        boolean stopped = cursor.feed(ascii("baaa"), 0, 4, (pattern, end) -> ends.add(end) && ends.size() == 2);
+
+        // Then
+        assertThat(stopped).isTrue();
+        assertThat(ends).containsExactly(1L, 2L);
+        assertThat(cursor.position()).isEqualTo(3);
+        assertThat(cursor.feed(ascii("a"), 0, 1, (pattern, end) -> false)).isTrue();
+    }
+
+    private List<String> scan(AhoCorasickMatcher matcher, byte[] input, int chunkSize) {
+        List<String> matches = new ArrayList<>();
+        AhoCorasickMatcher.Cursor cursor = matcher.cursor();
+        for (int offset = 0; offset < input.length; offset += chunkSize) {
+            cursor.feed(input, offset, Math.min(chunkSize, input.length - offset), (pattern, end) -> {
+                matches.add(pattern + "@" + end);
+                return false;
+            });
+        }
+        return matches;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,81 @@
+package com.university.takharrujy.infrastructure.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for UrlSigner
+ */
+@DisplayName("URL Signer Tests")
+class UrlSignerTest {
+
+    private static final String JWT_SECRET = "jwt-secret-used-only-to-derive-the-default-key";
+    private static final String OLD_KEY = "k1:first-signing-secret-of-at-least-32-bytes";
+    private static final String NEW_KEY = "k2:second-signing-secret-of-at-least-32-bytes";
+
+    private final byte[] payload = "{\"fileId\":42}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("Should verify its own tokens and return the payload")
+    void shouldRoundTrip() {
+        // Given
+        UrlSigner signer = new UrlSigner("", "", JWT_SECRET);
+
+        // When
+        String token = signer.sign(payload);
+
+        // Then
+        assertThat(token).matches("[A-Za-z0-9_.-]+");
+        assertThat(signer.verify(token)).hasValueSatisfying(verified -> assertThat(verified).isEqualTo(payload));
+    }
+
+    @Test
+    @DisplayName("Should reject altered, truncated and foreign tokens")
+    void shouldRejectTamperedTokens() {
+        // Given
+        UrlSigner signer = new UrlSigner(OLD_KEY, "", JWT_SECRET);
+        String token = signer.sign(payload);
+        String otherPayload = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString("{\"fileId\":43}".getBytes(StandardCharsets.UTF_8));
+        String[] parts = token.split("\\.");
+
+        // When / Then
+        assertThat(signer.verify(parts[0] + "." + otherPayload + "." + parts[2])).isEmpty();
+        assertThat(signer.verify(parts[0] + "." + parts[1])).isEmpty();
+        assertThat(signer.verify(parts[0] + "." + parts[1] + "." + parts[2] + "!")).isEmpty();
+        assertThat(signer.verify("k9." + parts[1] + "." + parts[2])).isEmpty();
+        assertThat(new UrlSigner(NEW_KEY, "", JWT_SECRET).verify(token)).isEmpty();
+        assertThat(new UrlSigner("", "", JWT_SECRET).verify(token)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep verifying tokens of a retired key until it is removed")
+    void shouldRotateKeys() {
+        // Given - links issued before the rotation
+        String issuedBefore = new UrlSigner(OLD_KEY, "", JWT_SECRET).sign(payload);
+
+        // When - the new key signs, the old one still verifies
+        UrlSigner rotated = new UrlSigner(OLD_KEY + "," + NEW_KEY, "k2", JWT_SECRET);
+        String issuedAfter = rotated.sign(payload);
+
+        // Then
+        assertThat(issuedAfter).startsWith("k2.");
+        assertThat(rotated.verify(issuedBefore)).isPresent();
+        assertThat(rotated.verify(issuedAfter)).isPresent();
+        assertThat(new UrlSigner(NEW_KEY, "", JWT_SECRET).verify(issuedBefore)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should refuse short secrets and an unknown active key")
+    void shouldValidateConfiguration() {
+        assertThatThrownBy(() -> new UrlSigner("k1:short", "", JWT_SECRET))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new UrlSigner(OLD_KEY, "k2", JWT_SECRET))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,189 @@
+package com.university.takharrujy.infrastructure.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for DocumentTextExtractor
+ */
+@DisplayName("Document Text Extractor Tests")
+class DocumentTextExtractorTest {
+
+    private static final long MAX_BYTES = 1024 * 1024;
+
+    private final DocumentTextExtractor extractor = new DocumentTextExtractor();
+
+    @Test
+    @DisplayName("Should extract the paragraphs of a Word document and ignore other parts")
+    void shouldExtractDocx() throws IOException {
+        // Given
+        Map<String, String> parts = new LinkedHashMap<>();
+        parts.put("[Content_Types].xml", "<Types><Default Extension=\"xml\"/></Types>");
+        parts.put("word/document.xml", """
+            <w:document xmlns:w="http://schemas.openxmlformats.org/wordprocessingml/2006/main">
+              <w:body>
+                <w:p><w:r><w:t>Graduation</w:t></w:r><w:r><w:t xml:space="preserve"> Project</w:t></w:r></w:p>
+                <w:p><w:r><w:t>Report</w:t></w:r><w:r><w:tab/><w:t>Draft</w:t></w:r></w:p>
+              </w:body>
+            </w:document>
+            """);
+        parts.put("word/styles.xml", "<w:styles xmlns:w=\"x\"><w:t>Heading</w:t></w:styles>");
+
+        // When
+        String text = extract(zip(parts), DocumentTextExtractor.DOCX);
+
+        // Then
+        assertThat(text).isEqualTo("graduation project report draft");
+    }
+
+    @Test
+    @DisplayName("Should extract slides and speaker notes of a presentation")
+    void shouldExtractPptx() throws IOException {
+        // Given
+        Map<String, String> parts = new LinkedHashMap<>();
+        parts.put("ppt/slides/slide1.xml", """
+            <p:sld xmlns:p="p" xmlns:a="a"><p:cSld><a:p><a:r><a:t>Results</a:t></a:r></a:p></p:cSld></p:sld>
+            """);
+        parts.put("ppt/notesSlides/notesSlide1.xml", """
+            <p:notes xmlns:p="p" xmlns:a="a"><a:p><a:r><a:t>Mention accuracy</a:t></a:r></a:p></p:notes>
+            """);
+        parts.put("ppt/slideLayouts/slideLayout1.xml", "<p:sldLayout xmlns:p=\"p\" xmlns:a=\"a\"><a:t>Title</a:t></p:sldLayout>");
+
+        // When
+        String text = extract(zip(parts), DocumentTextExtractor.PPTX);
+
+        // Then
+        assertThat(text).isEqualTo("results mention accuracy");
+    }
+
+    @Test
+    @DisplayName("Should extract shared and inline cell strings of a spreadsheet")
+    void shouldExtractXlsx() throws IOException {
+        // Given
+        Map<String, String> parts = new LinkedHashMap<>();
+        parts.put("xl/sharedStrings.xml", """
+            <sst xmlns="s"><si><t>Budget</t></si><si><r><t>Total</t></r><r><t>s</t></r></si></sst>
+            """);
+        parts.put("xl/worksheets/sheet1.xml", """
+            <worksheet xmlns="s"><sheetData><row><c t="inlineStr"><is><t>Q1</t></is></c><c><v>42</v></c></row></sheetData></worksheet>
+            """);
+
+        // When
+        String text = extract(zip(parts), DocumentTextExtractor.XLSX);
+
+        // Then - numeric cell values are not text
+        assertThat(text).isEqualTo("budget totals q1");
+    }
+
+    @Test
+    @DisplayName("Should normalize Arabic so spelling variants match")
+    void shouldNormalizeArabic() {
+        // Given - diacritics, tatweel, hamza on alef, teh marbuta, alef maqsura and Arabic-Indic digits
+        String written = "المَشْروع ألــتخرج"
+            + " مكتبة مستشفى ٢٠٢٤";
+
+        // When
+        String normalized = DocumentTextExtractor.normalize(written);
+
+        // Then
+        assertThat(normalized).isEqualTo("المشروع التخرج"
+            + " مكتبه مستشفي 2024");
+    }
+
+    @Test
+    @DisplayName("Should fold Arabic presentation forms and collapse whitespace in plain text")
+    void shouldExtractPlainText() throws IOException {
+        // Given - lam-alef ligature, a zero-width joiner and mixed whitespace
+        byte[] content = "Final\t\tREPORT\r\n\uFEFB\u200Dمل\n".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        String text = extract(content, DocumentTextExtractor.TEXT);
+
+        // Then
+        assertThat(text).isEqualTo("final report لامل");
+    }
+
+    @Test
+    @DisplayName("Should stop at the character limit")
+    void shouldCapExtractedText() throws IOException {
+        // Given
+        byte[] content = "word ".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+
+        // When
+        String text = extractor.extract(new ByteArrayInputStream(content), DocumentTextExtractor.TEXT, 100, MAX_BYTES);
+
+        // Then
+        assertThat(text).hasSizeBetween(99, 100).startsWith("word word");
+    }
+
+    @Test
+    @DisplayName("Should refuse a document that decompresses past the byte limit")
+    void shouldRejectDecompressionBomb() throws IOException {
+        // Given - highly compressible XML, small on disk
+        String padding = "<w:p/>".repeat(200_000);
+        byte[] document = zip(Map.of("word/document.xml", "<w:document xmlns:w=\"w\">" + padding + "</w:document>"));
+        assertThat(document.length).isLessThan(64 * 1024);
+
+        // When / Then
+        assertThatThrownBy(() -> extract(document, DocumentTextExtractor.DOCX))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("exceeds");
+    }
+
+    @Test
+    @DisplayName("Should not resolve external entities")
+    void shouldIgnoreExternalEntities() {
+        // Given
+        byte[] document = zip(Map.of("word/document.xml", """
+            <?xml version="1.0"?>
+            <!DOCTYPE d [<!ENTITY xxe SYSTEM "file:///etc/passwd">]>
+            <w:document xmlns:w="w"><w:p><w:t>&xxe;</w:t></w:p></w:document>
+            """));
+
+        // When / Then
+        assertThatThrownBy(() -> extract(document, DocumentTextExtractor.DOCX))
+            .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("Should only support plain text and OOXML documents")
+    void shouldReportSupportedTypes() {
+        assertThat(DocumentTextExtractor.supports(DocumentTextExtractor.DOCX)).isTrue();
+        assertThat(DocumentTextExtractor.supports("text/plain")).isTrue();
+        assertThat(DocumentTextExtractor.supports("application/pdf")).isFalse();
+        assertThat(DocumentTextExtractor.supports("application/msword")).isFalse();
+        assertThat(DocumentTextExtractor.supports(null)).isFalse();
+    }
+
+    private String extract(byte[] content, String contentType) throws IOException {
+        try (InputStream in = new ByteArrayInputStream(content)) {
+            return extractor.extract(in, contentType, 10_000, MAX_BYTES);
+        }
+    }
+
+    private static byte[] zip(Map<String, String> parts) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> part : parts.entrySet()) {
+                zip.putNextEntry(new ZipEntry(part.getKey()));
+                zip.write(part.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,129 @@
+package com.university.takharrujy.infrastructure.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.university.takharrujy.infrastructure.service.EmailOutbox.OutboxEmail;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Delivery tests for the email outbox worker against a local GreenMail SMTP server
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Email Delivery Worker Tests")
+class EmailDeliveryWorkerTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private EmailOutbox emailOutbox;
+
+    @Mock
+    private EmailTemplateRegistry emailTemplates;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EmailDeliveryWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+
+        EmailService emailService = new EmailService(mailSender, emailTemplates, emailOutbox);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@takharrujy.tech");
+        ReflectionTestUtils.setField(emailService, "fromName", "Takharrujy Platform");
+
+        meterRegistry = new SimpleMeterRegistry();
+        worker = new EmailDeliveryWorker(emailOutbox, emailService, mailSender, meterRegistry);
+        ReflectionTestUtils.setField(worker, "workers", 2);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        ReflectionTestUtils.setField(worker, "initialBackoff", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(worker, "maxBackoff", Duration.ofHours(1));
+        ReflectionTestUtils.invokeMethod(worker, "start");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(worker, "stop");
+    }
+
+    @Test
+    @DisplayName("Should deliver a batch and remove it from the outbox")
+    void shouldDeliverBatch() throws Exception {
+        // Given
+        List<OutboxEmail> batch = List.of(
+                email(1L, "ahmed@cu.edu.eg", "welcome", "ar", 1),
+                email(2L, "sara@cu.edu.eg", "welcome", "en", 1),
+                email(3L, "omar@cu.edu.eg", "password-reset", "en", 1));
+
+        // When
+        worker.deliver(batch);
+
+        // Then
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(3);
+        verify(emailOutbox, times(2)).markSent(anyList());
+        verify(emailOutbox, never()).reschedule(anyLong(), any(), anyString());
+        assertThat(meterRegistry.counter("takharrujy.email.sent", "template", "welcome").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Should reschedule with backoff when the relay is down")
+    void shouldRescheduleWhenRelayIsDown() throws Exception {
+        // Given
+        greenMail.stop();
+
+        // When
+        worker.deliver(List.of(email(1L, "ahmed@cu.edu.eg", "welcome", "en", 1)));
+
+        // Then
+        verify(emailOutbox).reschedule(eq(1L), argThat(next -> next.isAfter(Instant.now().plusSeconds(25))), anyString());
+        verify(emailOutbox, never()).deadLetter(anyLong(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should dead-letter a message after its last attempt")
+    void shouldDeadLetterAfterLastAttempt() throws Exception {
+        // Given
+        greenMail.stop();
+
+        // When
+        worker.deliver(List.of(email(1L, "ahmed@cu.edu.eg", "welcome", "en", 3)));
+
+        // Then
+        verify(emailOutbox).deadLetter(eq(1L), anyString());
+        verify(emailOutbox, never()).reschedule(anyLong(), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should grow backoff exponentially up to the cap")
+    void shouldGrowBackoffExponentially() {
+        assertThat(worker.backoff(1)).isBetween(Duration.ofSeconds(30), Duration.ofSeconds(36));
+        assertThat(worker.backoff(3)).isBetween(Duration.ofMinutes(2), Duration.ofSeconds(144));
+        assertThat(worker.backoff(20)).isBetween(Duration.ofHours(1), Duration.ofMinutes(72));
+    }
+
+    private OutboxEmail email(Long id, String to, String template, String language, int attempts) {
+        return new OutboxEmail(id, to, "Subject " + id, "<p>Body " + id + "</p>", true, template, language, attempts);
+    }
+}
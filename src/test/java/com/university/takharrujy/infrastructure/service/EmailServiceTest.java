@@ -10,7 +10,6 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.thymeleaf.TemplateEngine;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
@@ -27,7 +26,7 @@ class EmailServiceTest {
     private JavaMailSender mailSender;
 
     @Mock
-    private TemplateEngine templateEngine;
+    private EmailTemplateRegistry emailTemplates;
 
     @Mock
     private MimeMessage mimeMessage;
@@ -50,6 +49,8 @@ class EmailServiceTest {
         ReflectionTestUtils.setField(emailService, "baseUrl", "https://app.takharrujy.tech");
         
         when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
+        lenient().when(emailTemplates.render(any(EmailTemplate.class), anyString(), anyMap()))
+            .thenReturn("<html><body>Rendered</body></html>");
     }
 
     @Test
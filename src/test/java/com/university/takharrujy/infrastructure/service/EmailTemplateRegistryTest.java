@@ -0,0 +1,116 @@
+package com.university.takharrujy.infrastructure.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for EmailTemplateRegistry against the real templates under templates/email
+ */
+@DisplayName("Email Template Registry Tests")
+class EmailTemplateRegistryTest {
+
+    static final String BASE_URL = "https://app.takharrujy.tech";
+    static final String SUPPORT_EMAIL = "noreply@takharrujy.tech";
+
+    private TemplateEngine templateEngine;
+    private EmailTemplateRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        templateEngine = classpathTemplateEngine();
+        registry = new EmailTemplateRegistry(templateEngine, BASE_URL, SUPPORT_EMAIL);
+        registry.load();
+    }
+
+    @Test
+    @DisplayName("Should compile every template in both languages")
+    void shouldCompileEveryTemplate() {
+        for (EmailTemplate template : EmailTemplate.values()) {
+            for (String language : EmailTemplateRegistry.LANGUAGES) {
+                assertThat(registry.get(template, language).getLanguage()).isEqualTo(language);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should render exactly what Thymeleaf renders")
+    void shouldMatchThymeleafOutput() {
+        // Given
+        Map<String, String> values = Map.of(
+                "userName", "Sara <O'Neil> & Co",
+                "userNameAr", "سارة \"أحمد\"",
+                "verificationUrl", BASE_URL + "/auth/verify-email?token=abc&x=1",
+                "resetUrl", BASE_URL + "/auth/reset-password?token=def",
+                "expirationHours", "24",
+                "changedAt", "2026-10-18T10:15:30",
+                "reason", "Too many failed login attempts");
+
+        for (EmailTemplate template : EmailTemplate.values()) {
+            for (String language : EmailTemplateRegistry.LANGUAGES) {
+                // When
+                String rendered = registry.render(template, language, values);
+
+                // Then
+                assertThat(rendered)
+                        .as("%s-%s", template.getFileName(), language)
+                        .isEqualTo(thymeleaf(template, language, values));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should render Arabic templates right-to-left with the Arabic name")
+    void shouldRenderArabicTemplate() {
+        // When
+        String rendered = registry.render(EmailTemplate.WELCOME, "ar", Map.of(
+                "userName", "Ahmed Mohamed",
+                "userNameAr", "أحمد محمد",
+                "verificationUrl", BASE_URL + "/auth/verify-email?token=t1"));
+
+        // Then
+        assertThat(rendered)
+                .contains("dir=\"rtl\"")
+                .contains("أحمد محمد")
+                .contains(BASE_URL + "/auth/verify-email?token=t1")
+                .contains(SUPPORT_EMAIL)
+                .doesNotContain("@@MERGE");
+    }
+
+    @Test
+    @DisplayName("Should fall back to English for other languages")
+    void shouldFallBackToEnglish() {
+        assertThat(registry.get(EmailTemplate.PASSWORD_RESET, "fr").getLanguage()).isEqualTo("en");
+        assertThat(registry.get(EmailTemplate.PASSWORD_RESET, null).getSubject())
+                .isEqualTo("Password Reset - Takharrujy Platform");
+    }
+
+    private String thymeleaf(EmailTemplate template, String language, Map<String, String> values) {
+        Context context = new Context("ar".equals(language) ? Locale.forLanguageTag("ar") : Locale.ENGLISH);
+        context.setVariable("baseUrl", BASE_URL);
+        context.setVariable("supportEmail", SUPPORT_EMAIL);
+        values.forEach(context::setVariable);
+        return templateEngine.process("email/" + template.getFileName() + "-" + language, context);
+    }
+
+    static TemplateEngine classpathTemplateEngine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+
+        TemplateEngine engine = new TemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return engine;
+    }
+}
@@ -0,0 +1,82 @@
+package com.university.takharrujy.infrastructure.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-email render cost of the precompiled registry against a full Thymeleaf pass,
+ * for the right-to-left (ar) and left-to-right (en) variants of each template.
+ * Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailTemplateRenderBenchmark {
+
+    @Param({"ar", "en"})
+    public String language;
+
+    @Param({"WELCOME", "PASSWORD_RESET"})
+    public String templateName;
+
+    private TemplateEngine templateEngine;
+    private EmailTemplateRegistry registry;
+    private EmailTemplate template;
+    private Map<String, String> values;
+
+    @Setup
+    public void setUp() {
+        templateEngine = EmailTemplateRegistryTest.classpathTemplateEngine();
+        registry = new EmailTemplateRegistry(templateEngine,
+                EmailTemplateRegistryTest.BASE_URL, EmailTemplateRegistryTest.SUPPORT_EMAIL);
+        registry.load();
+        template = EmailTemplate.valueOf(templateName);
+        values = Map.of(
+                "userName", "Ahmed Mohamed",
+                "userNameAr", "أحمد محمد الخطيب",
+                "verificationUrl", EmailTemplateRegistryTest.BASE_URL + "/auth/verify-email?token=3f9c2a7e-5b1d-4c8e",
+                "resetUrl", EmailTemplateRegistryTest.BASE_URL + "/auth/reset-password?token=3f9c2a7e-5b1d-4c8e",
+                "expirationHours", "24");
+    }
+
+    @Benchmark
+    public String precompiled() {
+        return registry.render(template, language, values);
+    }
+
+    @Benchmark
+    public String thymeleaf() {
+        Context context = new Context("ar".equals(language) ? Locale.forLanguageTag("ar") : Locale.ENGLISH);
+        context.setVariable("baseUrl", EmailTemplateRegistryTest.BASE_URL);
+        context.setVariable("supportEmail", EmailTemplateRegistryTest.SUPPORT_EMAIL);
+        values.forEach(context::setVariable);
+        return templateEngine.process("email/" + template.getFileName() + "-" + language, context);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailTemplateRenderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,136 @@
+package com.university.takharrujy.infrastructure.service;
+
+import com.university.takharrujy.infrastructure.storage.LocalStorageBackend;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.UrlResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of one download through FileDownloadWriter against the
+ * previous path (UrlResource written by ResourceHttpMessageConverter), for a whole
+ * file and for a 1 MB range. The response body is discarded so only the copy is
+ * measured. Run with {@code main} from the test classpath; add {@code -prof gc} for
+ * the bytes allocated per download.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileDownloadBenchmark {
+
+    @Param({"1", "64"})
+    public int megabytes;
+
+    private Path file;
+    private FileDownloadWriter writer;
+    private FileDownloadWriter.Download download;
+    private ResourceHttpMessageConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] content = new byte[megabytes * 1024 * 1024];
+        new Random(42).nextBytes(content);
+        file = Files.createTempFile("download-benchmark", ".pdf");
+        Files.write(file, content);
+
+        writer = new FileDownloadWriter();
+        download = new FileDownloadWriter.Download(new LocalStorageBackend(file.getParent()),
+                file.getFileName().toString(), content.length, "application/pdf", "report.pdf",
+                "\"benchmark\"", Instant.now());
+        converter = new ResourceHttpMessageConverter();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int transferTo() throws IOException {
+        DiscardingResponse response = new DiscardingResponse();
+        writer.write(new MockHttpServletRequest("GET", "/api/v1/files/1"), response, download);
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int transferToRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/files/1");
+        request.addHeader("Range", "bytes=0-1048575");
+        DiscardingResponse response = new DiscardingResponse();
+        writer.write(request, response, download);
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int urlResource() throws IOException {
+        DiscardingResponse response = new DiscardingResponse();
+        converter.write(new UrlResource(file.toUri()), MediaType.APPLICATION_PDF, new ServletServerHttpResponse(response));
+        return response.getStatus();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FileDownloadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Response whose body goes nowhere, so the mock's own buffering is not measured
+     */
+    static class DiscardingResponse extends MockHttpServletResponse {
+
+        private final ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return out;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.university.takharrujy.infrastructure.service;
+
+import com.university.takharrujy.infrastructure.storage.FileSystemObjectStore;
+import com.university.takharrujy.infrastructure.storage.LocalStorageBackend;
+import com.university.takharrujy.infrastructure.storage.ObjectStorageBackend;
+import com.university.takharrujy.infrastructure.storage.StorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for FileDownloadWriter
+ */
+@DisplayName("File Download Writer Tests")
+class FileDownloadWriterTest {
+
+    private static final String ETAG = "\"9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08\"";
+    private static final Instant LAST_MODIFIED = Instant.parse("2026-10-18T10:15:30Z");
+
+    @TempDir
+    Path tempDir;
+
+    private final FileDownloadWriter writer = new FileDownloadWriter();
+    private byte[] content;
+    private FileDownloadWriter.Download download;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        Files.write(tempDir.resolve("report.pdf"), content);
+        download = new FileDownloadWriter.Download(new LocalStorageBackend(tempDir), "report.pdf", content.length,
+                "application/pdf", "تقرير.pdf", ETAG, LAST_MODIFIED);
+    }
+
+    @Test
+    @DisplayName("Should send the whole file with validators")
+    void shouldSendWholeFile() throws IOException {
+        // When
+        MockHttpServletResponse response = send(new MockHttpServletRequest("GET", "/api/v1/files/1"));
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+        assertThat(response.getContentLengthLong()).isEqualTo(1000);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getDateHeader(HttpHeaders.LAST_MODIFIED)).isEqualTo(LAST_MODIFIED.toEpochMilli());
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).startsWith("attachment;");
+    }
+
+    @Test
+    @DisplayName("Should answer a matching If-None-Match with 304")
+    void shouldReturnNotModifiedForMatchingEtag() throws IOException {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/files/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + ETAG);
+
+        // When
+        MockHttpServletResponse response = send(request);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+    }
+
+    @Test
+    @DisplayName("Should answer If-Modified-Since at or after Last-Modified with 304")
+    void shouldReturnNotModifiedSinceDate() throws IOException {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/files/1");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED.toEpochMilli());
+
+        // When / Then
+        assertThat(send(request).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    @DisplayName("Should send a single range as 206")
+    void shouldSendSingleRange() throws IOException {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/files/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-199");
+
+        // When
+        MockHttpServletResponse response = send(request);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 100-199/1000");
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 100, 200));
+    }
+
+    @Test
+    @DisplayName("Should send the final bytes for a suffix range")
+    void shouldSendSuffixRange() throws IOException {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/files/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=-50");
+
+        // When
+        MockHttpServletResponse response = send(request);
+
+        // Then
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 950-999/1000");
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 950, 1000));
+    }
+
+    @Test
+    @DisplayName("Should send several ranges as multipart/byteranges")
+    void shouldSendMultipartRanges() throws IOException {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/files/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9, 500-509");
+
+        // When
+        MockHttpServletResponse response = send(request);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        String boundary = response.getContentType().substring(response.getContentType().indexOf('=') + 1);
+        String body = response.getContentAsString(StandardCharsets.US_ASCII);
+        assertThat(body)
+                .contains("--" + boundary + "\r\nContent-Type: application/pdf\r\nContent-Range: bytes 0-9/1000\r\n\r\n"
+                        + new String(content, 0, 10, StandardCharsets.US_ASCII))
+                .contains("Content-Range: bytes 500-509/1000\r\n\r\n"
+                        + new String(content, 500, 10, StandardCharsets.US_ASCII))
+                .endsWith("\r\n--" + boundary + "--\r\n");
+        assertThat(response.getContentLengthLong()).isEqualTo(response.getContentAsByteArray().length);
+    }
+
+    @Test
+    @DisplayName("Should reject a range beyond the end of the file with 416")
+    void shouldRejectUnsatisfiableRange() throws IOException {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/files/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2000-");
+
+        // When
+        MockHttpServletResponse response = send(request);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */1000");
+    }
+
+    @Test
+    @DisplayName("Should ignore the range when If-Range names another version")
+    void shouldIgnoreRangeForStaleIfRange() throws IOException {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/files/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+
+        // When
+        MockHttpServletResponse response = send(request);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("Should stream ranges of objects without a local file")
+    void shouldStreamRemoteObject() throws IOException {
+        // Given
+        Path source = tempDir.resolve("upload.tmp");
+        Files.write(source, content);
+        StorageBackend objectStorage = new ObjectStorageBackend(
+                new FileSystemObjectStore(tempDir.resolve("object-store")), 256, 4);
+        objectStorage.store("blobs/report", source);
+        download = new FileDownloadWriter.Download(objectStorage, "blobs/report", content.length,
+                "application/pdf", "report.pdf", ETAG, LAST_MODIFIED);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/files/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=200-699");
+
+        // When
+        MockHttpServletResponse response = send(request);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 200, 700));
+    }
+
+    @Test
+    @DisplayName("Should merge overlapping ranges and ignore too many of them")
+    void shouldMergeAndLimitRanges() {
+        assertThat(FileDownloadWriter.parseRanges("bytes=0-10,5-20,21-30", 1000))
+                .containsExactly(new FileDownloadWriter.Range(0, 30));
+
+        StringBuilder many = new StringBuilder("bytes=");
+        for (int i = 0; i <= FileDownloadWriter.MAX_RANGES; i++) {
+            many.append(i * 10).append('-').append(i * 10 + 1).append(',');
+        }
+        assertThat(FileDownloadWriter.parseRanges(many.toString(), 1000)).isNull();
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(request, response, download);
+        return response;
+    }
+}
@@ -0,0 +1,112 @@
+package com.university.takharrujy.infrastructure.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for ImageThumbnailer
+ */
+@DisplayName("Image Thumbnailer Tests")
+class ImageThumbnailerTest {
+
+    private final ImageThumbnailer thumbnailer = new ImageThumbnailer();
+
+    @Test
+    @DisplayName("Should render every size from one decode, largest first, keeping the aspect ratio")
+    void shouldRenderAllSizes() throws IOException {
+        // Given
+        byte[] source = png(2000, 1000, BufferedImage.TYPE_INT_RGB);
+
+        // When
+        Map<Integer, byte[]> rendered = thumbnailer.render(new ByteArrayInputStream(source), new int[] {64, 640, 160});
+
+        // Then
+        assertThat(rendered.keySet()).containsExactly(640, 160, 64);
+        assertDimensions(rendered.get(640), 640, 320);
+        assertDimensions(rendered.get(160), 160, 80);
+        assertDimensions(rendered.get(64), 64, 32);
+    }
+
+    @Test
+    @DisplayName("Should never enlarge a small image")
+    void shouldNotUpscale() throws IOException {
+        // Given
+        byte[] source = png(100, 150, BufferedImage.TYPE_INT_RGB);
+
+        // When
+        Map<Integer, byte[]> rendered = thumbnailer.render(new ByteArrayInputStream(source), new int[] {64, 320});
+
+        // Then
+        assertDimensions(rendered.get(320), 100, 150);
+        assertDimensions(rendered.get(64), 43, 64);
+    }
+
+    @Test
+    @DisplayName("Should flatten transparency onto white")
+    void shouldFlattenTransparency() throws IOException {
+        // Given - fully transparent image
+        byte[] source = png(50, 50, BufferedImage.TYPE_INT_ARGB);
+
+        // When
+        byte[] jpeg = thumbnailer.render(new ByteArrayInputStream(source), new int[] {64}).get(64);
+
+        // Then
+        Color center = new Color(ImageIO.read(new ByteArrayInputStream(jpeg)).getRGB(25, 25));
+        assertThat(center.getRed()).isGreaterThan(245);
+        assertThat(center.getGreen()).isGreaterThan(245);
+        assertThat(center.getBlue()).isGreaterThan(245);
+    }
+
+    @Test
+    @DisplayName("Should reject content that is not an image")
+    void shouldRejectNonImage() {
+        assertThatThrownBy(() -> thumbnailer.render(
+                new ByteArrayInputStream("%PDF-1.7".getBytes()), new int[] {64}))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Unsupported image format");
+    }
+
+    @Test
+    @DisplayName("Should verify a whole image and reject a truncated one")
+    void shouldVerifyDecodability() throws IOException {
+        // Given
+        byte[] source = png(800, 600, BufferedImage.TYPE_INT_RGB);
+        byte[] truncated = Arrays.copyOf(source, source.length / 2);
+
+        // When / Then
+        assertThatCode(() -> thumbnailer.verify(new ByteArrayInputStream(source))).doesNotThrowAnyException();
+        assertThatThrownBy(() -> thumbnailer.verify(new ByteArrayInputStream(truncated)))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static byte[] png(int width, int height, int type) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, type);
+        if (type == BufferedImage.TYPE_INT_RGB) {
+            Graphics2D g2d = image.createGraphics();
+            g2d.setColor(Color.BLUE);
+            g2d.fillRect(0, 0, width, height);
+            g2d.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static void assertDimensions(byte[] jpeg, int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+        assertThat(image.getWidth()).isEqualTo(width);
+        assertThat(image.getHeight()).isEqualTo(height);
+    }
+}
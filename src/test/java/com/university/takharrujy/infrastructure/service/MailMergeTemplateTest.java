@@ -0,0 +1,56 @@
+package com.university.takharrujy.infrastructure.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for MailMergeTemplate
+ */
+@DisplayName("Mail Merge Template Tests")
+class MailMergeTemplateTest {
+
+    @Test
+    @DisplayName("Should substitute every placeholder occurrence")
+    void shouldSubstitutePlaceholders() {
+        // Given
+        String body = "<p>مرحباً " + MailMergeTemplate.placeholder("userNameAr") + "</p>"
+                + "<a href=\"https://app.takharrujy.tech/verify?token=" + MailMergeTemplate.placeholder("token") + "\">"
+                + MailMergeTemplate.placeholder("token") + "</a>";
+        MailMergeTemplate template = MailMergeTemplate.compile("Subject", body, "verification-reminder", "ar");
+
+        // When
+        String rendered = template.render(Map.of("userNameAr", "أحمد محمد", "token", "abc123"));
+
+        // Then
+        assertThat(rendered).isEqualTo("<p>مرحباً أحمد محمد</p>"
+                + "<a href=\"https://app.takharrujy.tech/verify?token=abc123\">abc123</a>");
+        assertThat(template.getLanguage()).isEqualTo("ar");
+    }
+
+    @Test
+    @DisplayName("Should HTML-escape values and leave missing values empty")
+    void shouldEscapeValues() {
+        // Given
+        MailMergeTemplate template = MailMergeTemplate.compile("Subject",
+                "<p>" + MailMergeTemplate.placeholder("userName") + "|" + MailMergeTemplate.placeholder("token") + "</p>",
+                "verification-reminder", "en");
+
+        // When
+        String rendered = template.render(Map.of("userName", "<script>x</script> & Co"));
+
+        // Then
+        assertThat(rendered).isEqualTo("<p>&lt;script&gt;x&lt;/script&gt; &amp; Co|</p>");
+    }
+
+    @Test
+    @DisplayName("Should render a body without placeholders unchanged")
+    void shouldRenderStaticBody() {
+        MailMergeTemplate template = MailMergeTemplate.compile("Subject", "<p>Static</p>", "t", "en");
+
+        assertThat(template.render(Map.of())).isEqualTo("<p>Static</p>");
+    }
+}
@@ -0,0 +1,138 @@
+package com.university.takharrujy.infrastructure.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for ZipExportWriter
+ */
+@DisplayName("ZIP Export Writer Tests")
+class ZipExportWriterTest {
+
+    private static final Instant UPLOADED_AT = Instant.parse("2025-05-01T10:00:00Z");
+
+    private ZipExportWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new ZipExportWriter();
+        ReflectionTestUtils.setField(writer, "openAhead", 2);
+        ReflectionTestUtils.setField(writer, "openWorkers", 2);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+    }
+
+    @Test
+    @DisplayName("Should stream every entry in order followed by the manifest")
+    void shouldWriteEntriesAndManifest() throws IOException {
+        // Given
+        byte[] pdf = randomBytes(200_000);
+        byte[] text = "minutes of the first meeting\n".repeat(2000).getBytes(StandardCharsets.UTF_8);
+        List<ZipExportWriter.Entry> entries = List.of(
+            entry("files/report.pdf", "application/pdf", pdf),
+            entry("files/notes.txt", "text/plain", text),
+            entry("files/report (2).pdf", "application/pdf", pdf));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<ZipExportWriter.Entry> skipped = writer.write(out, entries, missing -> "{}".getBytes());
+
+        // Then
+        Map<String, byte[]> archive = unzip(out.toByteArray());
+        assertThat(skipped).isEmpty();
+        assertThat(archive.keySet())
+            .containsExactly("files/report.pdf", "files/notes.txt", "files/report (2).pdf", "manifest.json");
+        assertThat(archive.get("files/report.pdf")).isEqualTo(pdf);
+        assertThat(archive.get("files/notes.txt")).isEqualTo(text);
+        assertThat(archive.get("manifest.json")).isEqualTo("{}".getBytes());
+    }
+
+    @Test
+    @DisplayName("Should copy compressed formats without recompressing and deflate the rest")
+    void shouldNotRecompressCompressedFormats() throws IOException {
+        // Given - random bytes do not compress, so level 0 shows as a near copy
+        byte[] image = randomBytes(300_000);
+        byte[] text = "a".repeat(300_000).getBytes(StandardCharsets.UTF_8);
+        List<ZipExportWriter.Entry> entries = List.of(
+            entry("photo.jpg", "image/jpeg", image),
+            entry("log.txt", "text/plain", text));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out, entries, missing -> "{}".getBytes());
+
+        // Then
+        long archiveSize = out.size();
+        assertThat(archiveSize).isBetween((long) image.length, image.length + 20_000L);
+        assertThat(ZipExportWriter.isCompressed("application/vnd.openxmlformats-officedocument.wordprocessingml.document"))
+            .isTrue();
+        assertThat(ZipExportWriter.isCompressed("text/plain")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should leave out files missing from storage and report them to the manifest")
+    void shouldSkipMissingFiles() throws IOException {
+        // Given
+        byte[] content = randomBytes(1000);
+        ZipExportWriter.Entry missing = new ZipExportWriter.Entry("files/gone.pdf", "application/pdf", UPLOADED_AT,
+            () -> {
+                throw new NoSuchFileException("blobs/3/gone");
+            });
+        List<ZipExportWriter.Entry> entries = List.of(entry("files/a.pdf", "application/pdf", content), missing,
+            entry("files/b.pdf", "application/pdf", content));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<ZipExportWriter.Entry> skipped = writer.write(out, entries,
+            left -> String.valueOf(left.size()).getBytes());
+
+        // Then
+        Map<String, byte[]> archive = unzip(out.toByteArray());
+        assertThat(skipped).containsExactly(missing);
+        assertThat(archive.keySet()).containsExactly("files/a.pdf", "files/b.pdf", "manifest.json");
+        assertThat(new String(archive.get("manifest.json"))).isEqualTo("1");
+    }
+
+    private static ZipExportWriter.Entry entry(String name, String contentType, byte[] content) {
+        return new ZipExportWriter.Entry(name, contentType, UPLOADED_AT, () -> new ByteArrayInputStream(content));
+    }
+
+    private static Map<String, byte[]> unzip(byte[] archive) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.put(entry.getName(), in.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
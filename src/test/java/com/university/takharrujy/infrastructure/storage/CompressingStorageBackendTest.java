@@ -0,0 +1,98 @@
+package com.university.takharrujy.infrastructure.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for CompressingStorageBackend, over a local directory
+ */
+@DisplayName("Compressing Storage Backend Tests")
+class CompressingStorageBackendTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalStorageBackend local;
+    private CompressingStorageBackend backend;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        local = new LocalStorageBackend(tempDir.resolve("cold"));
+        backend = new CompressingStorageBackend(local, "cold-local");
+    }
+
+    @Test
+    @DisplayName("Should store .gz keys compressed and read them back as the original bytes")
+    void shouldRoundTripCompressed() throws IOException {
+        // Given
+        byte[] content = text(10_000);
+        Path source = write("report.tmp", content);
+
+        // When
+        backend.store("cold/1/ab/cd/report.gz", source);
+
+        // Then
+        assertThat(source).doesNotExist();
+        assertThat(local.size("cold/1/ab/cd/report.gz")).isLessThan(content.length / 10);
+        assertThat(backend.size("cold/1/ab/cd/report.gz")).isEqualTo(content.length);
+        assertThat(backend.localPath("cold/1/ab/cd/report.gz")).isEmpty();
+        try (InputStream in = backend.open("cold/1/ab/cd/report.gz")) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    @DisplayName("Should read a byte range of a compressed object")
+    void shouldReadRangeOfCompressed() throws IOException {
+        // Given
+        byte[] content = text(50_000);
+        backend.store("cold/1/ab/cd/range.gz", write("range.tmp", content));
+
+        // When
+        byte[] range;
+        try (InputStream in = backend.open("cold/1/ab/cd/range.gz", 12_345, 1_000)) {
+            range = in.readAllBytes();
+        }
+
+        // Then
+        assertThat(range).isEqualTo(Arrays.copyOfRange(content, 12_345, 13_345));
+    }
+
+    @Test
+    @DisplayName("Should pass other keys through unchanged")
+    void shouldPassThroughPlainKeys() throws IOException {
+        // Given
+        byte[] content = text(2_000);
+        backend.store("cold/1/ab/cd/image", write("image.tmp", content));
+
+        // Then
+        assertThat(local.size("cold/1/ab/cd/image")).isEqualTo(content.length);
+        assertThat(backend.localPath("cold/1/ab/cd/image")).isPresent();
+        try (InputStream in = backend.open("cold/1/ab/cd/image", 100, 50)) {
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(content, 100, 150));
+        }
+    }
+
+    private static byte[] text(int length) {
+        StringBuilder text = new StringBuilder(length + 64);
+        for (int line = 0; text.length() < length; line++) {
+            text.append("Line ").append(line).append(" of the graduation project report\n");
+        }
+        return text.substring(0, length).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(tempDir.resolve(name), content);
+    }
+}
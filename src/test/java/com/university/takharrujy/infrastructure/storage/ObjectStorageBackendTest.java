@@ -0,0 +1,165 @@
+package com.university.takharrujy.infrastructure.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for ObjectStorageBackend, run against the file system object store
+ */
+@DisplayName("Object Storage Backend Tests")
+class ObjectStorageBackendTest {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private FileSystemObjectStore objectStore;
+    private ObjectStorageBackend backend;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        objectStore = new FileSystemObjectStore(tempDir.resolve("store"));
+        backend = new ObjectStorageBackend(objectStore, BLOCK_SIZE, 3);
+    }
+
+    @Test
+    @DisplayName("Should upload a small file in one request")
+    void shouldStoreSmallFile() throws IOException {
+        // Given
+        byte[] content = randomBytes(100);
+        Path source = write("small.tmp", content);
+
+        // When
+        backend.store("blobs/3/small", source);
+
+        // Then
+        assertThat(source).doesNotExist();
+        assertThat(backend.size("blobs/3/small")).isEqualTo(100);
+        assertThat(read(backend.open("blobs/3/small"))).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("Should upload a large file as parallel blocks and reassemble it in order")
+    void shouldStoreLargeFileInBlocks() throws IOException {
+        // Given - 20 blocks and a partial last one
+        byte[] content = randomBytes(BLOCK_SIZE * 20 + 17);
+        Path source = write("large.tmp", content);
+
+        // When
+        backend.store("blobs/3/large", source);
+
+        // Then
+        assertThat(source).doesNotExist();
+        assertThat(backend.exists("blobs/3/large")).isTrue();
+        assertThat(read(backend.open("blobs/3/large"))).isEqualTo(content);
+        assertThat(tempDir.resolve("store").resolve("staging")).isEmptyDirectory();
+    }
+
+    @Test
+    @DisplayName("Should stream a range spanning block boundaries")
+    void shouldOpenRange() throws IOException {
+        // Given
+        byte[] content = randomBytes(BLOCK_SIZE * 4);
+        backend.store("blobs/3/ranged", write("ranged.tmp", content));
+
+        // When
+        byte[] range = read(backend.open("blobs/3/ranged", BLOCK_SIZE - 10, BLOCK_SIZE + 20));
+
+        // Then
+        assertThat(range).isEqualTo(Arrays.copyOfRange(content, BLOCK_SIZE - 10, 2 * BLOCK_SIZE + 10));
+    }
+
+    @Test
+    @DisplayName("Should report deleted objects as missing")
+    void shouldDeleteObject() throws IOException {
+        // Given
+        backend.store("blobs/3/gone", write("gone.tmp", randomBytes(10)));
+
+        // When
+        backend.delete("blobs/3/gone");
+        backend.delete("blobs/3/gone");
+
+        // Then
+        assertThat(backend.exists("blobs/3/gone")).isFalse();
+        assertThatThrownBy(() -> backend.open("blobs/3/gone")).isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    @DisplayName("Should discard staged blocks and keep the source when a block fails")
+    void shouldAbortFailedUpload() throws IOException {
+        // Given
+        Path source = write("failing.tmp", randomBytes(BLOCK_SIZE * 5));
+        ObjectStorageBackend failing = new ObjectStorageBackend(new FileSystemObjectStore(tempDir.resolve("store")) {
+            @Override
+            public void stageBlock(String key, int index, Path file, long offset, long length) throws IOException {
+                if (index == 3) {
+                    throw new IOException("connection reset");
+                }
+                super.stageBlock(key, index, file, offset, length);
+            }
+        }, BLOCK_SIZE, 2);
+
+        // When / Then
+        assertThatThrownBy(() -> failing.store("blobs/3/failing", source))
+                .isInstanceOf(IOException.class)
+                .hasMessage("connection reset");
+        assertThat(source).exists();
+        assertThat(failing.exists("blobs/3/failing")).isFalse();
+        assertThat(tempDir.resolve("store").resolve("staging")).isEmptyDirectory();
+    }
+
+    @Test
+    @DisplayName("Should list the objects under a prefix with their sizes, not staged blocks")
+    void shouldListObjectsUnderPrefix() throws IOException {
+        // Given
+        backend.store("blobs/3/ab/cd/first", write("first.tmp", randomBytes(10)));
+        backend.store("blobs/3/ab/ef/second", write("second.tmp", randomBytes(BLOCK_SIZE * 2)));
+        backend.store("blobs/4/ab/cd/other", write("other.tmp", randomBytes(10)));
+        objectStore.stageBlock("blobs/3/ab/cd/staged", 0, write("staged.tmp", randomBytes(10)), 0, 10);
+
+        // When
+        List<StorageBackend.StoredObject> listed = new ArrayList<>();
+        backend.list("blobs/3/", listed::add);
+        List<StorageBackend.StoredObject> missing = new ArrayList<>();
+        backend.list("blobs/9/", missing::add);
+
+        // Then
+        assertThat(listed).extracting(StorageBackend.StoredObject::key)
+                .containsExactlyInAnyOrder("blobs/3/ab/cd/first", "blobs/3/ab/ef/second");
+        assertThat(listed).extracting(StorageBackend.StoredObject::size)
+                .containsExactlyInAnyOrder(10L, (long) BLOCK_SIZE * 2);
+        assertThat(listed).allSatisfy(object -> assertThat(object.lastModified()).isNotNull());
+        assertThat(missing).isEmpty();
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(tempDir.resolve(name), content);
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}